@@ -1,6 +1,5 @@
 package abstraction;
 
-import java.sql.Connection;
 import java.sql.Statement;
 import java.util.*;
 
@@ -15,22 +14,6 @@ public class Branch extends TransactionBlock {
 		this.branches = branches;
 	}
 
-	// Branch对象的深拷贝
-	public Branch(Branch branch) {
-		this.branches = new ArrayList<>();
-		for (int i = 0; i < branch.branches.size(); i++) {
-			this.branches.add(new ArrayList<>());
-			for (int j = 0; j < branch.branches.get(i).size(); j++) {
-				SqlStatement sql = branch.branches.get(i).get(j);
-				if (sql.getClass().getSimpleName().equals("ReadOperation")) {
-					this.branches.get(i).add(new ReadOperation((ReadOperation) sql));
-				} else if (sql.getClass().getSimpleName().equals("WriteOperation")) {
-					this.branches.get(i).add(new WriteOperation((WriteOperation) sql));
-				}
-			}
-		}
-	}
-
 	// branchRatios是分析事务逻辑时顺便统计出来的（operationId2AvgRunTimes）
 	public void setBranchRatios(double[] branchRatios) {
 		this.branchRatios = branchRatios;
@@ -42,17 +25,17 @@ public class Branch extends TransactionBlock {
 	}
 
 	@Override
-	public void prepare(Connection conn) {
+	public void prepare(SessionContext context) {
 		for (List<SqlStatement> branch : branches) {
 			for (SqlStatement sqlStatement : branch) {
-				sqlStatement.prepare(conn);
+				sqlStatement.prepare(context);
 			}
 		}
 	}
 
 	@Override
-	public int execute(Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed){
-		double randomValue = Math.random();
+	public int execute(SessionContext context, Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed){
+		double randomValue = context.getReplayLog().nextDouble(replayKey());
 		if (randomValue > 0.99999999) {
 			randomValue = randomValue - 0.000000001;
 		}
@@ -60,7 +43,9 @@ public class Branch extends TransactionBlock {
 		for (int i = 0; i < cumulativeRatios.length; i++) {
 			if (randomValue < cumulativeRatios[i]) {
 				for (int j = 0; j < branches.get(i).size(); j++) {
-					int flag = branches.get(i).get(j).execute(cardinality4paraInSchema, partitionUsed);
+					SqlStatement sql = branches.get(i).get(j);
+					long startTime = System.nanoTime();
+					int flag = sql.recordOperation(context, startTime, sql.execute(context, cardinality4paraInSchema, partitionUsed));
 					if (flag != 1) {
 						return flag;
 					}
@@ -73,8 +58,8 @@ public class Branch extends TransactionBlock {
 	}
 
 	@Override
-	public int execute(Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed, Statement stmt) {
-		double randomValue = Math.random();
+	public int execute(SessionContext context, Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed, Statement stmt) {
+		double randomValue = context.getReplayLog().nextDouble(replayKey());
 		if (randomValue > 0.99999999) {
 			randomValue = randomValue - 0.000000001;
 		}
@@ -82,7 +67,9 @@ public class Branch extends TransactionBlock {
 		for (int i = 0; i < cumulativeRatios.length; i++) {
 			if (randomValue < cumulativeRatios[i]) {
 				for (int j = 0; j < branches.get(i).size(); j++) {
-					int flag = branches.get(i).get(j).execute(cardinality4paraInSchema, partitionUsed, stmt);
+					SqlStatement sql = branches.get(i).get(j);
+					long startTime = System.nanoTime();
+					int flag = sql.recordOperation(context, startTime, sql.execute(context, cardinality4paraInSchema, partitionUsed, stmt));
 					if (flag != 1) {
 						return flag;
 					}
@@ -94,6 +81,11 @@ public class Branch extends TransactionBlock {
 		return 1;
 	}
 
+	// 分支的随机选择在事务重试时需重放，以第一个分支中第一个SQL操作的operationId区分
+	private int replayKey() {
+		return ReplayLog.decisionKey(ReplayLog.BRANCH, branches.get(0).get(0).getOperationId());
+	}
+
 	public List<List<SqlStatement>> getBranches() {
 		return branches;
 	}
@@ -5,6 +5,7 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import config.Configurations;
+import util.RandomStreams;
 
 // Column中的所有成员在生成数据的过程中不会被修改，故Column对象是可以被多线程共享的
 public class Column implements Serializable, Cloneable {
@@ -52,7 +53,7 @@ public class Column implements Serializable, Cloneable {
 			}
 			seedStrings = new String[Configurations.getSeedStringSize()];
 			for (int i = 0; i < seedStrings.length; i++) {
-				int randomLength = (int)Math.round(Math.random() * (maxLength - minLength)) + minLength;
+				int randomLength = (int)Math.round(RandomStreams.nextDouble() * (maxLength - minLength)) + minLength;
 				seedStrings[i] = geneString(randomLength);
 			}
 		}
@@ -64,7 +65,7 @@ public class Column implements Serializable, Cloneable {
 	private static String geneString(int length) {
 		char[] buffer = new char[length];
 		for (int i = 0; i < length; i++) {
-			buffer[i] = chars[(int)(Math.random() * 62)];
+			buffer[i] = chars[(int)(RandomStreams.nextDouble() * 62)];
 		}
 		return new String(buffer);
 	}
@@ -72,12 +73,12 @@ public class Column implements Serializable, Cloneable {
 	// SimpleDateFormat是非线程安全的，故这里的sdf需由数据生成线程传进来，针对日期类型的输出是格式化的字符串
 	//这里是生成非主键和外键信息
 	public Object geneData(SimpleDateFormat sdf) {
-		if (Math.random() < nullRatio)  {
+		if (RandomStreams.nextDouble() < nullRatio)  {
 			return null;
 		}
 
 		if (dataType <= 4) {
-			int randomIndex = (int)(Math.random() * cardinality);
+			int randomIndex = (int)(RandomStreams.nextDouble() * cardinality);
 			if (dataType == 0) {
 				return (long)(randomIndex * coefficient + para1);
 			} else if (dataType == 1 || dataType == 2) {
@@ -97,7 +98,7 @@ public class Column implements Serializable, Cloneable {
 				// return randomIndex + seedStrings[randomIndex % seedStrings.length];
 			}
 		} else if (dataType == 5) {
-			if (Math.random() < para1) {
+			if (RandomStreams.nextDouble() < para1) {
 				return 1;
 			} else {
 				return 0;
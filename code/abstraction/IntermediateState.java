@@ -0,0 +1,43 @@
+package abstraction;
+
+import java.util.Arrays;
+
+// 一个会话中事务执行过程的中间状态，按事务模板编译得到的槽位存放，槽位上的TxRunningValue对象在会话内重复使用
+// 每个槽位记录写入时的事务轮次，事务开始执行时只需递增轮次即可清空所有槽位
+class IntermediateState {
+
+	private TxRunningValue[] values = new TxRunningValue[0];
+	private int[] epochs = new int[0];
+	private int epoch = 0;
+
+	// 开始执行一个新的事务，slotNum为该事务模板的槽位个数
+	void reset(int slotNum) {
+		if (values.length < slotNum) {
+			int oldLength = values.length;
+			values = Arrays.copyOf(values, slotNum);
+			epochs = Arrays.copyOf(epochs, slotNum);
+			for (int i = oldLength; i < slotNum; i++) {
+				values[i] = new TxRunningValue();
+			}
+		}
+		if (epoch == Integer.MAX_VALUE) {
+			Arrays.fill(epochs, 0);
+			epoch = 0;
+		}
+		epoch++;
+	}
+
+	boolean contains(int slot) {
+		return epochs[slot] == epoch;
+	}
+
+	// 槽位在当前事务中未被写入时返回null
+	TxRunningValue get(int slot) {
+		return epochs[slot] == epoch ? values[slot] : null;
+	}
+
+	void put(int slot, String identifier, Object value, int type) {
+		values[slot].set(identifier, value, type);
+		epochs[slot] = epoch;
+	}
+}
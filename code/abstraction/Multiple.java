@@ -1,7 +1,5 @@
 package abstraction;
 
-import java.sql.Connection;
-import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
 
@@ -18,25 +16,15 @@ public class Multiple extends TransactionBlock {
 	// Value：0表示该参数在multiple的多次执行中保持不变，n表示该参数在multiple中每次执行后单调增n
 	private Map<String, Double> multipleLogicMap = null;
 
+	// 流水线执行时，块内SQL操作的参数都不依赖块内读操作的返回结果集，所有执行次数的SQL操作在一次往返中执行
+	private transient boolean pipelined = false;
+
 	public Multiple(List<SqlStatement> sqls, boolean batchExecute) {
 		super();
 		this.sqls = sqls;
 		this.batchExecute = batchExecute;
 	}
 
-	// Multiple对象深拷贝
-	public Multiple(Multiple multiple) {
-		this.sqls = new ArrayList<>();
-		for (SqlStatement sql : multiple.sqls) {
-			if (sql.getClass().getSimpleName().equals("ReadOperation")) {
-				this.sqls.add(new ReadOperation((ReadOperation) sql));
-			} else if (sql.getClass().getSimpleName().equals("WriteOperation")) {
-				this.sqls.add(new WriteOperation((WriteOperation) sql));
-			}
-		}
-		this.batchExecute = multiple.batchExecute;
-	}
-
 	public boolean isBatchExecute() {
 		return batchExecute;
 	}
@@ -52,22 +40,42 @@ public class Multiple extends TransactionBlock {
 
 	public void setMultipleLogicMap(Map<String, Double> multipleLogicMap) {
 		this.multipleLogicMap = multipleLogicMap;
+		for (SqlStatement sql : sqls) {
+			sql.compileMultipleLogic(multipleLogicMap);
+		}
+	}
+
+	// 由Transaction在启用流水线执行时调用，slotNum为事务中间状态的槽位个数
+	void compilePipeline(int slotNum) {
+		boolean[] resultSlots = new boolean[slotNum];
+		for (SqlStatement sql : sqls) {
+			sql.markResultSlots(resultSlots);
+		}
+		pipelined = true;
+		for (SqlStatement sql : sqls) {
+			if (!sql.isPipelinable() || sql.dependsOnSlots(resultSlots)) {
+				pipelined = false;
+			}
+		}
 	}
 
 	@Override
-	public void prepare(Connection conn) {
+	public void prepare(SessionContext context) {
 		for (SqlStatement sql : sqls) {
-			sql.prepare(conn);
+			sql.prepare(context);
 		}
 	}
 
 	@Override
-	public int execute(Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed){
+	public int execute(SessionContext context, Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed){
+		if (pipelined) {
+			return executePipelined(context, cardinality4paraInSchema, partitionUsed);
+		}
 		//modified by lyqu for debug
 		double decimalPart = avgRunTimes % 1;
 		int runTimes = (int) avgRunTimes;
 
-		if (Math.random() < decimalPart) {
+		if (context.getReplayLog().nextDouble(replayKey()) < decimalPart) {
 			runTimes += 1;
 		}
 //		int runTimes = 10;
@@ -76,14 +84,18 @@ public class Multiple extends TransactionBlock {
 		for (int i = 0; i < runTimes; i++) {
 			if (i == 0) { // multiple块内操作的第一次执行，无需考虑multiple逻辑
 				for (SqlStatement sql : sqls) {
-					int flag = sql.execute(cardinality4paraInSchema, partitionUsed);
+					long startTime = System.nanoTime();
+					int flag = sql.execute(context, cardinality4paraInSchema, partitionUsed);
+					recordOperation(context, sql, startTime, flag);
 					if (flag != 1) {
 						return flag;
 					}
 				}
 			} else { // 非第一次执行，此时块内操作的执行需考虑multiple逻辑
 				for (SqlStatement sql : sqls) {
-					int flag = sql.execute(cardinality4paraInSchema, partitionUsed, multipleLogicMap, i);
+					long startTime = System.nanoTime();
+					int flag = sql.execute(context, cardinality4paraInSchema, partitionUsed, i);
+					recordOperation(context, sql, startTime, flag);
 					if (flag != 1) {
 						return flag;
 					}
@@ -98,22 +110,16 @@ public class Multiple extends TransactionBlock {
 			for (int i = 0; i < sqls.size(); i++) {
 				if (sqls.get(i).getClass().getSimpleName().equals("WriteOperation")) {
 //					System.out.println("*************** I am in IF WriteOperation *********************");
-					int flag = ((WriteOperation) sqls.get(i)).executeBatch();
-					try {
-						sqls.get(i).pstmt.clearBatch();
-					} catch (SQLException e) {
-						e.printStackTrace();
-					}
+					long startTime = System.nanoTime();
+					WriteOperation writeOperation = (WriteOperation) sqls.get(i);
+					int flag = writeOperation.recordOperation(context, startTime, writeOperation.executeBatch(context));
+					writeOperation.clearBatch(context);
 					if (flag != 1) {
 
 						// bug fix: clearBatch
 						for (SqlStatement sql : sqls) {
 							if (sql.getClass().getSimpleName().equals("WriteOperation")) {
-								try {
-									sql.pstmt.clearBatch();
-								} catch (SQLException e) {
-									e.printStackTrace();
-								}
+								((WriteOperation) sql).clearBatch(context);
 							}
 						} // --------
 
@@ -127,7 +133,10 @@ public class Multiple extends TransactionBlock {
 	}
 
 	@Override
-	public int execute(Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed, Statement stmt) {
+	public int execute(SessionContext context, Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed, Statement stmt) {
+		if (pipelined) {
+			return executePipelined(context, cardinality4paraInSchema, partitionUsed);
+		}
 		double decimalPart = avgRunTimes % 1;
 		//modified by lyqu
 //		System.out.println("2222");
@@ -135,21 +144,24 @@ public class Multiple extends TransactionBlock {
 		int runTimes = (int) avgRunTimes;
 		//-----------
 
-		if (Math.random() < decimalPart) {
+		if (context.getReplayLog().nextDouble(replayKey()) < decimalPart) {
 			runTimes += 1;
 		}
 
 		for (int i = 0; i < runTimes; i++) {
 			if (i == 0) {
 				for (SqlStatement sql : sqls) {
-					int flag = sql.execute(cardinality4paraInSchema, partitionUsed, stmt);
+					long startTime = System.nanoTime();
+					int flag = sql.recordOperation(context, startTime, sql.execute(context, cardinality4paraInSchema, partitionUsed, stmt));
 					if (flag != 1) {
 						return flag;
 					}
 				}
 			} else {
 				for (SqlStatement sql : sqls) {
-					int flag = sql.execute(cardinality4paraInSchema, partitionUsed, stmt, multipleLogicMap, i);
+					long startTime = System.nanoTime();
+					int flag = sql.recordOperation(context, startTime,
+							sql.execute(context, cardinality4paraInSchema, partitionUsed, stmt, i));
 					if (flag != 1) {
 						return flag;
 					}
@@ -160,6 +172,42 @@ public class Multiple extends TransactionBlock {
 		return 1;
 	}
 
+	// 流水线执行：按multiple逻辑生成所有执行次数的参数，拼成一个多语句请求后执行（此时不再使用批处理）
+	private int executePipelined(SessionContext context, Map<String, Integer> cardinality4paraInSchema,
+			Map<String, Map<Object, List<Object>>> partitionUsed) {
+		double decimalPart = avgRunTimes % 1;
+		int runTimes = (int) avgRunTimes;
+		if (context.getReplayLog().nextDouble(replayKey()) < decimalPart) {
+			runTimes += 1;
+		}
+
+		StatementPipeline pipeline = context.getStatementPipeline();
+		try {
+			for (int i = 0; i < runTimes; i++) {
+				for (SqlStatement sql : sqls) {
+					pipeline.add(context, sql, cardinality4paraInSchema, partitionUsed, i);
+				}
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			pipeline.clear();
+			return 0;
+		}
+		return pipeline.execute(context);
+	}
+
+	// 批处理执行时，写操作的addBatch只是在客户端缓存参数，其时延在executeBatch时按整个批次记录
+	private void recordOperation(SessionContext context, SqlStatement sql, long startTime, int flag) {
+		if (!batchExecute || !(sql instanceof WriteOperation) || flag != 1) {
+			sql.recordOperation(context, startTime, flag);
+		}
+	}
+
+	// 执行次数的随机选择在事务重试时需重放，以块内第一个SQL操作的operationId区分
+	private int replayKey() {
+		return ReplayLog.decisionKey(ReplayLog.MULTIPLE, sqls.get(0).getOperationId());
+	}
+
 	public List<SqlStatement> getSqls() {
 		return sqls;
 	}
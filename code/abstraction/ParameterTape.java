@@ -0,0 +1,91 @@
+package abstraction;
+
+import java.util.SplittableRandom;
+
+import accessdistribution.DataAccessDistribution;
+import util.RandomStreams;
+
+/**
+ * SQL参数的预生成带（单生产者单消费者的有界环形缓冲区），每个SqlStatement对象的每个参数各有一条
+ * 生产者线程（ParameterTapeProducer）提前根据数据访问分布生成参数值写入，负载生成线程执行事务时直接取出，
+ * 从而把数据访问分布的采样从事务的计时区间中移出。依赖于事务运行时结果的参数（等于、包含、线性依赖等）仍在执行时确定。
+ * 每个参数值都记录了生成它的数据访问分布，时间窗口切换后由旧分布生成的参数值会被丢弃；参数带为空时退化为直接生成。
+ * 每条参数带有自己的随机数流（由所属会话、SQL和参数的编号确定），预生成的参数值序列与生产者服务各参数带的先后次序无关。
+ */
+public class ParameterTape {
+
+	private Object[] values = null;
+	private DataAccessDistribution[] sources = null;
+	private int mask;
+
+	// 生产者的写入位置与消费者的读取位置，均单调递增
+	private volatile long writeIndex = 0;
+	private volatile long readIndex = 0;
+
+	// 消费者当前使用的数据访问分布，生产者据此生成参数
+	private volatile DataAccessDistribution requestedSource = null;
+
+	// 生产者填充本参数带时使用的随机数流
+	private SplittableRandom stream = null;
+	// 消费者取出参数值或切换数据访问分布后的回调，用于唤醒因所有参数带都已填满而阻塞的生产者
+	private Runnable onConsume = null;
+
+	public ParameterTape(int capacity, SplittableRandom stream, Runnable onConsume) {
+		super();
+		this.stream = stream;
+		this.onConsume = onConsume;
+		// 容量取不小于capacity的2的幂，以便用位运算定位槽位
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		values = new Object[size];
+		sources = new DataAccessDistribution[size];
+		mask = size - 1;
+	}
+
+	// 消费者（负载生成线程）调用：取出一个由source生成的参数值，没有可用的预生成值时直接由source生成
+	public Object next(DataAccessDistribution source) {
+		if (requestedSource != source) {
+			requestedSource = source;
+		}
+		long read = readIndex;
+		long write = writeIndex;
+		while (read < write) {
+			int slot = (int) (read & mask);
+			Object value = values[slot];
+			DataAccessDistribution valueSource = sources[slot];
+			read++;
+			if (valueSource == source) {
+				readIndex = read;
+				onConsume.run();
+				return value;
+			}
+		}
+		readIndex = read;
+		onConsume.run();
+		return source.geneValue();
+	}
+
+	// 生产者调用：将参数带填满，返回本次生成的参数值个数
+	public int fill() {
+		DataAccessDistribution source = requestedSource;
+		if (source == null) {
+			return 0;
+		}
+		long write = writeIndex;
+		long limit = readIndex + values.length;
+		int count = 0;
+		if (write < limit) {
+			RandomStreams.use(stream);
+		}
+		while (write < limit) {
+			int slot = (int) (write & mask);
+			values[slot] = source.geneValue();
+			sources[slot] = source;
+			write++;
+			count++;
+		}
+		if (count > 0) {
+			writeIndex = write;
+		}
+		return count;
+	}
+}
@@ -1,9 +1,11 @@
 package abstraction;
 
 import java.sql.ResultSet;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.*;
 
 import accessdistribution.DataAccessDistribution;
@@ -18,6 +20,10 @@ public class ReadOperation extends SqlStatement {
 	// tableName@columnName
 	private List<String> paraSchemaInfos = new ArrayList<>();
 
+	// 各返回项的标识符及其在中间状态中的槽位，在模板初始化时分配
+	private transient String[] resultIdentifiers = null;
+	private transient int[] resultSlots = null;
+
 	public ReadOperation(int operationId, String sql, int[] paraDataTypes, DistributionTypeInfo[] paraDistTypeInfos,List<String> paraSchemaInfos,
 			String[] returnItems, int[] returnDataTypes, boolean filterPrimaryKey) {
 		super();
@@ -31,9 +37,7 @@ public class ReadOperation extends SqlStatement {
 		this.returnDataTypes = returnDataTypes;
 		this.filterPrimaryKey = filterPrimaryKey;
 		
-		windowParaGenerators = new DataAccessDistribution[paraDataTypes == null ? 0 : paraDataTypes.length];
 		fullLifeCycleParaGenerators = new DataAccessDistribution[paraDataTypes == null ? 0 : paraDataTypes.length];
-//		sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 	}
 
 	//added by lyqu，针对没有谓词，即where后面 的情况
@@ -48,48 +52,31 @@ public class ReadOperation extends SqlStatement {
 		this.returnDataTypes = returnDataTypes;
 		this.filterPrimaryKey = false;
 
-		windowParaGenerators = null;
 		fullLifeCycleParaGenerators = null;
-//		sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 	}
 	//---
 
 
 
-	// 深拷贝主要是为了保证 数据库执行器 不被覆盖
-	public ReadOperation(ReadOperation readOperation) {
-		super();
-		// 这些成员都是只读的
-		this.operationId = readOperation.operationId;
-		this.sql = readOperation.sql;
-		this.paraDataTypes = readOperation.paraDataTypes;
-		this.paraDistTypeInfos = readOperation.paraDistTypeInfos;
-		this.returnItems = readOperation.returnItems;
-		this.returnDataTypes = readOperation.returnDataTypes;
-		this.filterPrimaryKey = readOperation.filterPrimaryKey;
-
-		if (readOperation.paraSchemaInfos != null)
-			this.paraSchemaInfos = new ArrayList<>(readOperation.paraSchemaInfos);
-
-		windowParaGenerators = new DataAccessDistribution[paraDataTypes == null ? 0 : paraDataTypes.length];
-		fullLifeCycleParaGenerators = new DataAccessDistribution[paraDataTypes == null ? 0 : paraDataTypes.length];
-//		sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-	}
-
 	@Override
-	public int execute(Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed) {
+	public int execute(SessionContext context, Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed) {
+		PreparedStatement pstmt = context.getPreparedStatement(statementId);
 //		long startTime = System.currentTimeMillis();
 		try {
+			long geneStartTime = System.nanoTime();
 
 			Map<String, Map<Object,Integer>> usedPartitionSize = getUsedPartitionSize(partitionUsed);
 
 			for (int i = 0; i < paraDataTypes.length; i++) {
-//				Object para = geneParameter(i);
+				if (bindDirectly(context, pstmt, i, this.paraSchemaInfos.get(i), cardinality4paraInSchema)) {
+					continue;
+				}
+//				Object para = geneParameter(context, i);
 //				System.out.println("**************");
 //				System.out.println(para+" "+para.getClass());
 //				System.out.println(paraDataTypes[i]);
 //				System.out.println("**************");
-				Object parameter = checkParaOutOfCardinality(
+				Object parameter = checkParaOutOfCardinality(context,
 						i,
 						this.paraSchemaInfos.get(i),
 						cardinality4paraInSchema,
@@ -97,22 +84,23 @@ public class ReadOperation extends SqlStatement {
 				);
 
 
-				setParameter(i + 1, paraDataTypes[i], parameter);
+				setParameter(pstmt, i + 1, paraDataTypes[i], parameter);
 			}
 //			long endTime = System.currentTimeMillis();
 //			LaucaTestingEnv.geneTime += endTime - startTime;
 //			long startTime1 = System.currentTimeMillis();
+			recordGeneration(context, geneStartTime);
 			ResultSet rs = pstmt.executeQuery();
 //			long endTime1 = System.currentTimeMillis();
 //			LaucaTestingEnv.updateTime += endTime1 - startTime1;
-			saveResultSet(rs);
+			saveResultSet(context, rs);
 
 			getDiffUsedPartitionSize(usedPartitionSize, partitionUsed);
 
 			return 1;
 		} catch (Exception e) {
-			if (e instanceof  SQLException) {
-				return -1;
+			if (e instanceof SQLException) {
+				return isTransactionAborted((SQLException) e) ? -1 : 0;
 			}
 			System.out.println("bbbbbbb"+pstmt.toString());
 			e.printStackTrace();
@@ -125,28 +113,30 @@ public class ReadOperation extends SqlStatement {
 
 
 	@Override
-	public int execute(Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed, Statement stmt) {
+	public int execute(SessionContext context, Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed, Statement stmt) {
 		try {
+			long geneStartTime = System.nanoTime();
 			Map<String, Map<Object,Integer>> usedPartitionSize = getUsedPartitionSize(partitionUsed);
 
 			String tmp = sql;
 			for (int i = 0; i < paraDataTypes.length; i++) {
-				Object parameter = geneParameter(i);
+				Object parameter = geneParameter(context, i);
 				if (paraDataTypes[i] == 3) {
-					tmp = tmp.replaceFirst("\\?", " '" + sdf.format(new Date((Long)parameter)) + "' ");
+					tmp = tmp.replaceFirst("\\?", " '" + dateFormatter.format(Instant.ofEpochMilli((Long) parameter)) + "' ");
 				} else if (paraDataTypes[i] == 4) {
 					tmp = tmp.replaceFirst("\\?", " '" + parameter.toString() + "' ");
 				} else {
 					tmp = tmp.replaceFirst("\\?", " " + parameter.toString() + " ");
 				}
 			}
+			recordGeneration(context, geneStartTime);
 			ResultSet rs = stmt.executeQuery(tmp);
-			saveResultSet(rs);
+			saveResultSet(context, rs);
 			getDiffUsedPartitionSize(usedPartitionSize, partitionUsed);
 			return 1;
 		} catch (SQLException e) {
 //			e.printStackTrace();
-			if (e.getMessage().contains("Deadlock")) {
+			if (isTransactionAborted(e)) {
 				return -1;
 			}
 //			System.err.println("ERROR!!!");
@@ -155,45 +145,51 @@ public class ReadOperation extends SqlStatement {
 	}
 
 	@Override
-	public int execute(Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed,
-					   Map<String, Double> multipleLogicMap, int round) {
+	public int execute(SessionContext context, Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed,
+					   int round) {
+		PreparedStatement pstmt = context.getPreparedStatement(statementId);
 //		long startTime = System.currentTimeMillis();
 //		System.out.println("照例说Read操作肯定会走这里，但这里是指multiple的事务逻辑");
 		try {
+			long geneStartTime = System.nanoTime();
 			Map<String, Map<Object,Integer>> usedPartitionSize = getUsedPartitionSize(partitionUsed);
 			for (int i = 0; i < paraDataTypes.length; i++) {
-				Object parameter = checkParaOutOfCardinality(i,
-						geneParameterByMultipleLogic(i, multipleLogicMap, round),
+				if (bindDirectly(context, pstmt, i, this.paraSchemaInfos.get(i), cardinality4paraInSchema)) {
+					continue;
+				}
+				Object parameter = checkParaOutOfCardinality(context, i,
+						geneParameterByMultipleLogic(context, i, round),
 						this.paraSchemaInfos.get(i),
 						cardinality4paraInSchema,
 						partitionUsed
 				);
 				while (parameter == null){
-					parameter = checkParaOutOfCardinality(i,
-							geneParameterByMultipleLogic(i, multipleLogicMap, round),
+					parameter = checkParaOutOfCardinality(context, i,
+							geneParameterByMultipleLogic(context, i, round),
 							this.paraSchemaInfos.get(i),
 							cardinality4paraInSchema,
 							partitionUsed
 					);
 				}
 
-				setParameter(i + 1, paraDataTypes[i], parameter);
+				setParameter(pstmt, i + 1, paraDataTypes[i], parameter);
 			}
 
 //			long endTime = System.currentTimeMillis();
 //			LaucaTestingEnv.geneTime += endTime - startTime;
 //			long startTime1 = System.currentTimeMillis();
+			recordGeneration(context, geneStartTime);
 			ResultSet rs = pstmt.executeQuery();
 //			System.out.println(sql+" : save了");
-			saveResultSet(rs);
+			saveResultSet(context, rs);
 
 //			long endTime1 = System.currentTimeMillis();
 //			LaucaTestingEnv.updateTime += endTime1 - startTime1;
 			getDiffUsedPartitionSize(usedPartitionSize, partitionUsed);
 			return 1;
 		} catch (Exception e) {
-			if ( e instanceof SQLException) {
-				return -1;
+			if (e instanceof SQLException) {
+				return isTransactionAborted((SQLException) e) ? -1 : 0;
 			}
 			e.printStackTrace();
 			return 0;
@@ -201,28 +197,30 @@ public class ReadOperation extends SqlStatement {
 	}
 
 	@Override
-	public int execute(Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed,
-					   Statement stmt, Map<String, Double> multipleLogicMap, int round) {
+	public int execute(SessionContext context, Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed,
+					   Statement stmt, int round) {
 		try {
+			long geneStartTime = System.nanoTime();
 			Map<String, Map<Object,Integer>> usedPartitionSize = getUsedPartitionSize(partitionUsed);
 			String tmp = sql;
 			for (int i = 0; i < paraDataTypes.length; i++) {
-				Object parameter = geneParameterByMultipleLogic(i, multipleLogicMap, round);
+				Object parameter = geneParameterByMultipleLogic(context, i, round);
 				if (paraDataTypes[i] == 3) {
-					tmp = tmp.replaceFirst("\\?", " '" + sdf.format(new Date((Long)parameter)) + "' ");
+					tmp = tmp.replaceFirst("\\?", " '" + dateFormatter.format(Instant.ofEpochMilli((Long) parameter)) + "' ");
 				} else if (paraDataTypes[i] == 4) {
 					tmp = tmp.replaceFirst("\\?", " '" + parameter.toString() + "' ");
 				} else {
 					tmp = tmp.replaceFirst("\\?", " " + parameter.toString() + " ");
 				}
 			}
+			recordGeneration(context, geneStartTime);
 			ResultSet rs = stmt.executeQuery(tmp);
-			saveResultSet(rs);
+			saveResultSet(context, rs);
 			getDiffUsedPartitionSize(usedPartitionSize, partitionUsed);
 			return 1;
 		} catch (SQLException e) {
 //			e.printStackTrace();
-			if (e.getMessage().contains("Deadlock")) {
+			if (isTransactionAborted(e)) {
 				return -1;
 			}
 //			System.err.println("ERROR!!!");
@@ -241,7 +239,26 @@ public class ReadOperation extends SqlStatement {
 		return paraId2Name;
 	}
 
-	private void saveResultSet(ResultSet rs) throws SQLException {
+	@Override
+	void registerSlots(Map<String, Integer> identifier2Slot) {
+		super.registerSlots(identifier2Slot);
+		resultIdentifiers = new String[returnItems.length];
+		resultSlots = new int[returnItems.length];
+		for (int i = 0; i < returnItems.length; i++) {
+			resultIdentifiers[i] = operationId + "_result_" + i;
+			resultSlots[i] = slotOf(identifier2Slot, resultIdentifiers[i]);
+		}
+	}
+
+	@Override
+	void markResultSlots(boolean[] slots) {
+		for (int slot : resultSlots) {
+			slots[slot] = true;
+		}
+	}
+
+	void saveResultSet(SessionContext context, ResultSet rs) throws SQLException {
+		IntermediateState intermediateState = context.getIntermediateState();
 		// 先把整个ResultSet中的数据取出来
 		List<Object[]> resultList = new ArrayList<>();
 		while (rs.next()) {
@@ -255,7 +272,7 @@ public class ReadOperation extends SqlStatement {
 
 		for (int i = 0; i < returnItems.length; i++) { // 针对每个返回项依次进行处理
 			// 当前返回项的标识符
-			String identifier = operationId + "_result_" + i;
+			String identifier = resultIdentifiers[i];
 			// 当前返回项的所有数据 -- 利用数组是考虑到返回结果集中可能含有多个tuple
 //			System.out.println("看一下1_result_0是否被保存起来了");
 //			System.out.println(identifier);
@@ -265,11 +282,11 @@ public class ReadOperation extends SqlStatement {
 			}
 
 			if (values.length == 0) {
-				intermediateState.put(identifier, new TxRunningValue(identifier, null, returnDataTypes[i]));
+				intermediateState.put(resultSlots[i], identifier, null, returnDataTypes[i]);
 			} else if (values.length == 1) {
-				intermediateState.put(identifier, new TxRunningValue(identifier, values[0], returnDataTypes[i]));
+				intermediateState.put(resultSlots[i], identifier, values[0], returnDataTypes[i]);
 			} else {
-				intermediateState.put(identifier, new TxRunningValue(identifier, values, returnDataTypes[i] + 6));
+				intermediateState.put(resultSlots[i], identifier, values, returnDataTypes[i] + 6);
 			}
 		}
 	}
@@ -0,0 +1,112 @@
+package abstraction;
+
+import java.util.Arrays;
+
+import util.AliasTable;
+import util.RandomStreams;
+
+// 一个会话中当前事务执行过程中生成的参数以及各项随机选择（执行次数、分支、主动回滚等）的记录，启用事务重试时使用
+// 首次执行时按顺序记录，重试时按顺序重放，使重试的事务与首次执行的事务完全一致而不是重新采样。每条记录都带有产生它的位置
+// （参数的槽位或者随机选择的位置），重试的执行路径与记录不一致时（如读到的数据不同）丢弃剩余的记录，之后重新生成并记录
+class ReplayLog {
+
+	// 随机选择的类别
+	static final int CARDINALITY = 1;
+	static final int ROLLBACK = 2;
+	static final int MULTIPLE = 3;
+	static final int BRANCH = 4;
+	static final int PARTITION = 5;
+
+	private boolean enabled;
+	private int[] keys = new int[64];
+	private Object[] values = new Object[64];
+	private int size = 0;
+	private int cursor = 0;
+
+	ReplayLog(boolean enabled) {
+		super();
+		this.enabled = enabled;
+	}
+
+	// 随机选择的位置为负数，以便与参数的槽位区分。index为事务中的下标（如块的下标、operationId、槽位）
+	static int decisionKey(int type, int index) {
+		return -((type << 24) + index + 1);
+	}
+
+	boolean isEnabled() {
+		return enabled;
+	}
+
+	// 开始执行一个新的事务
+	void clear() {
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+		cursor = 0;
+	}
+
+	// 重试事务，从头开始重放
+	void rewind() {
+		cursor = 0;
+	}
+
+	// 返回key位置上待重放的值，没有可重放的记录时返回null
+	Object replay(int key) {
+		if (cursor < size && keys[cursor] == key) {
+			return values[cursor++];
+		}
+		// 执行路径与记录不一致，丢弃剩余的记录
+		size = cursor;
+		return null;
+	}
+
+	void record(int key, Object value) {
+		if (!enabled) {
+			return;
+		}
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			values = Arrays.copyOf(values, size * 2);
+		}
+		keys[size] = key;
+		values[size] = value;
+		size++;
+		cursor = size;
+	}
+
+	// 可重放的RandomStreams.nextDouble()
+	double nextDouble(int key) {
+		Object value = replay(key);
+		if (value != null) {
+			return (Double) value;
+		}
+		double randomValue = RandomStreams.nextDouble();
+		record(key, randomValue);
+		return randomValue;
+	}
+
+	// 可重放的RandomStreams.nextInt(bound)，重放的值超出范围时重新生成
+	int nextInt(int key, int bound) {
+		Object value = replay(key);
+		if (value != null) {
+			if ((Integer) value < bound) {
+				return (Integer) value;
+			}
+			cursor--;
+			size = cursor;
+		}
+		int randomValue = RandomStreams.nextInt(bound);
+		record(key, randomValue);
+		return randomValue;
+	}
+
+	// 可重放的别名表抽样
+	int sample(int key, AliasTable aliasTable) {
+		Object value = replay(key);
+		if (value != null) {
+			return (Integer) value;
+		}
+		int index = aliasTable.sample();
+		record(key, index);
+		return index;
+	}
+}
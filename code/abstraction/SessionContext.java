@@ -0,0 +1,108 @@
+package abstraction;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import config.Configurations;
+import workloadgenerator.LatencyRecorder;
+
+/**
+ * 一个测试会话执行事务时的上下文，同一时刻只会被一个线程访问
+ * 负载中的事务、SQL操作对象是所有会话共享的只读模板（SQL语句、参数类型、事务逻辑信息等），
+ * 会话独有的状态都放在这里：数据库连接及其上的预编译语句、事务执行过程中的中间状态、时延记录器、参数预生成带、流水线执行的请求缓冲、事务重试的重放记录以及当前时间窗口的快照。
+ * 预编译语句和参数带按SqlStatement的statementId（由Workload在模板初始化时分配）下标存放。
+ */
+public class SessionContext {
+
+	private Connection conn = null;
+	// 非预编译执行时使用
+	private Statement stmt = null;
+	private PreparedStatement[] preparedStatements = null;
+
+	// 记录当前事务执行过程中的中间状态，如返回结果集以及根据数据分布生成的SQL参数值，每个事务开始执行时清空
+	private IntermediateState intermediateState = new IntermediateState();
+
+	// 按事务模板、按SQL操作细分时延统计所用的记录器（可能为null）
+	private LatencyRecorder latencyRecorder = null;
+
+	// 各SQL操作各参数的预生成带（parameterTapeSize大于0时启用），为null时参数均在执行时直接生成
+	private ParameterTape[][] parameterTapes = null;
+
+	// 当前所处时间窗口的负载快照，切换时间窗口时只需替换该引用
+	private WindowSnapshot windowSnapshot = null;
+
+	// 流水线执行时待发送的多语句请求，使用非预编译执行的Statement发送
+	private StatementPipeline statementPipeline = new StatementPipeline();
+
+	// 事务执行过程中生成的参数及随机选择的记录，启用事务重试时用于重放
+	private ReplayLog replayLog = new ReplayLog(Configurations.getTransactionRetryNum() > 0);
+
+	// statementNum为负载中SqlStatement对象的个数
+	public SessionContext(Connection conn, int statementNum) {
+		super();
+		this.conn = conn;
+		this.preparedStatements = new PreparedStatement[statementNum];
+	}
+
+	public Connection getConnection() {
+		return conn;
+	}
+
+	public Statement getStatement() {
+		return stmt;
+	}
+
+	// 创建非预编译执行所用的Statement，已创建时不再重复创建
+	public void createStatement() throws SQLException {
+		if (stmt == null) {
+			stmt = conn.createStatement();
+		}
+	}
+
+	public PreparedStatement getPreparedStatement(int statementId) {
+		return preparedStatements[statementId];
+	}
+
+	public void setPreparedStatement(int statementId, PreparedStatement pstmt) {
+		preparedStatements[statementId] = pstmt;
+	}
+
+	IntermediateState getIntermediateState() {
+		return intermediateState;
+	}
+
+	StatementPipeline getStatementPipeline() {
+		return statementPipeline;
+	}
+
+	ReplayLog getReplayLog() {
+		return replayLog;
+	}
+
+	public LatencyRecorder getLatencyRecorder() {
+		return latencyRecorder;
+	}
+
+	public void setLatencyRecorder(LatencyRecorder latencyRecorder) {
+		this.latencyRecorder = latencyRecorder;
+	}
+
+	// 返回指定SQL操作各参数的预生成带，未启用时返回null
+	public ParameterTape[] getParameterTapes(int statementId) {
+		return parameterTapes == null ? null : parameterTapes[statementId];
+	}
+
+	public void setParameterTapes(ParameterTape[][] parameterTapes) {
+		this.parameterTapes = parameterTapes;
+	}
+
+	public WindowSnapshot getWindowSnapshot() {
+		return windowSnapshot;
+	}
+
+	public void setWindowSnapshot(WindowSnapshot windowSnapshot) {
+		this.windowSnapshot = windowSnapshot;
+	}
+}
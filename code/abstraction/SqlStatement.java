@@ -1,12 +1,13 @@
 package abstraction;
 
 import java.math.BigDecimal;
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 import accessdistribution.DataAccessDistribution;
@@ -15,14 +16,19 @@ import accessdistribution.IntegerParaDistribution;
 import config.Configurations;
 import transactionlogic.ParameterDependency;
 import transactionlogic.ParameterNode;
+import workloadgenerator.LatencyRecorder;
 import workloadgenerator.Stats;
+import util.RandomStreams;
 
 public abstract class SqlStatement extends TransactionBlock {
 
 	public int operationId;
 
 	public String sql = null;
-	protected PreparedStatement pstmt = null;
+	// 在负载中的编号（从0开始），会话中的预编译语句、参数预生成带按该编号存放，由Workload在模板初始化时分配
+	protected transient int statementId;
+	// 所属事务模板在Workload中的下标
+	protected transient int txIndex;
 
 	protected int[] paraDataTypes = null;
 
@@ -30,25 +36,321 @@ public abstract class SqlStatement extends TransactionBlock {
 	protected DistributionTypeInfo[] paraDistTypeInfos = null;
 
 	// 当一个参数的值不能依据事务逻辑确定时需根据数据访问分布随机生成，优先使用当前时间窗口的数据访问分布
-	// 当前时间窗口SQL参数的数据分布
-	protected DataAccessDistribution[] windowParaGenerators = null;
+	// 当前时间窗口SQL参数的数据分布从会话上下文中的时间窗口快照读取，见getWindowParaGenerator
 	// 全负载周期SQL参数的数据分布
 	protected DataAccessDistribution[] fullLifeCycleParaGenerators = null;
 
-	// 非预编译执行时，需要将日期类型属性转化为固定形式
-	protected static SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+	// 绑定decimal参数时用到的10的幂，以及double能精确表示的整数范围（2^53）
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+			1e13, 1e14, 1e15, 1e16, 1e17 };
+	private static final double MAX_EXACT_DOUBLE = 9007199254740992.0;
+
+	// 非预编译执行时，需要将日期类型属性转化为固定形式。DateTimeFormatter是线程安全的，可以在所有会话间共享
+	protected static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+			.withZone(ZoneId.systemDefault());
+
+	// 下面这些属性由Transaction在模板初始化时编译得到：参数标识符、参数在中间状态中的槽位以及参数的事务逻辑信息，
+	// 依赖项也都转换成了槽位，以免在生成每个参数时拼接标识符字符串、查找哈希表
+	protected transient String[] paraIdentifiers = null;
+	protected transient int[] paraSlots = null;
+	protected transient ParameterNode[] paraNodes = null;
+	// identicalIds中第一个参数的槽位，当前参数就是第一个参数（或identicalIds中只有一个参数）时为-1
+	protected transient int[] identicalSlots = null;
+	// 与ParameterNode中线性依赖关系、等于/包含依赖关系一一对应的槽位
+	protected transient int[][] linearDependencySlots = null;
+	protected transient int[][] dependencySlots = null;
+	// Multiple块内非第一次执行时参数的单调增量，NaN表示该参数没有multiple逻辑；不在Multiple块内时为null
+	protected transient double[] multipleIncrements = null;
+	// 可直接按基本类型生成并绑定的参数：没有事务逻辑信息、其值也不被其他参数依赖（无需保存到中间状态）的数值型参数
+	protected transient boolean[] directBindings = null;
+	// 流水线执行时SQL语句按占位符'?'切分得到的片段，参数以字面量的形式拼接在片段之间
+	protected transient String[] sqlPieces = null;
 
 	@Override
-	public void prepare(Connection conn) {
+	public void prepare(SessionContext context) {
 		try {
-			pstmt = conn.prepareStatement(sql);
+			context.setPreparedStatement(statementId, context.getConnection().prepareStatement(sql));
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
 	}
 
+	public void setStatementId(int statementId, int txIndex) {
+		this.statementId = statementId;
+		this.txIndex = txIndex;
+	}
+
+	public int getStatementId() {
+		return statementId;
+	}
+
+	// 为当前SQL操作的所有参数（以及返回结果集）分配中间状态的槽位
+	void registerSlots(Map<String, Integer> identifier2Slot) {
+		int paraNum = paraDataTypes == null ? 0 : paraDataTypes.length;
+		paraIdentifiers = new String[paraNum];
+		paraSlots = new int[paraNum];
+		for (int i = 0; i < paraNum; i++) {
+			paraIdentifiers[i] = operationId + "_para_" + i;
+			paraSlots[i] = slotOf(identifier2Slot, paraIdentifiers[i]);
+		}
+		sqlPieces = sql.split("\\?", -1);
+	}
+
+	static int slotOf(Map<String, Integer> identifier2Slot, String identifier) {
+		Integer slot = identifier2Slot.get(identifier);
+		if (slot == null) {
+			slot = identifier2Slot.size();
+			identifier2Slot.put(identifier, slot);
+		}
+		return slot;
+	}
+
+	// 将parameterNodeMap中当前SQL操作各参数的事务逻辑信息编译成槽位，需在所有SQL操作都分配槽位后调用
+	void compileSlots(Map<String, Integer> identifier2Slot) {
+		int paraNum = paraSlots.length;
+		paraNodes = new ParameterNode[paraNum];
+		identicalSlots = new int[paraNum];
+		linearDependencySlots = new int[paraNum][];
+		dependencySlots = new int[paraNum][];
+		for (int i = 0; i < paraNum; i++) {
+			ParameterNode parameterNode = parameterNodeMap == null ? null : parameterNodeMap.get(paraIdentifiers[i]);
+			paraNodes[i] = parameterNode;
+			identicalSlots[i] = -1;
+			if (parameterNode == null) {
+				continue;
+			}
+			List<String> identicalIds = parameterNode.getIdentifiers();
+			if (identicalIds.size() > 1 && !paraIdentifiers[i].equals(identicalIds.get(0))) {
+				identicalSlots[i] = slotOf(identifier2Slot, identicalIds.get(0));
+			}
+			linearDependencySlots[i] = slotsOf(identifier2Slot, parameterNode.getLinearDependencies());
+			dependencySlots[i] = slotsOf(identifier2Slot, parameterNode.getDependencies());
+		}
+	}
+
+	private static int[] slotsOf(Map<String, Integer> identifier2Slot, List<ParameterDependency> dependencies) {
+		int[] slots = new int[dependencies == null ? 0 : dependencies.size()];
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = slotOf(identifier2Slot, dependencies.get(i).getIdentifier());
+		}
+		return slots;
+	}
+
+	// 标记当前SQL操作的参数所依赖的槽位（以及multiple逻辑依赖的自身槽位），需在compileSlots之后调用
+	void markReferencedSlots(boolean[] referencedSlots) {
+		for (int i = 0; i < paraSlots.length; i++) {
+			if (multipleIncrements != null && !Double.isNaN(multipleIncrements[i])) {
+				referencedSlots[paraSlots[i]] = true;
+			}
+			if (paraNodes[i] == null) {
+				continue;
+			}
+			if (identicalSlots[i] != -1) {
+				referencedSlots[identicalSlots[i]] = true;
+			}
+			for (int slot : linearDependencySlots[i]) {
+				referencedSlots[slot] = true;
+			}
+			for (int slot : dependencySlots[i]) {
+				referencedSlots[slot] = true;
+			}
+		}
+	}
+
+	// referencedSlots为事务中所有被依赖的槽位
+	void compileDirectBindings(boolean[] referencedSlots) {
+		directBindings = new boolean[paraSlots.length];
+		for (int i = 0; i < paraSlots.length; i++) {
+			directBindings[i] = paraNodes[i] == null && !referencedSlots[paraSlots[i]] && paraDataTypes[i] <= 2;
+		}
+	}
+
+	// 编译所在Multiple块的multipleLogicMap（Key："multiple"_operationId_"para"_paraIndex）
+	void compileMultipleLogic(Map<String, Double> multipleLogicMap) {
+		int paraNum = paraDataTypes == null ? 0 : paraDataTypes.length;
+		multipleIncrements = new double[paraNum];
+		for (int i = 0; i < paraNum; i++) {
+			Double increment = multipleLogicMap == null ? null : multipleLogicMap.get("multiple_" + operationId + "_para_" + i);
+			multipleIncrements[i] = increment == null ? Double.NaN : increment;
+		}
+	}
+
+	// SQL语句中的'?'都是参数占位符时（如字符串常量中没有'?'）才能以字面量拼接参数，进行流水线执行
+	boolean isPipelinable() {
+		return sqlPieces != null && sqlPieces.length == paraSlots.length + 1;
+	}
+
+	// 是否是事务因死锁、序列化冲突等原因被数据库中止（SQLState的类别为40），此时事务可以重试
+	static boolean isTransactionAborted(SQLException e) {
+		String sqlState = e.getSQLState();
+		return (sqlState != null && sqlState.startsWith("40"))
+				|| (e.getMessage() != null && e.getMessage().contains("Deadlock"));
+	}
+
+	// 当前SQL操作的参数是否依赖slots中的某个槽位，需在compileSlots之后调用
+	boolean dependsOnSlots(boolean[] slots) {
+		boolean[] referencedSlots = new boolean[slots.length];
+		markReferencedSlots(referencedSlots);
+		for (int i = 0; i < slots.length; i++) {
+			if (referencedSlots[i] && slots[i]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// 标记当前SQL操作返回结果集所在的槽位，只有读操作有返回结果集
+	void markResultSlots(boolean[] slots) {
+	}
+
+	/**
+	 * 流水线执行时生成当前SQL操作的参数，并将参数以字面量的形式代入SQL语句后追加到sqlBuilder中
+	 * @param round 在Multiple块中的执行次数，大于0时参数按multiple逻辑生成
+	 * @param backslashEscapes 数据库是否把字符串常量中的反斜杠当作转义符（MySQL、TiDB）
+	 */
+	void appendLiteralSql(SessionContext context, StringBuilder sqlBuilder, Map<String, Integer> cardinality4paraInSchema,
+			Map<String, Map<Object, List<Object>>> partitionUsed, int round, boolean backslashEscapes) {
+		long geneStartTime = System.nanoTime();
+		Map<String, Map<Object,Integer>> usedPartitionSize = getUsedPartitionSize(partitionUsed);
+		List<String> paraSchemaInfos = getParaSchemaInfos();
+		sqlBuilder.append(sqlPieces[0]);
+		for (int i = 0; i < paraSlots.length; i++) {
+			Object parameter;
+			if (round == 0) {
+				parameter = checkParaOutOfCardinality(context, i, paraSchemaInfos.get(i), cardinality4paraInSchema, partitionUsed);
+			} else {
+				do {
+					parameter = checkParaOutOfCardinality(context, i, geneParameterByMultipleLogic(context, i, round),
+							paraSchemaInfos.get(i), cardinality4paraInSchema, partitionUsed);
+				} while (parameter == null);
+			}
+			appendLiteral(sqlBuilder, paraDataTypes[i], parameter, backslashEscapes);
+			sqlBuilder.append(sqlPieces[i + 1]);
+		}
+		recordGeneration(context, geneStartTime);
+		getDiffUsedPartitionSize(usedPartitionSize, partitionUsed);
+	}
+
+	// 日期类型转化为Timestamp的字面量形式，字符串中的单引号需转义
+	// MySQL、TiDB默认把反斜杠当作转义符，反斜杠也需转义，NUL字符写作\0；PostgreSQL（standard_conforming_strings）中反斜杠是普通字符
+	private static void appendLiteral(StringBuilder sqlBuilder, int dataType, Object parameter, boolean backslashEscapes) {
+		switch (dataType) {
+			case 3:
+				sqlBuilder.append('\'').append(new Timestamp((Long) parameter).toString()).append('\'');
+				break;
+			case 4:
+				sqlBuilder.append('\'');
+				String value = parameter.toString();
+				for (int i = 0; i < value.length(); i++) {
+					char c = value.charAt(i);
+					if (c == '\'') {
+						sqlBuilder.append('\'');
+					} else if (backslashEscapes && c == '\\') {
+						sqlBuilder.append('\\');
+					} else if (backslashEscapes && c == '\0') {
+						sqlBuilder.append("\\0");
+						continue;
+					}
+					sqlBuilder.append(c);
+				}
+				sqlBuilder.append('\'');
+				break;
+			default:
+				sqlBuilder.append(parameter.toString());
+		}
+	}
+
+	// 当前时间窗口该参数的数据分布，当前时间窗口中没有相应分布时返回null
+	protected DataAccessDistribution getWindowParaGenerator(SessionContext context, int idx) {
+		WindowSnapshot windowSnapshot = context.getWindowSnapshot();
+		if (windowSnapshot == null) {
+			return null;
+		}
+		return windowSnapshot.getParaDistribution(txIndex, operationId, idx);
+	}
+
+	// 记录一次SQL操作的执行时延及结果（flag的含义同execute的返回值），返回flag
+	int recordOperation(SessionContext context, long startTime, int flag) {
+		return recordOperationTime(context, System.nanoTime() - startTime, flag);
+	}
+
+	// 同recordOperation，直接给出执行时延（单位为ns）
+	int recordOperationTime(SessionContext context, long elapsedNanos, int flag) {
+		LatencyRecorder latencyRecorder = context.getLatencyRecorder();
+		if (latencyRecorder != null) {
+			latencyRecorder.recordOperation(txIndex, operationId, elapsedNanos, flag);
+		}
+		return flag;
+	}
+
+	// 记录一次SQL操作生成参数所耗费的时间（从startTime到SQL发往数据库之前）
+	protected void recordGeneration(SessionContext context, long startTime) {
+		LatencyRecorder latencyRecorder = context.getLatencyRecorder();
+		if (latencyRecorder != null) {
+			latencyRecorder.recordGeneration(System.nanoTime() - startTime);
+		}
+	}
+
+	// 为每个参数创建一条预生成带，返回创建的参数带（需存入会话上下文并注册到生产者线程中）
+	// 参数带的随机数流编号由会话编号、SQL编号和参数序号拼接而成，onConsume为唤醒生产者的回调
+	public ParameterTape[] newParameterTapes(int tapeSize, int sessionId, Runnable onConsume) {
+		ParameterTape[] parameterTapes = new ParameterTape[paraDataTypes == null ? 0 : paraDataTypes.length];
+		for (int i = 0; i < parameterTapes.length; i++) {
+			long streamId = ((long) sessionId << 32) | ((long) statementId << 12) | i;
+			parameterTapes[i] = new ParameterTape(tapeSize, RandomStreams.newStream(RandomStreams.TAPE_STREAM, streamId),
+					onConsume);
+		}
+		return parameterTapes;
+	}
+
+	// 对可直接绑定的参数，按基本类型生成参数值并绑定到pstmt（不经过装箱、不保存中间状态），返回是否已绑定
+	// 启用了参数预生成带、参数受分区基数控制、启用了事务重试（需记录参数以便重放）或者做均匀分布实验时返回false，此时需走通用的参数生成流程
+	protected boolean bindDirectly(SessionContext context, PreparedStatement pstmt, int paraIndex, String paraSchemaInfo,
+			Map<String, Integer> cardinality4paraInSchema) throws SQLException {
+		if (!directBindings[paraIndex] || Configurations.isExpUniformPara() || context.getReplayLog().isEnabled()
+				|| context.getParameterTapes(statementId) != null || cardinality4paraInSchema.containsKey(paraSchemaInfo)) {
+			return false;
+		}
+		DataAccessDistribution paraGenerator = getWindowParaGenerator(context, paraIndex);
+		if (paraGenerator == null || Configurations.isExpFullLifeCycleDist()) {
+			paraGenerator = fullLifeCycleParaGenerators[paraIndex];
+		}
+		switch (paraDataTypes[paraIndex]) {
+			case 0:
+				pstmt.setLong(paraIndex + 1, paraGenerator.geneLongValue());
+				break;
+			case 1:
+				pstmt.setDouble(paraIndex + 1, paraGenerator.geneDoubleValue());
+				break;
+			default:
+				bindDecimal(pstmt, paraIndex + 1, paraGenerator.geneDoubleValue());
+		}
+		return true;
+	}
+
+	// 绑定decimal参数：整数值直接按setLong绑定；否则找出能精确还原该double的最少小数位数，由long型的非标度值构造BigDecimal，
+	// 省去BigDecimal.valueOf(double)中Double.toString及其解析的开销，只分配BigDecimal对象本身（JDBC没有按基本类型绑定decimal的方法）
+	// 绑定的数值与通用流程（按字符串构造BigDecimal）相同；非标度值超出double的精确整数范围时退化为BigDecimal.valueOf
+	private static void bindDecimal(PreparedStatement pstmt, int index, double value) throws SQLException {
+		if (Math.abs(value) < MAX_EXACT_DOUBLE && value == Math.rint(value)) {
+			pstmt.setLong(index, (long) value);
+			return;
+		}
+		for (int scale = 1; scale < POWERS_OF_TEN.length; scale++) {
+			double unscaledValue = Math.rint(value * POWERS_OF_TEN[scale]);
+			if (Math.abs(unscaledValue) >= MAX_EXACT_DOUBLE) {
+				break;
+			}
+			if (unscaledValue / POWERS_OF_TEN[scale] == value) {
+				pstmt.setBigDecimal(index, BigDecimal.valueOf((long) unscaledValue, scale));
+				return;
+			}
+		}
+		pstmt.setBigDecimal(index, BigDecimal.valueOf(value));
+	}
+
 	// 注意这里的obj都是包装类型，index的起始位置是1
-	protected void setParameter(int index, int dataType, Object obj) throws SQLException {
+	protected void setParameter(PreparedStatement pstmt, int index, int dataType, Object obj) throws SQLException {
 		try{
 			switch (dataType) {
 				case 0:
@@ -58,7 +360,7 @@ public abstract class SqlStatement extends TransactionBlock {
 					pstmt.setDouble(index, (Double) obj);
 					break;
 				case 2:
-					pstmt.setBigDecimal(index, new BigDecimal(obj.toString()));
+					pstmt.setBigDecimal(index, obj instanceof BigDecimal ? (BigDecimal) obj : new BigDecimal(obj.toString()));
 					break;
 				case 3:
 					// pstmt.setDate(index, new Date((Long)obj));
@@ -83,25 +385,31 @@ public abstract class SqlStatement extends TransactionBlock {
 //		return 1l;
 //	}
 
-	private Object getParameterByIdx(int idx){
-		if (windowParaGenerators[idx] != null && !Configurations.isExpFullLifeCycleDist()) {
-			return windowParaGenerators[idx].geneValue();
-		} else {
-			return fullLifeCycleParaGenerators[idx].geneValue();
+	private Object getParameterByIdx(SessionContext context, int idx){
+		DataAccessDistribution paraGenerator = getWindowParaGenerator(context, idx);
+		if (paraGenerator == null || Configurations.isExpFullLifeCycleDist()) {
+			paraGenerator = fullLifeCycleParaGenerators[idx];
+		}
+		ParameterTape[] parameterTapes = context.getParameterTapes(statementId);
+		if (parameterTapes != null) {
+			return parameterTapes[idx].next(paraGenerator);
 		}
+		return paraGenerator.geneValue();
 	}
 
-	private Object getParameterInSamePartitionByIdx(int idx, Object parameter){
-		if (windowParaGenerators[idx] != null && !Configurations.isExpFullLifeCycleDist()) {
-			return windowParaGenerators[idx].geneValueInSamePartition(parameter);
+	private Object getParameterInSamePartitionByIdx(SessionContext context, int idx, Object parameter){
+		DataAccessDistribution windowParaGenerator = getWindowParaGenerator(context, idx);
+		if (windowParaGenerator != null && !Configurations.isExpFullLifeCycleDist()) {
+			return windowParaGenerator.geneValueInSamePartition(parameter);
 		} else {
 			return fullLifeCycleParaGenerators[idx].geneValueInSamePartition(parameter);
 		}
 	}
 
-	private Object getParameterInDiffPartitionByIdx(int idx, Object parameter){
-		if (windowParaGenerators[idx] != null && !Configurations.isExpFullLifeCycleDist()) {
-			return windowParaGenerators[idx].geneValueInDiffPartition(parameter);
+	private Object getParameterInDiffPartitionByIdx(SessionContext context, int idx, Object parameter){
+		DataAccessDistribution windowParaGenerator = getWindowParaGenerator(context, idx);
+		if (windowParaGenerator != null && !Configurations.isExpFullLifeCycleDist()) {
+			return windowParaGenerator.geneValueInDiffPartition(parameter);
 		} else {
 			return fullLifeCycleParaGenerators[idx].geneValueInDiffPartition(parameter);
 		}
@@ -110,7 +418,23 @@ public abstract class SqlStatement extends TransactionBlock {
 
 
 	// 返回值一定需和当前参数的数据类型一致（且为包装类型），paraIndex的起始位置为0
-	protected Object geneParameter(int paraIndex) {
+	// 事务重试时直接重放首次执行时生成的参数（同样需写入中间状态），以免重新采样
+	protected Object geneParameter(SessionContext context, int paraIndex) {
+		ReplayLog replayLog = context.getReplayLog();
+		Object parameter = replayLog.replay(paraSlots[paraIndex]);
+		if (parameter != null) {
+			context.getIntermediateState().put(paraSlots[paraIndex], paraIdentifiers[paraIndex], parameter,
+					paraDataTypes[paraIndex]);
+			return parameter;
+		}
+		parameter = generateParameter(context, paraIndex);
+		if (parameter != null) {
+			replayLog.record(paraSlots[paraIndex], parameter);
+		}
+		return parameter;
+	}
+
+	private Object generateParameter(SessionContext context, int paraIndex) {
 		//
 		//TODO: 发现一些要传进来的参数都没传进来！！！！ 对于Delivery事务，只传进来第一次循环的参数以及7_para_0和7_para_3，且
 		//TODO 7_para_3 ER 3_result_0 依赖的也是第一次的，因为3_para_0啥的都没传进来，先解决参数传进来的问题
@@ -118,72 +442,48 @@ public abstract class SqlStatement extends TransactionBlock {
 		//		// 为了做实验后续添加的。生成一个完全随机参数，即采用均匀分布生成参数~
 		//		// 按理说应该根据相关属性信息来生成随机参数的，这里为了简便，就直接用全局数据访问分布了；同时事务逻辑被直接pass掉了
 		if (Configurations.isExpUniformPara()) {
-//			System.out.println(paraIndex+": 是采用均匀分布生成参数的，做实验才会进这里，看到就说明出现问题了");
 			return fullLifeCycleParaGenerators[paraIndex].geneUniformValue();
 		}
 		// 上面这段if代码是为了做实验后续补充的~
 
+		IntermediateState intermediateState = context.getIntermediateState();
 		Object parameter = null;
-		// 当前参数的标识符
-		String paraIdentifier = operationId + "_para_" + paraIndex;
+		// 当前参数的标识符及其槽位
+		String paraIdentifier = paraIdentifiers[paraIndex];
+		int paraSlot = paraSlots[paraIndex];
 
-//		System.out.println("看一下进来的是哪个参数： "+paraIdentifier);
 		// 获得当前参数的事务逻辑信息（等于、包含和线性依赖关系）
-		ParameterNode parameterNode = parameterNodeMap.get(paraIdentifier);
+		ParameterNode parameterNode = paraNodes[paraIndex];
 
 
 		// bug fix：添加事务逻辑统计项控制参数后，parameterNode可能为空 --------
 		// Configurations.isExpFullLifeCycleDist()为真时，仅根据全局数据访问分布生成参数
 		if (parameterNode == null) {
-//			System.out.println("parameterNode居然是空的，小概率出现这个现象");
-//			System.out.println("**** parameterNode == null ");
-			parameter = getParameterByIdx(paraIndex);
-			intermediateState.put(paraIdentifier,
-					new TxRunningValue(paraIdentifier, parameter, paraDataTypes[paraIndex]));
+			parameter = getParameterByIdx(context, paraIndex);
+			intermediateState.put(paraSlot, paraIdentifier, parameter, paraDataTypes[paraIndex]);
 			//todo: 20210102这样的设计，照理说multiple不会有问题的！
-
-//			if (parameter != null && parameter instanceof Long && (Long) parameter == Long.MIN_VALUE) {
-//				System.out.println("111111111111111111111111111111111111111111111111111");
-//			}
-//			if (sql.startsWith("UPDATE STOCK SET")&&paraIdentifier.equals("9_para_3")) {
-//				System.out.println("111111111111111111111111111111111111111111111111111"+" "+paraIdentifier+" "+sql);
-//			}
-
-
-//			System.out.println(parameter);
 			return parameter;
 		}
 		// bug fix ----------------
 
 		// identicalIds中的参数都是完全相等的，并且按照operationId和paraIndex进行了排序（升序）
-		List<String> identicalIds = parameterNode.getIdentifiers();
 		// 只要identicalIds中参数多于1个并且当前参数不是其中第一个参数，则可直接令当前参数等于identicalIds中第一个参数
-		if (identicalIds.size() > 1 && !paraIdentifier.equals(identicalIds.get(0))) {
-
-			if (intermediateState.containsKey(identicalIds.get(0))) {
-				parameter = intermediateState.get(identicalIds.get(0)).value; // 维护的参数必然不为null
-//				System.out.println("通过identicalIds来生成的 ");
-
-//				if (sql.startsWith("UPDATE STOCK SET")&&paraIdentifier.equals("9_para_3")) {
-//					System.out.println("22222222222222222222222222222222222222222222222222"+" "+paraIdentifier+" "+sql);
-//				}
-//				if (parameter != null && parameter instanceof Long && (Long) parameter == Long.MIN_VALUE) {
-//					System.out.println("22222222222222222222222222222222222222222222222222");
-//				}
-			}
+		// identicalSlots中保存的就是该第一个参数的槽位（不满足条件时为-1）
+		int identicalSlot = identicalSlots[paraIndex];
+		if (identicalSlot != -1 && intermediateState.contains(identicalSlot)) {
+			parameter = intermediateState.get(identicalSlot).value; // 维护的参数必然不为null
 		}
 
 		if (parameter == null) {
 			// 首先查看下是否有线性依赖关系，若有线性依赖关系则尝试据此生成参数（前提是依赖项不为空）
 			if (parameterNode.getLinearDependencies() != null) {
-//				System.out.println("**** parameterNode.getLinearDependencies() ");
-
 				List<ParameterDependency> linearDependencies = parameterNode.getLinearDependencies();
+				int[] linearSlots = linearDependencySlots[paraIndex];
 				// 可能其中多个线性依赖关系本质上是一样的，依赖项是相等的 && 线性系数也一致，但这不影响程序的正确性，随便选择其中一个生成参数即可
-				for (ParameterDependency linearDependency : linearDependencies) {
-					if (intermediateState.containsKey(linearDependency.getIdentifier())) {
-//						System.out.println("通过线性依赖关系来生成的 ");
-						TxRunningValue txRunningValue = intermediateState.get(linearDependency.getIdentifier());
+				for (int i = 0; i < linearSlots.length; i++) {
+					if (intermediateState.contains(linearSlots[i])) {
+						ParameterDependency linearDependency = linearDependencies.get(i);
+						TxRunningValue txRunningValue = intermediateState.get(linearSlots[i]);
 						double a = linearDependency.getCoefficientA();
 						double b = linearDependency.getCoefficientB();
 						Double value = txRunningValue.getLinearRelationValue(a, b);
@@ -206,19 +506,11 @@ public abstract class SqlStatement extends TransactionBlock {
 						break;
 					}
 				} // 遍历所有线性依赖关系
-
-//				if (sql.startsWith("UPDATE STOCK SET")&&paraIdentifier.equals("9_para_3")) {
-//					System.out.println("3333333333333333333333333333333333333333333"+" "+paraIdentifier+" "+sql);
-//				}
-//				if (parameter != null && parameter instanceof Long && (Long) parameter == Long.MIN_VALUE) {
-//					System.out.println("3333333333333333333333333333333333333333333");
-//				}
-
 			}
 		} // 线性依赖关系
 		//根据数据访问分布生成参数
 		if (parameter == null) {
-			double randomValue = Math.random();
+			double randomValue = RandomStreams.nextDouble();
 			if (randomValue > 0.99999999) {
 				randomValue = randomValue - 0.000000001;
 			}
@@ -226,111 +518,74 @@ public abstract class SqlStatement extends TransactionBlock {
 			if (randomValue >= parameterNode.getProbabilitySum()) {
 				// 根据数据访问分布生成SQL参数
 
-				parameter = getParameterByIdx(paraIndex);
+				parameter = getParameterByIdx(context, paraIndex);
 			} else {
 				// 根据等于、包含事务依赖关系生成SQL参数
 				// dependencies中仅含有所有 等于、包含 事务依赖关系
 				List<ParameterDependency> dependencies = parameterNode.getDependencies();
-				// 标示每个依赖项是否存在（所在SQL操作被执行）
-				boolean[] flags = new boolean[dependencies.size()];
-				Arrays.fill(flags, true);
-				boolean flag = true; // 标示所有依赖项是否都存在（所有相关SQL操作都被执行）
-				for (int i = 0; i < dependencies.size(); i++) {
-					if (!intermediateState.containsKey(dependencies.get(i).getIdentifier())) {
-						flags[i] = false; // 相应SQL操作未被执行（如所在分支未被执行）
-						flag = false;
+				int[] slots = dependencySlots[paraIndex];
+				// 标示所有依赖项是否都存在（所有相关SQL操作都被执行），同时统计存在的依赖项的概率之和
+				boolean flag = true;
+				double existingProbabilitySum = 0;
+				for (int i = 0; i < slots.length; i++) {
+					if (intermediateState.contains(slots[i])) {
+						existingProbabilitySum += dependencies.get(i).getProbability();
+					} else {
+						flag = false; // 相应SQL操作未被执行（如所在分支未被执行）
 					}
 				}
 
-				ParameterDependency parameterDependency = null;
-				double[] cumulativeProbabilities = null;
+				// 选中的依赖关系在dependencies中的下标
+				int dependencyIndex = -1;
 				if (flag) {
 					// 所有依赖项都存在
-					cumulativeProbabilities = parameterNode.getCumulativeProbabilities();
+					double[] cumulativeProbabilities = parameterNode.getCumulativeProbabilities();
+					for (int i = 0; i < cumulativeProbabilities.length; i++) {
+						if (randomValue < cumulativeProbabilities[i]) {
+							dependencyIndex = i;
+							break;
+						}
+					}
 				} else {
-//					System.out.println("出现这个了，说明程序会出现问题");
-					// 某些依赖项不存在（所属分支未执行），注意目前这里的概率转换是有问题的！具有相当大的误差！TODO
+					// 某些依赖项不存在（所属分支未执行），仅在存在的依赖项中按概率选择，注意目前这里的概率转换是有问题的！具有相当大的误差！TODO
 					//todo: 看一下这里20210102
-					cumulativeProbabilities = new double[dependencies.size()];
-					Arrays.fill(cumulativeProbabilities, 0);
-					for (int i = 0; i < dependencies.size(); i++) {
-						if (flags[i]) {
-							cumulativeProbabilities[i] = dependencies.get(i).getProbability();
+					randomValue = randomValue * (existingProbabilitySum / parameterNode.getProbabilitySum());
+					double cumulativeProbability = 0;
+					for (int i = 0; i < slots.length; i++) {
+						if (intermediateState.contains(slots[i])) {
+							cumulativeProbability += dependencies.get(i).getProbability();
+							if (randomValue < cumulativeProbability) {
+								dependencyIndex = i;
+								break;
+							}
 						}
 					}
-					for (int i = 1; i < cumulativeProbabilities.length; i++) {
-						cumulativeProbabilities[i] += cumulativeProbabilities[i - 1];
-					}
-					randomValue = randomValue * (cumulativeProbabilities[cumulativeProbabilities.length - 1]
-							/ parameterNode.getProbabilitySum());
-				}
-
-				for (int i = 0; i < cumulativeProbabilities.length; i++) {
-					if (randomValue < cumulativeProbabilities[i]) {
-						parameterDependency = parameterNode.getDependencies().get(i);
-						break;
-					}
 				}
 
+				ParameterDependency parameterDependency = dependencyIndex == -1 ? null : dependencies.get(dependencyIndex);
 				// bug fix: parameterDependency报空指针错误，原因是依赖的所有项都为空（相应的分支都未执行）
 				if (parameterDependency != null) {
+					TxRunningValue txRunningValue = intermediateState.get(slots[dependencyIndex]);
 					// 根据 "等于" 依赖关系 或者 "包含" 依赖关系 生成参数
 					if (parameterDependency.getDependencyType() == ParameterDependency.DependencyType.EQUAL) { // "等于" 依赖关系
-//						//modified by lyqu
-//						if(paraIdentifier.equals("2_para_0")){
-//							System.out.println("这里判别一下2_para_0的问题，明明就是包含依赖，怎么跑等于依赖来了");
-//							System.out.println(parameterDependency);
-//							System.out.println("判别结束 ************8");
-//						}
-//
-//						//----
-						parameter = intermediateState.get(parameterDependency.getIdentifier()).value;
-//						System.out.println("等于依赖生成参数");
-//
-//						if (sql.startsWith("UPDATE STOCK SET")&&paraIdentifier.equals("9_para_3")) {
-//							System.out.println("66666666666666666666666666666666666666666666"+" "+paraIdentifier+" "+sql);
-//						}
-//						if (parameter != null && parameter instanceof Long && (Long) parameter == Long.MIN_VALUE) {
-//							System.out.println("66666666666666666666666666666666666666666666");
-//						}
-
+						parameter = txRunningValue.value;
 					} else if (parameterDependency.getDependencyType() == ParameterDependency.DependencyType.PARTITION_EQUAL){
-						parameter = intermediateState.get(parameterDependency.getIdentifier()).value;
-
-						Object para = getParameterInSamePartitionByIdx(paraIndex,parameter);
-//						System.out.println(parameter+" : "+para);
-						parameter = para;
-					}else if (parameterDependency.getDependencyType() == ParameterDependency.DependencyType.PARTITION_NOT_EQUAL){
-						parameter = intermediateState.get(parameterDependency.getIdentifier()).value;
-
-						Object para = getParameterInDiffPartitionByIdx(paraIndex,parameter);
-//						System.out.println(parameter+" : "+para);
-						parameter = para;
-					}
-					else if (parameterDependency.getDependencyType() == ParameterDependency.DependencyType.INCLUDE) { // "包含" 依赖关系
-//						System.out.println("进入包含依赖");
-						TxRunningValue txRunningValue = intermediateState.get(parameterDependency.getIdentifier());
+						parameter = getParameterInSamePartitionByIdx(context, paraIndex, txRunningValue.value);
+					} else if (parameterDependency.getDependencyType() == ParameterDependency.DependencyType.PARTITION_NOT_EQUAL){
+						parameter = getParameterInDiffPartitionByIdx(context, paraIndex, txRunningValue.value);
+					} else if (parameterDependency.getDependencyType() == ParameterDependency.DependencyType.INCLUDE) { // "包含" 依赖关系
 						parameter = txRunningValue.getIncludeRelationValue();
-
-//						System.out.println("包含依赖生成参数 ");
-//						if (sql.startsWith("UPDATE STOCK SET")&&paraIdentifier.equals("9_para_3")) {
-//							System.out.println("77777777777777777777777777777777777777777"+" "+paraIdentifier+" "+sql);
-//						}
-//						if (parameter != null && parameter instanceof Long && (Long) parameter == Long.MIN_VALUE) {
-//							System.out.println("77777777777777777777777777777777777777777");
-//						}
-
 					}
 				}
 
 				// 搞了半天，依赖的数据项竟然都为空... 只能再一次进行补救了~
 				if (parameter == null) {
-					parameter = getParameterByIdx(paraIndex);
+					parameter = getParameterByIdx(context, paraIndex);
 
 					// bug fix: parameterDependency可能为空
 					if (parameterDependency != null) {
-						intermediateState.put(parameterDependency.getIdentifier(), new TxRunningValue(
-								parameterDependency.getIdentifier(), parameter, paraDataTypes[paraIndex]));
+						intermediateState.put(slots[dependencyIndex], parameterDependency.getIdentifier(), parameter,
+								paraDataTypes[paraIndex]);
 					}
 				}
 
@@ -339,18 +594,10 @@ public abstract class SqlStatement extends TransactionBlock {
 				// 处理的思路，针对那种非确定性的参数依赖（暂定小于0.96），此时将根据事务依赖得到的生成值与属性的阈值比较
 				// 一下，不在阈值内则重新利用数据访问分布生成。
 				else {
-					if (parameterDependency.getProbability() < 0.96 && windowParaGenerators[paraIndex] != null
-							&& !windowParaGenerators[paraIndex].inDomain(parameter)) {
-						parameter = windowParaGenerators[paraIndex].geneValue();
-//						if (sql.startsWith("UPDATE STOCK SET")&&paraIdentifier.equals("9_para_3")) {
-//							System.out.println("000000000000000000000000000000000000000000000"+" "+paraIdentifier+" "+sql);
-//						}
-//						if (parameter != null && parameter instanceof Long && (Long) parameter == Long.MIN_VALUE) {
-//							System.out.println("000000000000000000000000000000000000000000000"+" "+paraIdentifier+" "+sql);
-//						}
-//						if (sql.startsWith("UPDATE STOCK SET")&&paraIdentifier.equals("9_para_3")) {
-//							System.out.println("000000000000000000000000000000000000000000000"+" "+paraIdentifier+" "+parameter+" "+sql);
-//						}
+					DataAccessDistribution windowParaGenerator = getWindowParaGenerator(context, paraIndex);
+					if (parameterDependency.getProbability() < 0.96 && windowParaGenerator != null
+							&& !windowParaGenerator.inDomain(parameter)) {
+						parameter = windowParaGenerator.geneValue();
 					}
 				}
 				// bug fix -----------------
@@ -358,36 +605,32 @@ public abstract class SqlStatement extends TransactionBlock {
 			} // 根据等于、包含事务依赖关系生成SQL参数
 		} // 数据访问分布 & 等于、包含事务依赖关系
 
-		intermediateState.put(paraIdentifier, new TxRunningValue(paraIdentifier, parameter, paraDataTypes[paraIndex]));
-//		System.out.println(parameter);
+		intermediateState.put(paraSlot, paraIdentifier, parameter, paraDataTypes[paraIndex]);
 		return parameter;
 	}
 
-	private Object getParameterPartition(Object parameter, int idx){
+	private Object getParameterPartition(SessionContext context, Object parameter, int idx){
 		Object paraPartition = parameter;
-		String paraIdentifier = operationId + "_para_" + idx;
-		ParameterNode parameterNode = parameterNodeMap.get(paraIdentifier);
-//		if (parameterNode == null){
-			if (windowParaGenerators[idx] != null){
-				paraPartition = windowParaGenerators[idx].getParaPartition(parameter);
-			}
-			else if(fullLifeCycleParaGenerators[idx] != null){
-				paraPartition = fullLifeCycleParaGenerators[idx].getParaPartition(paraPartition);
-			}
-//		}
+		DataAccessDistribution windowParaGenerator = getWindowParaGenerator(context, idx);
+		if (windowParaGenerator != null){
+			paraPartition = windowParaGenerator.getParaPartition(parameter);
+		}
+		else if(fullLifeCycleParaGenerators[idx] != null){
+			paraPartition = fullLifeCycleParaGenerators[idx].getParaPartition(paraPartition);
+		}
 
 		return paraPartition;
 	}
 
-	protected Object checkParaOutOfCardinality(int idx , String paraSchemaInfo,
+	protected Object checkParaOutOfCardinality(SessionContext context, int idx, String paraSchemaInfo,
 											   Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed){
 //		return geneParameter(idx);
 
-		Object parameter = geneParameter(idx);
+		Object parameter = geneParameter(context, idx);
 ////		if (paraSchemaInfo.contains("@w_id") ){
 ////			System.out.println();
 ////		}
-		Object paraPartition = getParameterPartition(parameter, idx);
+		Object paraPartition = getParameterPartition(context, parameter, idx);
 
 		boolean hasPartition =  paraPartition.toString().contains("p") && !parameter.equals(paraPartition);
 
@@ -400,17 +643,19 @@ public abstract class SqlStatement extends TransactionBlock {
 //
 		if (Configurations.isUsePartitionRule() && Configurations.isUsePartitionCardinalityControl()
 				&& hasPartition && cardinality4paraInSchema.get(paraSchemaInfo) > 0){
-			Random random = new Random();
+			// 随机选择已用的分区及参数，事务重试时按首次执行的选择重放
+			ReplayLog replayLog = context.getReplayLog();
+			int replayKey = ReplayLog.decisionKey(ReplayLog.PARTITION, paraSlots[idx]);
 			if (cardinality4paraInSchema.get(paraSchemaInfo) <= partitionUsedPara.size()){
 //				if (paraSchemaInfo.contains("s_w_id") ){
 //					System.out.println(partitionUsedPara.size()+" "+partitionUsedPara.get(paraPartition) + " " + paraPartition + " " + parameter);
 //				}
 				if (!partitionUsedPara.containsKey(paraPartition)){// 如果已经填满基数，不再重新构造，直接从已知的参数里找一个
 
-					int partitionIdx = random.nextInt(partitionUsedPara.size());
+					int partitionIdx = replayLog.nextInt(replayKey, partitionUsedPara.size());
 					paraPartition = new ArrayList<>(partitionUsedPara.keySet()).get(partitionIdx);
 
-					partitionIdx = new Random().nextInt(partitionUsedPara.get(paraPartition).size());
+					partitionIdx = replayLog.nextInt(replayKey, partitionUsedPara.get(paraPartition).size());
 					parameter = partitionUsedPara.get(paraPartition).get(partitionIdx);
 				}
 			}
@@ -418,7 +663,7 @@ public abstract class SqlStatement extends TransactionBlock {
 				// 如果还没填满就重复了，重新生成
 //				while (partitionUsedPara.containsKey(paraPartition) && random.nextDouble() < 0.5){
 //					parameter = geneParameter(idx);
-//					paraPartition = getParameterPartition(parameter, idx);
+//					paraPartition = getParameterPartition(context, parameter, idx);
 //				}
 			}
 		}
@@ -435,10 +680,10 @@ public abstract class SqlStatement extends TransactionBlock {
 		return parameter;
 	}
 
-	protected Object checkParaOutOfCardinality(int idx, Object para , String paraSchemaInfo,
+	protected Object checkParaOutOfCardinality(SessionContext context, int idx, Object para, String paraSchemaInfo,
 											   Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed){
 		Object parameter = para;
-		Object paraPartition = getParameterPartition(parameter, idx);
+		Object paraPartition = getParameterPartition(context, parameter, idx);
 
 		boolean hasPartition = paraPartition.toString().contains("p") && !parameter.equals(paraPartition);
 
@@ -451,7 +696,9 @@ public abstract class SqlStatement extends TransactionBlock {
 //
 		if (Configurations.isUsePartitionRule() && hasPartition && Configurations.isUsePartitionCardinalityControl()
 				&& cardinality4paraInSchema.get(paraSchemaInfo) > 0){
-			Random random = new Random();
+			// 随机选择已用的分区及参数，事务重试时按首次执行的选择重放
+			ReplayLog replayLog = context.getReplayLog();
+			int replayKey = ReplayLog.decisionKey(ReplayLog.PARTITION, paraSlots[idx]);
 			if (cardinality4paraInSchema.get(paraSchemaInfo) <= partitionUsedPara.size()){
 //				if (paraSchemaInfo.contains("s_w_id") ){
 //					System.out.println(partitionUsedPara.size()+" "+partitionUsedPara.get(paraPartition) + " " + paraPartition + " " + parameter);
@@ -459,14 +706,14 @@ public abstract class SqlStatement extends TransactionBlock {
 				if (!partitionUsedPara.containsKey(paraPartition)){// 如果已经填满基数，不再重新构造，直接从已知的参数里找一个
 
 
-					int partitionIdx = random.nextInt(partitionUsedPara.size());
+					int partitionIdx = replayLog.nextInt(replayKey, partitionUsedPara.size());
 					paraPartition = new ArrayList<>(partitionUsedPara.keySet()).get(partitionIdx);
 
 					// 分区键的参数是value
-					partitionIdx = new Random().nextInt(partitionUsedPara.get(paraPartition).size());
+					partitionIdx = replayLog.nextInt(replayKey, partitionUsedPara.get(paraPartition).size());
 
 					parameter = partitionUsedPara.get(paraPartition).get(partitionIdx);
-					parameter = getParameterInSamePartitionByIdx(idx,parameter);
+					parameter = getParameterInSamePartitionByIdx(context, idx, parameter);
 				}
 			}
 			else{
@@ -491,19 +738,14 @@ public abstract class SqlStatement extends TransactionBlock {
 
 
 
-	protected Object geneParameterByMultipleLogic(int paraIndex, Map<String, Double> multipleLogicMap, int round) {
-		String paraMultiIdentifier = "multiple_" + operationId + "_para_" + paraIndex;
-//		System.out.println("multiple生成加进来的参数： "+paraMultiIdentifier);
-		if (multipleLogicMap.containsKey(paraMultiIdentifier)) {
-//			System.out.println("根据multiple逻辑生成");
-			double increment = multipleLogicMap.get(paraMultiIdentifier);
-			String paraIdentifier = operationId + "_para_" + paraIndex;
-			TxRunningValue txRunningValue = intermediateState.get(paraIdentifier);
+	protected Object geneParameterByMultipleLogic(SessionContext context, int paraIndex, int round) {
+		// multipleIncrements由Multiple块的multipleLogicMap编译而来，为NaN表示该参数没有multiple逻辑
+		if (multipleIncrements != null && !Double.isNaN(multipleIncrements[paraIndex])) {
+			TxRunningValue txRunningValue = context.getIntermediateState().get(paraSlots[paraIndex]);
 			// 这里返回的参数不可能为null
-			return txRunningValue.getMultipleLogicValue(increment * round);
+			return txRunningValue.getMultipleLogicValue(multipleIncrements[paraIndex] * round);
 		} else {
-//			System.out.println("根据一般的参数生成");
-			return geneParameter(paraIndex);
+			return geneParameter(context, paraIndex);
 		}
 	}
 
@@ -514,19 +756,6 @@ public abstract class SqlStatement extends TransactionBlock {
 	public void setParaDistTypeInfos(DistributionTypeInfo[] paraDistTypeInfos){
 		this.paraDistTypeInfos = paraDistTypeInfos;
 	}
-	public void setWindowParaGenerators(Column[] fakeColumn){
-		DataAccessDistribution[] windowParaGeneratorsModified = new DataAccessDistribution[this.windowParaGenerators.length+fakeColumn.length];
-		int i = 0;
-//		long time = this.windowParaGenerators[0].getTime(); //dsc的时候才settime
-		for(;i < this.windowParaGenerators.length;i++){
-			windowParaGeneratorsModified[i] = windowParaGenerators[i];
-		}
-		for (Column column : fakeColumn) {
-			windowParaGeneratorsModified[i] = generateFakeColumnParaDistribution(column);
-			i++;
-		}
-		this.windowParaGenerators = windowParaGeneratorsModified;
-	}
 	public void setFullLifeCycleParaGenerators(Column[] fakeColumn){
 		DataAccessDistribution[] fullLifeCycleParaGeneratorsModified = new DataAccessDistribution[this.fullLifeCycleParaGenerators.length+fakeColumn.length];
 		int i = 0;
@@ -540,9 +769,6 @@ public abstract class SqlStatement extends TransactionBlock {
 		this.fullLifeCycleParaGenerators = fullLifeCycleParaGeneratorsModified;
 
 	}
-//	public DataAccessDistribution[] getWindowParaGenerators(){
-//		return windowParaGenerators;
-//	}
 	public DataAccessDistribution[] getFullLifeCycleParaGenerators(){
 		return fullLifeCycleParaGenerators;
 	}
@@ -562,7 +788,7 @@ public abstract class SqlStatement extends TransactionBlock {
 		}
 		for(int i = 0;i < intervalNumber;i++){
 			intervalFrequencies[i] = uniformFrequencies;
-			intervalCardinalities[i] = (long)(Math.random()*column.getCardinality());
+			intervalCardinalities[i] = (long)(RandomStreams.nextDouble()*column.getCardinality());
 		}
 
 		IntegerParaDistribution distribution = new IntegerParaDistribution(windowMinValue, windowMaxValue,
@@ -573,15 +799,18 @@ public abstract class SqlStatement extends TransactionBlock {
 	}
 
 	// 服务于Multiple块内操作的执行（非第一次执行）
-//	public abstract int execute(Map<String, Double> multipleLogicMap, int round);
+//	public abstract int execute(int round);
+
+	public abstract int execute(SessionContext context, Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed,
+								int round);
 
-	public abstract int execute(Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed,
-								Map<String, Double> multipleLogicMap, int round);
+	public abstract int execute(SessionContext context, Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed,
+								Statement stmt, int round);
 
-	public abstract int execute(Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed,
-								Statement stmt, Map<String, Double> multipleLogicMap, int round);
+//	public abstract int execute(Statement stmt, int round);
 
-//	public abstract int execute(Statement stmt, Map<String, Double> multipleLogicMap, int round);
+	// 各参数对应的tableName@columnName
+	public abstract List<String> getParaSchemaInfos();
 
 	public int getOperationId() {
 		return operationId;
@@ -634,27 +863,12 @@ public abstract class SqlStatement extends TransactionBlock {
 		Stats.addSQLPartitionCnt(partitionCnt);
 	}
 
-	public void setParaDistribution(Map<String, DataAccessDistribution> paraId2Distribution, int type) {
-		if (type == 0) { // 全负载周期数据访问分布
-			for (int i = 0; i < (paraDataTypes == null ? 0 : paraDataTypes.length); i++) {
-				String paraIdentifier = operationId + "_" + i;
-				if (paraId2Distribution != null) { // 等于null应该是不可能的
-					fullLifeCycleParaGenerators[i] = paraId2Distribution.get(paraIdentifier);
-				}
-			}
-		} else if (type == 1) { // 当前时间窗口的数据访问分布
-			for (int i = 0; i < (paraDataTypes == null ? 0 : paraDataTypes.length); i++) {
-				String paraIdentifier = operationId + "_" + i;
-				// 更倾向于利用全负载周期的数据访问分布，而不是保留一个最近时间窗口的数据访问分布 TODO 是否合理呢？
-				if (paraId2Distribution == null) { // 有可能等于null，在当前时间窗口该事务没有执行过
-					windowParaGenerators[i] = null;
-				} else {
-					windowParaGenerators[i] = paraId2Distribution.get(paraIdentifier);
-					// if (paraId2Distribution.containsKey(paraIdentifier) &&
-					// paraId2Distribution.get(paraIdentifier) != null) {
-					// windowParaGenerators[i] = paraId2Distribution.get(paraIdentifier);
-					// }
-				}
+	// 设置全负载周期的数据访问分布（当前时间窗口的数据访问分布由时间窗口快照提供）
+	public void setParaDistribution(Map<String, DataAccessDistribution> paraId2Distribution) {
+		for (int i = 0; i < (paraDataTypes == null ? 0 : paraDataTypes.length); i++) {
+			String paraIdentifier = operationId + "_" + i;
+			if (paraId2Distribution != null) { // 等于null应该是不可能的
+				fullLifeCycleParaGenerators[i] = paraId2Distribution.get(paraIdentifier);
 			}
 		}
 	}
@@ -0,0 +1,75 @@
+package abstraction;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import config.Configurations;
+
+// 流水线执行时一个会话中待发送的多语句请求：SQL操作的参数以字面量的形式代入后以分号连接，在一次往返中执行
+// 对象保存在会话上下文中重复使用
+class StatementPipeline {
+
+	private final StringBuilder sqlBuilder = new StringBuilder();
+	private final List<SqlStatement> sqls = new ArrayList<>();
+	// MySQL、TiDB的字符串常量中反斜杠是转义符，需要转义；PostgreSQL中反斜杠是普通字符
+	private final boolean backslashEscapes = !Configurations.getDatabaseType().equalsIgnoreCase("postgresql");
+
+	// 生成SQL操作的参数并追加到请求中，round的含义同SqlStatement.appendLiteralSql
+	void add(SessionContext context, SqlStatement sql, Map<String, Integer> cardinality4paraInSchema,
+			Map<String, Map<Object, List<Object>>> partitionUsed, int round) {
+		if (!sqls.isEmpty()) {
+			sqlBuilder.append(';');
+		}
+		sql.appendLiteralSql(context, sqlBuilder, cardinality4paraInSchema, partitionUsed, round, backslashEscapes);
+		sqls.add(sql);
+	}
+
+	// 发送请求并按顺序处理每个SQL操作的返回结果（读操作的结果集保存到中间状态中）
+	// 无法区分请求中各个SQL操作各自的时延，整个请求的时延平均分摊到其中的每个SQL操作上，各操作时延之和即为请求的时延
+	// 返回值同TransactionBlock.execute，执行完成后清空请求
+	int execute(SessionContext context) {
+		if (sqls.isEmpty()) {
+			return 1;
+		}
+		long startTime = System.nanoTime();
+		int flag = 1;
+		Statement stmt = context.getStatement();
+		try {
+			boolean isResultSet = stmt.execute(sqlBuilder.toString());
+			for (SqlStatement sql : sqls) {
+				if (isResultSet) {
+					try (ResultSet rs = stmt.getResultSet()) {
+						if (sql instanceof ReadOperation) {
+							((ReadOperation) sql).saveResultSet(context, rs);
+						}
+					}
+				} else if (stmt.getUpdateCount() == -1) { // 没有更多的返回结果
+					break;
+				}
+				isResultSet = stmt.getMoreResults();
+			}
+		} catch (SQLException e) {
+			// 只有事务被数据库中止时才可以重试，其他错误（如违反约束、语法错误）按执行失败处理
+			boolean aborted = SqlStatement.isTransactionAborted(e);
+			if (!aborted) {
+				e.printStackTrace();
+			}
+			flag = aborted ? -1 : 0;
+		}
+		long elapsedNanos = (System.nanoTime() - startTime) / sqls.size();
+		for (SqlStatement sql : sqls) {
+			sql.recordOperationTime(context, elapsedNanos, flag);
+		}
+		clear();
+		return flag;
+	}
+
+	void clear() {
+		sqlBuilder.setLength(0);
+		sqls.clear();
+	}
+}
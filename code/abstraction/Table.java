@@ -10,12 +10,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import config.Configurations;
 import org.apache.log4j.PropertyConfigurator;
 
 import input.TableInfoSerializer;
+import util.RandomStreams;
 
 public class Table implements Serializable, Cloneable {
 
@@ -331,7 +332,7 @@ public class Table implements Serializable, Cloneable {
 
 		for (int i = 0; i < allFkColumnIndexes.length; i++) {
 			for (int j = 0; j < allFkColumnIndexes[i].length; j++) {
-				tuple[allFkColumnIndexes[i][j]] = (long)(Math.random() * allFkColumnRanges[i][j]);
+				tuple[allFkColumnIndexes[i][j]] = (long)(RandomStreams.nextDouble() * allFkColumnRanges[i][j]);
 			}
 		}
 
@@ -401,7 +402,7 @@ public class Table implements Serializable, Cloneable {
 		int increaseColumnSize = generateTotalTableSize - columns.length;
 		for (int i = 0; i < increaseColumnSize; i++)
 		{
-			int generateColumnNameSize = (int)(Math.random()*10+3);    //3-13个字符组成column_name
+			int generateColumnNameSize = (int)(RandomStreams.nextDouble()*10+3);    //3-13个字符组成column_name
 			String columnName = getRandomString(generateColumnNameSize);
 			String dataType;
 //			double flagDataType = Math.random();
@@ -476,7 +477,7 @@ public class Table implements Serializable, Cloneable {
 	//added by qly
 	public static String getRandomString(int length){
 		String str="abcdefghijklmnopqrstuvwxyz";
-		Random random=new Random();
+		SplittableRandom random=RandomStreams.current();
 		StringBuffer sb=new StringBuffer();
 		for(int i=0;i<length;i++){
 			int number=random.nextInt(26);
@@ -1,14 +1,16 @@
 package abstraction;
 
-import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.*;
 
 import accessdistribution.DataAccessDistribution;
+import config.Configurations;
 import transactionlogic.ParameterNode;
+import workloadgenerator.LatencyRecorder;
 import workloadgenerator.Stats;
+import util.AliasTable;
+import util.RandomStreams;
 
 public class Transaction{
 
@@ -35,14 +37,22 @@ public class Transaction{
 	private Map<String, Double> multipleLogicMap = null;
 	// 以访问的列为单位统计的基数
 	private Map<String, Map<Integer,Double>> cardinality4paraInSchema = new HashMap<>();
+	// 由cardinality4paraInSchema预先构建的抽样结构：列名、每列的候选基数以及对应的别名表（最后一个候选项表示概率之和不足1时未选中）
+	private String[] cardinalityColumnNames = null;
+	private int[][] cardinalityCandidates = null;
+	private AliasTable[] cardinalityAliasTables = null;
 	// 操作ID -> 平均执行次数，用来确定：if/else分支执行比例，multiple内操作平均执行次数
 	private Map<Integer, Double> operationId2AvgRunTimes = null;
 
-	private Connection conn = null;
-	private Statement stmt = null;
+	// 当前事务在Workload中的下标
+	private transient int txIndex;
+	// 事务执行过程中中间状态的槽位个数（所有SQL参数、返回结果集以及依赖项各占一个槽位）
+	private transient int slotNum;
+	// 流水线执行时，下标为i的块是一组SQL操作的第一个块时pipelineGroupEnds[i]为该组结束的下标（不含），组内的SQL操作在一次往返中执行；
+	// 其他块为-1。未启用流水线执行时为null
+	private transient int[] pipelineGroupEnds = null;
 
-	// 记录事务执行过程中的中间状态，如返回结果集以及根据数据分布生成的SQL参数值
-	private Map<String, TxRunningValue> intermediateState = null;
+	// 事务对象是所有测试会话共享的只读模板，数据库连接、预编译语句、事务执行过程中的中间状态等都保存在SessionContext中
 
 //	private Logger logger = Logger.getLogger(Transaction.class);
 
@@ -65,69 +75,46 @@ public class Transaction{
 		this.cardinality4paraInSchema = cardinality4paraInSchema;
 	}
 
-	// 深拷贝Transaction对象，主要保证数据库操作执行器（stmt、pstmt）是独立的
-	public Transaction(Transaction transaction) {
-		super();
-		this.name = transaction.name;
-		this.ratio = transaction.ratio;
-		this.prepared = transaction.prepared;
-		this.transactionBlocks = new ArrayList<>();
-
-		if (transaction.cardinality4paraInSchema != null)
-			this.cardinality4paraInSchema = new HashMap<>(transaction.cardinality4paraInSchema);
-
-		for (TransactionBlock txBlock : transaction.transactionBlocks) {
-			switch (txBlock.getClass().getSimpleName()) {
-				case "Multiple":
-					this.transactionBlocks.add(new Multiple((Multiple) txBlock));
-					break;
-				case "Branch":
-					this.transactionBlocks.add(new Branch((Branch) txBlock));
-					break;
-				case "ReadOperation":
-					this.transactionBlocks.add(new ReadOperation((ReadOperation) txBlock));
-					break;
-				case "WriteOperation":
-					this.transactionBlocks.add(new WriteOperation((WriteOperation) txBlock));
-					break;
-			}
+	// 初始化事务模板，所有测试会话开始执行之前调用一次。txIndex为当前事务在Workload中的下标，
+	// firstStatementId为分配给当前事务中第一个SqlStatement对象的编号，返回下一个可用的编号
+	public int initTemplate(int txIndex, int firstStatementId) {
+		this.txIndex = txIndex;
+		int statementId = firstStatementId;
+		for (SqlStatement sql : getSqlStatements()) {
+			sql.setStatementId(statementId++, txIndex);
 		}
-
-		// 这些都是只读数据
-		this.rollbackProbabilities = transaction.rollbackProbabilities;
-		this.parameterNodeMap = transaction.parameterNodeMap;
-		this.multipleLogicMap = transaction.multipleLogicMap;
-		this.operationId2AvgRunTimes = transaction.operationId2AvgRunTimes;
+		init();
+		return statementId;
 	}
 
-	public void init(Connection conn) {
-		this.conn = conn;
+	// 在会话的数据库连接上创建当前事务所需的预编译语句（非预编译执行时创建会话共用的Statement）
+	public void prepare(SessionContext context) {
 		if (prepared) {
 			for (TransactionBlock transactionBlock : transactionBlocks) {
-				transactionBlock.prepare(conn);
+				transactionBlock.prepare(context);
 			}
-		} else {
+		}
+		// 流水线执行的多语句请求通过Statement发送
+		if (!prepared || Configurations.isPipelinedExecution()) {
 			try {
-				stmt = conn.createStatement();
+				context.createStatement();
 			} catch (SQLException e) {
 				e.printStackTrace();
 			}
 		}
-		init();
 	}
 
-	// 将intermediateState、parameterNodeMap传给每一个SqlStatement对象，将multipleLogicMap传给所有Multiple对象
+	// 将parameterNodeMap传给每一个SqlStatement对象（并编译成中间状态的槽位），将multipleLogicMap传给所有Multiple对象
 	// 通过operationId2AvgRunTimes计算：if/else分支执行比例，multiple块内操作平均执行次数
 	private void init() {
 //		System.out.println("Transaction Init");
-		intermediateState = new HashMap<>();
+		initCardinalityAliasTables();
 		for (TransactionBlock txBlock : transactionBlocks) {
 			if (txBlock.getClass().getSimpleName().equals("Multiple")) {
 //				System.out.println("Multiple DEBUG");
 				Multiple multiple = (Multiple) txBlock;
 				List<SqlStatement> sqls = multiple.getSqls();
 				for (SqlStatement sql : sqls) {
-					sql.setIntermediateState(intermediateState);
 					sql.setParameterNodeMap(parameterNodeMap);
 				}
 				multiple.setMultipleLogicMap(multipleLogicMap);
@@ -144,7 +131,6 @@ public class Transaction{
 				List<List<SqlStatement>> branches = branch.getBranches();
 				for (List<SqlStatement> sqlStatements : branches) {
 					for (SqlStatement sqlStatement : sqlStatements) {
-						sqlStatement.setIntermediateState(intermediateState);
 						sqlStatement.setParameterNodeMap(parameterNodeMap);
 					}
 				}
@@ -161,16 +147,163 @@ public class Transaction{
 				}
 				branch.setBranchRatios(branchRatios);
 			} else {
-				txBlock.setIntermediateState(intermediateState);
 				txBlock.setParameterNodeMap(parameterNodeMap);
 			}
 		}
+		initIntermediateStateSlots();
 	}
 
-	public float execute(){
-		intermediateState.clear();
+	// 为事务中所有参数、返回结果集分配中间状态的槽位，并将各SqlStatement对象的事务逻辑信息编译成槽位
+	private void initIntermediateStateSlots() {
+		List<SqlStatement> sqls = getSqlStatements();
+		Map<String, Integer> identifier2Slot = new HashMap<>();
+		for (SqlStatement sql : sqls) {
+			sql.registerSlots(identifier2Slot);
+		}
+		// 依赖项可能不是事务中任何SQL操作的参数或返回项，compileSlots时同样为其分配（永远不会被写入的）槽位
+		for (SqlStatement sql : sqls) {
+			sql.compileSlots(identifier2Slot);
+		}
+		slotNum = identifier2Slot.size();
+
+		// 没有被任何参数依赖的数值型参数可以直接按基本类型绑定
+		boolean[] referencedSlots = new boolean[slotNum];
+		for (SqlStatement sql : sqls) {
+			sql.markReferencedSlots(referencedSlots);
+		}
+		for (SqlStatement sql : sqls) {
+			sql.compileDirectBindings(referencedSlots);
+		}
+		initPipelineGroups();
+	}
+
+	// 流水线执行时，将连续的、参数不依赖组内前面读操作返回结果集的SqlStatement块划分为一组（Multiple和Branch块是组的边界）
+	// 参数之间的依赖在客户端按顺序生成参数时即可满足，只有依赖返回结果集时需要等前面的SQL操作执行完成
+	private void initPipelineGroups() {
+		pipelineGroupEnds = null;
+		if (!Configurations.isPipelinedExecution()) {
+			return;
+		}
+		int blockNum = transactionBlocks.size();
+		int[] groupEnds = new int[blockNum];
+		Arrays.fill(groupEnds, -1);
+		boolean[] groupResultSlots = new boolean[slotNum];
+		int groupStart = -1;
+		for (int i = 0; i < blockNum; i++) {
+			TransactionBlock txBlock = transactionBlocks.get(i);
+			if (txBlock instanceof Multiple) {
+				((Multiple) txBlock).compilePipeline(slotNum);
+			}
+			SqlStatement sql = null;
+			if (txBlock instanceof SqlStatement && ((SqlStatement) txBlock).isPipelinable()) {
+				sql = (SqlStatement) txBlock;
+			}
+			if (groupStart == -1 || sql == null || sql.dependsOnSlots(groupResultSlots)) {
+				closePipelineGroup(groupEnds, groupStart, i);
+				Arrays.fill(groupResultSlots, false);
+				groupStart = sql == null ? -1 : i;
+			}
+			if (sql != null) {
+				sql.markResultSlots(groupResultSlots);
+			}
+		}
+		closePipelineGroup(groupEnds, groupStart, blockNum);
+		pipelineGroupEnds = groupEnds;
+	}
+
+	// 只有一个SQL操作的组仍按原来的方式执行
+	private static void closePipelineGroup(int[] groupEnds, int groupStart, int groupEnd) {
+		if (groupStart != -1 && groupEnd - groupStart > 1) {
+			groupEnds[groupStart] = groupEnd;
+		}
+	}
+
+	private void initCardinalityAliasTables() {
+		int columnNum = cardinality4paraInSchema == null ? 0 : cardinality4paraInSchema.size();
+		cardinalityColumnNames = new String[columnNum];
+		cardinalityCandidates = new int[columnNum][];
+		cardinalityAliasTables = new AliasTable[columnNum];
+		if (columnNum == 0) {
+			return;
+		}
+		int i = 0;
+		for (Map.Entry<String, Map<Integer, Double>> entry : cardinality4paraInSchema.entrySet()) {
+			Map<Integer, Double> cardinality2Probability = entry.getValue();
+			int[] candidates = new int[cardinality2Probability.size()];
+			double[] cumulativeProbabilities = new double[cardinality2Probability.size()];
+			double sum = 0;
+			int j = 0;
+			for (Map.Entry<Integer, Double> candidate : cardinality2Probability.entrySet()) {
+				candidates[j] = candidate.getKey();
+				sum += candidate.getValue();
+				cumulativeProbabilities[j] = sum;
+				j++;
+			}
+			cardinalityColumnNames[i] = entry.getKey();
+			cardinalityCandidates[i] = candidates;
+			cardinalityAliasTables[i] = new AliasTable(AliasTable.weightsOfCumulative(cumulativeProbabilities, true));
+			i++;
+		}
+	}
 
+	public float execute(SessionContext context){
+		ReplayLog replayLog = context.getReplayLog();
+		replayLog.clear();
 		long startTime = System.nanoTime();
+
+		int flag = executeAttempt(context);
+		float firstAttemptTime = (System.nanoTime() - startTime) / 1000000f;
+		// 被数据库中止（死锁、序列化冲突等）的事务重放首次执行时生成的参数进行重试
+		int retryNum = 0;
+		while (flag == -1 && retryNum < Configurations.getTransactionRetryNum() && backoff(retryNum)) {
+			retryNum++;
+			replayLog.rewind();
+			flag = executeAttempt(context);
+		}
+
+		// 事务响应时间（包括所有重试以及重试前的退避），单位为ms
+		float responceTime = 0;
+		if (flag == 1) {
+
+			responceTime = (System.nanoTime() - startTime) / 1000000f;
+		} else if (flag == -1) {
+			responceTime = -1;
+		}
+
+		LatencyRecorder latencyRecorder = context.getLatencyRecorder();
+		if (latencyRecorder != null) {
+			latencyRecorder.recordTransaction(txIndex, responceTime);
+			if (replayLog.isEnabled()) {
+				latencyRecorder.recordRetry(txIndex, flag == 1 ? firstAttemptTime : 0, retryNum);
+			}
+		}
+
+		// logger.info("###" + name + "," + flag + "," + responceTime);
+		// 若responceTime为-1，表示当前事务因为死锁执行失败；responceTime为0，表示当前事务因为一个非死锁的错误而执行失败
+		return responceTime;
+	}
+
+	// 第retryNum + 1次重试前的随机退避，在[0, min(retryBackoffMax, retryBackoffBase * 2^retryNum))中均匀选取，
+	// 以免同时冲突的事务再次同时重试。线程被中断时返回false，不再重试
+	private boolean backoff(int retryNum) {
+		double maxBackoff = Math.min(Configurations.getRetryBackoffMax(),
+				Configurations.getRetryBackoffBase() * Math.pow(2, retryNum));
+		long backoffNanos = (long) (RandomStreams.nextDouble() * maxBackoff * 1000000);
+		try {
+			Thread.sleep(backoffNanos / 1000000, (int) (backoffNanos % 1000000));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		return true;
+	}
+
+	// 执行一次事务（首次执行或者重试），返回值同TransactionBlock.execute
+	private int executeAttempt(SessionContext context) {
+		context.getIntermediateState().reset(slotNum);
+		Connection conn = context.getConnection();
+		ReplayLog replayLog = context.getReplayLog();
+
 		int flag = 1;
 
 		Map<String, Map<Object, List<Object>>>  partitionUsed = new HashMap<>();
@@ -179,16 +312,10 @@ public class Transaction{
 		}
 
 		Map<String, Integer> cardUsed = new HashMap<>();
-		Random random = new Random();
-		for (String columnName : cardinality4paraInSchema.keySet()){
-			double idx = random.nextDouble();
-			double sum = 0;
-			for (Integer k: cardinality4paraInSchema.get(columnName).keySet()) {
-				sum += cardinality4paraInSchema.get(columnName).get(k);
-				if (sum > idx - 1e-7){
-					cardUsed.put(columnName, k);
-					break;
-				}
+		for (int i = 0; i < cardinalityColumnNames.length; i++) {
+			int idx = replayLog.sample(ReplayLog.decisionKey(ReplayLog.CARDINALITY, i), cardinalityAliasTables[i]);
+			if (idx < cardinalityCandidates[i].length) {
+				cardUsed.put(cardinalityColumnNames[i], cardinalityCandidates[i][idx]);
 			}
 		}
 
@@ -201,16 +328,30 @@ public class Transaction{
 //
 //		}
 		for (int i = 0; i < transactionBlocks.size(); i++) {
+			if (pipelineGroupEnds != null && pipelineGroupEnds[i] != -1) {
+				flag = executePipelineGroup(context, i, pipelineGroupEnds[i], cardUsed, partitionUsed);
+				if (flag != 1) {
+					break;
+				}
+				i = pipelineGroupEnds[i] - 1;
+				continue;
+			}
+			TransactionBlock txBlock = transactionBlocks.get(i);
+			long blockStartTime = System.nanoTime();
 			if (prepared) {
-				flag = transactionBlocks.get(i).execute(cardUsed, partitionUsed);
+				flag = txBlock.execute(context, cardUsed, partitionUsed);
 			} else {
-				flag = transactionBlocks.get(i).execute(cardUsed, partitionUsed, stmt);
+				flag = txBlock.execute(context, cardUsed, partitionUsed, context.getStatement());
+			}
+			// Multiple和Branch块在块内部按SQL操作记录
+			if (txBlock instanceof SqlStatement) {
+				((SqlStatement) txBlock).recordOperation(context, blockStartTime, flag);
 			}
 			if (flag != 1) {
 				break;
 			}
 			// mainly for smallbank workload. 针对其他负载，rollbackProbabilities[i]都为0
-			if (Math.random() < rollbackProbabilities[i]) {
+			if (replayLog.nextDouble(ReplayLog.decisionKey(ReplayLog.ROLLBACK, i)) < rollbackProbabilities[i]) {
 				flag = 0;
 				break;
 			}
@@ -219,7 +360,7 @@ public class Transaction{
 
 		try {
 			if (flag == 1) {
-				this.cleanBatch(transactionBlocks);
+				this.cleanBatch(context, transactionBlocks);
 				conn.commit();
 
 				// wsy 统计该事务访问的分区数
@@ -240,13 +381,17 @@ public class Transaction{
 				}
 				Stats.addTxPartitionCnt(partitionCnt);
 			} else {
-				this.cleanBatch(transactionBlocks);
+				this.cleanBatch(context, transactionBlocks);
 				conn.rollback();
 			}
 		} catch (Exception e) {  //lyqu : 将SQLException换为Exception
-			e.printStackTrace();
+			// 序列化隔离级别下，序列化冲突可能在提交时才被发现，此时同样按被数据库中止处理
+			boolean aborted = e instanceof SQLException && SqlStatement.isTransactionAborted((SQLException) e);
+			if (!aborted) {
+				e.printStackTrace();
+			}
 			try {
-				flag = 0;
+				flag = aborted ? -1 : 0;
 				conn.rollback();
 			} catch (Exception e1) {
 				e1.printStackTrace();
@@ -260,21 +405,29 @@ public class Transaction{
 //			e.printStackTrace();
 //		}
 
-		// 事务响应时间，单位为ms
-		float responceTime = 0;
-		if (flag == 1) {
-
-			responceTime = (System.nanoTime() - startTime) / 1000000f;
-		} else if (flag == -1) {
-			responceTime = -1;
-		}
-
-		// logger.info("###" + name + "," + flag + "," + responceTime);
-		// 若responceTime为-1，表示当前事务因为死锁执行失败；responceTime为0，表示当前事务因为一个非死锁的错误而执行失败
-		return responceTime;
+		return flag;
 	}
 
 
+	// 在一次往返中执行[start, end)中的SQL操作。生成参数的过程中即按rollbackProbabilities判断是否主动回滚，
+	// 需回滚时只执行到当前操作为止，并返回0
+	private int executePipelineGroup(SessionContext context, int start, int end, Map<String, Integer> cardUsed,
+			Map<String, Map<Object, List<Object>>> partitionUsed) {
+		StatementPipeline pipeline = context.getStatementPipeline();
+		boolean rollback = false;
+		try {
+			for (int i = start; i < end && !rollback; i++) {
+				pipeline.add(context, (SqlStatement) transactionBlocks.get(i), cardUsed, partitionUsed, 0);
+				rollback = context.getReplayLog().nextDouble(ReplayLog.decisionKey(ReplayLog.ROLLBACK, i)) < rollbackProbabilities[i];
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			pipeline.clear();
+			return 0;
+		}
+		int flag = pipeline.execute(context);
+		return rollback && flag == 1 ? 0 : flag;
+	}
 
 	public void setRatio(double ratio) {
 		this.ratio = ratio;
@@ -288,32 +441,49 @@ public class Transaction{
 		return rollbackProbabilities;
 	}
 
-	// 设置SQL参数的数据分布。当type为0时，设置的是全负载周期的数据访问分布；当type为1时，设置的是当前时间窗口的数据访问分布
-	public void setSqlParaDistribution(Map<String, DataAccessDistribution> paraId2Distribution, int type) {
+	// 设置SQL参数全负载周期的数据访问分布，当前时间窗口的数据访问分布由时间窗口快照提供
+	public void setSqlParaDistribution(Map<String, DataAccessDistribution> paraId2Distribution) {
 		for (TransactionBlock txBlock : transactionBlocks) {
 			if (txBlock.getClass().getSimpleName().equals("Multiple")) {
 				Multiple multiple = (Multiple) txBlock;
 				List<SqlStatement> sqls = multiple.getSqls();
 				for (SqlStatement sql : sqls) {
-					sql.setParaDistribution(paraId2Distribution, type);
+					sql.setParaDistribution(paraId2Distribution);
 				}
 			} else if (txBlock.getClass().getSimpleName().equals("Branch")) {
 				Branch branch = (Branch) txBlock;
 				List<List<SqlStatement>> branches = branch.getBranches();
 				for (List<SqlStatement> sqlStatements : branches) {
 					for (SqlStatement sqlStatement : sqlStatements) {
-						sqlStatement.setParaDistribution(paraId2Distribution, type);
+						sqlStatement.setParaDistribution(paraId2Distribution);
 					}
 				}
 			} else {
 				SqlStatement sqlStatement = (SqlStatement) txBlock;
-				sqlStatement.setParaDistribution(paraId2Distribution, type);
+				sqlStatement.setParaDistribution(paraId2Distribution);
 			}
 		}
 	}
 
+	// 事务中所有的SqlStatement对象（展开Multiple和Branch块）
+	public List<SqlStatement> getSqlStatements() {
+		List<SqlStatement> sqlStatements = new ArrayList<>();
+		for (TransactionBlock txBlock : transactionBlocks) {
+			if (txBlock.getClass().getSimpleName().equals("Multiple")) {
+				sqlStatements.addAll(((Multiple) txBlock).getSqls());
+			} else if (txBlock.getClass().getSimpleName().equals("Branch")) {
+				for (List<SqlStatement> branch : ((Branch) txBlock).getBranches()) {
+					sqlStatements.addAll(branch);
+				}
+			} else {
+				sqlStatements.add((SqlStatement) txBlock);
+			}
+		}
+		return sqlStatements;
+	}
+
 	//added b lyqu
-	public void cleanBatch(List<TransactionBlock> transactionBlocks){
+	public void cleanBatch(SessionContext context, List<TransactionBlock> transactionBlocks){
 		for(TransactionBlock transactionBlock:transactionBlocks){
 			if(transactionBlock.getClass().getSimpleName().contains("Multiple")){
 				Multiple multiple = (Multiple) transactionBlock;
@@ -322,11 +492,7 @@ public class Transaction{
 					// bug fix: clearBatch
 					for (SqlStatement sql : sqls) {
 						if (sql.getClass().getSimpleName().equals("WriteOperation")) {
-							try {
-								sql.pstmt.clearBatch();
-							} catch (SQLException e) {
-								e.printStackTrace();
-							}
+							((WriteOperation) sql).clearBatch(context);
 						}
 					} // --------
 				}
@@ -374,8 +540,7 @@ public class Transaction{
 		return "Transaction [name=" + name + ", ratio=" + ratio + ", prepared=" + prepared + ", transactionBlocks="
 				+ transactionBlocks + ", rollbackProbabilities=" + Arrays.toString(rollbackProbabilities)
 				+ ", parameterNodeMap=" + parameterNodeMap + ", multipleLogicMap=" + multipleLogicMap
-				+ ", operationId2AvgRunTimes=" + operationId2AvgRunTimes + ", conn=" + conn + ", stmt=" + stmt
-				+ ", intermediateState=" + intermediateState + "]";
+				+ ", operationId2AvgRunTimes=" + operationId2AvgRunTimes + "]";
 	}
 
 	// added by zsy 用作比较事务模板是否相等
@@ -419,77 +584,3 @@ public class Transaction{
 		return paraId2Name;
 	}
 }
-
-// 事务运行过程中一些中间状态的值，包含SQL操作的输入参数和返回结果集
-class TxRunningValue {
-
-	// 标识符，形式为：operationId + "para"/"result" + index
-	String identifier = null;
-
-	// 具体数值，因为可能存在不同的数据类型以及数组形式（返回结果集为一组tuple），故采用Object类型
-	// 注意这里的value是包装类型
-	Object value = null;
-
-	// 0: integer(long); 1: real(double); 2: decimal(BigDecimal);
-	// 3: datetime(Date millisecond -- long); 4: varchar; 5: boolean
-	// 注意：存进value中的全都是包装类型，对于返回结果集为多个tuple时（value为数组类型）相应的type值加6
-	int type;
-
-	public TxRunningValue(String identifier, Object value, int type) {
-		super();
-		this.identifier = identifier;
-		this.value = value;
-		this.type = type;
-	}
-
-	// 针对包含依赖关系，随机返回结果集中任意一个元素
-	public Object getIncludeRelationValue() {
-		if (type <= 5) {
-			return value;
-		}
-
-		Object[] values = (Object[]) value;
-		return values[(int) (Math.random() * values.length)];
-	}
-
-	// 线性依赖关系，依赖的数据项可能是返回结果集元素，故可能为null
-	public Double getLinearRelationValue(double a, double b) {
-		if (value == null) {
-			return null;
-		}
-
-		switch (type) {
-		case 0:
-		case 3:
-			return (Long) value * a + b;
-		case 1:
-			return (Double) value * a + b;
-		case 2:
-			return new BigDecimal(value.toString()).doubleValue() * a + b;
-		default:
-			System.err.println("当前数据类型不支持线性依赖关系！标识符为：" + identifier + "，数据类型为：" + type);
-			return null;
-		}
-	}
-
-	// 注意：具有multiple逻辑的两个参数之间数据类型必然一致（同一个SQL参数的不同次执行）
-	public Object getMultipleLogicValue(double increment) {
-		// 这里的value是SQL参数，故不可能为null
-		double paraValue;
-		switch (type) {
-		case 0:
-		case 3:
-			paraValue = (Long) value + increment;
-			return (long) paraValue;
-		case 1:
-			paraValue = (Double) value + increment;
-			return paraValue;
-		case 2:
-			paraValue = new BigDecimal(value.toString()).doubleValue() + increment;
-			return new BigDecimal(paraValue);
-		default:
-			System.err.println("当前数据类型不支持multiple逻辑！标识符为：" + identifier + "，数据类型为：" + type);
-			return null;
-		}
-	}
-}
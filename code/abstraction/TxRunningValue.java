@@ -0,0 +1,79 @@
+package abstraction;
+
+import java.math.BigDecimal;
+
+import util.RandomStreams;
+
+// 事务运行过程中一些中间状态的值，包含SQL操作的输入参数和返回结果集
+class TxRunningValue {
+
+	// 标识符，形式为：operationId + "para"/"result" + index
+	String identifier = null;
+
+	// 具体数值，因为可能存在不同的数据类型以及数组形式（返回结果集为一组tuple），故采用Object类型
+	// 注意这里的value是包装类型
+	Object value = null;
+
+	// 0: integer(long); 1: real(double); 2: decimal(BigDecimal);
+	// 3: datetime(Date millisecond -- long); 4: varchar; 5: boolean
+	// 注意：存进value中的全都是包装类型，对于返回结果集为多个tuple时（value为数组类型）相应的type值加6
+	int type;
+
+	// TxRunningValue对象保存在会话的中间状态槽位中重复使用，每次写入时更新
+	void set(String identifier, Object value, int type) {
+		this.identifier = identifier;
+		this.value = value;
+		this.type = type;
+	}
+
+	// 针对包含依赖关系，随机返回结果集中任意一个元素
+	public Object getIncludeRelationValue() {
+		if (type <= 5) {
+			return value;
+		}
+
+		Object[] values = (Object[]) value;
+		return values[(int) (RandomStreams.nextDouble() * values.length)];
+	}
+
+	// 线性依赖关系，依赖的数据项可能是返回结果集元素，故可能为null
+	public Double getLinearRelationValue(double a, double b) {
+		if (value == null) {
+			return null;
+		}
+
+		switch (type) {
+		case 0:
+		case 3:
+			return (Long) value * a + b;
+		case 1:
+			return (Double) value * a + b;
+		case 2:
+			return new BigDecimal(value.toString()).doubleValue() * a + b;
+		default:
+			System.err.println("当前数据类型不支持线性依赖关系！标识符为：" + identifier + "，数据类型为：" + type);
+			return null;
+		}
+	}
+
+	// 注意：具有multiple逻辑的两个参数之间数据类型必然一致（同一个SQL参数的不同次执行）
+	public Object getMultipleLogicValue(double increment) {
+		// 这里的value是SQL参数，故不可能为null
+		double paraValue;
+		switch (type) {
+		case 0:
+		case 3:
+			paraValue = (Long) value + increment;
+			return (long) paraValue;
+		case 1:
+			paraValue = (Double) value + increment;
+			return paraValue;
+		case 2:
+			paraValue = new BigDecimal(value.toString()).doubleValue() + increment;
+			return new BigDecimal(paraValue);
+		default:
+			System.err.println("当前数据类型不支持multiple逻辑！标识符为：" + identifier + "，数据类型为：" + type);
+			return null;
+		}
+	}
+}
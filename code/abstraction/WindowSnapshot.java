@@ -0,0 +1,93 @@
+package abstraction;
+
+import java.util.List;
+import java.util.Map;
+
+import accessdistribution.DataAccessDistribution;
+import util.AliasTable;
+
+/**
+ * 一个时间窗口的负载快照：事务比例（别名表）以及按 事务下标 -> operationId -> 参数下标 索引的当前时间窗口参数数据分布
+ * 快照在构建后不再修改，由所有测试客户端共享。客户端切换时间窗口时只需替换自己持有的快照引用，
+ * 不必再遍历各自负载对象中的所有SQL操作逐个设置数据分布。
+ */
+public class WindowSnapshot {
+
+	private final int windowIndex;
+
+	// 各事务的比例，下标与Workload中的事务顺序一致
+	private final double[] transactionRatios;
+	// 事务选择的别名表，最后一个候选项表示概率之和不足1时未选中任何事务
+	private final AliasTable transactionAliasTable;
+
+	// 当前时间窗口的参数数据分布：[事务下标][operationId][参数下标]，当前时间窗口没有相应分布时为null
+	private final DataAccessDistribution[][][] paraDistributions;
+
+	// transactions为负载中的事务（仅读取其结构），previous为上一个时间窗口的快照（可为null）
+	public WindowSnapshot(int windowIndex, List<Transaction> transactions, Map<String, Double> txName2Ratio,
+			Map<String, Map<String, DataAccessDistribution>> txName2ParaId2Distribution, WindowSnapshot previous) {
+		super();
+		this.windowIndex = windowIndex;
+
+		// bug fix，某个时间窗口可能出现吞吐为0的情况，此时沿用上一个时间窗口的事务比例
+		double sum = 0;
+		for (double ratio : txName2Ratio.values()) {
+			sum += ratio;
+		}
+		double[] ratios = new double[transactions.size()];
+		for (int i = 0; i < transactions.size(); i++) {
+			if (sum == 0) {
+				ratios[i] = previous != null ? previous.transactionRatios[i] : transactions.get(i).getRatio();
+			} else {
+				Double ratio = txName2Ratio.get(transactions.get(i).getName());
+				ratios[i] = ratio == null ? 0 : ratio;
+			}
+		}
+		transactionRatios = ratios;
+
+		double[] cumulativeProbabilities = new double[ratios.length];
+		cumulativeProbabilities[0] = ratios[0];
+		for (int i = 1; i < ratios.length; i++) {
+			cumulativeProbabilities[i] = cumulativeProbabilities[i - 1] + ratios[i];
+		}
+		transactionAliasTable = new AliasTable(AliasTable.weightsOfCumulative(cumulativeProbabilities, true));
+
+		paraDistributions = new DataAccessDistribution[transactions.size()][][];
+		for (int i = 0; i < transactions.size(); i++) {
+			List<SqlStatement> sqls = transactions.get(i).getSqlStatements();
+			int maxOperationId = 0;
+			for (SqlStatement sql : sqls) {
+				maxOperationId = Math.max(maxOperationId, sql.getOperationId());
+			}
+			paraDistributions[i] = new DataAccessDistribution[maxOperationId + 1][];
+
+			// 有可能等于null，在当前时间窗口该事务没有执行过
+			Map<String, DataAccessDistribution> paraId2Distribution = txName2ParaId2Distribution == null ? null
+					: txName2ParaId2Distribution.get(transactions.get(i).getName());
+			for (SqlStatement sql : sqls) {
+				int paraNum = sql.getParaDataTypes() == null ? 0 : sql.getParaDataTypes().length;
+				DataAccessDistribution[] distributions = new DataAccessDistribution[paraNum];
+				for (int j = 0; j < paraNum && paraId2Distribution != null; j++) {
+					distributions[j] = paraId2Distribution.get(sql.getOperationId() + "_" + j);
+				}
+				paraDistributions[i][sql.getOperationId()] = distributions;
+			}
+		}
+	}
+
+	public int getWindowIndex() {
+		return windowIndex;
+	}
+
+	public double[] getTransactionRatios() {
+		return transactionRatios;
+	}
+
+	public AliasTable getTransactionAliasTable() {
+		return transactionAliasTable;
+	}
+
+	public DataAccessDistribution getParaDistribution(int txIndex, int operationId, int paraIndex) {
+		return paraDistributions[txIndex][operationId][paraIndex];
+	}
+}
@@ -1,8 +1,9 @@
 package abstraction;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
 import java.util.*;
 
 import accessdistribution.DataAccessDistribution;
@@ -26,25 +27,7 @@ public class WriteOperation extends SqlStatement {
 		this.paraSchemaInfos = paraSchemaInfos;
 		this.batchExecute = batchExecute;
 		
-		windowParaGenerators = new DataAccessDistribution[paraDataTypes.length];
 		fullLifeCycleParaGenerators = new DataAccessDistribution[paraDataTypes.length];
-		sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-	}
-
-	// 深拷贝主要是为了保证 数据库执行器 不被覆盖
-	public WriteOperation(WriteOperation writeOperation) {
-		super();
-		this.operationId = writeOperation.operationId;
-		this.sql = writeOperation.sql;
-		this.paraDataTypes = writeOperation.paraDataTypes;
-		this.paraDistTypeInfos = writeOperation.paraDistTypeInfos;
-
-		if (writeOperation.paraSchemaInfos != null)
-			this.paraSchemaInfos = new ArrayList<>(writeOperation.paraSchemaInfos);
-		this.batchExecute = writeOperation.batchExecute;
-		windowParaGenerators = new DataAccessDistribution[paraDataTypes.length];
-		fullLifeCycleParaGenerators = new DataAccessDistribution[paraDataTypes.length];
-		sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 	}
 
 	public boolean isBatchExecute() {
@@ -52,31 +35,37 @@ public class WriteOperation extends SqlStatement {
 	}
 
 	@Override
-	public int execute(Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed) {
+	public int execute(SessionContext context, Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed) {
+		PreparedStatement pstmt = context.getPreparedStatement(statementId);
 //		long startTime = System.currentTimeMillis();
 //		long para = -1; //lyqu: 照理说不应该为long类型，而是int主键类型
 //		LaucaTestingEnv.writeOperationTimes.getAndIncrement();
 		try {
+			long geneStartTime = System.nanoTime();
 			Map<String, Map<Object,Integer>> usedPartitionSize = getUsedPartitionSize(partitionUsed);
 			for (int i = 0; i < paraDataTypes.length; i++) {
+				if (bindDirectly(context, pstmt, i, this.paraSchemaInfos.get(i), cardinality4paraInSchema)) {
+					continue;
+				}
 
 //				if(i == paraDataTypes.length-1){
 //					para = (long)parameter;
 //				}
 
-				Object parameter = checkParaOutOfCardinality(
+				Object parameter = checkParaOutOfCardinality(context,
 						i,
 						this.paraSchemaInfos.get(i),
 						cardinality4paraInSchema,
 						partitionUsed
 				);
 
-				setParameter(i + 1, paraDataTypes[i], parameter);
+				setParameter(pstmt, i + 1, paraDataTypes[i], parameter);
 
 			}
 //			long endTime = System.currentTimeMillis();
 //			LaucaTestingEnv.geneTime += endTime-startTime;
 
+			recordGeneration(context, geneStartTime);
 			if (batchExecute) {
 //				System.out.println("I am in WriteOperation batchExecute");
 				pstmt.addBatch();
@@ -103,8 +92,8 @@ public class WriteOperation extends SqlStatement {
 			return 1;
 		} catch (Exception e) {
 //			return -1;
-			if (e instanceof  SQLException) {
-				return -1;
+			if (e instanceof SQLException) {
+				return isTransactionAborted((SQLException) e) ? -1 : 0;
 			}
 //			e.printStackTrace();
 //			System.err.println("ERROR!!!");
@@ -123,16 +112,17 @@ public class WriteOperation extends SqlStatement {
 	}
 
 	@Override
-	public int execute(Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed, Statement stmt) {
+	public int execute(SessionContext context, Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed, Statement stmt) {
 		
 		String tmp = sql; // 方便程序调试
 		
 		try {
+			long geneStartTime = System.nanoTime();
 			Map<String, Map<Object,Integer>> usedPartitionSize = getUsedPartitionSize(partitionUsed);
 			// String tmp = sql;
 			for (int i = 0; i < paraDataTypes.length; i++) {
 
-				Object parameter = checkParaOutOfCardinality(
+				Object parameter = checkParaOutOfCardinality(context,
 						i,
 						this.paraSchemaInfos.get(i),
 						cardinality4paraInSchema,
@@ -140,7 +130,7 @@ public class WriteOperation extends SqlStatement {
 				);
 
 				if (paraDataTypes[i] == 3) {
-					tmp = tmp.replaceFirst("\\?", " '" + sdf.format(new Date((Long)parameter)) + "' ");
+					tmp = tmp.replaceFirst("\\?", " '" + dateFormatter.format(Instant.ofEpochMilli((Long) parameter)) + "' ");
 				} else if (paraDataTypes[i] == 4) {
 					tmp = tmp.replaceFirst("\\?", " '" + parameter.toString() + "' ");
 				} else {
@@ -148,6 +138,7 @@ public class WriteOperation extends SqlStatement {
 				}
 			}
 			// 非预编译执行不存在批处理的策略
+			recordGeneration(context, geneStartTime);
 			stmt.executeUpdate(tmp);
 			getDiffUsedPartitionSize(usedPartitionSize, partitionUsed);
 			return 1;
@@ -155,7 +146,7 @@ public class WriteOperation extends SqlStatement {
 //			e.printStackTrace();
 //			System.out.println(tmp);
 //			System.exit(0);
-			return -1;
+			return isTransactionAborted(e) ? -1 : 0;
 		}
 	}
 
@@ -171,29 +162,35 @@ public class WriteOperation extends SqlStatement {
 	}
 
 	@Override
-	public int execute(Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed,
-					   Map<String, Double> multipleLogicMap, int round) {
+	public int execute(SessionContext context, Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed,
+					   int round) {
+		PreparedStatement pstmt = context.getPreparedStatement(statementId);
 		try {
+			long geneStartTime = System.nanoTime();
 			Map<String, Map<Object,Integer>> usedPartitionSize = getUsedPartitionSize(partitionUsed);
 			for (int i = 0; i < paraDataTypes.length; i++) {
+				if (bindDirectly(context, pstmt, i, this.paraSchemaInfos.get(i), cardinality4paraInSchema)) {
+					continue;
+				}
 
-				Object parameter = checkParaOutOfCardinality(i,
-						geneParameterByMultipleLogic(i, multipleLogicMap, round),
+				Object parameter = checkParaOutOfCardinality(context, i,
+						geneParameterByMultipleLogic(context, i, round),
 						this.paraSchemaInfos.get(i),
 						cardinality4paraInSchema,
 						partitionUsed
 				);
 				while (parameter == null){
-					parameter = checkParaOutOfCardinality(i,
-							geneParameterByMultipleLogic(i, multipleLogicMap, round),
+					parameter = checkParaOutOfCardinality(context, i,
+							geneParameterByMultipleLogic(context, i, round),
 							this.paraSchemaInfos.get(i),
 							cardinality4paraInSchema,
 							partitionUsed
 					);
 				}
 
-				setParameter(i + 1, paraDataTypes[i], parameter);
+				setParameter(pstmt, i + 1, paraDataTypes[i], parameter);
 			}
+			recordGeneration(context, geneStartTime);
 			if (batchExecute) {
 				pstmt.addBatch();
 			} else {
@@ -203,7 +200,7 @@ public class WriteOperation extends SqlStatement {
 			return 1;
 		} catch (SQLException e) {
 //			e.printStackTrace();
-			if (e.getMessage().contains("Deadlock")) {
+			if (isTransactionAborted(e)) {
 				return -1;
 			}
 			System.out.println(this.getClass().getName());
@@ -216,49 +213,50 @@ public class WriteOperation extends SqlStatement {
 	}
 
 	@Override
-	public int execute(Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed,
-					   Statement stmt, Map<String, Double> multipleLogicMap, int round) {
+	public int execute(SessionContext context, Map<String, Integer> cardinality4paraInSchema, Map<String, Map<Object, List<Object>>> partitionUsed,
+					   Statement stmt, int round) {
 		try {
+			long geneStartTime = System.nanoTime();
 			Map<String, Map<Object,Integer>> usedPartitionSize = getUsedPartitionSize(partitionUsed);
 			String tmp = sql;
 			for (int i = 0; i < paraDataTypes.length; i++) {
 
-				Object parameter = checkParaOutOfCardinality(i,
-						geneParameterByMultipleLogic(i, multipleLogicMap, round),
+				Object parameter = checkParaOutOfCardinality(context, i,
+						geneParameterByMultipleLogic(context, i, round),
 						this.paraSchemaInfos.get(i),
 						cardinality4paraInSchema,
 						partitionUsed
 				);
 				while (parameter == null){
-					parameter = checkParaOutOfCardinality(i,
-							geneParameterByMultipleLogic(i, multipleLogicMap, round),
+					parameter = checkParaOutOfCardinality(context, i,
+							geneParameterByMultipleLogic(context, i, round),
 							this.paraSchemaInfos.get(i),
 							cardinality4paraInSchema,
 							partitionUsed
 					);
 				}
 				if (paraDataTypes[i] == 3) {
-					tmp = tmp.replaceFirst("\\?", " '" + sdf.format(new Date((Long)parameter)) + "' ");
+					tmp = tmp.replaceFirst("\\?", " '" + dateFormatter.format(Instant.ofEpochMilli((Long) parameter)) + "' ");
 				} else if (paraDataTypes[i] == 4) {
 					tmp = tmp.replaceFirst("\\?", " '" + parameter.toString() + "' ");
 				} else {
 					tmp = tmp.replaceFirst("\\?", " " + parameter.toString() + " ");
 				}
 			}
+			recordGeneration(context, geneStartTime);
 			stmt.executeUpdate(tmp);
 			getDiffUsedPartitionSize(usedPartitionSize, partitionUsed);
 			return 1;
 		} catch (SQLException e) {
 //			e.printStackTrace();
-			return -1;
-
+			return isTransactionAborted(e) ? -1 : 0;
 		}
 	}
 
-	public int executeBatch() {
+	public int executeBatch(SessionContext context) {
 		try {
 			if (batchExecute) {
-				pstmt.executeBatch();
+				context.getPreparedStatement(statementId).executeBatch();
 
 //				pstmt.clearBatch();
 //				int totalCount = 0; //一般是10
@@ -286,7 +284,16 @@ public class WriteOperation extends SqlStatement {
 			}
 			return 1;
 		} catch (SQLException e) {
-			return -1;
+			return isTransactionAborted(e) ? -1 : 0;
+		}
+	}
+
+	// 清空会话中该操作预编译语句上缓存的批处理参数
+	public void clearBatch(SessionContext context) {
+		try {
+			context.getPreparedStatement(statementId).clearBatch();
+		} catch (SQLException e) {
+			e.printStackTrace();
 		}
 	}
 
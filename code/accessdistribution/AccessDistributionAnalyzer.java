@@ -1,16 +1,22 @@
 package accessdistribution;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import abstraction.*;
 import org.apache.log4j.PropertyConfigurator;
@@ -26,6 +32,7 @@ import transactionlogic.RunningLogReader;
 import transactionlogic.TransactionData;
 import transactionlogic.TxLogicAnalyzer;
 import util.DBConnector;
+import util.LogTokenizer;
 import workloadgenerator.Monitor;
 import workloadgenerator.Workload;
 import workloadgenerator.WorkloadGenerator;
@@ -93,7 +100,7 @@ public class AccessDistributionAnalyzer {
 			BlockingQueue<String> logBlockingQueue = new ArrayBlockingQueue<>(10000);
 			LogSplitterQueueMap.put(entry.getKey(), logBlockingQueue);
 			new Thread(new LogSplitter(entry.getKey(), logBlockingQueue, timeWindowSize, windowDataBlockingQueues,
-					txName2StatParameters, cdl)).start();
+					txName2StatParameters, txName2ParaId2DistTypeInfo, cdl)).start();
 
 			// for testing workload generator! -- 为每个事务设置事务逻辑信息
 			for (Transaction transaction : transactions) {
@@ -111,9 +118,12 @@ public class AccessDistributionAnalyzer {
 		DistributionCounter.init(txName2StatParameters);
 		DistributionCounter.setTxName2ParaId2AvgRunTimes(txName2ParaId2AvgRunTimes);
 
+		List<Thread> statThreads = new ArrayList<>();
 		for (int i = 0; i < statThreadNum; i++) {
-			new Thread(new DistributionStatisticalThread(windowDataBlockingQueues.get(i), txName2ParaId2DistTypeInfo))
-					.start();
+			Thread statThread = new Thread(new DistributionStatisticalThread(windowDataBlockingQueues.get(i),
+					txName2ParaId2DistTypeInfo));
+			statThread.start();
+			statThreads.add(statThread);
 		}
 
 		File[] logFiles = new File(".//testdata//log4dist").listFiles();
@@ -143,10 +153,12 @@ public class AccessDistributionAnalyzer {
 			cdl.await();
 			// 关闭所有分布统计线程（DistributionStatisticalThread）
 			for (BlockingQueue<WindowData> windowDataBlockingQueue : windowDataBlockingQueues) {
-				windowDataBlockingQueue.put(new WindowData("txName", "paraIdentifier", -1, null));
+				windowDataBlockingQueue.put(new WindowData("txName", "paraIdentifier", -1, (List<String>) null));
+			}
+			// 等待所有统计线程将其分片合并到DistributionCounter中
+			for (Thread statThread : statThreads) {
+				statThread.join();
 			}
-
-			Thread.sleep(2000);
 		} catch (InterruptedException e) {
 			e.printStackTrace();
 		}
@@ -177,6 +189,7 @@ public class AccessDistributionAnalyzer {
 		WorkloadGenerator workloadGenerator = new WorkloadGenerator(allThreadNum, localThreadNum, workload,
 				dbConnector);
 		workloadGenerator.constructWindowThroughputList(DistributionCounter.getTxName2ThroughputList());
+		workloadGenerator.setWindowArrivalProfileList(DistributionCounter.getWindowArrivalProfileList());
 		workloadGenerator.setWindowDistributionList(DistributionCounter.getWindowDistributionList());
 		workloadGenerator
 				.setTxName2ParaId2FullLifeCycleDistribution(DistributionCounter.getTxName2ParaId2GlobalDistribution());
@@ -282,7 +295,7 @@ public class AccessDistributionAnalyzer {
 			BlockingQueue<String> logBlockingQueue = new ArrayBlockingQueue<>(10000);
 			LogSplitterQueueMap.put(entry.getKey(), logBlockingQueue); // qly: txname:logBlockingQueue,logBlockingQueue为引用，会在LogSplitterQueueMap中被put进数据 ~
 			new Thread(new LogSplitter(entry.getKey(), logBlockingQueue, timeWindowSize, windowDataBlockingQueues,
-					txName2StatParameters, cdl)).start();
+					txName2StatParameters, txName2ParaId2DistTypeInfo, cdl)).start();
 
 			// for workload generator! -- 为每个事务设置事务逻辑信息
 			for (Transaction transaction : transactions) {
@@ -323,9 +336,12 @@ public class AccessDistributionAnalyzer {
 		DistributionCounter.init(txName2StatParameters);
 		DistributionCounter.setTxName2ParaId2AvgRunTimes(txName2ParaId2AvgRunTimes);
 		DistributionCounter.mapPara2PartitionRule(tables, transactions);
+		List<Thread> statThreads = new ArrayList<>();
 		for (int i = 0; i < statThreadNum; i++) {
-			new Thread(new DistributionStatisticalThread(windowDataBlockingQueues.get(i), txName2ParaId2DistTypeInfo))
-					.start();
+			Thread statThread = new Thread(new DistributionStatisticalThread(windowDataBlockingQueues.get(i),
+					txName2ParaId2DistTypeInfo));
+			statThread.start();
+			statThreads.add(statThread);
 		}
 
 //
@@ -360,10 +376,12 @@ public class AccessDistributionAnalyzer {
 			cdl.await();
 			// 关闭所有分布统计线程（DistributionStatisticalThread）
 			for (BlockingQueue<WindowData> windowDataBlockingQueue : windowDataBlockingQueues) {
-				windowDataBlockingQueue.put(new WindowData("txName", "paraIdentifier", -1, null));
+				windowDataBlockingQueue.put(new WindowData("txName", "paraIdentifier", -1, (List<String>) null));
+			}
+			// 等待所有统计线程将其分片合并到DistributionCounter中
+			for (Thread statThread : statThreads) {
+				statThread.join();
 			}
-
-//			Thread.sleep(1000);
 		} catch (InterruptedException e) {
 			e.printStackTrace();
 		}
@@ -416,42 +434,61 @@ public class AccessDistributionAnalyzer {
 }
 
 /**
- * 单线程读取日志文件，然后根据事务名称将事务日志分流到各个事务的LogSplitter线程中进行时间窗口划分
+ * 读取日志文件，然后根据事务名称将事务日志分流到各个事务的LogSplitter线程中进行时间窗口划分
+ * 日志文件按行边界切分成若干分块（logReaderChunkSize），每个分块以内存映射的方式读取，由logReaderThreadNum个解析线程并行解析；
+ * 解析结果按分块的顺序依次分流，因此每个事务的日志仍保持其在日志文件中的顺序（LogSplitter依赖这一顺序）。
+ * 同时解析的分块数有上限，以限制内存占用
  */
 class LogReader implements Runnable {
 
+	private static final byte[] LOG_PREFIX = "lauca;".getBytes(StandardCharsets.UTF_8);
+
 	private File[] logFiles = null; // 支持输入一个日志文件夹
 	// 数据结构：事务名称 -> 相应事务日志切分线程的阻塞队列
 	private Map<String, BlockingQueue<String>> LogSplitterQueueMap = null;
 
+	private int threadNum;
+	private long chunkSize;
+
 	public LogReader(File[] logFiles, Map<String, BlockingQueue<String>> LogSplitterQueueMap) {
 		super();
 		this.logFiles = logFiles;
 		this.LogSplitterQueueMap = LogSplitterQueueMap;
+		this.threadNum = Configurations.getLogReaderThreadNum() > 0 ? Configurations.getLogReaderThreadNum()
+				: Runtime.getRuntime().availableProcessors();
+		// 单次内存映射的大小不能超过2GB
+		this.chunkSize = Math.min(1024, Math.max(1, Configurations.getLogReaderChunkSize())) * 1024L * 1024L;
 	}
 
 	@Override
 	public void run() {
 		System.out.println("为获取数据访问分布而读取的负载轨迹：");
-		String logPrefix = "lauca;";
+		ExecutorService parsers = Executors.newFixedThreadPool(threadNum);
+		// 按分块顺序排列的解析结果
+		Deque<Future<Map<String, List<String>>>> pendingChunks = new ArrayDeque<>();
 		for (File logFile : logFiles) {
-			try (BufferedReader br = new BufferedReader(new InputStreamReader(Files.newInputStream(logFile.toPath()), StandardCharsets.UTF_8))) {
+			try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
 				System.out.println(logFile.getName());
-				String inputLine = null;
-				while ((inputLine = br.readLine()) != null) {
-					// 日志格式：lauca; current time(long型); 事务名称; 操作id; para1, para2, ...
-					if (inputLine.startsWith(logPrefix)) {
-						String[] arr = inputLine.split(";", 4);
-						//TODO: 为每个事务都构建，需要的时候再做吧。将已经有参数依赖的数据删掉~
-
-						// arr[2]：事务名称； arr[1]：日志时间；arr[3]：操作id和输入参数
-						LogSplitterQueueMap.get(arr[2]).put(arr[1] + ";" + arr[3]);
+				long fileSize = channel.size();
+				long chunkStart = 0;
+				while (chunkStart < fileSize) {
+					long chunkEnd = nextLineStart(channel, Math.min(fileSize, chunkStart + chunkSize), fileSize);
+					// 映射在通道关闭后依然有效
+					MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkEnd - chunkStart);
+					pendingChunks.add(parsers.submit(() -> parseChunk(chunk)));
+					if (pendingChunks.size() >= threadNum * 2) {
+						dispatch(pendingChunks.poll());
 					}
+					chunkStart = chunkEnd;
 				}
 			} catch (Exception e) {
 				e.printStackTrace();
 			}
 		}
+		while (!pendingChunks.isEmpty()) {
+			dispatch(pendingChunks.poll());
+		}
+		parsers.shutdown();
 
 		try {
 			// 通知LogSplitter线程 日志文件已读取结束
@@ -463,6 +500,108 @@ class LogReader implements Runnable {
 			e.printStackTrace();
 		}
 	}
+
+	// 从position开始（含）找到下一行的起始位置，即分块的结束位置
+	private static long nextLineStart(FileChannel channel, long position, long fileSize) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+		while (position < fileSize) {
+			buffer.clear();
+			int readSize = channel.read(buffer, position);
+			if (readSize <= 0) {
+				break;
+			}
+			for (int i = 0; i < readSize; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += readSize;
+		}
+		return fileSize;
+	}
+
+	// 解析一个分块中的所有日志，返回：事务名称 -> 按序排列的日志（日志时间; 操作id和输入参数）
+	private static Map<String, List<String>> parseChunk(ByteBuffer chunk) {
+		Map<String, List<String>> txName2Logs = new HashMap<>();
+		byte[] line = new byte[1024];
+		// 按绝对位置的批量读取ByteBuffer.get(int, byte[], int, int)在JDK 13才提供，这里通过副本定位后按相对位置批量读取
+		ByteBuffer lineReader = chunk.duplicate();
+		int limit = chunk.limit();
+		int lineStart = 0;
+		while (lineStart < limit) {
+			int lineEnd = lineStart;
+			while (lineEnd < limit && chunk.get(lineEnd) != '\n') {
+				lineEnd++;
+			}
+			int nextLineStart = lineEnd + 1;
+			if (lineEnd > lineStart && chunk.get(lineEnd - 1) == '\r') {
+				lineEnd--;
+			}
+			int length = lineEnd - lineStart;
+			if (length > LOG_PREFIX.length && startsWithPrefix(chunk, lineStart)) {
+				if (line.length < length) {
+					line = new byte[Math.max(length, line.length * 2)];
+				}
+				lineReader.position(lineStart);
+				lineReader.get(line, 0, length);
+				parseLine(line, length, txName2Logs);
+			}
+			lineStart = nextLineStart;
+		}
+		return txName2Logs;
+	}
+
+	private static boolean startsWithPrefix(ByteBuffer chunk, int lineStart) {
+		for (int i = 0; i < LOG_PREFIX.length; i++) {
+			if (chunk.get(lineStart + i) != LOG_PREFIX[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// 日志格式：lauca; current time(long型); 事务名称; 操作id; para1, para2, ...
+	// 转换为：日志时间; 操作id; para1, para2, ...（与原先按";"切分成4段后拼接arr[1]和arr[3]的结果一致）
+	private static void parseLine(byte[] line, int length, Map<String, List<String>> txName2Logs) {
+		int timeEnd = indexOf(line, LOG_PREFIX.length, length);
+		int txNameEnd = timeEnd < 0 ? -1 : indexOf(line, timeEnd + 1, length);
+		if (txNameEnd < 0) { // 格式不完整的日志
+			return;
+		}
+		String txName = new String(line, timeEnd + 1, txNameEnd - timeEnd - 1, StandardCharsets.UTF_8);
+		// 将操作id和输入参数移到日志时间之后，只需创建一个字符串
+		int restLength = length - txNameEnd - 1;
+		System.arraycopy(line, txNameEnd + 1, line, timeEnd + 1, restLength);
+		String log = new String(line, LOG_PREFIX.length, timeEnd + 1 + restLength - LOG_PREFIX.length,
+				StandardCharsets.UTF_8);
+		txName2Logs.computeIfAbsent(txName, k -> new ArrayList<>()).add(log);
+	}
+
+	private static int indexOf(byte[] line, int from, int length) {
+		for (int i = from; i < length; i++) {
+			if (line[i] == ';') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// 按序将一个分块的解析结果分流到各事务的LogSplitter线程，没有事务逻辑信息（因而没有LogSplitter线程）的事务日志被忽略
+	private void dispatch(Future<Map<String, List<String>>> pendingChunk) {
+		try {
+			for (Entry<String, List<String>> entry : pendingChunk.get().entrySet()) {
+				BlockingQueue<String> logBlockingQueue = LogSplitterQueueMap.get(entry.getKey());
+				if (logBlockingQueue == null) {
+					continue;
+				}
+				for (String log : entry.getValue()) {
+					logBlockingQueue.put(log);
+				}
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+		}
+	}
 }
 
 /**
@@ -520,7 +659,12 @@ class LogReaderForTidb implements Runnable {
 
 /**
  * 针对每类事务（某个事务模板）都会起一个LogSplitter线程。其主要作用是根据日志中的时间将日志划分成到一个个时间窗口中，
- * 时间窗口的大小由用户设置。这里需要注意日志可能会有轻微的乱序，需要有针对性的处理（假设日志乱序的幅度小于设置的时间窗口大小）
+ * 时间窗口的大小由用户设置。时间窗口按日志时间对齐到时间窗口大小的整数倍，各事务的时间窗口无需协调即一致，各LogSplitter线程独立地统计各自的时间窗口。
+ * 多个应用服务器合并的日志可能有较大的乱序：日志时间的最大值减去logLatenessMillis为水位线，结束时间不晚于水位线的时间窗口才会被统计，
+ * 在此之前时间窗口的日志缓冲在重排序缓冲区中（缓冲的日志条数超过reorderBufferSize时提前统计最早的时间窗口）。
+ * 流式统计时（heavyHitterSketchCapacity大于0）日志到达时即更新所属时间窗口内各参数的流式统计结果，重排序缓冲区中不保存日志，
+ * 内存只与未统计的时间窗口数、参数个数以及heavyHitterSketchCapacity有关。
+ * 所属时间窗口已被统计的日志为迟到日志，不计入统计，但会被计数并在结束时输出
  */
 class LogSplitter implements Runnable {
 
@@ -539,25 +683,50 @@ class LogSplitter implements Runnable {
 	// 日志处理中需要的数据结构：事务名称 -> 参数标示符 -> 一个时间窗口内某个参数的所有原始数据（还可过滤掉不需要统计数据分布的参数数据）
 
 	private Map<String, Map<String, List<String>>> txName2ParaId2DataList = null;
+	// heavyHitterSketchCapacity大于0时不再保存参数的原始数据，而是在数据到达时更新各参数的流式统计结果
+	private int sketchCapacity;
 
-	// 下面两个成员变量是为了保证所有事务的日志起始时间都相同
-	private static volatile boolean settedFlag = false;
-	private static volatile long classCurrentWindowStartTime;
+	// 统计时间窗口内突发性时，每个时间窗口划分的时段数（时段长度为rateShapingResolution）
+	private int slotNum;
+
+	// 事务名称 -> 参数标示符 -> 参数访问分布的类型信息，用于决定参数数据路由到哪个统计线程
+	private Map<String, Map<String, DistributionTypeInfo>> txName2ParaId2DistTypeInfo = null;
+
+	// 日志行的切分器：队列中的日志行、时间窗口内的操作日志以及其中的参数
+	private LogTokenizer tokenizer = new LogTokenizer();
+	private LogTokenizer operationTokenizer = new LogTokenizer();
+	private LogTokenizer paraTokenizer = new LogTokenizer();
+	// 操作id -> 各参数的参数标示符（operationId + "_" + paraIndex），避免每个参数数据都拼接一次字符串
+	private Map<Integer, String[]> operationId2ParaIdentifiers = new HashMap<>();
+
+	// 重排序缓冲区：时间窗口起始时间 -> 该时间窗口的日志（去掉日志时间后的视图，不复制字符，流式统计时为空），以及窗口内各时段的日志条数
+	private TreeMap<Long, List<CharSequence>> windowStartTime2Log = new TreeMap<>();
+	private Map<Long, int[]> windowStartTime2SlotCounts = new HashMap<>();
+	// 流式统计时未统计的各时间窗口中各参数的流式统计结果：时间窗口起始时间 -> 参数标示符 -> 流式统计结果
+	private Map<Long, Map<String, WindowSketch>> windowStartTime2Sketches = new HashMap<>();
+	private int bufferedLogNum = 0;
+	// 已统计的时间窗口的结束时间，早于该时间的日志为迟到日志
+	private long emittedEndTime = Long.MIN_VALUE;
+	private long lateLogNum = 0;
 
 	public LogSplitter(String txName, BlockingQueue<String> logBlockingQueue, int timeWindowSize,
 			List<BlockingQueue<WindowData>> windowDataBlockingQueues,
-			Map<String, List<List<String>>> txName2StatParameters, CountDownLatch cdl) {
+			Map<String, List<List<String>>> txName2StatParameters,
+			Map<String, Map<String, DistributionTypeInfo>> txName2ParaId2DistTypeInfo, CountDownLatch cdl) {
 		super();
 		this.txName = txName;
 		this.logBlockingQueue = logBlockingQueue;
 		this.timeWindowSize = timeWindowSize;
 		this.windowDataBlockingQueues = windowDataBlockingQueues;
+		this.txName2ParaId2DistTypeInfo = txName2ParaId2DistTypeInfo;
 		this.cdl = cdl;
+		this.slotNum = Math.max(1, timeWindowSize * 1000 / Math.max(1, Configurations.getRateShapingResolution()));
 
 		//System.out.println("I am in Construction LogSplitter ******* " + logBlockingQueue);   (此时logBlockingQueue为空)
 		// 构造txName2ParaId2DataList，只有需要统计数据分布的参数数据才会被传到统计线程那去
 		// 其实都统计了
 
+		sketchCapacity = Configurations.getHeavyHitterSketchCapacity();
 		txName2ParaId2DataList = new HashMap<>();
 		for (Entry<String, List<List<String>>> entry : txName2StatParameters.entrySet()) {
 			Map<String, List<String>> paraId2DataList = new HashMap<>();
@@ -580,118 +749,179 @@ class LogSplitter implements Runnable {
 	public void run() {
 		try {
 			// 日志中的时间是以毫秒为单位的
-			//System.out.println("1111111 logBlockingQueue:\n"+logBlockingQueue);  //此时为空
-			//System.out.println("1111 ThreadName:\n"+Thread.currentThread().getName());
 			int timeWindowMillis = timeWindowSize * 1000;
+			long latenessMillis = Configurations.getLogLatenessMillis() < 0 ? timeWindowMillis
+					: Configurations.getLogLatenessMillis();
+			int reorderBufferSize = Configurations.getReorderBufferSize();
+			long maxLogTime = Long.MIN_VALUE;
 
-			// priorWindowLog & currentWindowLog：支持乱序日志的处理，但是日志的乱序幅度必须小于时间窗口大小
-			// priorWindowLog存储上一个时间窗口的日志，currentWindowLog存储当前时间窗口的日志
-			List<String> priorWindowLog = new ArrayList<>();
-			List<String> currentWindowLog = new ArrayList<>();
-
-			// priorWindowStartTime存储的是上一个时间窗口的起始时间点，currentWindowStartTime存储的是当前时间窗口的起始时间点
-			long priorWindowStartTime, currentWindowStartTime;
-
-			synchronized (LogSplitter.class) {   //qly: 拦截所有线程，只能让一个线程访问(这里一个事务一个线程）
-				// 使得第一个时间窗口的日志一定不会落到priorWindowLog中
-				priorWindowStartTime = -timeWindowMillis;
-
-				if (!settedFlag) {
-					String[] arr = logBlockingQueue.take().split(";", 2);  //qly : 这里不都是空的吗！！！ 存疑 ~
-//					System.out.println("****************** I am in LogSplitter ******************"+logBlockingQueue+"\n"+ arr); //跑的时候只会出现一次，每次还都不一样
-					// 第一个时间窗口的日志用currentWindowLog存储~
-					currentWindowLog.add(arr[1]);
-					currentWindowStartTime = Long.parseLong(arr[0]);
-
-					classCurrentWindowStartTime = currentWindowStartTime;
-					settedFlag = true;
-				} else {
-					currentWindowStartTime = classCurrentWindowStartTime;
-				}
-			}
-
-			// 标示当前日志行是否已成功划分到某个时间窗口中
-			boolean processedFlag = true;
-			String[] arr = null;
-//			System.out.println("********* Before **********");
 			while (true) {
-				if (processedFlag) {
-//					System.out.println("111processedFlag************ \n"+logBlockingQueue);  qly: 存在值，它是怎么来的？？ 存疑 ~
-					// 当前日志格式：日志时间; 操作id; para1, para2, ...
-					arr = logBlockingQueue.take().split(";", 2);
-				}
-
-				long logTime = Long.parseLong(arr[0]);
-				if (logTime < 0) {// 为什么会小于0？
-					routeData(txName, currentWindowStartTime, priorWindowLog);
-					routeData(txName, currentWindowStartTime + timeWindowMillis, currentWindowLog);
+				// 当前日志格式：日志时间; 操作id; para1, para2, ...
+				tokenizer.reset(logBlockingQueue.take()).split(';', 2);
+				long logTime = tokenizer.parseLong(0);
+				if (logTime < 0) { // 日志已读完，统计缓冲中所有的时间窗口
+					emitWindows(Long.MAX_VALUE, timeWindowMillis);
 					break;
 				}
 
-				if (logTime - priorWindowStartTime <= timeWindowMillis) {
-					priorWindowLog.add(arr[1]);
-					processedFlag = true;
-				} else if (logTime - currentWindowStartTime <= timeWindowMillis) {
-					currentWindowLog.add(arr[1]);
-					processedFlag = true;
+				if (logTime < emittedEndTime) {
+					lateLogNum++;
+					continue;
+				}
+				long windowStartTime = Math.floorDiv(logTime, timeWindowMillis) * timeWindowMillis;
+				List<CharSequence> windowLog = windowStartTime2Log.get(windowStartTime);
+				if (windowLog == null) {
+					windowLog = new ArrayList<>();
+					windowStartTime2Log.put(windowStartTime, windowLog);
+					windowStartTime2SlotCounts.put(windowStartTime, new int[slotNum]);
+				}
+				if (sketchCapacity > 0) {
+					updateSketches(tokenizer.rawView(1), windowStartTime2Sketches.computeIfAbsent(windowStartTime,
+							startTime -> newWindowSketches()));
 				} else {
-					if (priorWindowLog.size() > 0) {
-						routeData(txName, currentWindowStartTime, priorWindowLog);
-					}
-
-					priorWindowStartTime = currentWindowStartTime;
-					currentWindowStartTime = currentWindowStartTime + timeWindowMillis;
-
-					priorWindowLog = currentWindowLog;
-					currentWindowLog = new ArrayList<>();
-					processedFlag = false;
+					windowLog.add(tokenizer.rawView(1));
+				}
+				windowStartTime2SlotCounts.get(windowStartTime)[slotIndex(logTime - windowStartTime, timeWindowMillis)]++;
+				bufferedLogNum++;
+
+				maxLogTime = Math.max(maxLogTime, logTime);
+				emitWindows(maxLogTime - latenessMillis, timeWindowMillis);
+				// 缓冲区已满时提前统计最早的时间窗口，其后到达的属于这些时间窗口的日志计为迟到日志
+				while (bufferedLogNum > reorderBufferSize && windowStartTime2Log.size() > 1) {
+					emitWindows(windowStartTime2Log.firstKey() + timeWindowMillis, timeWindowMillis);
 				}
 			}
-//			System.out.println("222 processedFlag************ \n"+logBlockingQueue);  // qly: 取空了，已经处理完了
 
+			if (lateLogNum > 0) {
+				System.out.println("事务" + txName + "有" + lateLogNum + "条日志晚于水位线到达（乱序超过logLatenessMillis或重排序缓冲区已满），未计入统计");
+			}
 			cdl.countDown();
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 
-	// 将当前时间窗口中的各个参数的日志数据路由给统计线程进行数据分布的统计。这里我们需要保证将同一个参数的数据确定性地路由到某个特定
-	// 的统计线程中，这样我们便可以保证对于同一个参数，数据分布的统计在时间上是有序的~（方便针对基于连续时间窗口数据访问分布的统计）
-	private void routeData(String txName, long windowTime, List<String> windowLog) {
+	// 按时间顺序统计结束时间不晚于watermark的时间窗口（传给统计线程的时间为时间窗口的结束时间）
+	private void emitWindows(long watermark, int timeWindowMillis) {
+		while (!windowStartTime2Log.isEmpty() && windowStartTime2Log.firstKey() + timeWindowMillis <= watermark) {
+			Entry<Long, List<CharSequence>> entry = windowStartTime2Log.pollFirstEntry();
+			long windowEndTime = entry.getKey() + timeWindowMillis;
+			int[] windowSlotCounts = windowStartTime2SlotCounts.remove(entry.getKey());
+			for (int slotCount : windowSlotCounts) {
+				bufferedLogNum -= slotCount;
+			}
+			emittedEndTime = windowEndTime;
+			if (sketchCapacity > 0) {
+				routeSketches(windowEndTime, windowStartTime2Sketches.remove(entry.getKey()), windowSlotCounts);
+			} else {
+				routeData(txName, windowEndTime, entry.getValue(), windowSlotCounts);
+			}
+		}
+	}
+
+	// 一个新的时间窗口中各参数的流式统计结果
+	private Map<String, WindowSketch> newWindowSketches() {
+		Map<String, WindowSketch> paraId2Sketch = new HashMap<>();
+		for (String paraIdentifier : txName2ParaId2DataList.get(txName).keySet()) {
+			paraId2Sketch.put(paraIdentifier, new WindowSketch(sketchCapacity));
+		}
+		return paraId2Sketch;
+	}
+
+	// 用一条操作日志（格式：操作id; para1, para2, ...）更新所属时间窗口内各参数的流式统计结果
+	private void updateSketches(CharSequence operationData, Map<String, WindowSketch> paraId2Sketch) {
+		if (operationTokenizer.reset(operationData).split(';', 0) <= 1) {// 可能不存在参数
+			return;
+		}
+		int operationId = operationTokenizer.parseInt(0);
+		int paraNum = paraTokenizer.reset(operationTokenizer.getText(), operationTokenizer.start(1),
+				operationTokenizer.end(1)).split(',', 0);
+		for (int i = 0; i < paraNum; i++) {
+			paraId2Sketch.get(paraIdentifier(operationId, i)).update(paraTokenizer.string(i));
+		}
+	}
+
+	// 同routeData，时间窗口内的数据为各参数的流式统计结果
+	private void routeSketches(long windowTime, Map<String, WindowSketch> paraId2Sketch, int[] windowSlotCounts) {
+		DistributionCounter.countArrivalSlots(windowTime, windowSlotCounts);
+		for (Entry<String, WindowSketch> entry : paraId2Sketch.entrySet()) {
+			putWindowData(new WindowData(txName, entry.getKey(), windowTime, entry.getValue()));
+		}
+	}
+
+	// 日志时间相对时间窗口起始时间的偏移所属的时段
+	private int slotIndex(long offset, int timeWindowMillis) {
+		int slot = (int) (offset * slotNum / timeWindowMillis);
+		return Math.min(slotNum - 1, Math.max(0, slot));
+	}
+
+	private String paraIdentifier(int operationId, int paraIndex) {
+		String[] identifiers = operationId2ParaIdentifiers.get(operationId);
+		if (identifiers == null || identifiers.length <= paraIndex) {
+			String[] newIdentifiers = new String[paraIndex + 1];
+			for (int i = 0; i < newIdentifiers.length; i++) {
+				newIdentifiers[i] = identifiers != null && i < identifiers.length ? identifiers[i] : operationId + "_" + i;
+			}
+			identifiers = newIdentifiers;
+			operationId2ParaIdentifiers.put(operationId, identifiers);
+		}
+		return identifiers[paraIndex];
+	}
+
+	// 将当前时间窗口中的各个参数的日志数据路由给统计线程进行数据分布的统计。对于基于连续时间窗口统计的参数，需要将同一个参数的数据
+	// 确定性地路由到某个特定的统计线程中，这样便可以保证对于同一个参数，数据分布的统计在时间上是有序的~；其他参数路由到积压最少的统计线程
+	// 同时将时间窗口内各时段的日志条数汇总到DistributionCounter，作为该时间窗口内的到达分布
+	private void routeData(String txName, long windowTime, List<CharSequence> windowLog, int[] windowSlotCounts) {
+		DistributionCounter.countArrivalSlots(windowTime, windowSlotCounts);
 		Map<String, List<String>> paraId2DataList = txName2ParaId2DataList.get(txName);  //qly 传进来的时候paraId2DataList是空的~
-		for (String operationData : windowLog) {   // qly windowLog日志格式： 操作id; para1, para2, ...
-			String[] arr = operationData.split(";");
-			String operationId = arr[0].trim();
-			if (arr.length <= 1) {// 可能不存在参数
+		for (CharSequence operationData : windowLog) {   // qly windowLog日志格式： 操作id; para1, para2, ...
+			if (operationTokenizer.reset(operationData).split(';', 0) <= 1) {// 可能不存在参数
 				continue;
 			}
-			String[] parameters = arr[1].split(",");
+			int operationId = operationTokenizer.parseInt(0);
+			int paraNum = paraTokenizer.reset(operationTokenizer.getText(), operationTokenizer.start(1),
+					operationTokenizer.end(1)).split(',', 0);
 
 
-			for (int i = 0; i < parameters.length; i++) {
-				String identifier = operationId + "_" + i;
+			for (int i = 0; i < paraNum; i++) {
+				String identifier = paraIdentifier(operationId, i);
 				// 过滤掉不需要统计数据访问分布的参数数据
 				//qly TODO: 目前没有根据概率过滤呢 TODO 20201222 在这里将值为 #@# 的删掉！
 				//todo: 20210127 这里删的太早了，之后还得统计呢
 //				if (paraId2DataList.containsKey(identifier) && !parameters[i].equals("#@#")) {
-					paraId2DataList.get(identifier).add(parameters[i].trim());
+					paraId2DataList.get(identifier).add(paraTokenizer.string(i));
 //				}
 			}
 
 		}
 
 		for (Entry<String, List<String>> entry : paraId2DataList.entrySet()) {
-			String tmp = txName + entry.getKey();
-			int idx = Math.abs(tmp.hashCode()) % windowDataBlockingQueues.size();
-			WindowData windowParaData = new WindowData(txName, entry.getKey(), windowTime, entry.getValue());
-			try {
-				windowDataBlockingQueues.get(idx).put(windowParaData);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
+			putWindowData(new WindowData(txName, entry.getKey(), windowTime, entry.getValue()));
 			paraId2DataList.put(entry.getKey(), new ArrayList<>());
 		}
 	}
+
+	private void putWindowData(WindowData windowParaData) {
+		int idx;
+		if (DistributionCounter.needsPriorWindow(txName2ParaId2DistTypeInfo.get(windowParaData.txName)
+				.get(windowParaData.paraIdentifier))) {
+			String tmp = windowParaData.txName + windowParaData.paraIdentifier;
+			idx = Math.abs(tmp.hashCode()) % windowDataBlockingQueues.size();
+		} else {
+			// 各时间窗口相互独立，某类事务的数据量很大时也可以由所有统计线程分担
+			idx = 0;
+			for (int i = 1; i < windowDataBlockingQueues.size(); i++) {
+				if (windowDataBlockingQueues.get(i).size() < windowDataBlockingQueues.get(idx).size()) {
+					idx = i;
+				}
+			}
+		}
+		try {
+			windowDataBlockingQueues.get(idx).put(windowParaData);
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
 }
 
 class DistributionStatisticalThread implements Runnable {
@@ -699,6 +929,8 @@ class DistributionStatisticalThread implements Runnable {
 	private BlockingQueue<WindowData> windowDataBlockingQueue = null;
 	// 事务名称 -> 参数标示符（operationId + "_" + paraIndex） -> 参数访问分布的类型信息
 	private Map<String, Map<String, DistributionTypeInfo>> txName2ParaId2DistTypeInfo = null;
+	// 当前线程独占的统计状态，线程结束时合并到DistributionCounter中
+	private DistributionCounterShard shard = null;
 
 	public DistributionStatisticalThread(BlockingQueue<WindowData> windowDataBlockingQueue,
 			Map<String, Map<String, DistributionTypeInfo>> txName2ParaId2DistTypeInfo) {
@@ -709,6 +941,7 @@ class DistributionStatisticalThread implements Runnable {
 
 	@Override
 	public void run() {
+		shard = DistributionCounter.newShard();
 		try {
 			while (true) {
 				WindowData windowData = windowDataBlockingQueue.take();
@@ -719,12 +952,18 @@ class DistributionStatisticalThread implements Runnable {
 				DistributionTypeInfo distTypeInfo = txName2ParaId2DistTypeInfo.get(windowData.txName)
 						.get(windowData.paraIdentifier);
 
-				DistributionCounter.count(windowData.txName, windowData.paraIdentifier, windowData.windowTime,
-						distTypeInfo, windowData.data);
+				if (windowData.sketch != null) {
+					DistributionCounter.count(shard, windowData.txName, windowData.paraIdentifier, windowData.windowTime,
+							distTypeInfo, windowData.sketch);
+				} else {
+					DistributionCounter.count(shard, windowData.txName, windowData.paraIdentifier, windowData.windowTime,
+							distTypeInfo, windowData.data);
+				}
 			}
 		} catch (InterruptedException e) {
 			e.printStackTrace();
 		}
+		DistributionCounter.mergeShard(shard);
 	}
 }
 
@@ -736,6 +975,8 @@ class WindowData {
 	// 应该是窗口结束时间
 	long windowTime;
 	List<String> data = null;
+	// 流式统计时（heavyHitterSketchCapacity大于0）代替data
+	WindowSketch sketch = null;
 
 	public WindowData(String txName, String paraIdentifier, long windowTime, List<String> data) {
 		super();
@@ -745,9 +986,17 @@ class WindowData {
 		this.data = data;
 	}
 
+	public WindowData(String txName, String paraIdentifier, long windowTime, WindowSketch sketch) {
+		super();
+		this.txName = txName;
+		this.paraIdentifier = paraIdentifier;
+		this.windowTime = windowTime;
+		this.sketch = sketch;
+	}
+
 	@Override
 	public String toString() {
 		return "WindowData [txName=" + txName + ", paraIdentifier=" + paraIdentifier + ", windowTime=" + windowTime
-				+ ", size of data=" + data.size() + "]";
+				+ ", size of data=" + (sketch != null ? sketch.getTotalCount() : data.size()) + "]";
 	}
 }
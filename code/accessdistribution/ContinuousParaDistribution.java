@@ -4,6 +4,8 @@ package accessdistribution;
 import java.math.BigDecimal;
 import java.util.*;
 
+import util.RandomStreams;
+
 /**
  * 参数空间是连续的，此时参数的生成不需要考虑miss的情形（miss是指利用该参数值过滤无返回tuple，即没有记录满足谓词）
  * @param <T extends Number>： Long（Integer & DataTime）、Double（Real）、BigDecimal（Decimal）
@@ -24,6 +26,9 @@ public class ContinuousParaDistribution <T extends Number> extends DataAccessDis
 	// 具体高频项。因为这里是连续空间的参数，实际数据库中的高频项在模拟库中也必然存在，因此可直接使用日志中获取的高频项
 	private T[] highFrequencyItems = null;
 
+	// 参数的数据类型（由maxValue的类型决定，首次使用时确定）：1: Long; 2: Double; 3: BigDecimal; 0: 尚未确定
+	private transient int valueType = 0;
+
 	public ContinuousParaDistribution(T minValue, T maxValue, T[] highFrequencyItems, double[] hFItemFrequencies, 
 			long[] intervalCardinalities, double[] intervalFrequencies) {
 		super(hFItemFrequencies, intervalCardinalities, intervalFrequencies);
@@ -57,29 +62,55 @@ public class ContinuousParaDistribution <T extends Number> extends DataAccessDis
 	public T geneValue() {
 //		System.out.println(this.getClass());
 //		System.out.println("高频项："+highFrequencyItems[2]);
-		int randomIndex = 0;
-		try {
-			 randomIndex = binarySearch();
-		}
-		catch (Exception e){
-			e.printStackTrace();
-		}
+		int randomIndex = sampleRandomIndex();
 
 		if (randomIndex < highFrequencyItemNum) {
 //			System.out.println(highFrequencyItems);
 			return highFrequencyItems[randomIndex];
+		} else {
+			return transferValue(getIntervalInnerRandomValue(randomIndex));
+		}
+	}
+
+	// 与geneValue服从相同的分布，但区间内的参数值不经过装箱
+	@Override
+	public double geneDoubleValue() {
+		int randomIndex = sampleRandomIndex();
+		if (randomIndex < highFrequencyItemNum) {
+			return highFrequencyItems[randomIndex].doubleValue();
 		} else {
 			return getIntervalInnerRandomValue(randomIndex);
 		}
 	}
 
-	// 获取指定区间中的随机参数值
-	private T getIntervalInnerRandomValue(int randomIndex) {
+	@Override
+	public long geneLongValue() {
+		int randomIndex = sampleRandomIndex();
+		if (randomIndex < highFrequencyItemNum) {
+			return highFrequencyItems[randomIndex].longValue();
+		} else {
+			return (long) getIntervalInnerRandomValue(randomIndex);
+		}
+	}
+
+	private int sampleRandomIndex() {
+		int randomIndex = 0;
+		try {
+			 randomIndex = sampleIndex();
+		}
+		catch (Exception e){
+			e.printStackTrace();
+		}
+		return randomIndex;
+	}
+
+	// 获取指定区间中的随机参数值（尚未转化成目标数据类型）
+	private double getIntervalInnerRandomValue(int randomIndex) {
 		int intervalIndex = randomIndex - highFrequencyItemNum;
 
 		// 可保证区间内生成参数的基数
 		// long intervalInnerIndex = intervalInnerIndexes[intervalIndex]++ % intervalCardinality;
-		double intervalInnerIndex = Math.random();
+		double intervalInnerIndex = RandomStreams.nextDouble();
 
 		// 根据频数分位点先做一次映射，从均匀分布映射到基于频数的分段分布上
 		if (this.quantileNum > 0){
@@ -105,22 +136,23 @@ public class ContinuousParaDistribution <T extends Number> extends DataAccessDis
 
 
 		double avgIntervalLength = (maxValue.doubleValue() - minValue.doubleValue()) / intervalNum;
-		double value = (intervalInnerIndex + intervalIndex) *
+		return (intervalInnerIndex + intervalIndex) *
 				avgIntervalLength + minValue.doubleValue();
-
-		// 将 double value 转化成目标数据类型的参数
-		return transferValue(value);
 	}
 
+	// 将 double value 转化成目标数据类型的参数
 	private T transferValue(double value) {
-		String dataType = maxValue.getClass().getSimpleName();
-		switch (dataType) {
-			case "Long":
-				return (T) (new Long((long) value));
-			case "Double":
-				return (T) (new Double(value));
-			case "BigDecimal":
-				return (T) (new BigDecimal(value));
+		if (valueType == 0) {
+			String dataType = maxValue.getClass().getSimpleName();
+			valueType = dataType.equals("Long") ? 1 : dataType.equals("Double") ? 2 : dataType.equals("BigDecimal") ? 3 : -1;
+		}
+		switch (valueType) {
+			case 1:
+				return (T) Long.valueOf((long) value);
+			case 2:
+				return (T) Double.valueOf(value);
+			case 3:
+				return (T) new BigDecimal(value);
 			default:
 				return null; // 理论上不可能进入该分支
 
@@ -386,7 +418,7 @@ public class ContinuousParaDistribution <T extends Number> extends DataAccessDis
 	// 为了做实验后续添加的，生成完全随机的（即均匀分布）的参数
 	@Override
 	public T geneUniformValue() {
-		double value = Math.random() * (maxValue.doubleValue() - minValue.doubleValue()) 
+		double value = RandomStreams.nextDouble() * (maxValue.doubleValue() - minValue.doubleValue()) 
 				+ minValue.doubleValue();
 		
 		// 下面这段代码 copy from 函数 "getIntervalInnerRandomValue"
@@ -7,6 +7,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import util.RandomStreams;
+
 // 分布三：基于连续时间窗口的多属性关联数据访问分布
 // 体现多个参数之间的关联性 和 相邻时间窗口数据访问分布之间的连续性
 // 这里的多个参数一般应位于同一个SQL的where条件中，或者应属于同一个主键（复合主键）
@@ -72,12 +74,12 @@ public class CorrelatedWindowDistribution {
 
 		cardinalityIndexes = new int[intervalNum];
 		for (int i = 0; i < intervalNum; i++) {
-			cardinalityIndexes[i] = (int)(Math.random() * intervalCardinalitis[i]);
+			cardinalityIndexes[i] = (int)(RandomStreams.nextDouble() * intervalCardinalitis[i]);
 		}
 	}
 
 	public long[] geneValue() {
-		double randomValue = Math.random();
+		double randomValue = RandomStreams.nextDouble();
 		if (randomValue < cumulativeFrequencies[0]) {
 			return highFrequencyItems[0];
 		}
@@ -150,7 +152,7 @@ public class CorrelatedWindowDistribution {
 					// 生成一组在当前区间中的随机输入参数组
 					for (int k = 0; k < columnNum; k++) {
 						double columnIntervalSize = (maxValues[k] - minValues[k]) / (double)columnsIntervalNum[k];
-						long random = (long)((Math.random() + columnIntervalIndexes[k]) * columnIntervalSize) + minValues[k];
+						long random = (long)((RandomStreams.nextDouble() + columnIntervalIndexes[k]) * columnIntervalSize) + minValues[k];
 						candidateItem[k] = random;
 					}
 
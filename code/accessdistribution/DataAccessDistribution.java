@@ -6,6 +6,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import util.AliasTable;
+import util.RandomStreams;
+
 /**
  * 当前工作中的数据访问分布由高频项和直方图共同表示
  */
@@ -34,6 +37,8 @@ public abstract class DataAccessDistribution implements Comparable<DataAccessDis
 	// 下面两个类成员不是数据分布的信息
 	// cumulativeFrequencies：累积频率，用来支持数据的随机生成
 	protected double[] cumulativeFrequencies = null;
+	// 由cumulativeFrequencies构建的别名表，使抽样的代价与高频项数、区间数无关。不参与序列化，反序列化后首次抽样时构建
+	protected transient AliasTable aliasTable = null;
 	// 用来保证模拟负载中的参数基数（访问项非重复值个数）与期望值相符。注意：后面为了数据访问分布对象可以被多线程共享，该成员未被使用
 	protected long[] intervalInnerIndexes = null;
 
@@ -105,11 +110,12 @@ public abstract class DataAccessDistribution implements Comparable<DataAccessDis
 			}
 		}
 		cumulativeFrequencies[cumulativeFrequencies.length - 1] = 1.0;
+		aliasTable = new AliasTable(AliasTable.weightsOfCumulative(cumulativeFrequencies, false));
 
 
 		intervalInnerIndexes = new long[intervalNum];
 		for (int i = 0; i < intervalNum; i++) {
-			intervalInnerIndexes[i] = (long)(Math.random() * intervalCardinalities[i]); // 可保证一定的随机性
+			intervalInnerIndexes[i] = (long)(RandomStreams.nextDouble() * intervalCardinalities[i]); // 可保证一定的随机性
 		}
 	}
 
@@ -117,6 +123,16 @@ public abstract class DataAccessDistribution implements Comparable<DataAccessDis
 	// 生成一个具体参数值（符合指定的数据访问分布：高频项+直方图）
 	public abstract Object geneValue();
 
+	// 按基本类型生成参数值，供直接绑定到PreparedStatement的参数使用以避免装箱。默认借助geneValue实现，
+	// 数值类型的数据分布应重写这两个方法
+	public long geneLongValue() {
+		return ((Number) geneValue()).longValue();
+	}
+
+	public double geneDoubleValue() {
+		return ((Number) geneValue()).doubleValue();
+	}
+
 	// bug fix: 添加一个新的功能，可生成均匀分布的参数，对比实验需求
 	// 随机生成一个参数数值，均匀分布
 	public abstract Object geneUniformValue();
@@ -129,30 +145,15 @@ public abstract class DataAccessDistribution implements Comparable<DataAccessDis
 		return geneValue();
 	}
 	
-	// 利用二分搜索，基于cumulativeFrequencies随机生成一个参数位置
-	protected int binarySearch() {
-		double randomValue = Math.random();
-		if (randomValue < cumulativeFrequencies[0]) {
-			return 0;
-		}
-		
-		// 避免因为double数据类型本身的误差（double是非精确数据类型）导致 return -1
-		if (randomValue > 0.99999999) {
-			randomValue = randomValue - 0.000000001;
-		}
-		
-		int low = 1, high = cumulativeFrequencies.length - 1;
-		while (low <= high) { // 这里其实和 while(true) 没有区别
-			int middle = (low + high) / 2;
-			if (randomValue < cumulativeFrequencies[middle - 1]) {
-				high = middle - 1;
-			} else if (randomValue >= cumulativeFrequencies[middle]) {
-				low = middle + 1;
-			} else {
-				return middle;
-			}
+	// 基于cumulativeFrequencies随机生成一个参数位置（高频项下标或者highFrequencyItemNum + 区间下标），利用别名表O(1)抽样
+	protected int sampleIndex() {
+		AliasTable table = aliasTable;
+		if (table == null) {
+			// 多个线程可能同时构建，但结果相同，别名表本身不可变
+			table = new AliasTable(AliasTable.weightsOfCumulative(cumulativeFrequencies, false));
+			aliasTable = table;
 		}
-		return -1; // 理论上不可能返回-1
+		return table.sample();
 	}
 
 	protected int getStart(List<Map.Entry<Double,Double>> lst, double pos){
@@ -0,0 +1,194 @@
+package accessdistribution;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * 一个时间窗口内参数非重复值的抽样（bottom-k抽样），与HeavyHitterSketch一起代替逐个保存参数取值再精确计数的方式
+ * 每个取值按其64位哈希值参与抽样，只保留哈希值最小的capacity个非重复值，并精确记录它们的出现次数。
+ * 未保留的取值不占内存：样本已满时，哈希值大于阈值（保留项中最大的哈希值）的取值直接忽略。
+ * 样本等价于对所有非重复值按同一个概率（阈值 / 2^64）独立抽样，且哈希函数是确定的，不同时间窗口的样本是协调的：
+ * 两个时间窗口中哈希值不大于二者较小阈值的取值，要么同时在两个样本中，要么确实只在其中一个时间窗口出现。
+ * 样本未满时（非重复值的个数不超过capacity）即为精确统计的结果
+ */
+class DistinctSample {
+
+	// 阈值为无符号最大值，即所有取值都在样本中
+	static final long NO_THRESHOLD = -1L;
+
+	private final int capacity;
+
+	// 以哈希值（无符号）为键的最大堆，value2Index记录每个被保留的取值在堆中的位置
+	private String[] values;
+	private long[] hashes;
+	private int[] counts;
+	private int size = 0;
+	private Map<String, Integer> value2Index = null;
+
+	// 是否有取值因样本已满而被忽略或替换
+	private boolean saturated = false;
+
+	DistinctSample(int capacity) {
+		super();
+		this.capacity = capacity;
+		int initialCapacity = Math.min(capacity, 16);
+		values = new String[initialCapacity];
+		hashes = new long[initialCapacity];
+		counts = new int[initialCapacity];
+		value2Index = new HashMap<>();
+	}
+
+	void update(String value) {
+		long hash = hash(value);
+		if (size == capacity && Long.compareUnsigned(hash, hashes[0]) > 0) {
+			saturated = true;
+			return;
+		}
+		Integer index = value2Index.get(value);
+		if (index != null) {
+			counts[index]++;
+		} else if (size < capacity) {
+			if (size == values.length) {
+				grow();
+			}
+			values[size] = value;
+			hashes[size] = hash;
+			counts[size] = 1;
+			value2Index.put(value, size);
+			siftUp(size);
+			size++;
+		} else {
+			// 替换哈希值最大的取值（堆顶）：它的哈希值不小于新的阈值，之后再出现时会被忽略，故保留项的计数都是精确的
+			saturated = true;
+			value2Index.remove(values[0]);
+			values[0] = value;
+			hashes[0] = hash;
+			counts[0] = 1;
+			value2Index.put(value, 0);
+			siftDown(0);
+		}
+	}
+
+	private void grow() {
+		int newLength = Math.min(capacity, values.length * 2);
+		String[] newValues = new String[newLength];
+		long[] newHashes = new long[newLength];
+		int[] newCounts = new int[newLength];
+		System.arraycopy(values, 0, newValues, 0, size);
+		System.arraycopy(hashes, 0, newHashes, 0, size);
+		System.arraycopy(counts, 0, newCounts, 0, size);
+		values = newValues;
+		hashes = newHashes;
+		counts = newCounts;
+	}
+
+	private void siftUp(int index) {
+		while (index > 0) {
+			int parent = (index - 1) / 2;
+			if (Long.compareUnsigned(hashes[parent], hashes[index]) >= 0) {
+				break;
+			}
+			swap(index, parent);
+			index = parent;
+		}
+	}
+
+	private void siftDown(int index) {
+		while (true) {
+			int largest = index, left = 2 * index + 1, right = left + 1;
+			if (left < size && Long.compareUnsigned(hashes[left], hashes[largest]) > 0) {
+				largest = left;
+			}
+			if (right < size && Long.compareUnsigned(hashes[right], hashes[largest]) > 0) {
+				largest = right;
+			}
+			if (largest == index) {
+				break;
+			}
+			swap(index, largest);
+			index = largest;
+		}
+	}
+
+	private void swap(int i, int j) {
+		String value = values[i];
+		values[i] = values[j];
+		values[j] = value;
+		long hash = hashes[i];
+		hashes[i] = hashes[j];
+		hashes[j] = hash;
+		int count = counts[i];
+		counts[i] = counts[j];
+		counts[j] = count;
+		value2Index.put(values[i], i);
+		value2Index.put(values[j], j);
+	}
+
+	// 样本中是否包含了时间窗口内所有的非重复值
+	boolean isExact() {
+		return !saturated;
+	}
+
+	// 哈希值不大于阈值的取值都在样本中
+	long getThreshold() {
+		return saturated ? hashes[0] : NO_THRESHOLD;
+	}
+
+	// 取值在样本中时返回其精确的出现次数，否则返回0
+	int getCount(String value) {
+		Integer index = value2Index.get(value);
+		return index == null ? 0 : counts[index];
+	}
+
+	// 样本中的各个取值及其出现次数，按次数升序排列
+	List<Entry<String, Integer>> getValueNumEntryList() {
+		List<Entry<String, Integer>> valueNumEntryList = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			valueNumEntryList.add(new SimpleEntry<>(values[i], counts[i]));
+		}
+		valueNumEntryList.sort(new EntryComparator<String>());
+		return valueNumEntryList;
+	}
+
+	// 取值在阈值为threshold的样本中的概率
+	static double getSamplingRate(long threshold) {
+		if (threshold == NO_THRESHOLD) {
+			return 1;
+		}
+		return ((threshold >>> 11) + 1) * 0x1.0p-53;
+	}
+
+	static boolean isSampled(String value, long threshold) {
+		return Long.compareUnsigned(hash(value), threshold) <= 0;
+	}
+
+	// 两个阈值中较小的一个（无符号比较）
+	static long minThreshold(long threshold1, long threshold2) {
+		return Long.compareUnsigned(threshold1, threshold2) <= 0 ? threshold1 : threshold2;
+	}
+
+	// 取值的64位哈希（FNV-1a，再经murmur3的fmix64打散），与运行环境无关，保证各时间窗口的抽样一致
+	static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return "DistinctSample [capacity=" + capacity + ", size=" + size + ", saturated=" + saturated
+				+ ", samplingRate=" + getSamplingRate(getThreshold()) + "]";
+	}
+}
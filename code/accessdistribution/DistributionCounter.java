@@ -3,12 +3,14 @@ package accessdistribution;
 import java.math.BigDecimal;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.function.Function;
 
 import abstraction.Partition;
 import abstraction.Table;
 import abstraction.Transaction;
 import config.Configurations;
 import serializable.DistributionCounter4Serial;
+import util.RandomStreams;
 
 /*
  * 参数的数据访问分布统计器，针对每一种访问分布都构建了相应的静态统计方法~
@@ -18,21 +20,10 @@ public class DistributionCounter {
 
 	// 针对所有事务中所有参数 统计好的访问分布都存放在该数据结构中。事务名称 -> 参数标示符 -> 数据分布信息列表
 	// 参数标示符格式：operationId_index index从0开始
-	// 注意在目前的机制下（同一个参数的数据访问分布肯定由同一个线程按序分析得到），下面的数据结构不用Vector，可直接用ArrayList
+	// 统计过程中各统计线程只写自己的分片（DistributionCounterShard），下面的统计结果由各分片合并得到（见mergeShard）
 	// 需要序列化
 	private static Map<String, Map<String, Vector<DataAccessDistribution>>> txName2ParaId2DistributionList = null;
 
-	// 下面四个数据结构服务于基于连续时间窗口数据访问分布的统计，下面这四个不用序列化
-	// 保存最近一个时间窗口的原始数据， 事务名称 -> 参数标示符 -> 数据（强转好的数据），用于统计intervalParaRepeatRatios
-	private static Map<String, Map<String, Object>> txName2ParaId2Data = null;
-	// 保存最近一段时间窗口的候选参数集，事务名称 -> 参数标示符 -> 候选参数集
-	private static Map<String, Map<String, Object>> txName2ParaId2ParaCandidates = null;
-
-	// 保存日志中最近一个时间窗口的高频项，用于统计hFItemRepeatRatio。事务名称 -> 参数标示符 -> 高频项集
-	private static Map<String, Map<String, Object>> txName2ParaId2LogHFItems = null;
-	// 保存自己生成的最近一个时间窗口的高频项，事务名称 -> 参数标示符 -> 高频项集
-	private static Map<String, Map<String, Object>> txName2ParaId2GeneHFItems = null;
-
 	// 在分析数据访问分布的同时，获取各个事务的吞吐
 	// 事务名称 -> 参数标示符 ->
 	// 所属操作的平均运行次数（可能是branch和multiple逻辑中的操作），注意这里针对每个事务仅相应地维护了一个参数标示符的信息
@@ -40,6 +31,8 @@ public class DistributionCounter {
 	private static Map<String, Map<String, Double>> txName2ParaId2AvgRunTimes = null;
 	// 事务名称 -> 各个时间窗口的吞吐信息，需要序列化
 	private static Map<String, Vector<Throughput>> txName2ThroughputList = null;
+	// 时间窗口时间 -> 该时间窗口内各时段（长度为rateShapingResolution）所有事务的日志条数，用于重现时间窗口内的突发性，需要序列化
+	private static Map<Long, int[]> windowTime2ArrivalSlotCounts = null;
 
 	// 支持全负载周期数据访问分布统计的sampling数据
 	private static Map<String, Map<String, List<String>>> txName2ParaId2SamplingData = null;
@@ -52,32 +45,27 @@ public class DistributionCounter {
 
 	private static Map<String, Map<String, Partition>> txName2ParaId2PartitionRule = null;
 
+	// 数值型参数在所有时间窗口上合并得到的分位数草图（quantileSketchK大于0时），用于统计全负载周期数据访问分布的区间频率和分位点
+	private static Map<String, Map<String, QuantileSketch>> txName2ParaId2QuantileSketch = null;
+
 	// 初始化所有成员变量
 	public static void init(Map<String, List<List<String>>> txName2StatParameters) {
 		txName2ParaId2DistributionList = new HashMap<>();
 
-		txName2ParaId2Data = new HashMap<>();
-		txName2ParaId2ParaCandidates = new HashMap<>();
-		txName2ParaId2LogHFItems = new HashMap<>();
-		txName2ParaId2GeneHFItems = new HashMap<>();
-
 		txName2ThroughputList = new HashMap<>();
+		windowTime2ArrivalSlotCounts = new HashMap<>();
 
 		txName2ParaId2SamplingData = new HashMap<>();
 		txName2ParaId2CumulativeSize = new HashMap<>();
 		txName2ParaId2FullLifeCycleDistribution = new HashMap<>();
 		txName2ParaId2DistributionType = new HashMap<>();
 		txName2ParaId2PartitionRule = new HashMap<>();
+		txName2ParaId2QuantileSketch = new HashMap<>();
 
 		for (Entry<String, List<List<String>>> entry : txName2StatParameters.entrySet()) {
 			Map<String, Vector<DataAccessDistribution>> paraId2DistributionList = new HashMap<>();
 			txName2ParaId2DistributionList.put(entry.getKey(), paraId2DistributionList);
 
-			txName2ParaId2Data.put(entry.getKey(), new HashMap<>());
-			txName2ParaId2ParaCandidates.put(entry.getKey(), new HashMap<>());
-			txName2ParaId2LogHFItems.put(entry.getKey(), new HashMap<>());
-			txName2ParaId2GeneHFItems.put(entry.getKey(), new HashMap<>());
-
 			txName2ThroughputList.put(entry.getKey(), new Vector<>());
 
 			Map<String, List<String>> paraId2SamplingData = new HashMap<>();
@@ -87,6 +75,7 @@ public class DistributionCounter {
 			txName2ParaId2FullLifeCycleDistribution.put(entry.getKey(), new HashMap<>());
 			txName2ParaId2DistributionType.put(entry.getKey(), new HashMap<>());
 			txName2ParaId2PartitionRule.put(entry.getKey(), new HashMap<>());
+			txName2ParaId2QuantileSketch.put(entry.getKey(), new HashMap<>());
 
 			for (List<String> parameters : entry.getValue()) {
 				for (String parameter : parameters) {
@@ -107,25 +96,116 @@ public class DistributionCounter {
 		DistributionCounter.txName2ParaId2AvgRunTimes = txName2ParaId2AvgRunTimes;
 	}
 
+	// 每个统计线程使用一个分片，需在init之后调用
+	static DistributionCounterShard newShard() {
+		return new DistributionCounterShard(txName2ParaId2DistributionList.keySet());
+	}
+
+	// 数据分布类型3、4、5基于连续时间窗口统计，同一个参数的各个时间窗口需由同一个统计线程按时间顺序统计；
+	// 其他类型的各个时间窗口相互独立，可以由任意一个统计线程统计
+	static boolean needsPriorWindow(DistributionTypeInfo distTypeInfo) {
+		return distTypeInfo == null || distTypeInfo.distributionType >= 3;
+	}
+
+	// 统计线程结束时将其分片合并到全局的统计结果中，多个统计线程可能同时调用
+	static synchronized void mergeShard(DistributionCounterShard shard) {
+		for (Entry<String, Map<String, List<DataAccessDistribution>>> entry1 : shard.txName2ParaId2DistributionList
+				.entrySet()) {
+			for (Entry<String, List<DataAccessDistribution>> entry2 : entry1.getValue().entrySet()) {
+				Vector<DataAccessDistribution> distributionList = txName2ParaId2DistributionList.get(entry1.getKey())
+						.computeIfAbsent(entry2.getKey(), identifier -> new Vector<>());
+				distributionList.addAll(entry2.getValue());
+				Collections.sort(distributionList);
+			}
+		}
+
+		for (Entry<String, List<Throughput>> entry : shard.txName2ThroughputList.entrySet()) {
+			Vector<Throughput> throughputList = txName2ThroughputList.get(entry.getKey());
+			throughputList.addAll(entry.getValue());
+			Collections.sort(throughputList);
+		}
+
+		for (Entry<String, Map<String, List<String>>> entry1 : shard.txName2ParaId2SamplingData.entrySet()) {
+			String txName = entry1.getKey();
+			for (Entry<String, List<String>> entry2 : entry1.getValue().entrySet()) {
+				String paraIdentifier = entry2.getKey();
+				long cumulativeSize1 = txName2ParaId2CumulativeSize.get(txName).getOrDefault(paraIdentifier, 0L);
+				long cumulativeSize2 = shard.txName2ParaId2CumulativeSize.get(txName).get(paraIdentifier);
+				List<String> samplingData = mergeSamplingData(
+						txName2ParaId2SamplingData.get(txName).getOrDefault(paraIdentifier, new ArrayList<>()),
+						cumulativeSize1, entry2.getValue(), cumulativeSize2);
+				txName2ParaId2SamplingData.get(txName).put(paraIdentifier, samplingData);
+				txName2ParaId2CumulativeSize.get(txName).put(paraIdentifier, cumulativeSize1 + cumulativeSize2);
+			}
+		}
+
+		for (Entry<String, Map<String, DistributionTypeInfo>> entry : shard.txName2ParaId2DistributionType.entrySet()) {
+			for (Entry<String, DistributionTypeInfo> entry2 : entry.getValue().entrySet()) {
+				txName2ParaId2DistributionType.get(entry.getKey()).putIfAbsent(entry2.getKey(), entry2.getValue());
+			}
+		}
+
+		for (Entry<String, Map<String, QuantileSketch>> entry : shard.txName2ParaId2QuantileSketch.entrySet()) {
+			for (Entry<String, QuantileSketch> entry2 : entry.getValue().entrySet()) {
+				txName2ParaId2QuantileSketch.get(entry.getKey())
+						.computeIfAbsent(entry2.getKey(), identifier -> new QuantileSketch(Configurations.getQuantileSketchK()))
+						.merge(entry2.getValue());
+			}
+		}
+	}
+
+	// 合并两个蓄水池采样的结果（cumulativeSize为各自采样前的数据量）：相当于从两部分数据的并集中不放回地均匀抽取，
+	// 每次按两部分剩余的数据量的比例决定从哪一部分中抽取，再从该部分的采样数据中随机取出一个
+	private static List<String> mergeSamplingData(List<String> samplingData1, long cumulativeSize1,
+			List<String> samplingData2, long cumulativeSize2) {
+		if (cumulativeSize2 == 0) {
+			return samplingData1;
+		} else if (cumulativeSize1 == 0) {
+			return samplingData2;
+		}
+		List<String> remainingData1 = new ArrayList<>(samplingData1);
+		List<String> remainingData2 = new ArrayList<>(samplingData2);
+		int samplingNum = (int) Math.min(Configurations.getSamplingSize(), cumulativeSize1 + cumulativeSize2);
+		List<String> samplingData = new ArrayList<>(samplingNum);
+		for (int i = 0; i < samplingNum; i++) {
+			boolean fromFirst = RandomStreams.nextDouble() * (cumulativeSize1 + cumulativeSize2) < cumulativeSize1;
+			List<String> remainingData = fromFirst ? remainingData1 : remainingData2;
+			int idx = RandomStreams.nextInt(remainingData.size());
+			samplingData.add(remainingData.get(idx));
+			remainingData.set(idx, remainingData.get(remainingData.size() - 1));
+			remainingData.remove(remainingData.size() - 1);
+			if (fromFirst) {
+				cumulativeSize1--;
+			} else {
+				cumulativeSize2--;
+			}
+		}
+		return samplingData;
+	}
+
 	/**
 	 * 构造访问分布
+	 * @param shard 当前统计线程的分片
 	 * @param txName 当前事务名
 	 * @param paraIdentifier 当前参数名，operationId_No
 	 * @param distTypeInfo 分布类型
-	 * @param data 数据
+	 * @param data 数据的各个取值及其出现次数
+	 * @param valueSize 数据量
 	 * @return 构建得到的不含分区的访问分布
 	 */
-	private static DataAccessDistribution countDistribution(String txName, String paraIdentifier, DistributionTypeInfo distTypeInfo,
-										  List<String> data){
+	private static DataAccessDistribution countDistribution(DistributionCounterShard shard, String txName,
+										  String paraIdentifier, DistributionTypeInfo distTypeInfo,
+										  List<Entry<String, Integer>> data, int valueSize, SampleScale sampleScale){
 		DataAccessDistribution distribution = null;
 		switch (distTypeInfo.distributionType) {
 			case 0:
-				DataAccessDistribution distribution0 = countContinuousParaDistribution(distTypeInfo.dataType, data);
+				DataAccessDistribution distribution0 = countContinuousParaDistribution(distTypeInfo.dataType, data, valueSize, null,
+						sampleScale);
 				assert distribution0 != null;
 				distribution = distribution0;
 				break;
 			case 1:
-				IntegerParaDistribution distribution1 = countIntegerParaDistribution(data);
+				IntegerParaDistribution distribution1 = countIntegerParaDistribution(data, valueSize, null, sampleScale);
 				distribution1.setColumnInfo(distTypeInfo.columnMinValue, distTypeInfo.columnMaxValue,
 						distTypeInfo.columnCardinality, distTypeInfo.coefficient);
 				distribution1.init4IntegerParaGene();
@@ -133,7 +213,7 @@ public class DistributionCounter {
 //			System.out.println(txName + " " + paraIdentifier + "\n" + distribution1);
 				break;
 			case 2:
-				VarcharParaDistribution distribution2 = countVarcharParaDistribution(data);
+				VarcharParaDistribution distribution2 = countVarcharParaDistribution(data, valueSize, sampleScale);
 				distribution2.setColumnInfo(distTypeInfo.columnCardinality, distTypeInfo.minLength, distTypeInfo.maxLength,
 						distTypeInfo.seedStrings);
 				distribution2.init4VarcharParaGene();
@@ -141,45 +221,45 @@ public class DistributionCounter {
 				// System.out.println(txName + " " + paraIdentifier + "\n" + distribution2);
 				break;
 			case 3: // 分布3、4、5是有写盘需求的（暂不实现，目前全部存储在内存中） TODO
-				SequentialCtnsParaDistribution distribution3 = countSequentialCtnsParaDistribution(data, txName,
-						paraIdentifier);
+				SequentialCtnsParaDistribution distribution3 = countSequentialCtnsParaDistribution(shard, data, valueSize, txName,
+						paraIdentifier, sampleScale);
 
-				long[][] priorParaCandidates = (long[][]) txName2ParaId2ParaCandidates.get(txName).get(paraIdentifier);
+				long[][] priorParaCandidates = (long[][]) shard.txName2ParaId2ParaCandidates.get(txName).get(paraIdentifier);
 				distribution3.geneCandidates(priorParaCandidates);
-				txName2ParaId2ParaCandidates.get(txName).put(paraIdentifier, distribution3.getCurrentParaCandidates());
+				shard.txName2ParaId2ParaCandidates.get(txName).put(paraIdentifier, distribution3.getCurrentParaCandidates());
 
 				distribution = distribution3;
 				// System.out.println(txName + " " + paraIdentifier + "\n" + distribution3);
 				break;
 			case 4:
-				SequentialIntParaDistribution distribution4 = countSequentialIntParaDistribution(data, txName,
-						paraIdentifier);
+				SequentialIntParaDistribution distribution4 = countSequentialIntParaDistribution(shard, data, valueSize, txName,
+						paraIdentifier, sampleScale);
 				distribution4.setColumnInfo(distTypeInfo.columnMinValue, distTypeInfo.columnMaxValue,
 						distTypeInfo.columnCardinality, distTypeInfo.coefficient);
 
-				long[] priorHighFrequencyItems = (long[]) txName2ParaId2GeneHFItems.get(txName).get(paraIdentifier);
+				long[] priorHighFrequencyItems = (long[]) shard.txName2ParaId2GeneHFItems.get(txName).get(paraIdentifier);
 				distribution4.geneHighFrequencyItems(priorHighFrequencyItems);
-				txName2ParaId2GeneHFItems.get(txName).put(paraIdentifier, distribution4.getHighFrequencyItems());
+				shard.txName2ParaId2GeneHFItems.get(txName).put(paraIdentifier, distribution4.getHighFrequencyItems());
 
-				priorParaCandidates = (long[][]) txName2ParaId2ParaCandidates.get(txName).get(paraIdentifier);
+				priorParaCandidates = (long[][]) shard.txName2ParaId2ParaCandidates.get(txName).get(paraIdentifier);
 				distribution4.geneCandidates(priorParaCandidates);
-				txName2ParaId2ParaCandidates.get(txName).put(paraIdentifier, distribution4.getCurrentParaCandidates());
+				shard.txName2ParaId2ParaCandidates.get(txName).put(paraIdentifier, distribution4.getCurrentParaCandidates());
 
 				distribution = distribution4;
 				break;
 			case 5:
-				SequentialVcharParaDistribution distribution5 = countSequentialVcharParaDistribution(data, txName,
-						paraIdentifier);
+				SequentialVcharParaDistribution distribution5 = countSequentialVcharParaDistribution(shard, data, valueSize, txName,
+						paraIdentifier, sampleScale);
 				distribution5.setColumnInfo(distTypeInfo.columnCardinality, distTypeInfo.minLength, distTypeInfo.maxLength,
 						distTypeInfo.seedStrings);
 
-				String[] priorHighFrequencyItems2 = (String[]) txName2ParaId2GeneHFItems.get(txName).get(paraIdentifier);
+				String[] priorHighFrequencyItems2 = (String[]) shard.txName2ParaId2GeneHFItems.get(txName).get(paraIdentifier);
 				distribution5.geneHighFrequencyItems(priorHighFrequencyItems2);
-				txName2ParaId2GeneHFItems.get(txName).put(paraIdentifier, distribution5.getHighFrequencyItems());
+				shard.txName2ParaId2GeneHFItems.get(txName).put(paraIdentifier, distribution5.getHighFrequencyItems());
 
-				String[][] priorParaCandidates2 = (String[][]) txName2ParaId2ParaCandidates.get(txName).get(paraIdentifier);
+				String[][] priorParaCandidates2 = (String[][]) shard.txName2ParaId2ParaCandidates.get(txName).get(paraIdentifier);
 				distribution5.geneCandidates(priorParaCandidates2);
-				txName2ParaId2ParaCandidates.get(txName).put(paraIdentifier, distribution5.getCurrentParaCandidates());
+				shard.txName2ParaId2ParaCandidates.get(txName).put(paraIdentifier, distribution5.getCurrentParaCandidates());
 
 				distribution = distribution5;
 				break;
@@ -190,20 +270,152 @@ public class DistributionCounter {
 		return distribution;
 	}
 
-	public static void count(String txName, String paraIdentifier, long windowTime, DistributionTypeInfo distTypeInfo,
-			List<String> data) {
+	public static void count(DistributionCounterShard shard, String txName, String paraIdentifier, long windowTime,
+			DistributionTypeInfo distTypeInfo, List<String> data) {
 
 		if (data.size() == 0) {
 			return;
 		}
 
-		Partition partition = txName2ParaId2PartitionRule.get(txName).get(paraIdentifier);
-
 		// 获取事务吞吐信息
 		//todo 20210127 先看一下这个模块对不对，再追溯到data.size的统计
+		countThroughput(shard, txName, paraIdentifier, windowTime, data.size());
+
+		data.removeIf(d -> d.equals("#@#"));
+		if(data.isEmpty()){
+//			txName2ParaId2DistributionList.get(txName).get(paraIdentifier).add(null);
+			return;
+		}
+
+//		System.out.println(data);
+		List<Entry<String, Integer>> valueNumEntryList = getValueNumEntryList(data);
+		countWindowDistribution(shard, txName, paraIdentifier, windowTime, distTypeInfo, valueNumEntryList, data.size(),
+				null);
+		mergeQuantileSketch(shard, txName, paraIdentifier, distTypeInfo, valueNumEntryList);
+
+		// 数据采样 -- 支持全负载周期数据访问分布统计
+		List<String> samplingData = getSamplingData(shard, txName, paraIdentifier);
+		long cumulativeSize = shard.txName2ParaId2CumulativeSize.get(txName).getOrDefault(paraIdentifier, 0L);
+		for (String item : data) {
+			cumulativeSize = sampleData(samplingData, cumulativeSize, item, 1);
+		}
+		shard.txName2ParaId2CumulativeSize.get(txName).put(paraIdentifier, cumulativeSize);
+		if (!shard.txName2ParaId2DistributionType.get(txName).containsKey(paraIdentifier)) {
+			shard.txName2ParaId2DistributionType.get(txName).put(paraIdentifier, distTypeInfo);
+		}
+	}
+
+	// 同上，数据为时间窗口内参数取值的流式统计结果（heavyHitterSketchCapacity大于0时），不再需要时间窗口内的所有原始数据。
+	// 非重复值样本未满时即为精确统计的结果；否则高频项由HeavyHitterSketch选出，直方图由样本中的非高频项统计后按SampleScale还原
+	static void count(DistributionCounterShard shard, String txName, String paraIdentifier, long windowTime,
+			DistributionTypeInfo distTypeInfo, WindowSketch sketch) {
+
+		if (sketch.getTotalCount() == 0) {
+			return;
+		}
+
+		countThroughput(shard, txName, paraIdentifier, windowTime, sketch.getTotalCount());
+
+		int valueSize = (int) sketch.getValueSize();
+		if (valueSize == 0) {
+			return;
+		}
+
+		DistinctSample distinctSample = sketch.getDistinctSample();
+		// 基于连续时间窗口统计的参数：重复率只在当前以及之前各时间窗口样本阈值中的最小值以下统计
+		long repeatThreshold = DistinctSample.NO_THRESHOLD;
+		if (needsPriorWindow(distTypeInfo)) {
+			List<Long> priorThresholds = shard.txName2ParaId2SampleThresholds.get(txName)
+					.computeIfAbsent(paraIdentifier, identifier -> new ArrayList<>());
+			repeatThreshold = distinctSample.getThreshold();
+			for (long priorThreshold : priorThresholds) {
+				repeatThreshold = DistinctSample.minThreshold(repeatThreshold, priorThreshold);
+			}
+			priorThresholds.add(distinctSample.getThreshold());
+			if (priorThresholds.size() > Configurations.getBackwardLength()) {
+				priorThresholds.remove(0);
+			}
+		}
+
+		List<Entry<String, Integer>> valueNumEntryList = distinctSample.getValueNumEntryList();
+		SampleScale sampleScale = null;
+		if (!distinctSample.isExact()) {
+			sampleScale = getSampleScale(sketch, valueNumEntryList, valueSize, repeatThreshold);
+		} else if (repeatThreshold != DistinctSample.NO_THRESHOLD) {
+			sampleScale = new SampleScale(1, 1, Collections.emptySet(), repeatThreshold);
+		}
+
+		countWindowDistribution(shard, txName, paraIdentifier, windowTime, distTypeInfo, valueNumEntryList, valueSize,
+				sampleScale);
+
+		// 分位数草图和数据采样按各取值代表的数据量统计（样本中的非高频项按frequencyScale放大），与逐个数据处理的效果一致
+		List<Entry<String, Integer>> weightedEntryList = valueNumEntryList;
+		if (sampleScale != null) {
+			weightedEntryList = new ArrayList<>(valueNumEntryList.size());
+			for (Entry<String, Integer> entry : valueNumEntryList) {
+				int weight = (int) Math.round(sampleScale.weight(entry.getKey(), entry.getValue()));
+				weightedEntryList.add(new AbstractMap.SimpleEntry<>(entry.getKey(), weight));
+			}
+		}
+		mergeQuantileSketch(shard, txName, paraIdentifier, distTypeInfo, weightedEntryList);
+
+		List<String> samplingData = getSamplingData(shard, txName, paraIdentifier);
+		long cumulativeSize = shard.txName2ParaId2CumulativeSize.get(txName).getOrDefault(paraIdentifier, 0L);
+		for (Entry<String, Integer> entry : weightedEntryList) {
+			cumulativeSize = sampleData(samplingData, cumulativeSize, entry.getKey(), entry.getValue());
+		}
+		shard.txName2ParaId2CumulativeSize.get(txName).put(paraIdentifier, cumulativeSize);
+		if (!shard.txName2ParaId2DistributionType.get(txName).containsKey(paraIdentifier)) {
+			shard.txName2ParaId2DistributionType.get(txName).put(paraIdentifier, distTypeInfo);
+		}
+	}
+
+	// 非重复值样本已满时：高频项为HeavyHitterSketch的候选项以及样本中出现次数最多的取值里次数最多的highFrequencyItemNum个
+	// （在样本中的取值用样本中的精确次数，否则用HeavyHitterSketch的保证次数），样本中的其余取值为非高频项的样本。
+	// valueNumEntryList原地更新为高频项加上非高频项的样本，按出现次数升序排列（次数相同时高频项在后，统计函数总是取末尾的取值作为高频项）
+	private static SampleScale getSampleScale(WindowSketch sketch, List<Entry<String, Integer>> valueNumEntryList,
+			int valueSize, long repeatThreshold) {
+		DistinctSample distinctSample = sketch.getDistinctSample();
+		int highFrequencyItemNum = Configurations.getHighFrequencyItemNum();
+
+		Map<String, Integer> candidate2Num = new HashMap<>();
+		for (Entry<String, Integer> entry : sketch.getHeavyHitterSketch().getValueNumEntryList()) {
+			int num = distinctSample.getCount(entry.getKey());
+			candidate2Num.put(entry.getKey(), num > 0 ? num : entry.getValue());
+		}
+		for (int i = valueNumEntryList.size() - 1, j = 0; i >= 0 && j < highFrequencyItemNum; i--, j++) {
+			candidate2Num.put(valueNumEntryList.get(i).getKey(), valueNumEntryList.get(i).getValue());
+		}
+		List<Entry<String, Integer>> candidates = sortValueNumEntryList(candidate2Num);
+
+		Set<String> highFrequencyItems = new HashSet<>();
+		List<Entry<String, Integer>> hFItemEntryList = new ArrayList<>();
+		long hFItemNum = 0;
+		for (int i = candidates.size() - 1, j = 0; i >= 0 && j < highFrequencyItemNum; i--, j++) {
+			highFrequencyItems.add(candidates.get(i).getKey());
+			hFItemEntryList.add(0, candidates.get(i));
+			hFItemNum += candidates.get(i).getValue();
+		}
+
+		long sampleNum = 0;
+		valueNumEntryList.removeIf(entry -> highFrequencyItems.contains(entry.getKey()));
+		for (Entry<String, Integer> entry : valueNumEntryList) {
+			sampleNum += entry.getValue();
+		}
+		valueNumEntryList.addAll(hFItemEntryList);
+		valueNumEntryList.sort(new EntryComparator<String>());
+
+		double cardinalityScale = 1 / DistinctSample.getSamplingRate(distinctSample.getThreshold());
+		double frequencyScale = sampleNum == 0 ? 0 : Math.max(0, valueSize - hFItemNum) / (double) sampleNum;
+		return new SampleScale(cardinalityScale, frequencyScale, highFrequencyItems, repeatThreshold);
+	}
+
+	// dataSize为时间窗口内该参数的数据量（包括占位符）
+	private static void countThroughput(DistributionCounterShard shard, String txName, String paraIdentifier, long windowTime,
+			long dataSize) {
 		if (txName2ParaId2AvgRunTimes.get(txName).containsKey(paraIdentifier)) {
 
-			int throughput = (int) Math.round(data.size() / txName2ParaId2AvgRunTimes.get(txName).get(paraIdentifier));
+			int throughput = (int) Math.round(dataSize / txName2ParaId2AvgRunTimes.get(txName).get(paraIdentifier));
 
 //			if(txName.contains("2")){
 ////				System.out.println("dataSize: "+data.size() );
@@ -212,58 +424,84 @@ public class DistributionCounter {
 ////			}
 
 
-			txName2ThroughputList.get(txName).add(new Throughput(txName, windowTime, throughput));
+			shard.txName2ThroughputList.get(txName).add(new Throughput(txName, windowTime, throughput));
 		}
+	}
 
-		data.removeIf(d -> d.equals("#@#"));
-		if(data.isEmpty()){
-//			txName2ParaId2DistributionList.get(txName).get(paraIdentifier).add(null);
-			return;
-		}
+	// data：时间窗口内参数的各个取值及其出现次数，按出现次数升序排列；valueSize：数据量；sampleScale：流式统计时非高频项样本的还原信息，精确统计时为空
+	private static void countWindowDistribution(DistributionCounterShard shard, String txName, String paraIdentifier,
+			long windowTime, DistributionTypeInfo distTypeInfo, List<Entry<String, Integer>> data, int valueSize,
+			SampleScale sampleScale) {
+		Partition partition = txName2ParaId2PartitionRule.get(txName).get(paraIdentifier);
+		List<DataAccessDistribution> distributionList = shard.txName2ParaId2DistributionList.get(txName)
+				.computeIfAbsent(paraIdentifier, identifier -> new ArrayList<>());
 
-//		System.out.println(data);
 		// 没有分区键或者不是数值类型的情况下，不建分区的分布
 		if (partition == null || distTypeInfo.dataType >= 3){
-			DataAccessDistribution distribution = countDistribution(txName, paraIdentifier, distTypeInfo, data);
+			DataAccessDistribution distribution = countDistribution(shard, txName, paraIdentifier, distTypeInfo, data, valueSize,
+					sampleScale);
 			distribution.setTime(windowTime);
-			txName2ParaId2DistributionList.get(txName).get(paraIdentifier).add(distribution);
+			distributionList.add(distribution);
 		}
 		else {
-			DataAccessDistribution distribution = countMultiDistribution(partition,txName, paraIdentifier, distTypeInfo, data);
+			DataAccessDistribution distribution = countMultiDistribution(shard, partition, txName, paraIdentifier, distTypeInfo,
+					data, valueSize, sampleScale);
 			distribution.setTime(windowTime);
-			txName2ParaId2DistributionList.get(txName).get(paraIdentifier).add(distribution);
+			distributionList.add(distribution);
 		}
+	}
 
-		// 数据采样 -- 支持全负载周期数据访问分布统计
-		List<String> samplingData = txName2ParaId2SamplingData.get(txName).get(paraIdentifier);
-		long cumulativeSize = txName2ParaId2CumulativeSize.get(txName).get(paraIdentifier);
+	// 将数值型参数当前时间窗口的数据统计为分位数草图，并合并到该参数在当前分片上所有时间窗口的草图中
+	private static void mergeQuantileSketch(DistributionCounterShard shard, String txName, String paraIdentifier,
+			DistributionTypeInfo distTypeInfo, List<Entry<String, Integer>> data) {
+		int quantileSketchK = Configurations.getQuantileSketchK();
+		int distributionType = distTypeInfo.distributionType;
+		if (quantileSketchK <= 0 || distributionType == 2 || distributionType == 5) {
+			return;
+		}
+		QuantileSketch windowSketch = new QuantileSketch(quantileSketchK);
+		for (Entry<String, Integer> entry : data) {
+			windowSketch.update(Double.parseDouble(entry.getKey()), entry.getValue());
+		}
+		shard.txName2ParaId2QuantileSketch.get(txName)
+				.computeIfAbsent(paraIdentifier, identifier -> new QuantileSketch(quantileSketchK)).merge(windowSketch);
+	}
+
+	private static List<String> getSamplingData(DistributionCounterShard shard, String txName, String paraIdentifier) {
+		return shard.txName2ParaId2SamplingData.get(txName).computeIfAbsent(paraIdentifier, identifier -> new ArrayList<>());
+	}
+
+	// 蓄水池采样：item出现num次，返回更新后的累积数据量
+	private static long sampleData(List<String> samplingData, long cumulativeSize, String item, int num) {
 		int samplingSize = Configurations.getSamplingSize();
-		for (String item : data) {
+		for (int i = 0; i < num; i++) {
 			cumulativeSize++;
 			if (cumulativeSize <= samplingSize) {
 				samplingData.add(item);
 			} else {
-				if (Math.random() < 1.0* samplingSize / cumulativeSize) {
-					samplingData.set((int) (Math.random() * samplingSize), item);
+				if (RandomStreams.nextDouble() < 1.0* samplingSize / cumulativeSize) {
+					samplingData.set((int) (RandomStreams.nextDouble() * samplingSize), item);
 				}
 			}
 		}
-		txName2ParaId2CumulativeSize.get(txName).put(paraIdentifier, cumulativeSize);
-		if (!txName2ParaId2DistributionType.get(txName).containsKey(paraIdentifier)) {
-			txName2ParaId2DistributionType.get(txName).put(paraIdentifier, distTypeInfo);
-		}
+		return cumulativeSize;
 	}
 
 	/**
 	 * 当前版本只支持int型
+	 * @param shard
 	 * @param partition
 	 * @param txName
 	 * @param paraIdentifier
 	 * @param distTypeInfo
 	 * @param data
+	 * @param valueSize
+	 * @param sampleScale
 	 * @return
 	 */
-	private static DataAccessDistribution countMultiDistribution(Partition<Long> partition,String txName, String paraIdentifier, DistributionTypeInfo distTypeInfo,List<String> data) {
+	private static DataAccessDistribution countMultiDistribution(DistributionCounterShard shard, Partition<Long> partition,
+			String txName, String paraIdentifier, DistributionTypeInfo distTypeInfo,
+			List<Entry<String, Integer>> data, int valueSize, SampleScale sampleScale) {
 		int length = partition.getLength();
 
 		List<DataAccessDistribution> distributions = new ArrayList<>();
@@ -273,21 +511,21 @@ public class DistributionCounter {
 
 		// 如果不使用分区规则的话，全部放在第一个分区对应的直方图里
 		if (!Configurations.isUsePartitionRule()){
-			distributions.add(countDistribution(txName, paraIdentifier, distTypeInfo, data));
-			intervalCardinalities[0] = getValueNumEntryList(data).size();
+			intervalCardinalities[0] = getCardinality(data, sampleScale);
+			distributions.add(countDistribution(shard, txName, paraIdentifier, distTypeInfo, data, valueSize, sampleScale));
 			intervalFrequencies[0] = 1;
 			return new MultiPartitionDistribution<>(hFItemFrequencies, intervalCardinalities, intervalFrequencies, partition, distributions);
 		}
 
 		// 分到不同分区
-		Map<String, List<String>> dataInPartition = new HashMap<>();
+		Map<String, List<Entry<String, Integer>>> dataInPartition = new HashMap<>();
 		for (String partitionName : partition.getPartitionNameList()){
 			dataInPartition.put(partitionName,new ArrayList<>());
 		}
 		String partitionName = null;
-		for (String d: data) {
+		for (Entry<String, Integer> d: data) {
 			try {
-				partitionName = partition.getPartition(Long.parseLong(d));
+				partitionName = partition.getPartition(Long.parseLong(d.getKey()));
 				dataInPartition.get(partitionName).add(d);
 			}
 			catch (Exception e){
@@ -298,21 +536,22 @@ public class DistributionCounter {
 		for (int i = 0; i < length; i++) {
 			partitionName = partition.getPartitionNameList().get(i);
 
-			List<String> values = dataInPartition.get(partitionName);
-			List<Entry<String, Integer>> valueNumEntryList = getValueNumEntryList(values);
+			List<Entry<String, Integer>> values = dataInPartition.get(partitionName);
 
-			intervalCardinalities[i] = valueNumEntryList.size();
+			intervalCardinalities[i] = getCardinality(values, sampleScale);
 
-			int sum = 0;
-			for (Entry<String, Integer> value : valueNumEntryList){
-				sum += value.getValue();
+			// 流式统计时，样本中的非高频项按其代表的数据量计入分区
+			double weightSum = 0;
+			for (Entry<String, Integer> value : values){
+				weightSum += sampleScale == null ? value.getValue() : sampleScale.weight(value.getKey(), value.getValue());
 			}
+			int sum = (int) Math.round(weightSum);
 			intervalFrequencies[i] = sum;
 			if (sum == 0){
 				distributions.add(null);
 			}
 			else{
-				distributions.add(countDistribution(txName, paraIdentifier, distTypeInfo, values));
+				distributions.add(countDistribution(shard, txName, paraIdentifier, distTypeInfo, values, sum, sampleScale));
 			}
 
 		}
@@ -333,7 +572,7 @@ public class DistributionCounter {
 			Map<String, List<String>> paraId2SamplingData = entry1.getValue();
 			for (Entry<String, List<String>> entry2 : paraId2SamplingData.entrySet()) {
 				String paraIdentifier = entry2.getKey();
-				List<String> data = new ArrayList<>(entry2.getValue());
+				List<String> samplingData = entry2.getValue();
 				DistributionTypeInfo distTypeInfo = txName2ParaId2DistributionType.get(txName).get(paraIdentifier);
 
 				// bug fix: 有些事务模板可能没有实例数据，故distTypeInfo可能为空
@@ -342,19 +581,27 @@ public class DistributionCounter {
 					continue;
 				}
 
+				List<Entry<String, Integer>> data = getValueNumEntryList(samplingData);
+				// 启用分位数草图时，区间频率和分位点由所有时间窗口合并的草图统计，不受采样数据量的限制
+				QuantileSketch quantileSketch = txName2ParaId2QuantileSketch.get(txName).get(paraIdentifier);
+				if (quantileSketch != null && quantileSketch.getN() == 0) {
+					quantileSketch = null;
+				}
 				int distributionType = distTypeInfo.distributionType;
 				int dataType = distTypeInfo.dataType;
 				if (distributionType == 0 || distributionType == 3) {
-					DataAccessDistribution distribution = countContinuousParaDistribution(dataType, data);
+					DataAccessDistribution distribution = countContinuousParaDistribution(dataType, data, samplingData.size(),
+							quantileSketch, null);
 					txName2ParaId2FullLifeCycleDistribution.get(txName).put(paraIdentifier, distribution);
 				} else if (distributionType == 1 || distributionType == 4) {
-					IntegerParaDistribution distribution = countIntegerParaDistribution(data);
+					IntegerParaDistribution distribution = countIntegerParaDistribution(data, samplingData.size(), quantileSketch,
+							null);
 					distribution.setColumnInfo(distTypeInfo.columnMinValue, distTypeInfo.columnMaxValue,
 							distTypeInfo.columnCardinality, distTypeInfo.coefficient);
 					distribution.init4IntegerParaGene();
 					txName2ParaId2FullLifeCycleDistribution.get(txName).put(paraIdentifier, distribution);
 				} else if (distributionType == 2 || distributionType == 5) {
-					VarcharParaDistribution distribution = countVarcharParaDistribution(data);
+					VarcharParaDistribution distribution = countVarcharParaDistribution(data, samplingData.size(), null);
 					distribution.setColumnInfo(distTypeInfo.columnCardinality, distTypeInfo.minLength,
 							distTypeInfo.maxLength, distTypeInfo.seedStrings);
 					distribution.init4VarcharParaGene();
@@ -364,32 +611,29 @@ public class DistributionCounter {
 		}
 	}
 
-	private static DataAccessDistribution countContinuousParaDistribution(int dataType, List<String> data) {
+	// 下面各个统计函数的输入data均为参数的各个取值（字符串形式）及其出现次数，valueSize为数据量（出现次数之和）
+	// quantileSketch不为空时（全负载周期分布），区间频率和分位点由草图统计；sampleScale不为空时（流式统计），区间基数和区间频率由样本还原
+	private static DataAccessDistribution countContinuousParaDistribution(int dataType, List<Entry<String, Integer>> data,
+			int valueSize, QuantileSketch quantileSketch, SampleScale sampleScale) {
 		// 三个分支中的代码非常相似，没办法~
 		if (dataType == 0 || dataType == 3) { // Long（Integer、DateTime）
-			List<Long> values = new ArrayList<>();
-			for (String datum : data) {
-				values.add(Long.parseLong(datum));
-			}
+			List<Entry<Long, Integer>> valueNumEntryList = getValueNumEntryList(data, Long::parseLong);
 			Long[] highFrequencyItems = new Long[Configurations.getHighFrequencyItemNum()];
 
-			return getContinuousParaDistribution(values, highFrequencyItems);
+			return getContinuousParaDistribution(valueNumEntryList, valueSize, highFrequencyItems, quantileSketch,
+					sampleScale);
 		} else if (dataType == 1) { // Double
-			List<Double> values = new ArrayList<>();
-			for (String datum : data) {
-				values.add(Double.parseDouble(datum));
-			}
+			List<Entry<Double, Integer>> valueNumEntryList = getValueNumEntryList(data, Double::parseDouble);
 			Double[] highFrequencyItems = new Double[Configurations.getHighFrequencyItemNum()];
 
-			return getContinuousParaDistribution(values, highFrequencyItems);
+			return getContinuousParaDistribution(valueNumEntryList, valueSize, highFrequencyItems, quantileSketch,
+					sampleScale);
 		} else if (dataType == 2) { // BigDecimal
-			List<BigDecimal> values = new ArrayList<>();
-			for (String datum : data) {
-				values.add(new BigDecimal(datum));
-			}
+			List<Entry<BigDecimal, Integer>> valueNumEntryList = getValueNumEntryList(data, BigDecimal::new);
 			BigDecimal[] highFrequencyItems = new BigDecimal[Configurations.getHighFrequencyItemNum()];
 
-			return getContinuousParaDistribution(values, highFrequencyItems);
+			return getContinuousParaDistribution(valueNumEntryList, valueSize, highFrequencyItems, quantileSketch,
+					sampleScale);
 		} else {
 			System.out.println("针对ContinuousParaDistribution尚不支持的数据类型！ -- " + dataType);
 			return null;
@@ -399,71 +643,79 @@ public class DistributionCounter {
 	}
 
 	// 该函数中的代码与countContinuousParaDistribution函数中第一个分支的代码基本相同~
-	private static IntegerParaDistribution countIntegerParaDistribution(List<String> data) {
-		List<Long> values = new ArrayList<>();
-		for (String datum : data) {
-			values.add(Long.parseLong(datum));
-		}
+	@SuppressWarnings("unchecked")
+	private static IntegerParaDistribution countIntegerParaDistribution(List<Entry<String, Integer>> data, int valueSize,
+			QuantileSketch quantileSketch, SampleScale sampleScale) {
+		List<Entry<Long, Integer>> valueNumEntryList = getValueNumEntryList(data, Long::parseLong);
+		List<Long> values = getValues(valueNumEntryList);
 		Long windowMinValue = Collections.min(values);
 		Long windowMaxValue = Collections.max(values);
 
-		List<Entry<Long, Integer>> valueNumEntryList = getValueNumEntryList(values);
-
-		double[] hFItemFrequencies = getHighFrequencyItemInfo(valueNumEntryList, values.size(), null);
+		// 使用草图时需要知道高频项，以便从草图中扣除
+		Long[] highFrequencyItems = quantileSketch == null ? null : new Long[Configurations.getHighFrequencyItemNum()];
+		double[] hFItemFrequencies = getHighFrequencyItemInfo(valueNumEntryList, valueSize, highFrequencyItems);
 
-		Object[] result = getIntervalCardiFrequInfo(valueNumEntryList, windowMaxValue, windowMinValue, values.size());
+		Object[] result = getIntervalCardiFrequInfo(valueNumEntryList, windowMaxValue, windowMinValue, valueSize);
 		long[] intervalCardinalities = (long[]) result[0];
 		double[] intervalFrequencies = (double[]) result[1];
 
-		ArrayList<ArrayList<Double>> quantilePerInterval = getQuantilePerInterval(valueNumEntryList, intervalCardinalities,
-				intervalFrequencies, windowMaxValue, windowMinValue, values.size());
+		ArrayList<ArrayList<Double>> quantilePerInterval;
+		if (quantileSketch != null) {
+			Object[] sketchResult = getIntervalFrequQuantileInfo(quantileSketch, highFrequencyItems, hFItemFrequencies,
+					windowMaxValue, windowMinValue);
+			intervalFrequencies = (double[]) sketchResult[0];
+			quantilePerInterval = (ArrayList<ArrayList<Double>>) sketchResult[1];
+		} else {
+			quantilePerInterval = getQuantilePerInterval(valueNumEntryList, intervalCardinalities, intervalFrequencies,
+					windowMaxValue, windowMinValue, valueSize);
+		}
+		scaleIntervalInfo(intervalCardinalities, intervalFrequencies, hFItemFrequencies, sampleScale);
 
 		return new IntegerParaDistribution(windowMinValue, windowMaxValue, hFItemFrequencies, intervalCardinalities,
 				intervalFrequencies, quantilePerInterval);
 	}
 
-	private static VarcharParaDistribution countVarcharParaDistribution(List<String> data) {
-		// data不需要数据类型的转化
-		List<Entry<String, Integer>> valueNumEntryList = getValueNumEntryList(data);
+	private static VarcharParaDistribution countVarcharParaDistribution(List<Entry<String, Integer>> data, int valueSize,
+			SampleScale sampleScale) {
+		// data不需要数据类型的转化（getHighFrequencyItemInfo会移除列表中的高频项，故复制一份）
+		List<Entry<String, Integer>> valueNumEntryList = new ArrayList<>(data);
 
-		double[] hFItemFrequencies = getHighFrequencyItemInfo(valueNumEntryList, data.size(), null);
+		double[] hFItemFrequencies = getHighFrequencyItemInfo(valueNumEntryList, valueSize, null);
 
-		Object[] result = getIntervalCardiFrequInfo(valueNumEntryList, data.size());
+		Object[] result = getIntervalCardiFrequInfo(valueNumEntryList, valueSize);
 		long[] intervalCardinalities = (long[]) result[0];
 		double[] intervalFrequencies = (double[]) result[1];
 
+		scaleIntervalInfo(intervalCardinalities, intervalFrequencies, hFItemFrequencies, sampleScale);
+
 		// TODO hash code 分段的情况下要怎么统计频数？
 
 		return new VarcharParaDistribution(hFItemFrequencies, intervalCardinalities, intervalFrequencies);
 	}
 
-	private static SequentialCtnsParaDistribution countSequentialCtnsParaDistribution(List<String> data, String txName,
-			String paraIdentifier) {
-		List<Long> values = new ArrayList<>();
-		for (String datum : data) {
-			values.add(Long.parseLong(datum));
-		}
+	private static SequentialCtnsParaDistribution countSequentialCtnsParaDistribution(DistributionCounterShard shard,
+			List<Entry<String, Integer>> data, int valueSize, String txName, String paraIdentifier, SampleScale sampleScale) {
+		List<Entry<Long, Integer>> valueNumEntryList = getValueNumEntryList(data, Long::parseLong);
+		List<Long> values = getValues(valueNumEntryList);
 		Long minValue = Collections.min(values);
 		Long maxValue = Collections.max(values);
 
-		List<Entry<Long, Integer>> valueNumEntryList = getValueNumEntryList(values);
-
 		Long[] highFrequencyItems = new Long[Configurations.getHighFrequencyItemNum()];
-		double[] hFItemFrequencies = getHighFrequencyItemInfo(valueNumEntryList, values.size(), highFrequencyItems);
+		double[] hFItemFrequencies = getHighFrequencyItemInfo(valueNumEntryList, valueSize, highFrequencyItems);
 
-		// priorData是之前一段时间窗口的参数数据，用来统计intervalParaRepeatRatios
-		ArrayList<Object> priorData = (ArrayList<Object>)txName2ParaId2Data.get(txName).get(paraIdentifier);
+		// priorData是之前一段时间窗口的参数数据（各时间窗口中出现过的取值），用来统计intervalParaRepeatRatios
+		ArrayList<Object> priorData = (ArrayList<Object>)shard.txName2ParaId2Data.get(txName).get(paraIdentifier);
 		int k = Configurations.getBackwardLength();
 		if (priorData == null) priorData = new ArrayList<>();
 
-		Object[] result = getIntervalCardiFrequInfo(valueNumEntryList, maxValue, minValue, values.size(), priorData);
+		Object[] result = getIntervalCardiFrequInfo(valueNumEntryList, maxValue, minValue, valueSize, priorData, sampleScale);
 
+		// 只会用到最近k个时间窗口的数据
 		priorData.add(values);
 		if (priorData.size() > k){
-			priorData.subList(1,priorData.size());
+			priorData.remove(0);
 		}
-		txName2ParaId2Data.get(txName).put(paraIdentifier, priorData);
-
+		shard.txName2ParaId2Data.get(txName).put(paraIdentifier, priorData);
 		long[] intervalCardinalities = (long[]) result[0];
 		double[] intervalFrequencies = (double[]) result[1];
 		double[][] intervalParaRepeatRatios = (double[][]) result[2];
@@ -477,46 +729,45 @@ public class DistributionCounter {
 		}
 
 		ArrayList<ArrayList<Double>> quantilePerInterval = getQuantilePerInterval(valueNumEntryList, intervalCardinalities,
-				intervalFrequencies, maxValue, minValue, values.size());
+				intervalFrequencies, maxValue, minValue, valueSize);
+		scaleIntervalInfo(intervalCardinalities, intervalFrequencies, hFItemFrequencies, sampleScale);
 
 		return new SequentialCtnsParaDistribution(minValue, maxValue, highFrequencyItems2,
 				hFItemFrequencies, intervalCardinalities, intervalFrequencies, intervalParaRepeatRatios, quantilePerInterval);
 	}
 
-	private static SequentialIntParaDistribution countSequentialIntParaDistribution(List<String> data, String txName,
-			String paraIdentifier) {
-		List<Long> values = new ArrayList<>();
-		for (String datum : data) {
-			values.add(Long.parseLong(datum));
-		}
+	private static SequentialIntParaDistribution countSequentialIntParaDistribution(DistributionCounterShard shard,
+			List<Entry<String, Integer>> data, int valueSize, String txName, String paraIdentifier, SampleScale sampleScale) {
+		List<Entry<Long, Integer>> valueNumEntryList = getValueNumEntryList(data, Long::parseLong);
+		List<Long> values = getValues(valueNumEntryList);
 		Long windowMinValue = Collections.min(values);
 		Long windowMaxValue = Collections.max(values);
 
-		List<Entry<Long, Integer>> valueNumEntryList = getValueNumEntryList(values);
-
 		// 这里获取的高频项是用来统计hFItemRepeatRatio的。针对非键值整型属性参数的生成，高频项是由程序生成的，并非从日志中统计而来
 		Long[] highFrequencyItems = new Long[Configurations.getHighFrequencyItemNum()];
-		double[] hFItemFrequencies = getHighFrequencyItemInfo(valueNumEntryList, values.size(), highFrequencyItems);
+		double[] hFItemFrequencies = getHighFrequencyItemInfo(valueNumEntryList, valueSize, highFrequencyItems);
 //
-		// priorData是之前一段时间窗口的参数数据，用来统计intervalParaRepeatRatios
-		ArrayList<Object> priorData = (ArrayList<Object>)txName2ParaId2Data.get(txName).get(paraIdentifier);
+		// priorData是之前一段时间窗口的参数数据（各时间窗口中出现过的取值），用来统计intervalParaRepeatRatios
+		ArrayList<Object> priorData = (ArrayList<Object>)shard.txName2ParaId2Data.get(txName).get(paraIdentifier);
 		int k = Configurations.getBackwardLength();
 		if (priorData == null) priorData = new ArrayList<>();
 
-		Object[] result = getIntervalCardiFrequInfo(valueNumEntryList, windowMaxValue, windowMinValue, values.size(), priorData);
+		Object[] result = getIntervalCardiFrequInfo(valueNumEntryList, windowMaxValue, windowMinValue, valueSize, priorData,
+				sampleScale);
 
+		// 只会用到最近k个时间窗口的数据
 		priorData.add(values);
 		if (priorData.size() > k){
-			priorData.subList(1,priorData.size());
+			priorData.remove(0);
 		}
-		txName2ParaId2Data.get(txName).put(paraIdentifier, priorData);
+		shard.txName2ParaId2Data.get(txName).put(paraIdentifier, priorData);
 		long[] intervalCardinalities = (long[]) result[0];
 		double[] intervalFrequencies = (double[]) result[1];
 		double[][] intervalParaRepeatRatios = (double[][]) result[2];
 
 		// 上一个时间窗口 从日志中统计得到的高频项
-		Long[] priorHighFrequencyItems = (Long[]) txName2ParaId2LogHFItems.get(txName).get(paraIdentifier);
-		txName2ParaId2LogHFItems.get(txName).put(paraIdentifier, highFrequencyItems);
+		Long[] priorHighFrequencyItems = (Long[]) shard.txName2ParaId2LogHFItems.get(txName).get(paraIdentifier);
+		shard.txName2ParaId2LogHFItems.get(txName).put(paraIdentifier, highFrequencyItems);
 
 		int hFItemRepeatNum = 0, currentHFItemNum = 0;
 		if (priorHighFrequencyItems != null) {
@@ -539,28 +790,31 @@ public class DistributionCounter {
 		}
 
 		ArrayList<ArrayList<Double>> quantilePerInterval = getQuantilePerInterval(valueNumEntryList, intervalCardinalities,
-				intervalFrequencies, windowMaxValue, windowMinValue, values.size());
+				intervalFrequencies, windowMaxValue, windowMinValue, valueSize);
+		scaleIntervalInfo(intervalCardinalities, intervalFrequencies, hFItemFrequencies, sampleScale);
 
 		return new SequentialIntParaDistribution(windowMinValue, windowMaxValue, hFItemFrequencies,
 				intervalCardinalities, intervalFrequencies, intervalParaRepeatRatios, hFItemRepeatRatio, quantilePerInterval);
 	}
 
-	private static SequentialVcharParaDistribution countSequentialVcharParaDistribution(List<String> data,
-			String txName, String paraIdentifier) {
-		List<Entry<String, Integer>> valueNumEntryList = getValueNumEntryList(data);
+	private static SequentialVcharParaDistribution countSequentialVcharParaDistribution(DistributionCounterShard shard,
+			List<Entry<String, Integer>> data, int valueSize, String txName, String paraIdentifier, SampleScale sampleScale) {
+		List<Entry<String, Integer>> valueNumEntryList = new ArrayList<>(data);
 
 		String[] highFrequencyItems = new String[Configurations.getHighFrequencyItemNum()];
-		double[] hFItemFrequencies = getHighFrequencyItemInfo(valueNumEntryList, data.size(), highFrequencyItems);
+		double[] hFItemFrequencies = getHighFrequencyItemInfo(valueNumEntryList, valueSize, highFrequencyItems);
 
-		Object priorData = txName2ParaId2Data.get(txName).get(paraIdentifier);
-		txName2ParaId2Data.get(txName).put(paraIdentifier, data);
-		Object[] result = getIntervalCardiFrequInfo(valueNumEntryList, data.size(), priorData);
+		// 保存的是当前时间窗口中出现过的取值
+		Object priorData = shard.txName2ParaId2Data.get(txName).get(paraIdentifier);
+		shard.txName2ParaId2Data.get(txName).put(paraIdentifier, getValues(data));
+		Object[] result = getIntervalCardiFrequInfo(valueNumEntryList, valueSize, priorData, sampleScale);
 		long[] intervalCardinalities = (long[]) result[0];
 		double[] intervalFrequencies = (double[]) result[1];
 		double[] intervalParaRepeatRatios = (double[]) result[2];
+		scaleIntervalInfo(intervalCardinalities, intervalFrequencies, hFItemFrequencies, sampleScale);
 
-		String[] priorHighFrequencyItems = (String[]) txName2ParaId2LogHFItems.get(txName).get(paraIdentifier);
-		txName2ParaId2LogHFItems.get(txName).put(paraIdentifier, highFrequencyItems);
+		String[] priorHighFrequencyItems = (String[]) shard.txName2ParaId2LogHFItems.get(txName).get(paraIdentifier);
+		shard.txName2ParaId2LogHFItems.get(txName).put(paraIdentifier, highFrequencyItems);
 
 		int hFItemRepeatNum = 0, currentHFItemNum = 0;
 		if (priorHighFrequencyItems != null) {
@@ -586,22 +840,31 @@ public class DistributionCounter {
 				intervalParaRepeatRatios, hFItemRepeatRatio);
 	}
 
-	private static <T extends Number> DataAccessDistribution getContinuousParaDistribution(List<T> values, T[] highFrequencyItems){
+	@SuppressWarnings("unchecked")
+	private static <T extends Number> DataAccessDistribution getContinuousParaDistribution(List<Entry<T, Integer>> valueNumEntryList,
+			int valueSize, T[] highFrequencyItems, QuantileSketch quantileSketch, SampleScale sampleScale){
+		List<T> values = getValues(valueNumEntryList);
 		T minValue = Collections.min(values, Comparator.comparing(o -> BigDecimal.valueOf(o.doubleValue())));
 		T maxValue = Collections.max(values, Comparator.comparing(o -> BigDecimal.valueOf(o.doubleValue())));
 
-		// Entry：<参数，参数出现的个数>；所有Entry按照出现个数升序排列
-		List<Entry<T, Integer>> valueNumEntryList = getValueNumEntryList(values);
-
-		double[] hFItemFrequencies = getHighFrequencyItemInfo(valueNumEntryList, values.size(), highFrequencyItems);
+		double[] hFItemFrequencies = getHighFrequencyItemInfo(valueNumEntryList, valueSize, highFrequencyItems);
 
 		// Object[] result -> 为了可以有多个函数返回值~
-		Object[] result = getIntervalCardiFrequInfo(valueNumEntryList, maxValue, minValue, values.size());
+		Object[] result = getIntervalCardiFrequInfo(valueNumEntryList, maxValue, minValue, valueSize);
 		long[] intervalCardinalities = (long[]) result[0];
 		double[] intervalFrequencies = (double[]) result[1];
 
-		ArrayList<ArrayList<Double>> quantilePerInterval = getQuantilePerInterval(valueNumEntryList, intervalCardinalities,
-				intervalFrequencies, maxValue, minValue, values.size());
+		ArrayList<ArrayList<Double>> quantilePerInterval;
+		if (quantileSketch != null) {
+			Object[] sketchResult = getIntervalFrequQuantileInfo(quantileSketch, highFrequencyItems, hFItemFrequencies,
+					maxValue, minValue);
+			intervalFrequencies = (double[]) sketchResult[0];
+			quantilePerInterval = (ArrayList<ArrayList<Double>>) sketchResult[1];
+		} else {
+			quantilePerInterval = getQuantilePerInterval(valueNumEntryList, intervalCardinalities, intervalFrequencies,
+					maxValue, minValue, valueSize);
+		}
+		scaleIntervalInfo(intervalCardinalities, intervalFrequencies, hFItemFrequencies, sampleScale);
 		return new ContinuousParaDistribution<T>(minValue, maxValue, highFrequencyItems, hFItemFrequencies,
 				intervalCardinalities, intervalFrequencies, quantilePerInterval);
 	}
@@ -612,7 +875,20 @@ public class DistributionCounter {
 		for (T value : values) {
 			value2Num.put(value, value2Num.get(value) == null ? 1 : value2Num.get(value) + 1);
 		}
+		return sortValueNumEntryList(value2Num);
+	}
+
+	// 将字符串形式取值的出现次数转化为相应数据类型取值的出现次数（不同的字符串可能对应同一个值），并按出现次数升序排列
+	private static <T> List<Entry<T, Integer>> getValueNumEntryList(List<Entry<String, Integer>> data,
+			Function<String, T> parser) {
+		Map<T, Integer> value2Num = new HashMap<>();
+		for (Entry<String, Integer> entry : data) {
+			value2Num.merge(parser.apply(entry.getKey()), entry.getValue(), Integer::sum);
+		}
+		return sortValueNumEntryList(value2Num);
+	}
 
+	private static <T> List<Entry<T, Integer>> sortValueNumEntryList(Map<T, Integer> value2Num) {
 		Iterator<Entry<T, Integer>> iter = value2Num.entrySet().iterator();
 		List<Entry<T, Integer>> valueNumEntryList = new ArrayList<>();
 		while (iter.hasNext()) {
@@ -623,6 +899,15 @@ public class DistributionCounter {
 		return valueNumEntryList;
 	}
 
+	// valueNumEntryList中所有的非重复值
+	private static <T> List<T> getValues(List<Entry<T, Integer>> valueNumEntryList) {
+		List<T> values = new ArrayList<>(valueNumEntryList.size());
+		for (Entry<T, Integer> entry : valueNumEntryList) {
+			values.add(entry.getKey());
+		}
+		return values;
+	}
+
 	private static <T> double[] getHighFrequencyItemInfo(List<Entry<T, Integer>> valueNumEntryList, int valueSize,
 			T[] highFrequencyItems) {
 		int highFrequencyItemNum = Configurations.getHighFrequencyItemNum();
@@ -640,9 +925,55 @@ public class DistributionCounter {
 		return hFItemFrequencies;
 	}
 
+	// 流式统计时非高频项只是非重复值的样本（各取值的出现次数是精确的）：区间基数按抽样概率还原，
+	// 区间频率按比例放大到高频项以外的全部频率。分位点是区间内的相对位置，不需要还原
+	private static void scaleIntervalInfo(long[] intervalCardinalities, double[] intervalFrequencies,
+			double[] hFItemFrequencies, SampleScale sampleScale) {
+		if (sampleScale == null) {
+			return;
+		}
+		double hFItemFrequencySum = 0, intervalFrequencySum = 0;
+		for (double hFItemFrequency : hFItemFrequencies) {
+			hFItemFrequencySum += hFItemFrequency;
+		}
+		for (double intervalFrequency : intervalFrequencies) {
+			intervalFrequencySum += intervalFrequency;
+		}
+		double frequencyScale = intervalFrequencySum == 0 ? 0
+				: Math.max(0, 1 - hFItemFrequencySum) / intervalFrequencySum;
+		for (int i = 0; i < intervalFrequencies.length; i++) {
+			intervalCardinalities[i] = Math.round(intervalCardinalities[i] * sampleScale.cardinalityScale);
+			intervalFrequencies[i] *= frequencyScale;
+		}
+	}
+
+	// data中非重复值的个数，流式统计时样本中的非高频项按抽样概率还原
+	private static long getCardinality(List<Entry<String, Integer>> data, SampleScale sampleScale) {
+		if (sampleScale == null) {
+			return data.size();
+		}
+		double cardinality = 0;
+		for (Entry<String, Integer> entry : data) {
+			cardinality += sampleScale.highFrequencyItems.contains(entry.getKey()) ? 1 : sampleScale.cardinalityScale;
+		}
+		return Math.round(cardinality);
+	}
+
+	@SuppressWarnings("unchecked")
 	private static <T extends Number> ArrayList<ArrayList<Double>> getQuantilePerInterval(List<Entry<T, Integer>> valueNumEntryList,
 															long[] intervalCardinalities, double[]intervalFrequencies,
 																						  T maxValue, T minValue, int valuesSize) {
+		int quantileSketchK = Configurations.getQuantileSketchK();
+		if (quantileSketchK > 0) {
+			// 由草图统计分位点，不需要对时间窗口内的所有取值排序
+			QuantileSketch quantileSketch = new QuantileSketch(quantileSketchK);
+			for (Entry<T, Integer> tIntegerEntry : valueNumEntryList) {
+				quantileSketch.update(tIntegerEntry.getKey().doubleValue(), tIntegerEntry.getValue());
+			}
+			return (ArrayList<ArrayList<Double>>) getIntervalFrequQuantileInfo(quantileSketch, null, null, maxValue,
+					minValue)[1];
+		}
+
 		int intervalNum = Configurations.getIntervalNum();
 		double avgIntervalLength = (maxValue.doubleValue() - minValue.doubleValue() + 0.000000001) / intervalNum;
 
@@ -704,6 +1035,80 @@ public class DistributionCounter {
 		return quantilePerInterval;
 	}
 
+	// 由分位数草图统计各区间的频率及区间内的分位点（算法同getQuantilePerInterval，各取值的出现次数换成草图中保留项的权重）
+	// highFrequencyItems不为空时先从草图中扣除高频项的数据量，使结果与扣除高频项后精确统计的含义一致；
+	// 此时高频项的频率也改为草图中的数据量（hFItemFrequencies原地更新），否则采样数据中被选为高频项的取值频率偏高，各频率之和会大于1
+	private static <T extends Number> Object[] getIntervalFrequQuantileInfo(QuantileSketch quantileSketch,
+			T[] highFrequencyItems, double[] hFItemFrequencies, T maxValue, T minValue) {
+		int intervalNum = Configurations.getIntervalNum();
+		int binNum = Configurations.getQuantileNum();
+		double avgIntervalLength = (maxValue.doubleValue() - minValue.doubleValue() + 0.000000001) / intervalNum;
+
+		double[][] sortedView = quantileSketch.getSortedView();
+		double[] values = sortedView[0], weights = sortedView[1];
+		double n = quantileSketch.getN();
+
+		if (highFrequencyItems != null) {
+			for (int i = 0; i < highFrequencyItems.length; i++) {
+				if (highFrequencyItems[i] == null) {
+					continue;
+				}
+				double hFItemValue = highFrequencyItems[i].doubleValue();
+				double hFItemWeight = 0;
+				int j = Arrays.binarySearch(values, hFItemValue);
+				while (j > 0 && values[j - 1] == hFItemValue) {
+					j--;
+				}
+				for (; j >= 0 && j < values.length && values[j] == hFItemValue; j++) {
+					hFItemWeight += weights[j];
+					weights[j] = 0;
+				}
+				hFItemFrequencies[i] = n == 0 ? 0 : hFItemWeight / n;
+			}
+		}
+
+		int[] idxs = new int[values.length];
+		double[] intervalWeights = new double[intervalNum];
+		for (int j = 0; j < values.length; j++) {
+			int idx = (int) ((values[j] - minValue.doubleValue()) / avgIntervalLength);
+			// 草图的取值范围可能超出采样数据的范围
+			idxs[j] = Math.max(0, Math.min(idx, intervalNum - 1));
+			intervalWeights[idxs[j]] += weights[j];
+		}
+
+		double[] intervalFrequencies = new double[intervalNum];
+		ArrayList<ArrayList<Double>> quantilePerInterval = new ArrayList<ArrayList<Double>>();
+		for (int i = 0; i < intervalNum; i++) {
+			intervalFrequencies[i] = n == 0 ? 0 : intervalWeights[i] / n;
+			quantilePerInterval.add(new ArrayList<>());
+			quantilePerInterval.get(i).add(0.0);
+		}
+
+		double[] cdfPerInterval = new double[intervalNum];
+		for (int j = 0; j < values.length; j++) {
+			if (weights[j] <= 0) {
+				continue;
+			}
+			int idx = idxs[j];
+			cdfPerInterval[idx] += weights[j];
+			int freqInx = (int) Math.min(binNum, cdfPerInterval[idx] / (intervalWeights[idx] / binNum));
+			double posInInterval = (values[j] - minValue.doubleValue() - idx * avgIntervalLength) / avgIntervalLength;
+			posInInterval = Math.max(0, Math.min(posInInterval, 1));
+			while (quantilePerInterval.get(idx).size() <= freqInx) {
+				quantilePerInterval.get(idx).add(posInInterval);
+			}
+		}
+		// 补齐最后一个段，其值必然是1
+		for (int i = 0; i < intervalNum; i++) {
+			while (quantilePerInterval.get(i).size() <= binNum) {
+				quantilePerInterval.get(i).add(1.0);
+			}
+			quantilePerInterval.get(i).set(binNum, 1.0);
+		}
+
+		return new Object[] { intervalFrequencies, quantilePerInterval };
+	}
+
 	private static <T extends Number> Object[] getIntervalCardiFrequInfo(List<Entry<T, Integer>> valueNumEntryList,
 			T maxValue, T minValue, int valueSize) {
 		int intervalNum = Configurations.getIntervalNum();
@@ -732,9 +1137,10 @@ public class DistributionCounter {
 		return result;
 	}
 
+	// sampleScale不为空时（流式统计），重复率只在哈希值不大于repeatThreshold的取值上统计（见SampleScale）
 	@SuppressWarnings("unchecked")
 	private static <T extends Number> Object[] getIntervalCardiFrequInfo(List<Entry<T, Integer>> valueNumEntryList,
-			T maxValue, T minValue, int valueSize, Object priorData) {
+			T maxValue, T minValue, int valueSize, Object priorData, SampleScale sampleScale) {
 
 		int intervalNum = Configurations.getIntervalNum();
 		double avgIntervalLength = (maxValue.doubleValue() - minValue.doubleValue() + 0.000000001) / intervalNum;
@@ -762,6 +1168,9 @@ public class DistributionCounter {
 
 			for (Entry<T, Integer> tIntegerEntry : valueNumEntryList) {
 				T keyValue = tIntegerEntry.getKey() ;
+				if (sampleScale != null && !sampleScale.isRepeatCandidate(keyValue)) {
+					continue;
+				}
 				int idx = (int) ((keyValue.doubleValue() - minValue.doubleValue())
 						/ avgIntervalLength);
 
@@ -838,9 +1247,10 @@ public class DistributionCounter {
 		return result;
 	}
 
+	// 同上，sampleScale不为空时重复率只在哈希值不大于repeatThreshold的取值上统计
 	@SuppressWarnings("unchecked")
 	private static Object[] getIntervalCardiFrequInfo(List<Entry<String, Integer>> valueNumEntryList, int valueSize,
-			Object priorData) {
+			Object priorData, SampleScale sampleScale) {
 
 		Set<String> priorDataSet = new HashSet<String>();
 		if (priorData != null) {
@@ -851,22 +1261,28 @@ public class DistributionCounter {
 		long[] intervalCardinalities = new long[intervalNum];
 		double[] intervalFrequencies = new double[intervalNum];
 		double[] intervalParaRepeatRatios = new double[intervalNum];
+		// 参与重复率统计的取值的频率
+		double[] repeatCandidateFrequencies = new double[intervalNum];
 
 		for (Entry<String, Integer> stringIntegerEntry : valueNumEntryList) {
 			int idx = Math.abs(stringIntegerEntry.getKey().hashCode()) % intervalNum;
 			intervalCardinalities[idx]++;
 			intervalFrequencies[idx] += stringIntegerEntry.getValue() / (double) valueSize;
 
+			if (sampleScale != null && !sampleScale.isRepeatCandidate(stringIntegerEntry.getKey())) {
+				continue;
+			}
+			repeatCandidateFrequencies[idx] += stringIntegerEntry.getValue() / (double) valueSize;
 			if (priorDataSet.contains(stringIntegerEntry.getKey())) {
 				intervalParaRepeatRatios[idx] += stringIntegerEntry.getValue() / (double) valueSize;
 			}
 		}
 
 		for (int i = 0; i < intervalParaRepeatRatios.length; i++) {
-			if (intervalFrequencies[i] == 0) {
+			if (repeatCandidateFrequencies[i] == 0) {
 				continue;
 			}
-			intervalParaRepeatRatios[i] /= intervalFrequencies[i];
+			intervalParaRepeatRatios[i] /= repeatCandidateFrequencies[i];
 		}
 
 		Object[] result = new Object[3];
@@ -946,9 +1362,8 @@ public class DistributionCounter {
 		return windowDistributionList;
 	}
 
-	// 需要保证所有事务在所有时间窗口上都有确定的事务吞吐
-	public static Map<String, List<Integer>> getTxName2ThroughputList() {
-		Map<String, List<Integer>> txName2ThroughputList2 = new HashMap<>();
+	// 所有事务吞吐信息中最早的时间窗口时间
+	private static long getThroughputStartTime() {
 		Iterator<Entry<String, Vector<Throughput>>> iter = txName2ThroughputList.entrySet().iterator();
 		long workloadStartTime = Long.MAX_VALUE;
 		while (iter.hasNext()) {
@@ -965,11 +1380,18 @@ public class DistributionCounter {
 				workloadStartTime = entry.getValue().get(0).time;
 			}
 		}
+		return workloadStartTime;
+	}
+
+	// 需要保证所有事务在所有时间窗口上都有确定的事务吞吐
+	public static Map<String, List<Integer>> getTxName2ThroughputList() {
+		Map<String, List<Integer>> txName2ThroughputList2 = new HashMap<>();
+		long workloadStartTime = getThroughputStartTime();
 		// System.out.println("DistributionCounter.getTxName2ThroughputList ->
 		// workloadStartTime: " + workloadStartTime);
 
 		int timeWindowMillis = Configurations.getTimeWindowSize() * 1000;
-		iter = txName2ThroughputList.entrySet().iterator();
+		Iterator<Entry<String, Vector<Throughput>>> iter = txName2ThroughputList.entrySet().iterator();
 		while (iter.hasNext()) {
 			Entry<String, Vector<Throughput>> entry = iter.next();
 			long currentTime = workloadStartTime;
@@ -991,6 +1413,52 @@ public class DistributionCounter {
 		return txName2ThroughputList2;
 	}
 
+	// 汇总一个事务在某个时间窗口内各时段的日志条数，由各LogSplitter线程调用
+	public static void countArrivalSlots(long windowTime, int[] slotCounts) {
+		synchronized (windowTime2ArrivalSlotCounts) {
+			int[] counts = windowTime2ArrivalSlotCounts.get(windowTime);
+			if (counts == null) {
+				windowTime2ArrivalSlotCounts.put(windowTime, slotCounts.clone());
+			} else {
+				for (int i = 0; i < counts.length && i < slotCounts.length; i++) {
+					counts[i] += slotCounts[i];
+				}
+			}
+		}
+	}
+
+	// 各时间窗口内的到达分布（与getTxName2ThroughputList的时间窗口一一对应），即各时段到达量与时段平均到达量的比值
+	// 这里统计的是SQL操作的日志条数，事务内的操作数大致稳定时其比例与事务到达的比例一致；没有日志的时间窗口为null
+	public static List<double[]> getWindowArrivalProfileList() {
+		List<double[]> windowArrivalProfileList = new ArrayList<>();
+		// 早期版本序列化的统计信息中没有到达分布
+		if (windowTime2ArrivalSlotCounts == null || windowTime2ArrivalSlotCounts.isEmpty()) {
+			return windowArrivalProfileList;
+		}
+		long workloadStartTime = getThroughputStartTime();
+		int timeWindowMillis = Configurations.getTimeWindowSize() * 1000;
+		long workloadEndTime = Collections.max(windowTime2ArrivalSlotCounts.keySet());
+		for (long windowTime = workloadStartTime; windowTime <= workloadEndTime; windowTime += timeWindowMillis) {
+			int[] counts = windowTime2ArrivalSlotCounts.get(windowTime);
+			long sum = 0;
+			if (counts != null) {
+				for (int count : counts) {
+					sum += count;
+				}
+			}
+			if (sum == 0) {
+				windowArrivalProfileList.add(null);
+				continue;
+			}
+			double[] profile = new double[counts.length];
+			for (int j = 0; j < counts.length; j++) {
+				profile[j] = counts[j] * (double) counts.length / sum;
+			}
+			windowArrivalProfileList.add(profile);
+		}
+		return windowArrivalProfileList;
+	}
+
 	public static void deserialInit(DistributionCounter4Serial dcs) {
 
 		txName2ParaId2DistributionList =dcs.txName2ParaId2DistributionList;
@@ -1009,6 +1477,7 @@ public class DistributionCounter {
 //		}
 
 		txName2ThroughputList = dcs.txName2ThroughputList;
+		windowTime2ArrivalSlotCounts = dcs.windowTime2ArrivalSlotCounts;
 
 		txName2ParaId2FullLifeCycleDistribution= dcs.txName2ParaId2FullLifeCycleDistribution;
 
@@ -1028,6 +1497,10 @@ public class DistributionCounter {
 		return txName2ThroughputList;
 	}
 
+	public static Map<Long, int[]> getWindowTime2ArrivalSlotCounts() {
+		return windowTime2ArrivalSlotCounts;
+	}
+
 	public static Map<String, Map<String, DataAccessDistribution>> getTxName2ParaId2GlobalDistribution() {
 		return txName2ParaId2FullLifeCycleDistribution;
 	}
@@ -1139,11 +1612,3 @@ public class DistributionCounter {
 	}
 
 }
-
-class EntryComparator<T> implements Comparator<Entry<T, Integer>> {
-
-	@Override
-	public int compare(Entry<T, Integer> o1, Entry<T, Integer> o2) {
-		return o1.getValue().compareTo(o2.getValue());
-	}
-}
@@ -0,0 +1,72 @@
+package accessdistribution;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一个分布统计线程（DistributionStatisticalThread）独占的统计状态，统计过程中不与其他线程共享，不需要加锁。
+ * 统计线程结束时由DistributionCounter.mergeShard合并到全局的统计结果中：各时间窗口的数据访问分布和吞吐合并后按时间排序，
+ * 采样数据按各分片的累积数据量加权合并，分位数草图直接合并。
+ * 基于连续时间窗口统计的参数（数据分布类型3、4、5）需要上一个时间窗口的状态，这类参数的数据总是路由到同一个统计线程，
+ * 其状态只存在于该线程的分片中；其他参数的各个时间窗口相互独立，可以由任意一个统计线程统计
+ */
+class DistributionCounterShard {
+
+	// 事务名称 -> 参数标示符 -> 该分片统计得到的各时间窗口的数据访问分布（不一定按时间有序）
+	Map<String, Map<String, List<DataAccessDistribution>>> txName2ParaId2DistributionList = null;
+
+	// 下面四个数据结构服务于基于连续时间窗口数据访问分布的统计，含义同原先DistributionCounter中的同名成员，不需要合并
+	// 最近一个时间窗口的原始数据（强转好的数据），用于统计intervalParaRepeatRatios
+	Map<String, Map<String, Object>> txName2ParaId2Data = null;
+	// 最近一段时间窗口的候选参数集
+	Map<String, Map<String, Object>> txName2ParaId2ParaCandidates = null;
+	// 日志中最近一个时间窗口的高频项，用于统计hFItemRepeatRatio
+	Map<String, Map<String, Object>> txName2ParaId2LogHFItems = null;
+	// 自己生成的最近一个时间窗口的高频项
+	Map<String, Map<String, Object>> txName2ParaId2GeneHFItems = null;
+	// 流式统计时最近一段时间窗口的非重复值样本的阈值（与txName2ParaId2Data中的各时间窗口一一对应），用于统计intervalParaRepeatRatios
+	Map<String, Map<String, List<Long>>> txName2ParaId2SampleThresholds = null;
+
+	// 事务名称 -> 该分片统计的各时间窗口的吞吐信息
+	Map<String, List<Throughput>> txName2ThroughputList = null;
+
+	// 该分片处理过的数据的采样数据及累积数据量
+	Map<String, Map<String, List<String>>> txName2ParaId2SamplingData = null;
+	Map<String, Map<String, Long>> txName2ParaId2CumulativeSize = null;
+	Map<String, Map<String, DistributionTypeInfo>> txName2ParaId2DistributionType = null;
+	// 数值型参数在该分片统计的时间窗口上合并得到的分位数草图（quantileSketchK大于0时）
+	Map<String, Map<String, QuantileSketch>> txName2ParaId2QuantileSketch = null;
+
+	// 参数级别的数据结构在第一次统计到该参数时再创建
+	DistributionCounterShard(Set<String> txNames) {
+		super();
+		txName2ParaId2DistributionList = new HashMap<>();
+		txName2ParaId2Data = new HashMap<>();
+		txName2ParaId2ParaCandidates = new HashMap<>();
+		txName2ParaId2LogHFItems = new HashMap<>();
+		txName2ParaId2GeneHFItems = new HashMap<>();
+		txName2ParaId2SampleThresholds = new HashMap<>();
+		txName2ThroughputList = new HashMap<>();
+		txName2ParaId2SamplingData = new HashMap<>();
+		txName2ParaId2CumulativeSize = new HashMap<>();
+		txName2ParaId2DistributionType = new HashMap<>();
+		txName2ParaId2QuantileSketch = new HashMap<>();
+
+		for (String txName : txNames) {
+			txName2ParaId2DistributionList.put(txName, new HashMap<>());
+			txName2ParaId2Data.put(txName, new HashMap<>());
+			txName2ParaId2ParaCandidates.put(txName, new HashMap<>());
+			txName2ParaId2LogHFItems.put(txName, new HashMap<>());
+			txName2ParaId2GeneHFItems.put(txName, new HashMap<>());
+			txName2ParaId2SampleThresholds.put(txName, new HashMap<>());
+			txName2ThroughputList.put(txName, new ArrayList<>());
+			txName2ParaId2SamplingData.put(txName, new HashMap<>());
+			txName2ParaId2CumulativeSize.put(txName, new HashMap<>());
+			txName2ParaId2DistributionType.put(txName, new HashMap<>());
+			txName2ParaId2QuantileSketch.put(txName, new HashMap<>());
+		}
+	}
+}
@@ -0,0 +1,12 @@
+package accessdistribution;
+
+import java.util.Comparator;
+import java.util.Map.Entry;
+
+class EntryComparator<T> implements Comparator<Entry<T, Integer>> {
+
+	@Override
+	public int compare(Entry<T, Integer> o1, Entry<T, Integer> o2) {
+		return o1.getValue().compareTo(o2.getValue());
+	}
+}
@@ -64,7 +64,6 @@ public class FakeTransactionDistribution {
 
                         op.setParaDataTypes(paraDataTypesModified);
                         op.setParaDistTypeInfos(paraDistTypeInfosModified);
-                        op.setWindowParaGenerators(fakeColumn);
                         op.setFullLifeCycleParaGenerators(fakeColumn);
 //                        System.out.println("modify sql :"+op.sql);
 //                        System.out.println("After windowParaGenerators Size: "+op.getWindowParaGenerators().length);
@@ -110,7 +109,6 @@ public class FakeTransactionDistribution {
 
                                 op.setParaDataTypes(paraDataTypesModified);
                                 op.setParaDistTypeInfos(paraDistTypeInfosModified);
-                                op.setWindowParaGenerators(fakeColumn);
                                 op.setFullLifeCycleParaGenerators(fakeColumn);
                             }
                         }
@@ -153,7 +151,6 @@ public class FakeTransactionDistribution {
 
                                     op.setParaDataTypes(paraDataTypesModified);
                                     op.setParaDistTypeInfos(paraDistTypeInfosModified);
-                                    op.setWindowParaGenerators(fakeColumn);
                                     op.setFullLifeCycleParaGenerators(fakeColumn);
 //                                    System.out.println("modify sql :"+op.sql);
                                 }
@@ -0,0 +1,150 @@
+package accessdistribution;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * 一个时间窗口内参数取值出现次数的流式统计（Space-Saving算法），heavyHitterSketchCapacity大于0时用于选出时间窗口内的高频项（见WindowSketch）
+ * 最多监控capacity个取值：未被监控的取值到达且监控已满时，替换当前计数最小的取值并在其计数上加1，被替换的计数即为新取值的误差上界。
+ * 每个取值的估计次数不小于真实次数，且高估不超过 totalCount / capacity；所有计数之和恰好为totalCount，
+ * 因此出现频率高于 1 / capacity 的取值一定会被监控到。内存只与capacity有关，与时间窗口内的数据量无关
+ */
+class HeavyHitterSketch<T> {
+
+	private final int capacity;
+
+	// 以计数为键的最小堆，item2Index记录每个被监控的取值在堆中的位置
+	private Object[] items;
+	private long[] counts;
+	private long[] errors;
+	private int size = 0;
+	private Map<T, Integer> item2Index = null;
+
+	private long totalCount = 0;
+
+	HeavyHitterSketch(int capacity) {
+		super();
+		this.capacity = capacity;
+		int initialCapacity = Math.min(capacity, 16);
+		items = new Object[initialCapacity];
+		counts = new long[initialCapacity];
+		errors = new long[initialCapacity];
+		item2Index = new HashMap<>();
+	}
+
+	void update(T item) {
+		totalCount++;
+		Integer index = item2Index.get(item);
+		if (index != null) {
+			counts[index]++;
+			siftDown(index);
+		} else if (size < capacity) {
+			if (size == items.length) {
+				grow();
+			}
+			items[size] = item;
+			counts[size] = 1;
+			errors[size] = 0;
+			item2Index.put(item, size);
+			siftUp(size);
+			size++;
+		} else {
+			// 替换计数最小的取值（堆顶）
+			item2Index.remove(items[0]);
+			errors[0] = counts[0];
+			counts[0]++;
+			items[0] = item;
+			item2Index.put(item, 0);
+			siftDown(0);
+		}
+	}
+
+	private void grow() {
+		int newLength = Math.min(capacity, items.length * 2);
+		Object[] newItems = new Object[newLength];
+		long[] newCounts = new long[newLength];
+		long[] newErrors = new long[newLength];
+		System.arraycopy(items, 0, newItems, 0, size);
+		System.arraycopy(counts, 0, newCounts, 0, size);
+		System.arraycopy(errors, 0, newErrors, 0, size);
+		items = newItems;
+		counts = newCounts;
+		errors = newErrors;
+	}
+
+	private void siftUp(int index) {
+		while (index > 0) {
+			int parent = (index - 1) / 2;
+			if (counts[parent] <= counts[index]) {
+				break;
+			}
+			swap(index, parent);
+			index = parent;
+		}
+	}
+
+	private void siftDown(int index) {
+		while (true) {
+			int smallest = index, left = 2 * index + 1, right = left + 1;
+			if (left < size && counts[left] < counts[smallest]) {
+				smallest = left;
+			}
+			if (right < size && counts[right] < counts[smallest]) {
+				smallest = right;
+			}
+			if (smallest == index) {
+				break;
+			}
+			swap(index, smallest);
+			index = smallest;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void swap(int i, int j) {
+		Object item = items[i];
+		items[i] = items[j];
+		items[j] = item;
+		long count = counts[i];
+		counts[i] = counts[j];
+		counts[j] = count;
+		long error = errors[i];
+		errors[i] = errors[j];
+		errors[j] = error;
+		item2Index.put((T) items[i], i);
+		item2Index.put((T) items[j], j);
+	}
+
+	long getTotalCount() {
+		return totalCount;
+	}
+
+	// 估计次数的最大误差：监控已满时为最小的计数，否则所有计数都是精确的
+	long getMaxError() {
+		return size < capacity || size == 0 ? 0 : counts[0];
+	}
+
+	// 被监控的各个取值及其保证次数（估计次数减去误差上界，不大于真实次数），按次数升序排列。
+	// 监控已满时估计次数会把被替换取值的计数带进来，数据分布接近均匀时所有估计次数都接近totalCount / capacity，用保证次数选高频项更可靠
+	@SuppressWarnings("unchecked")
+	List<Entry<T, Integer>> getValueNumEntryList() {
+		List<Entry<T, Integer>> valueNumEntryList = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			if (counts[i] > errors[i]) {
+				valueNumEntryList.add(new SimpleEntry<>((T) items[i], (int) (counts[i] - errors[i])));
+			}
+		}
+		valueNumEntryList.sort(new EntryComparator<T>());
+		return valueNumEntryList;
+	}
+
+	@Override
+	public String toString() {
+		return "HeavyHitterSketch [capacity=" + capacity + ", size=" + size + ", totalCount=" + totalCount
+				+ ", maxError=" + getMaxError() + "]";
+	}
+}
@@ -4,6 +4,7 @@ import java.util.*;
 
 import abstraction.Column;
 import config.Configurations;
+import util.RandomStreams;
 
 /**
  * 整数类型的等值过滤参数，并且参数空间（或可指相应属性的数值空间）不是连续的，在参数生成时需要考虑miss情形
@@ -108,7 +109,7 @@ public class IntegerParaDistribution extends DataAccessDistribution {
 		if (windowIndexSize > highFrequencyItemNum * 2) {
 			Set<Long> hFItemIndexSet = new HashSet<>();
 			while (hFItemIndexSet.size() < highFrequencyItemNum) {
-				long randomParaIndex = (long)(Math.random() * windowIndexSize) + minParaIndex;
+				long randomParaIndex = (long)(RandomStreams.nextDouble() * windowIndexSize) + minParaIndex;
 				if (!hFItemIndexSet.contains(randomParaIndex)) {
 					highFrequencyItems[hFItemIndexSet.size()] = (long)(randomParaIndex * coefficient + columnMinValue);
 					hFItemIndexSet.add(randomParaIndex);
@@ -123,8 +124,13 @@ public class IntegerParaDistribution extends DataAccessDistribution {
 
 	@Override
 	public Long geneValue() {
+		return geneLongValue();
+	}
+
+	@Override
+	public long geneLongValue() {
 //		System.out.println(this.getClass());
-		int randomIndex = binarySearch();
+		int randomIndex = sampleIndex();
 		if (randomIndex < highFrequencyItemNum) {
 			return highFrequencyItems[randomIndex];
 		} else {
@@ -132,12 +138,17 @@ public class IntegerParaDistribution extends DataAccessDistribution {
 		}
 	}
 
+	@Override
+	public double geneDoubleValue() {
+		return geneLongValue();
+	}
+
 	private long getIntervalInnerRandomValue(int randomIndex) {
 		int intervalIndex = randomIndex - highFrequencyItemNum;
 		long intervalCardinality = intervalCardinalities[intervalIndex];
 		// 可保证区间内生成参数的基数
 		// long intervalInnerIndex = intervalInnerIndexes[intervalIndex]++ % intervalCardinality;
-		long intervalInnerIndex = (long)(Math.random() * intervalCardinality);
+		long intervalInnerIndex = (long)(RandomStreams.nextDouble() * intervalCardinality);
 		
 		double avgIntervalIndexSize = (maxParaIndex - minParaIndex) / (double)intervalNum;
 		long randomParaIndex = (long)(((double)intervalInnerIndex / intervalCardinality + intervalIndex) * 
@@ -195,6 +206,6 @@ public class IntegerParaDistribution extends DataAccessDistribution {
 	// 为了做实验后续添加的，生成完全随机的（即均匀分布）的参数
 	@Override
 	public Long geneUniformValue() {
-		return (long)(Math.random() * (windowMaxValue - windowMinValue) + windowMinValue);
+		return (long)(RandomStreams.nextDouble() * (windowMaxValue - windowMinValue) + windowMinValue);
 	}
 }
@@ -45,7 +45,7 @@ public class MultiPartitionDistribution<T extends Number> extends DataAccessDist
 
     @Override
     public Object geneValue() {
-        int idx = binarySearch();
+        int idx = sampleIndex();
         while (partitionDistribution.get(idx) == null) {
             idx = (idx+1) % partitionDistribution.size();
         }
@@ -0,0 +1,173 @@
+package accessdistribution;
+
+import java.util.Arrays;
+
+import util.RandomStreams;
+
+/**
+ * 数值型参数取值的分位数草图（KLL算法），quantileSketchK大于0时用于统计直方图的区间频率和区间内的分位点
+ * 草图由若干层压缩器组成，第h层的每个保留项代表2^h个原始数据。某层超出容量时将其排序，随机保留奇数位或偶数位的一半提升到上一层，
+ * 层数越低容量越小（按2/3的比例递减，最高层的容量为k），因此内存为O(k·log(n/k))，秩的误差约为n·1.7/k。
+ * 两个草图合并时逐层拼接后再压缩，与直接统计所有数据的草图精度相同，故可以在时间窗口之间、以及多个统计线程（分片）之间合并
+ */
+class QuantileSketch {
+
+	private final int k;
+
+	// levels[h]中的前sizes[h]项为第h层的保留项
+	private double[][] levels;
+	private int[] sizes;
+	private int levelNum;
+
+	// 原始数据量（权重之和）以及最小值、最大值
+	private long n = 0;
+	private double minValue = Double.POSITIVE_INFINITY;
+	private double maxValue = Double.NEGATIVE_INFINITY;
+
+	QuantileSketch(int k) {
+		super();
+		this.k = Math.max(k, 8);
+		levels = new double[4][];
+		sizes = new int[4];
+		levelNum = 1;
+		levels[0] = new double[capacity(0)];
+	}
+
+	void update(double value) {
+		update(value, 1);
+	}
+
+	// 值value出现了weight次：按weight的二进制表示在相应的层中各加入一项
+	void update(double value, long weight) {
+		if (weight <= 0) {
+			return;
+		}
+		n += weight;
+		minValue = Math.min(minValue, value);
+		maxValue = Math.max(maxValue, value);
+		for (int h = 0; weight != 0; h++, weight >>>= 1) {
+			if ((weight & 1) != 0) {
+				add(h, value);
+			}
+		}
+		compress();
+	}
+
+	void merge(QuantileSketch other) {
+		if (other.n == 0) {
+			return;
+		}
+		n += other.n;
+		minValue = Math.min(minValue, other.minValue);
+		maxValue = Math.max(maxValue, other.maxValue);
+		for (int h = 0; h < other.levelNum; h++) {
+			for (int i = 0; i < other.sizes[h]; i++) {
+				add(h, other.levels[h][i]);
+			}
+		}
+		compress();
+	}
+
+	private void add(int h, double value) {
+		while (h >= levelNum) {
+			addLevel();
+		}
+		if (sizes[h] == levels[h].length) {
+			levels[h] = Arrays.copyOf(levels[h], Math.max(2, levels[h].length * 2));
+		}
+		levels[h][sizes[h]++] = value;
+	}
+
+	private void addLevel() {
+		if (levelNum == levels.length) {
+			levels = Arrays.copyOf(levels, levelNum * 2);
+			sizes = Arrays.copyOf(sizes, levelNum * 2);
+		}
+		levels[levelNum] = new double[2];
+		sizes[levelNum] = 0;
+		levelNum++;
+	}
+
+	// 第h层的容量
+	private int capacity(int h) {
+		return Math.max(2, (int) Math.ceil(k * Math.pow(2.0 / 3, levelNum - 1 - h)));
+	}
+
+	private void compress() {
+		while (true) {
+			int retainedNum = 0, totalCapacity = 0;
+			for (int h = 0; h < levelNum; h++) {
+				retainedNum += sizes[h];
+				totalCapacity += capacity(h);
+			}
+			if (retainedNum <= totalCapacity) {
+				return;
+			}
+			for (int h = 0; h < levelNum; h++) {
+				if (sizes[h] >= capacity(h)) {
+					compact(h);
+					break;
+				}
+			}
+		}
+	}
+
+	// 压缩第h层：排序后随机保留奇数位或偶数位的项提升到第h+1层，项数为奇数时最小的一项留在本层
+	private void compact(int h) {
+		if (h + 1 >= levelNum) {
+			addLevel();
+		}
+		double[] items = levels[h];
+		int size = sizes[h];
+		Arrays.sort(items, 0, size);
+		int start = size % 2;
+		for (int i = start + RandomStreams.nextInt(2); i < size; i += 2) {
+			add(h + 1, items[i]);
+		}
+		sizes[h] = start;
+	}
+
+	long getN() {
+		return n;
+	}
+
+	double getMinValue() {
+		return minValue;
+	}
+
+	double getMaxValue() {
+		return maxValue;
+	}
+
+	// 所有保留项按取值升序排列：result[0]为取值，result[1]为对应的权重（代表的原始数据量）
+	double[][] getSortedView() {
+		int retainedNum = 0;
+		for (int h = 0; h < levelNum; h++) {
+			retainedNum += sizes[h];
+		}
+		double[] values = new double[retainedNum];
+		int[] itemLevels = new int[retainedNum];
+		Integer[] order = new Integer[retainedNum];
+		for (int h = 0, idx = 0; h < levelNum; h++) {
+			for (int i = 0; i < sizes[h]; i++, idx++) {
+				values[idx] = levels[h][i];
+				itemLevels[idx] = h;
+				order[idx] = idx;
+			}
+		}
+		Arrays.sort(order, (i1, i2) -> Double.compare(values[i1], values[i2]));
+
+		double[][] result = new double[2][retainedNum];
+		for (int i = 0; i < retainedNum; i++) {
+			result[0][i] = values[order[i]];
+			result[1][i] = 1L << itemLevels[order[i]];
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "QuantileSketch [k=" + k + ", n=" + n + ", levelNum=" + levelNum + ", minValue=" + minValue
+				+ ", maxValue=" + maxValue + "]";
+	}
+}
@@ -0,0 +1,46 @@
+package accessdistribution;
+
+import java.util.Set;
+
+/**
+ * 流式统计（heavyHitterSketchCapacity大于0）时，DistributionCounter的统计函数收到的数据由两部分组成：
+ * 高频项（highFrequencyItems，出现次数来自样本或HeavyHitterSketch）以及非高频项的非重复值样本（精确的出现次数）。
+ * 这里记录将样本上的统计结果还原到整个时间窗口所需的信息
+ */
+class SampleScale {
+
+	// 非高频项样本中每个非重复值代表的非重复值个数（抽样概率的倒数），用于还原区间基数
+	final double cardinalityScale;
+	// 非高频项样本中每次出现代表的数据量，用于数据采样、分位数草图以及分区的数据量
+	final double frequencyScale;
+	// 被选为高频项的取值，它们不是样本，出现次数不需要还原
+	final Set<String> highFrequencyItems;
+	// 统计基于连续时间窗口的重复率时，只使用哈希值不大于该阈值的取值：这些取值若在之前的时间窗口中出现过，一定在之前时间窗口的样本中
+	final long repeatThreshold;
+
+	SampleScale(double cardinalityScale, double frequencyScale, Set<String> highFrequencyItems, long repeatThreshold) {
+		super();
+		this.cardinalityScale = cardinalityScale;
+		this.frequencyScale = frequencyScale;
+		this.highFrequencyItems = highFrequencyItems;
+		this.repeatThreshold = repeatThreshold;
+	}
+
+	// 取值在数据中代表的数据量
+	double weight(String value, int num) {
+		return highFrequencyItems.contains(value) ? num : num * frequencyScale;
+	}
+
+	// 取值是否参与重复率的统计
+	boolean isRepeatCandidate(Object value) {
+		return repeatThreshold == DistinctSample.NO_THRESHOLD
+				|| DistinctSample.isSampled(String.valueOf(value), repeatThreshold);
+	}
+
+	@Override
+	public String toString() {
+		return "SampleScale [cardinalityScale=" + cardinalityScale + ", frequencyScale=" + frequencyScale
+				+ ", highFrequencyItems=" + highFrequencyItems + ", repeatThreshold="
+				+ Long.toUnsignedString(repeatThreshold) + "]";
+	}
+}
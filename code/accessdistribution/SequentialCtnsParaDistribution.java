@@ -2,6 +2,8 @@ package accessdistribution;
 
 import java.util.*;
 
+import util.RandomStreams;
+
 
 /**
  * 针对对象：键值属性（必然是整型）上的等值过滤参数
@@ -253,10 +255,20 @@ public class SequentialCtnsParaDistribution extends SequentialParaDistribution {
 
 	@Override
 	public Long geneValue() {
+		return geneLongValue();
+	}
+
+	@Override
+	public double geneDoubleValue() {
+		return geneLongValue();
+	}
+
+	@Override
+	public long geneLongValue() {
 //		System.out.println(this.getClass());
 		if (innerIndex == null) innerIndex = new int[this.intervalNum];
 		try {
-			int randomIndex = binarySearch();
+			int randomIndex = sampleIndex();
 
 			if (randomIndex < highFrequencyItemNum) {
 				return highFrequencyItems[randomIndex];
@@ -272,7 +284,7 @@ public class SequentialCtnsParaDistribution extends SequentialParaDistribution {
 
 			e.printStackTrace();
 		}
-		return -1L;
+		return -1;
 
 	}
 
@@ -343,7 +355,7 @@ public class SequentialCtnsParaDistribution extends SequentialParaDistribution {
 	// 生成完全随机的（即均匀分布）的参数
 	@Override
 	public Long geneUniformValue() {
-		return (long)(Math.random() * (maxValue - minValue) + minValue);
+		return (long)(RandomStreams.nextDouble() * (maxValue - minValue) + minValue);
 	}
 
 	// 获取指定区间中的随机参数值
@@ -351,7 +363,7 @@ public class SequentialCtnsParaDistribution extends SequentialParaDistribution {
 
 		// 可保证区间内生成参数的基数
 		// long intervalInnerIndex = intervalInnerIndexes[intervalIndex]++ % intervalCardinality;
-		double intervalInnerIndex = Math.random();
+		double intervalInnerIndex = RandomStreams.nextDouble();
 
 		// 根据频数分位点先做一次映射，从均匀分布映射到基于频数的分段分布上
 		if (this.quantileNum > 1){
@@ -10,6 +10,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import util.RandomStreams;
+
 /**
  * 基于连续时间窗口的数据访问分布
  * 针对对象：整型非键值属性上的等值过滤参数
@@ -128,7 +130,7 @@ public class SequentialIntParaDistribution extends SequentialParaDistribution {
 		long windowIndexSize = maxParaIndex - minParaIndex + 1;
 		if (windowIndexSize > highFrequencyItemNum * 2) {
 			while (highFrequencyItemSet.size() < highFrequencyItemNum) {
-				long randomParaIndex = (long)(Math.random() * windowIndexSize) + minParaIndex;
+				long randomParaIndex = (long)(RandomStreams.nextDouble() * windowIndexSize) + minParaIndex;
 				long randomParameter = (long)(randomParaIndex * coefficient + columnMinValue);
 				if (!highFrequencyItemSet.contains(randomParameter)) {
 					highFrequencyItems[highFrequencyItemSet.size()] = randomParameter;
@@ -147,7 +149,7 @@ public class SequentialIntParaDistribution extends SequentialParaDistribution {
 			for (int i = highFrequencyItemSet.size(); i < highFrequencyItemNum; i++) {
 				//modified by lyqu
 //				highFrequencyItems[i] = Long.MIN_VALUE;
-				int j = (int)(Math.random()*i);
+				int j = (int)(RandomStreams.nextDouble()*i);
 				highFrequencyItems[i] = highFrequencyItems[j];
 				//-----
 			}
@@ -205,7 +207,7 @@ public class SequentialIntParaDistribution extends SequentialParaDistribution {
 			}
 
 			while (idx < currentParaCandidates[i].length) {
-				long randomParaIndex = (long)((Math.random() + i) * avgIntervalIndexSize) + minParaIndex;
+				long randomParaIndex = (long)((RandomStreams.nextDouble() + i) * avgIntervalIndexSize) + minParaIndex;
 				long randomParameter = (long)(randomParaIndex * coefficient + columnMinValue);
 				int retryCount = 1;
 				while (priorParameterSet.contains(randomParameter) || 
@@ -213,7 +215,7 @@ public class SequentialIntParaDistribution extends SequentialParaDistribution {
 					if (retryCount++ > 5) {
 						break;
 					}
-					randomParaIndex = (long)((Math.random() + i) * avgIntervalIndexSize) + minParaIndex;
+					randomParaIndex = (long)((RandomStreams.nextDouble() + i) * avgIntervalIndexSize) + minParaIndex;
 					randomParameter = (long)(randomParaIndex * coefficient + columnMinValue);
 				}
 				currentParaCandidates[i][idx] = randomParameter;
@@ -250,14 +252,24 @@ public class SequentialIntParaDistribution extends SequentialParaDistribution {
 
 	@Override
 	public Long geneValue() {
+		return geneLongValue();
+	}
+
+	@Override
+	public double geneDoubleValue() {
+		return geneLongValue();
+	}
+
+	@Override
+	public long geneLongValue() {
 //		System.out.println(this.getClass());
-		int randomIndex = binarySearch();
+		int randomIndex = sampleIndex();
 		if (randomIndex < highFrequencyItemNum) {
 			return highFrequencyItems[randomIndex];
 		} else {
 			int intervalIndex = randomIndex - highFrequencyItemNum;
 			// long intervalInnerIndex = intervalInnerIndexes[intervalIndex]++ % intervalCardinalities[intervalIndex];
-			int intervalInnerIndex = (int)(Math.random() * intervalCardinalities[intervalIndex]);
+			int intervalInnerIndex = (int)(RandomStreams.nextDouble() * intervalCardinalities[intervalIndex]);
 			return currentParaCandidates[intervalIndex][intervalInnerIndex];
 		}
 	}
@@ -344,6 +356,6 @@ public class SequentialIntParaDistribution extends SequentialParaDistribution {
 	// bug fix: 为了做实验后续添加的，生成完全随机的（即均匀分布）的参数
 	@Override
 	public Long geneUniformValue() {
-		return (long)(Math.random() * (windowMaxValue - windowMinValue) + windowMinValue);
+		return (long)(RandomStreams.nextDouble() * (windowMaxValue - windowMinValue) + windowMinValue);
 	}
 }
@@ -7,6 +7,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import util.RandomStreams;
+
 public class SequentialVcharParaDistribution extends SequentialParaDistribution {
 
 	private double hFItemRepeatRatio;
@@ -89,7 +91,7 @@ public class SequentialVcharParaDistribution extends SequentialParaDistribution
 
 		if (columnCardinality > highFrequencyItemNum * 2L) {
 			while (highFrequencyItemSet.size() < highFrequencyItems.length) {
-				long randomParaIndex = (long)(Math.random() * columnCardinality);
+				long randomParaIndex = (long)(RandomStreams.nextDouble() * columnCardinality);
 				String randomParameter = getVarcharValue(randomParaIndex);
 				if (!highFrequencyItemSet.contains(randomParameter)) {
 					highFrequencyItems[highFrequencyItemSet.size()] = randomParameter;
@@ -155,7 +157,7 @@ public class SequentialVcharParaDistribution extends SequentialParaDistribution
 			Set<String> existedParameterSet = new HashSet<>(Arrays.asList(currentParaCandidates[i]).subList(0, idx));
 
 			while (idx < currentParaCandidates[i].length) {
-				long randomParaIndex = (long)((Math.random() + i) * avgIntervalIndexSize);
+				long randomParaIndex = (long)((RandomStreams.nextDouble() + i) * avgIntervalIndexSize);
 				String randomParameter = getVarcharValue(randomParaIndex);
 				int retryCount = 1;
 				while (priorParameterSet.contains(randomParameter) || 
@@ -163,7 +165,7 @@ public class SequentialVcharParaDistribution extends SequentialParaDistribution
 					if (retryCount++ > 5) {
 						break;
 					}
-					randomParaIndex = (long)((Math.random() + i) * avgIntervalIndexSize);
+					randomParaIndex = (long)((RandomStreams.nextDouble() + i) * avgIntervalIndexSize);
 					randomParameter = getVarcharValue(randomParaIndex);
 				}
 				currentParaCandidates[i][idx] = randomParameter;
@@ -186,7 +188,7 @@ public class SequentialVcharParaDistribution extends SequentialParaDistribution
 	@Override
 	public String geneValue() {
 //		System.out.println(this.getClass());
-		int randomIndex = binarySearch();
+		int randomIndex = sampleIndex();
 		for (int i = 0; i < highFrequencyItemNum; i++) {
 			if (highFrequencyItems[i].isBlank()){
 				highFrequencyItems[i] = i + "#aaaaa";
@@ -197,7 +199,7 @@ public class SequentialVcharParaDistribution extends SequentialParaDistribution
 		} else {
 			int intervalIndex = randomIndex - highFrequencyItemNum;
 			// long intervalInnerIndex = intervalInnerIndexes[intervalIndex]++ % intervalCardinalities[intervalIndex];
-			int intervalInnerIndex = (int)(Math.random() * intervalCardinalities[intervalIndex]);
+			int intervalInnerIndex = (int)(RandomStreams.nextDouble() * intervalCardinalities[intervalIndex]);
 			return currentParaCandidates[intervalIndex][intervalInnerIndex];
 		}
 	}
@@ -248,10 +250,10 @@ public class SequentialVcharParaDistribution extends SequentialParaDistribution
 		char[] chars = ("0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz").toCharArray();
 		String[] seedStrings = new String[100];
 		for (int i = 0; i < seedStrings.length; i++) {
-			int length = (int)(Math.random() * 31 + 20);
+			int length = (int)(RandomStreams.nextDouble() * 31 + 20);
 			char[] buffer = new char[length];
 			for (int j = 0; j < length; j++) {
-				buffer[j] = chars[(int)(Math.random() * 62)];
+				buffer[j] = chars[(int)(RandomStreams.nextDouble() * 62)];
 			}
 			seedStrings[i] = new String(buffer);
 		}
@@ -288,6 +290,6 @@ public class SequentialVcharParaDistribution extends SequentialParaDistribution
 	// bug fix: 为了做实验后续添加的，生成完全随机的（即均匀分布）的参数
 	@Override
 	public String geneUniformValue() {
-		return getVarcharValue((long)(Math.random() * columnCardinality));
+		return getVarcharValue((long)(RandomStreams.nextDouble() * columnCardinality));
 	}
 }
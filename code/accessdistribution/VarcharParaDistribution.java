@@ -4,6 +4,8 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
+import util.RandomStreams;
+
 /**
  * 字符串类型参数的数据访问分布
  * 测试数据库中字符串属性上的模拟数据与实际线上数据库往往完全不同，所以在生成字符串类型的等值过滤参数时需要
@@ -50,7 +52,7 @@ public class VarcharParaDistribution extends DataAccessDistribution {
 		if (columnCardinality > highFrequencyItemNum * 2L) {
 			Set<Long> hFItemIndexSet = new HashSet<>();
 			while (hFItemIndexSet.size() < highFrequencyItemNum) {
-				long randomParaIndex = (long)(Math.random() * columnCardinality);
+				long randomParaIndex = (long)(RandomStreams.nextDouble() * columnCardinality);
 				if (!hFItemIndexSet.contains(randomParaIndex)) {
 					highFrequencyItems[hFItemIndexSet.size()] = getVarcharValue(randomParaIndex);
 					hFItemIndexSet.add(randomParaIndex);
@@ -65,7 +67,7 @@ public class VarcharParaDistribution extends DataAccessDistribution {
 
 	@Override
 	public String geneValue() {
-		int randomIndex = binarySearch();
+		int randomIndex = sampleIndex();
 		if (randomIndex < highFrequencyItemNum) {
 			return highFrequencyItems[randomIndex];
 		} else {
@@ -77,7 +79,7 @@ public class VarcharParaDistribution extends DataAccessDistribution {
 		int intervalIndex = randomIndex - highFrequencyItemNum;
 		long intervalCardinality = intervalCardinalities[intervalIndex];
 		// long intervalInnerIndex = intervalInnerIndexes[intervalIndex]++ % intervalCardinality;
-		long intervalInnerIndex = (long)(Math.random() * intervalCardinality);
+		long intervalInnerIndex = (long)(RandomStreams.nextDouble() * intervalCardinality);
 		double avgIntervalIndexSize = (double)columnCardinality / intervalNum;
 		long randomParaIndex = (long)(((double)intervalInnerIndex / intervalCardinality + intervalIndex) * 
 				avgIntervalIndexSize);
@@ -120,10 +122,10 @@ public class VarcharParaDistribution extends DataAccessDistribution {
 		char[] chars = ("0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz").toCharArray();
 		String[] seedStrings = new String[100];
 		for (int i = 0; i < seedStrings.length; i++) {
-			int length = (int)(Math.random() * 31 + 20);
+			int length = (int)(RandomStreams.nextDouble() * 31 + 20);
 			char[] buffer = new char[length];
 			for (int j = 0; j < length; j++) {
-				buffer[j] = chars[(int)(Math.random() * 62)];
+				buffer[j] = chars[(int)(RandomStreams.nextDouble() * 62)];
 			}
 			seedStrings[i] = new String(buffer);
 		}
@@ -146,6 +148,6 @@ public class VarcharParaDistribution extends DataAccessDistribution {
 	// 为了做实验后续添加的，生成完全随机的（即均匀分布）的参数
 	@Override
 	public String geneUniformValue() {
-		return getVarcharValue((long)(Math.random() * columnCardinality));
+		return getVarcharValue((long)(RandomStreams.nextDouble() * columnCardinality));
 	}
 }
@@ -0,0 +1,105 @@
+package accessdistribution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 多个时间窗口数据访问分布的混合，按时间缩放回放负载（timeScaleFactor大于1）时，一个回放时间窗口可能覆盖原负载中的多个时间窗口，
+ * 此时参数按各原时间窗口的事务量加权选择其中一个分布生成。
+ * 与MultiPartitionDistribution类似，这里借用父类的区间频率保存各分布的权重，利用sampleIndex选择分布
+ */
+public class WindowMixtureDistribution extends DataAccessDistribution {
+
+	private final List<DataAccessDistribution> windowDistributions;
+
+	// weights为各分布的权重（无需归一化）
+	public WindowMixtureDistribution(double[] weights, List<DataAccessDistribution> windowDistributions) {
+		super(new double[0], ones(weights.length), normalize(weights));
+		this.windowDistributions = windowDistributions;
+		this.time = windowDistributions.get(0).getTime();
+	}
+
+	public WindowMixtureDistribution(WindowMixtureDistribution windowMixtureDistribution) {
+		super(windowMixtureDistribution.hFItemFrequencies, windowMixtureDistribution.intervalCardinalities,
+				windowMixtureDistribution.intervalFrequencies);
+		this.windowDistributions = new ArrayList<>();
+		for (DataAccessDistribution distribution : windowMixtureDistribution.windowDistributions) {
+			windowDistributions.add(distribution.copy());
+		}
+		this.time = windowMixtureDistribution.time;
+	}
+
+	private static long[] ones(int length) {
+		long[] cardinalities = new long[length];
+		Arrays.fill(cardinalities, 1);
+		return cardinalities;
+	}
+
+	private static double[] normalize(double[] weights) {
+		double sum = 0;
+		for (double weight : weights) {
+			sum += weight;
+		}
+		double[] frequencies = new double[weights.length];
+		for (int i = 0; i < weights.length; i++) {
+			frequencies[i] = sum > 0 ? weights[i] / sum : 1.0 / weights.length;
+		}
+		return frequencies;
+	}
+
+	private DataAccessDistribution sampleDistribution() {
+		return windowDistributions.get(sampleIndex());
+	}
+
+	@Override
+	public Object geneValue() {
+		return sampleDistribution().geneValue();
+	}
+
+	@Override
+	public long geneLongValue() {
+		return sampleDistribution().geneLongValue();
+	}
+
+	@Override
+	public double geneDoubleValue() {
+		return sampleDistribution().geneDoubleValue();
+	}
+
+	@Override
+	public Object geneUniformValue() {
+		return sampleDistribution().geneUniformValue();
+	}
+
+	@Override
+	public Object geneValueInSamePartition(Object parameter) {
+		return sampleDistribution().geneValueInSamePartition(parameter);
+	}
+
+	@Override
+	public Object geneValueInDiffPartition(Object parameter) {
+		return sampleDistribution().geneValueInDiffPartition(parameter);
+	}
+
+	@Override
+	public boolean inDomain(Object parameter) {
+		for (DataAccessDistribution distribution : windowDistributions) {
+			if (distribution.inDomain(parameter)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// 同一个参数在各时间窗口上的分区规则是一致的
+	@Override
+	public Object getParaPartition(Object parameter) {
+		return windowDistributions.get(0).getParaPartition(parameter);
+	}
+
+	@Override
+	public DataAccessDistribution copy() {
+		return new WindowMixtureDistribution(this);
+	}
+}
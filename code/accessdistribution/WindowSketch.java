@@ -0,0 +1,53 @@
+package accessdistribution;
+
+/**
+ * 一个时间窗口内某个参数取值的流式统计结果（heavyHitterSketchCapacity大于0时），代替时间窗口内的所有原始数据
+ * 高频项由HeavyHitterSketch选出，非高频项的直方图（区间基数、区间频率以及分位点）由DistinctSample中的非重复值样本统计。
+ * 两者的内存都只与capacity有关，与时间窗口内的数据量以及非重复值的个数无关
+ */
+class WindowSketch {
+
+	private HeavyHitterSketch<String> heavyHitterSketch = null;
+	private DistinctSample distinctSample = null;
+
+	// 数据量（包括占位符）
+	private long totalCount = 0;
+
+	WindowSketch(int capacity) {
+		super();
+		heavyHitterSketch = new HeavyHitterSketch<>(capacity);
+		distinctSample = new DistinctSample(capacity);
+	}
+
+	// 占位符#@#只计入数据量（用于吞吐统计），不参与取值的统计
+	void update(String value) {
+		totalCount++;
+		if (value.equals("#@#")) {
+			return;
+		}
+		heavyHitterSketch.update(value);
+		distinctSample.update(value);
+	}
+
+	long getTotalCount() {
+		return totalCount;
+	}
+
+	// 不包括占位符的数据量
+	long getValueSize() {
+		return heavyHitterSketch.getTotalCount();
+	}
+
+	HeavyHitterSketch<String> getHeavyHitterSketch() {
+		return heavyHitterSketch;
+	}
+
+	DistinctSample getDistinctSample() {
+		return distinctSample;
+	}
+
+	@Override
+	public String toString() {
+		return "WindowSketch [totalCount=" + totalCount + ", " + heavyHitterSketch + ", " + distinctSample + "]";
+	}
+}
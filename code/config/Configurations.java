@@ -79,11 +79,20 @@ public class Configurations {
 
 	// 统计数据访问分布时的时间窗口大小，单位为秒
 	private static int timeWindowSize = 1;
+	// 日志允许的最大乱序幅度，单位为毫秒：日志时间的最大值减去该值为水位线，时间窗口在水位线越过其结束时间后才被统计，小于0时取时间窗口大小
+	private static int logLatenessMillis = -1;
+	// 每个事务模板的重排序缓冲区中最多缓冲的日志条数，超出时提前统计最早的时间窗口
+	private static int reorderBufferSize = 1000000;
 	// 统计数据访问分布的线程数
 	private static int statThreadNum = 8;
+	// 并行读取日志文件时的解析线程数（小于等于0时为CPU核数），以及日志文件分块的大小，单位为MB
+	private static int logReaderThreadNum = 0;
+	private static int logReaderChunkSize = 64;
 
 	private static int maxSizeOfTxDataList = 100000;
 	private static int highFrequencyItemNum = 20;
+	// 流式统计时每个参数的HeavyHitterSketch监控的取值数以及非重复值样本的大小，小于等于0时逐个保存数据并精确计数
+	private static int heavyHitterSketchCapacity = 0;
 	private static int intervalNum = 50; // 直方图的分段数
 
 	// 事务逻辑控制参数，为真表示包含该类型事务逻辑，为假表示不包含该类型事务逻辑
@@ -112,12 +121,39 @@ public class Configurations {
 	private static int allTestThreadNum = 20;
 	private static int localTestThreadNum = 20;
 
-	// 负载加载类型。0：不控制吞吐，以最大吞吐压（while，无阻塞）；1：按照指定吞吐量加载负载（利用定时器控制）
+	// 负载加载类型。0：不控制吞吐，以最大吞吐压（while，无阻塞）；1：按照指定吞吐量加载负载（开环加载，由请求调度器控制到达时间）
+	// 2：按SLO搜索最大可持续吞吐（开环加载，循环回放各时间窗口，吞吐由搜索控制器逐步调整）
 	private static int loadingType = 0;
 	// 吞吐扩展因子：测试负载吞吐与实际负载吞吐的比值
 	private static double throughputScaleFactor = 1;
+	// 时间缩放系数：回放的每个时间窗口（时长仍为timeWindowSize）对应原负载中的timeScaleFactor个时间窗口，大于1时压缩、小于1时拉伸负载的时间轴
+	// 负载的强度（每秒事务数）不变，如24即用1小时回放1天的负载
+	private static double timeScaleFactor = 1;
 	// 以固定吞吐加载负载，下面值为-1时即忽视
 	private static int fixedThroughput = 100;
+	// 开环加载（loadingType为1或2）时事务请求的到达间隔分布。0：均匀到达；1：泊松到达（到达间隔服从指数分布）
+	private static int arrivalDistribution = 0;
+	// 开环加载时时间窗口之间吞吐的整形方式。0：阶梯（每个时间窗口内吞吐恒定）；1：线性插值；2：单调三次样条插值
+	// 插值时各时间窗口的吞吐视为其中心时刻的取值，按rateShapingResolution（单位为毫秒）的粒度分段调整到达速率
+	private static int rateShaping = 0;
+	private static int rateShapingResolution = 100;
+	// 是否重现时间窗口内的突发性：按日志时间戳统计各时间窗口内每个rateShapingResolution时段的到达量，回放时按该比例调整到达速率
+	private static boolean reproduceBurstiness = false;
+	// 按指定吞吐加载时待执行请求队列的容量，队列已满时新到达的请求会被丢弃并计数
+	private static int arrivalQueueCapacity = 100000;
+
+	// 测试客户端的运行方式。0：每个客户端一个平台线程且独享一个数据库连接；1：每个客户端一个虚拟线程，所有客户端共享virtualConnectionNum个数据库连接
+	private static int clientMode = 0;
+	// 虚拟线程客户端模式下的载体线程数，小于等于0时使用JVM默认值（CPU核数）
+	private static int virtualCarrierThreadNum = 0;
+	// 虚拟线程客户端模式下当前节点的数据库连接数
+	private static int virtualConnectionNum = 100;
+
+	// 负载生成器自测：测试会话连接进程内的数据库替身（util.StandInDatabase）而不是被测数据库，用于测量负载生成器自身的最大吞吐、
+	// 每个事务的CPU时间以及内存分配量。selfBenchmarkLatency为替身每次交互的人工时延（单位为us），selfBenchmarkResultRows为每个读操作返回的行数
+	private static boolean selfBenchmark = false;
+	private static int selfBenchmarkLatency = 0;
+	private static int selfBenchmarkResultRows = 1;
 
 	// 数据库隔离级别。0：冲突可串行化；1：可重复读；2：读已提交；3：读未提交
 	private static int transactionIsolation = 0;
@@ -125,6 +161,59 @@ public class Configurations {
 	// 性能统计时间窗口，一般建议设置为1s或者2s
 	private static int statWindowSize = 1;
 
+	// 性能统计中时延直方图的精度（有效数字位数，取值1~3），2即时延的相对误差不超过1%
+	private static int latencyHistogramPrecision = 2;
+
+	// 按事务模板、按SQL操作细分的时延统计结果的输出文件，为空时不进行细分统计
+	private static String latencyBreakdownFile = "";
+	// 细分统计中时延直方图的精度（有效数字位数，取值1~3）。每个线程每个事务模板、SQL操作都有一个直方图，故默认精度较低
+	private static int latencyBreakdownPrecision = 1;
+
+	// 每个SQL参数预生成带的容量，大于0时由独立的线程提前根据数据访问分布生成参数；0表示不启用，参数在事务执行时生成
+	private static int parameterTapeSize = 0;
+
+	// 流水线执行：事务内没有数据依赖的连续SQL操作（以及Multiple块的多次执行）合并成一个多语句请求，在一次网络往返中发给数据库
+	// 适用于MySQL、TiDB（连接串中已开启allowMultiQueries）和PostgreSQL，Oracle不支持多语句请求，此时该配置无效
+	private static boolean pipelinedExecution = false;
+
+	// 事务因死锁、序列化冲突等被数据库中止时的最大重试次数，0表示不重试。重试时重放首次执行时生成的参数
+	private static int transactionRetryNum = 0;
+	// 重试前的退避时间（单位为ms）：第n次重试前在[0, min(retryBackoffMax, retryBackoffBase * 2^(n-1)))中随机等待
+	private static int retryBackoffBase = 10;
+	private static int retryBackoffMax = 1000;
+
+	// 随机数种子，给定种子和线程数时负载生成、数据生成的随机数序列是确定的；-1表示每次运行使用不同的种子
+	// 启用参数预生成带时，实际用到哪些预生成值仍取决于运行时的快慢，严格复现需要将parameterTapeSize设为0
+	private static long randomSeed = -1;
+
+	// 预热阶段的最长时间，单位为s，0表示不预热。预热阶段以最大吞吐反复执行第一个时间窗口的负载，直到吞吐和时延稳定，其统计数据不计入结果
+	private static int warmUpTime = 0;
+	// 判断稳定所用的最近统计窗口数：这些窗口中吞吐和平均时延的变异系数以及线性趋势的相对漂移都不超过warmUpTolerance时视为稳定
+	private static int warmUpStableWindowNum = 5;
+	private static double warmUpTolerance = 0.05;
+
+	// 按SLO搜索最大可持续吞吐（loadingType为2）：时延的分位数（如99即p99）及其阈值（单位为ms）
+	// 成功事务响应时间以及请求排队时延的该分位数都不超过阈值、且没有请求被丢弃时，当前吞吐视为可持续
+	private static double sloLatencyPercentile = 99;
+	private static double sloLatencyThreshold = 100;
+	// 每个搜索步骤的统计窗口数，调整吞吐后的第一个统计窗口用于过渡，不计入
+	private static int sloStepWindowNum = 10;
+	// 初始的吞吐调整系数（乘在throughputScaleFactor或fixedThroughput确定的吞吐上），之后逐步倍增直至违反SLO，再二分查找
+	private static double sloInitialScale = 1;
+	// 可持续与不可持续的吞吐调整系数的相对差距不超过该值时结束搜索
+	private static double sloSearchPrecision = 0.05;
+	// 最多的搜索步骤数
+	private static int sloMaxStepNum = 30;
+
+	// 多节点协同加载：协调者的地址，为空时当前节点独立加载；非空时当前节点作为代理，从协调者获取运行计划并向其汇报统计数据
+	private static String coordinatorAddress = "";
+	// 协调者监听的端口
+	private static int coordinatorPort = 9527;
+	// 协调者需等待加入的代理节点数，所有代理加入后才下发运行计划
+	private static int agentNum = 1;
+	// 所有代理准备就绪后，距离统一开始加载的时间，单位为ms（实际开始时刻会对齐到整秒）
+	private static int clusterStartDelay = 3000;
+
 	// 启用rollbackProbabilities
 	private static boolean enableRollbackProbability = false;
 
@@ -166,6 +255,8 @@ public class Configurations {
 	}
 
 	private static int quantileNum= 10;
+	// 分位数草图（KLL）的参数k，大于0时用草图统计区间内的分位点，并在所有时间窗口上合并得到全负载周期分布的区间频率和分位点；小于等于0时不使用
+	private static int quantileSketchK = 0;
 
 	//启用存储过程
 	private static boolean useStoredProcedure = true;
@@ -443,6 +534,22 @@ public class Configurations {
 		Configurations.timeWindowSize = timeWindowSize;
 	}
 
+	public static int getLogLatenessMillis() {
+		return logLatenessMillis;
+	}
+
+	public static void setLogLatenessMillis(int logLatenessMillis) {
+		Configurations.logLatenessMillis = logLatenessMillis;
+	}
+
+	public static int getReorderBufferSize() {
+		return reorderBufferSize;
+	}
+
+	public static void setReorderBufferSize(int reorderBufferSize) {
+		Configurations.reorderBufferSize = reorderBufferSize;
+	}
+
 	public static int getStatThreadNum() {
 		return statThreadNum;
 	}
@@ -451,6 +558,22 @@ public class Configurations {
 		Configurations.statThreadNum = statThreadNum;
 	}
 
+	public static int getLogReaderThreadNum() {
+		return logReaderThreadNum;
+	}
+
+	public static void setLogReaderThreadNum(int logReaderThreadNum) {
+		Configurations.logReaderThreadNum = logReaderThreadNum;
+	}
+
+	public static int getLogReaderChunkSize() {
+		return logReaderChunkSize;
+	}
+
+	public static void setLogReaderChunkSize(int logReaderChunkSize) {
+		Configurations.logReaderChunkSize = logReaderChunkSize;
+	}
+
 	public static int getMaxSizeOfTxDataList() {
 		return maxSizeOfTxDataList;
 	}
@@ -467,6 +590,14 @@ public class Configurations {
 		Configurations.highFrequencyItemNum = highFrequencyItemNum;
 	}
 
+	public static int getHeavyHitterSketchCapacity() {
+		return heavyHitterSketchCapacity;
+	}
+
+	public static void setHeavyHitterSketchCapacity(int heavyHitterSketchCapacity) {
+		Configurations.heavyHitterSketchCapacity = heavyHitterSketchCapacity;
+	}
+
 	public static int getIntervalNum() {
 		return intervalNum;
 	}
@@ -571,6 +702,14 @@ public class Configurations {
 		Configurations.throughputScaleFactor = throughputScaleFactor;
 	}
 
+	public static double getTimeScaleFactor() {
+		return timeScaleFactor;
+	}
+
+	public static void setTimeScaleFactor(double timeScaleFactor) {
+		Configurations.timeScaleFactor = timeScaleFactor;
+	}
+
 	public static int getFixedThroughput() {
 		return fixedThroughput;
 	}
@@ -579,6 +718,94 @@ public class Configurations {
 		Configurations.fixedThroughput = fixedThroughput;
 	}
 
+	public static int getArrivalDistribution() {
+		return arrivalDistribution;
+	}
+
+	public static void setArrivalDistribution(int arrivalDistribution) {
+		Configurations.arrivalDistribution = arrivalDistribution;
+	}
+
+	public static int getRateShaping() {
+		return rateShaping;
+	}
+
+	public static void setRateShaping(int rateShaping) {
+		Configurations.rateShaping = rateShaping;
+	}
+
+	public static int getRateShapingResolution() {
+		return rateShapingResolution;
+	}
+
+	public static void setRateShapingResolution(int rateShapingResolution) {
+		Configurations.rateShapingResolution = rateShapingResolution;
+	}
+
+	public static boolean isReproduceBurstiness() {
+		return reproduceBurstiness;
+	}
+
+	public static void setReproduceBurstiness(boolean reproduceBurstiness) {
+		Configurations.reproduceBurstiness = reproduceBurstiness;
+	}
+
+	public static int getArrivalQueueCapacity() {
+		return arrivalQueueCapacity;
+	}
+
+	public static void setArrivalQueueCapacity(int arrivalQueueCapacity) {
+		Configurations.arrivalQueueCapacity = arrivalQueueCapacity;
+	}
+
+	public static int getClientMode() {
+		return clientMode;
+	}
+
+	public static void setClientMode(int clientMode) {
+		Configurations.clientMode = clientMode;
+	}
+
+	public static int getVirtualCarrierThreadNum() {
+		return virtualCarrierThreadNum;
+	}
+
+	public static void setVirtualCarrierThreadNum(int virtualCarrierThreadNum) {
+		Configurations.virtualCarrierThreadNum = virtualCarrierThreadNum;
+	}
+
+	public static int getVirtualConnectionNum() {
+		return virtualConnectionNum;
+	}
+
+	public static void setVirtualConnectionNum(int virtualConnectionNum) {
+		Configurations.virtualConnectionNum = virtualConnectionNum;
+	}
+
+	public static boolean isSelfBenchmark() {
+		return selfBenchmark;
+	}
+
+	public static void setSelfBenchmark(boolean selfBenchmark) {
+		Configurations.selfBenchmark = selfBenchmark;
+	}
+
+	public static int getSelfBenchmarkLatency() {
+		return selfBenchmarkLatency;
+	}
+
+	public static void setSelfBenchmarkLatency(int selfBenchmarkLatency) {
+		Configurations.selfBenchmarkLatency = selfBenchmarkLatency;
+	}
+
+	public static int getSelfBenchmarkResultRows() {
+		return selfBenchmarkResultRows;
+	}
+
+	public static void setSelfBenchmarkResultRows(int selfBenchmarkResultRows) {
+		Configurations.selfBenchmarkResultRows = selfBenchmarkResultRows;
+	}
+
 	public static int getTransactionIsolation() {
 		return transactionIsolation;
 	}
@@ -595,6 +822,182 @@ public class Configurations {
 		Configurations.statWindowSize = statWindowSize;
 	}
 
+	public static int getLatencyHistogramPrecision() {
+		return latencyHistogramPrecision;
+	}
+
+	public static void setLatencyHistogramPrecision(int latencyHistogramPrecision) {
+		Configurations.latencyHistogramPrecision = latencyHistogramPrecision;
+	}
+
+	public static String getLatencyBreakdownFile() {
+		return latencyBreakdownFile;
+	}
+
+	public static void setLatencyBreakdownFile(String latencyBreakdownFile) {
+		Configurations.latencyBreakdownFile = latencyBreakdownFile;
+	}
+
+	public static int getLatencyBreakdownPrecision() {
+		return latencyBreakdownPrecision;
+	}
+
+	public static void setLatencyBreakdownPrecision(int latencyBreakdownPrecision) {
+		Configurations.latencyBreakdownPrecision = latencyBreakdownPrecision;
+	}
+
+	public static int getParameterTapeSize() {
+		return parameterTapeSize;
+	}
+
+	public static void setParameterTapeSize(int parameterTapeSize) {
+		Configurations.parameterTapeSize = parameterTapeSize;
+	}
+
+	public static boolean isPipelinedExecution() {
+		return pipelinedExecution && !databaseType.toLowerCase().equals("oracle");
+	}
+
+	public static void setPipelinedExecution(boolean pipelinedExecution) {
+		Configurations.pipelinedExecution = pipelinedExecution;
+	}
+
+	public static int getTransactionRetryNum() {
+		return transactionRetryNum;
+	}
+
+	public static void setTransactionRetryNum(int transactionRetryNum) {
+		Configurations.transactionRetryNum = transactionRetryNum;
+	}
+
+	public static int getRetryBackoffBase() {
+		return retryBackoffBase;
+	}
+
+	public static void setRetryBackoffBase(int retryBackoffBase) {
+		Configurations.retryBackoffBase = retryBackoffBase;
+	}
+
+	public static int getRetryBackoffMax() {
+		return retryBackoffMax;
+	}
+
+	public static void setRetryBackoffMax(int retryBackoffMax) {
+		Configurations.retryBackoffMax = retryBackoffMax;
+	}
+
+	public static long getRandomSeed() {
+		return randomSeed;
+	}
+
+	public static void setRandomSeed(long randomSeed) {
+		Configurations.randomSeed = randomSeed;
+	}
+
+	public static int getWarmUpTime() {
+		return warmUpTime;
+	}
+
+	public static void setWarmUpTime(int warmUpTime) {
+		Configurations.warmUpTime = warmUpTime;
+	}
+
+	public static int getWarmUpStableWindowNum() {
+		return warmUpStableWindowNum;
+	}
+
+	public static void setWarmUpStableWindowNum(int warmUpStableWindowNum) {
+		Configurations.warmUpStableWindowNum = warmUpStableWindowNum;
+	}
+
+	public static double getWarmUpTolerance() {
+		return warmUpTolerance;
+	}
+
+	public static void setWarmUpTolerance(double warmUpTolerance) {
+		Configurations.warmUpTolerance = warmUpTolerance;
+	}
+
+	public static double getSloLatencyPercentile() {
+		return sloLatencyPercentile;
+	}
+
+	public static void setSloLatencyPercentile(double sloLatencyPercentile) {
+		Configurations.sloLatencyPercentile = sloLatencyPercentile;
+	}
+
+	public static double getSloLatencyThreshold() {
+		return sloLatencyThreshold;
+	}
+
+	public static void setSloLatencyThreshold(double sloLatencyThreshold) {
+		Configurations.sloLatencyThreshold = sloLatencyThreshold;
+	}
+
+	public static int getSloStepWindowNum() {
+		return sloStepWindowNum;
+	}
+
+	public static void setSloStepWindowNum(int sloStepWindowNum) {
+		Configurations.sloStepWindowNum = sloStepWindowNum;
+	}
+
+	public static double getSloInitialScale() {
+		return sloInitialScale;
+	}
+
+	public static void setSloInitialScale(double sloInitialScale) {
+		Configurations.sloInitialScale = sloInitialScale;
+	}
+
+	public static double getSloSearchPrecision() {
+		return sloSearchPrecision;
+	}
+
+	public static void setSloSearchPrecision(double sloSearchPrecision) {
+		Configurations.sloSearchPrecision = sloSearchPrecision;
+	}
+
+	public static int getSloMaxStepNum() {
+		return sloMaxStepNum;
+	}
+
+	public static void setSloMaxStepNum(int sloMaxStepNum) {
+		Configurations.sloMaxStepNum = sloMaxStepNum;
+	}
+
+	public static String getCoordinatorAddress() {
+		return coordinatorAddress;
+	}
+
+	public static void setCoordinatorAddress(String coordinatorAddress) {
+		Configurations.coordinatorAddress = coordinatorAddress;
+	}
+
+	public static int getCoordinatorPort() {
+		return coordinatorPort;
+	}
+
+	public static void setCoordinatorPort(int coordinatorPort) {
+		Configurations.coordinatorPort = coordinatorPort;
+	}
+
+	public static int getAgentNum() {
+		return agentNum;
+	}
+
+	public static void setAgentNum(int agentNum) {
+		Configurations.agentNum = agentNum;
+	}
+
+	public static int getClusterStartDelay() {
+		return clusterStartDelay;
+	}
+
+	public static void setClusterStartDelay(int clusterStartDelay) {
+		Configurations.clusterStartDelay = clusterStartDelay;
+	}
+
 	public static boolean isEnableRollbackProbability() {
 		return enableRollbackProbability;
 	}
@@ -660,4 +1063,8 @@ public class Configurations {
 	public static void setQuantileNum(int quantileNum){Configurations.quantileNum = quantileNum;}
 
 	public static int getQuantileNum(){return quantileNum;}
+
+	public static void setQuantileSketchK(int quantileSketchK){Configurations.quantileSketchK = quantileSketchK;}
+
+	public static int getQuantileSketchK(){return quantileSketchK;}
 }
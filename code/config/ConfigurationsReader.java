@@ -122,15 +122,30 @@ public class ConfigurationsReader {
 				case "timeWindowSize":
 					Configurations.setTimeWindowSize(Integer.parseInt(arr[1].trim()));
 					break;
+				case "logLatenessMillis":
+					Configurations.setLogLatenessMillis(Integer.parseInt(arr[1].trim()));
+					break;
+				case "reorderBufferSize":
+					Configurations.setReorderBufferSize(Integer.parseInt(arr[1].trim()));
+					break;
 				case "statThreadNum":
 					Configurations.setStatThreadNum(Integer.parseInt(arr[1].trim()));
 					break;
+				case "logReaderThreadNum":
+					Configurations.setLogReaderThreadNum(Integer.parseInt(arr[1].trim()));
+					break;
+				case "logReaderChunkSize":
+					Configurations.setLogReaderChunkSize(Integer.parseInt(arr[1].trim()));
+					break;
 				case "maxSizeOfTxDataList":
 					Configurations.setMaxSizeOfTxDataList(Integer.parseInt(arr[1].trim()));
 					break;
 				case "highFrequencyItemNum":
 					Configurations.setHighFrequencyItemNum(Integer.parseInt(arr[1].trim()));
 					break;
+				case "heavyHitterSketchCapacity":
+					Configurations.setHeavyHitterSketchCapacity(Integer.parseInt(arr[1].trim()));
+					break;
 				case "intervalNum":
 					Configurations.setIntervalNum(Integer.parseInt(arr[1].trim()));
 					break;
@@ -170,15 +185,117 @@ public class ConfigurationsReader {
 				case "throughputScaleFactor":
 					Configurations.setThroughputScaleFactor(Integer.parseInt(arr[1].trim()));
 					break;
+				case "timeScaleFactor":
+					Configurations.setTimeScaleFactor(Double.parseDouble(arr[1].trim()));
+					break;
 				case "fixedThroughput":
 					Configurations.setFixedThroughput(Integer.parseInt(arr[1].trim()));
 					break;
+				case "arrivalDistribution":
+					Configurations.setArrivalDistribution(Integer.parseInt(arr[1].trim()));
+					break;
+				case "rateShaping":
+					Configurations.setRateShaping(Integer.parseInt(arr[1].trim()));
+					break;
+				case "rateShapingResolution":
+					Configurations.setRateShapingResolution(Integer.parseInt(arr[1].trim()));
+					break;
+				case "reproduceBurstiness":
+					Configurations.setReproduceBurstiness(Boolean.parseBoolean(arr[1].trim()));
+					break;
+				case "arrivalQueueCapacity":
+					Configurations.setArrivalQueueCapacity(Integer.parseInt(arr[1].trim()));
+					break;
+				case "clientMode":
+					Configurations.setClientMode(Integer.parseInt(arr[1].trim()));
+					break;
+				case "virtualCarrierThreadNum":
+					Configurations.setVirtualCarrierThreadNum(Integer.parseInt(arr[1].trim()));
+					break;
+				case "virtualConnectionNum":
+					Configurations.setVirtualConnectionNum(Integer.parseInt(arr[1].trim()));
+					break;
+				case "selfBenchmark":
+					Configurations.setSelfBenchmark(Boolean.parseBoolean(arr[1].trim()));
+					break;
+				case "selfBenchmarkLatency":
+					Configurations.setSelfBenchmarkLatency(Integer.parseInt(arr[1].trim()));
+					break;
+				case "selfBenchmarkResultRows":
+					Configurations.setSelfBenchmarkResultRows(Integer.parseInt(arr[1].trim()));
+					break;
 				case "transactionIsolation":
 					Configurations.setTransactionIsolation(Integer.parseInt(arr[1].trim()));
 					break;
 				case "statWindowSize":
 					Configurations.setStatWindowSize(Integer.parseInt(arr[1].trim()));
 					break;
+				case "latencyHistogramPrecision":
+					Configurations.setLatencyHistogramPrecision(Integer.parseInt(arr[1].trim()));
+					break;
+				case "latencyBreakdownFile":
+					Configurations.setLatencyBreakdownFile(arr[1].trim());
+					break;
+				case "latencyBreakdownPrecision":
+					Configurations.setLatencyBreakdownPrecision(Integer.parseInt(arr[1].trim()));
+					break;
+				case "parameterTapeSize":
+					Configurations.setParameterTapeSize(Integer.parseInt(arr[1].trim()));
+					break;
+				case "pipelinedExecution":
+					Configurations.setPipelinedExecution(Boolean.parseBoolean(arr[1].trim()));
+					break;
+				case "transactionRetryNum":
+					Configurations.setTransactionRetryNum(Integer.parseInt(arr[1].trim()));
+					break;
+				case "retryBackoffBase":
+					Configurations.setRetryBackoffBase(Integer.parseInt(arr[1].trim()));
+					break;
+				case "retryBackoffMax":
+					Configurations.setRetryBackoffMax(Integer.parseInt(arr[1].trim()));
+					break;
+				case "randomSeed":
+					Configurations.setRandomSeed(Long.parseLong(arr[1].trim()));
+					break;
+				case "warmUpTime":
+					Configurations.setWarmUpTime(Integer.parseInt(arr[1].trim()));
+					break;
+				case "warmUpStableWindowNum":
+					Configurations.setWarmUpStableWindowNum(Integer.parseInt(arr[1].trim()));
+					break;
+				case "warmUpTolerance":
+					Configurations.setWarmUpTolerance(Double.parseDouble(arr[1].trim()));
+					break;
+				case "sloLatencyPercentile":
+					Configurations.setSloLatencyPercentile(Double.parseDouble(arr[1].trim()));
+					break;
+				case "sloLatencyThreshold":
+					Configurations.setSloLatencyThreshold(Double.parseDouble(arr[1].trim()));
+					break;
+				case "sloStepWindowNum":
+					Configurations.setSloStepWindowNum(Integer.parseInt(arr[1].trim()));
+					break;
+				case "sloInitialScale":
+					Configurations.setSloInitialScale(Double.parseDouble(arr[1].trim()));
+					break;
+				case "sloSearchPrecision":
+					Configurations.setSloSearchPrecision(Double.parseDouble(arr[1].trim()));
+					break;
+				case "sloMaxStepNum":
+					Configurations.setSloMaxStepNum(Integer.parseInt(arr[1].trim()));
+					break;
+				case "coordinatorAddress":
+					Configurations.setCoordinatorAddress(arr[1].trim());
+					break;
+				case "coordinatorPort":
+					Configurations.setCoordinatorPort(Integer.parseInt(arr[1].trim()));
+					break;
+				case "agentNum":
+					Configurations.setAgentNum(Integer.parseInt(arr[1].trim()));
+					break;
+				case "clusterStartDelay":
+					Configurations.setClusterStartDelay(Integer.parseInt(arr[1].trim()));
+					break;
 				case "enableRollbackProbability":
 					Configurations.setEnableRollbackProbability(Boolean.parseBoolean(arr[1].trim()));
 					break;
@@ -212,6 +329,9 @@ public class ConfigurationsReader {
 				case "quantileNum":
 					Configurations.setQuantileNum(Integer.parseInt(arr[1].trim()));
 					break;
+				case "quantileSketchK":
+					Configurations.setQuantileSketchK(Integer.parseInt(arr[1].trim()));
+					break;
 				case "usePartitionRule":
 					Configurations.setUsePartitionRule(Boolean.parseBoolean(arr[1].trim()));
 					break;
@@ -16,6 +16,7 @@ import org.apache.log4j.PropertyConfigurator;
 import abstraction.Table;
 import config.Configurations;
 import input.TableInfoSerializer;
+import util.RandomStreams;
 
 public class DataGenerator {
 
@@ -86,6 +87,9 @@ class DataGenerationThread implements Runnable {
 
 	@Override
 	public void run() {
+		// 随机数流由表名和全局线程编号确定，同一个种子在任意节点上生成的数据都相同
+		RandomStreams.bind(RandomStreams.DATA_GENERATION_STREAM, ((long) table.getName().hashCode() << 32) + threadId);
+
 		// 补丁：生成数据时（存储到文件中） 时间类型 需要从long型转化成字符型
 		SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd-HH:mm:ss");
 		
@@ -18,6 +18,8 @@ public class DistributionCounter4Serial {
 	//------
 	// 事务名称 -> 各个时间窗口的吞吐信息
 	public Map<String, Vector<Throughput>> txName2ThroughputList = null;
+	// 时间窗口时间 -> 该时间窗口内各时段所有事务的日志条数
+	public Map<Long, int[]> windowTime2ArrivalSlotCounts = null;
 
 	// 利用采样的数据 统计 得到全负载周期数据访问分布
 	public Map<String, Map<String, DataAccessDistribution>> txName2ParaId2FullLifeCycleDistribution = null;
@@ -43,6 +45,7 @@ public class DistributionCounter4Serial {
 //		}
 
 		this.txName2ThroughputList = DistributionCounter.getOriginTxName2ThroughputList();
+		this.windowTime2ArrivalSlotCounts = DistributionCounter.getWindowTime2ArrivalSlotCounts();
 
 		this.txName2ParaId2FullLifeCycleDistribution = DistributionCounter.getTxName2ParaId2FullLifeCycleDistribution();
 		if(Configurations.getFakeColumnRate() != 0){
@@ -5,6 +5,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import input.TraceInfo;
+import util.LogTokenizer;
 
 /**
  * 一个操作的数据
@@ -25,6 +26,11 @@ public class OperationData implements Comparable<OperationData> {
 	private int[] paraDataTypes = null;
 	private Object[] parameters = null;
 
+	// 模板对象解析运行日志时复用的切分器：日志的两部分、一部分中的各项、返回的各个tuple
+	private LogTokenizer sections = null;
+	private LogTokenizer items = null;
+	private LogTokenizer tuples = null;
+
 	// 从输入的事务模板中构造的对象
 	public OperationData(int operationId, int[] returnDataTypes, boolean filterPrimaryKey, int[] paraDataTypes) {
 		super();
@@ -132,34 +138,54 @@ public class OperationData implements Comparable<OperationData> {
 	 * @return 当前操作的一个具体数据对象
 	 */
 	public OperationData newInstance(String runningLog) {
-		String[] arr = runningLog.trim().split(";");
+		if (sections == null) {
+			sections = new LogTokenizer();
+		}
+		return newInstance(sections.reset(runningLog), 0);
+	}
 
-		String[] paraArr = arr[0].split(",");
-		parameters = new Object[paraArr.length];
-		for (int i = 0; i < paraArr.length; i++) {
-			parameters[i] = str2Object(paraArr[i].trim(), paraDataTypes[i]);
+	/**
+	 * 直接从日志行中解析参数和返回项，不切分出中间的字符串（只有varchar类型的值会创建字符串）
+	 * 
+	 * @param tokenizer: 已切分的日志行，其第index个字段为运行日志，格式同上
+	 * @return 当前操作的一个具体数据对象
+	 */
+	public OperationData newInstance(LogTokenizer tokenizer, int index) {
+		if (sections == null) {
+			sections = new LogTokenizer();
+		}
+		if (items == null) {
+			items = new LogTokenizer();
+			tuples = new LogTokenizer();
+		}
+		int sectionNum = sections.reset(tokenizer, index).split(';', 0);
+
+		int paraNum = items.reset(sections.getText(), sections.start(0), sections.end(0)).split(',', 0);
+		parameters = new Object[paraNum];
+		for (int i = 0; i < paraNum; i++) {
+			parameters[i] = items.parse(i, paraDataTypes[i]);
 		}
 
 		returnItems = null;
 		returnItemsOfTuples = null;
-		if (arr.length == 1) {
+		if (sectionNum == 1) {
 			return getOperationData();
 		}
 
 		if (filterPrimaryKey) {
-			String[] returnItemsArr = arr[1].split(",");
-			returnItems = new Object[returnItemsArr.length];
-			for (int i = 0; i < returnItemsArr.length; i++) {
-				returnItems[i] = str2Object(returnItemsArr[i].trim(), returnDataTypes[i]);
+			int returnItemNum = items.reset(sections.getText(), sections.start(1), sections.end(1)).split(',', 0);
+			returnItems = new Object[returnItemNum];
+			for (int i = 0; i < returnItemNum; i++) {
+				returnItems[i] = items.parse(i, returnDataTypes[i]);
 			}
 		} else {
-			String[] returnItemsOfTuplesArr = arr[1].split("#");
-			returnItemsOfTuples = new Object[returnItemsOfTuplesArr.length][];
-			for (int i = 0; i < returnItemsOfTuplesArr.length; i++) {
-				String[] returnItemsArr = returnItemsOfTuplesArr[i].split(",");
-				Object[] tmp = new Object[returnItemsArr.length];
-				for (int j = 0; j < returnItemsArr.length; j++) {
-					tmp[j] = str2Object(returnItemsArr[j].trim(), returnDataTypes[j]);
+			int tupleNum = tuples.reset(sections.getText(), sections.start(1), sections.end(1)).split('#', 0);
+			returnItemsOfTuples = new Object[tupleNum][];
+			for (int i = 0; i < tupleNum; i++) {
+				int returnItemNum = items.reset(tuples.getText(), tuples.start(i), tuples.end(i)).split(',', 0);
+				Object[] tmp = new Object[returnItemNum];
+				for (int j = 0; j < returnItemNum; j++) {
+					tmp[j] = items.parse(j, returnDataTypes[j]);
 				}
 				returnItemsOfTuples[i] = tmp;
 			}
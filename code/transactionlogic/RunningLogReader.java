@@ -25,6 +25,7 @@ import input.StoredProcedureReader;
 import input.TableInfoSerializer;
 import input.TraceInfo;
 import input.WorkloadReader;
+import util.LogTokenizer;
 
 /**
  * 读取供事务逻辑分析的运行日志
@@ -160,8 +161,9 @@ public class RunningLogReader {
 	// 供事务逻辑分析的日志量不需要很大,每个事务模板10000个左右实例数据即可
 	public void read(File runningLogDir) {
 
-		// 全局事务id -> 该事务实例的所有操作日志
-		Map<Integer, List<String>> globalId2OperationLogs = new HashMap<>();
+		// 全局事务id -> 该事务实例的所有操作日志（日志行中去掉前两个字段后的视图，不复制字符）
+		Map<Integer, List<CharSequence>> globalId2OperationLogs = new HashMap<>();
+		LogTokenizer tokenizer = new LogTokenizer();
 		File[] runningLogFiles = runningLogDir.listFiles();
 
 		// 文件名的格式为: 'lauca.log.xx'
@@ -200,8 +202,8 @@ public class RunningLogReader {
 				String logPrefix = "lauca;";
 				while ((inputLine = br.readLine()) != null) {
 					if (inputLine.startsWith(logPrefix)) {
-						String[] arr = inputLine.split(";", 3);
-						int globalId = Integer.parseInt(arr[1].trim());
+						tokenizer.reset(inputLine).split(';', 3);
+						int globalId = tokenizer.parseInt(1);
 						if (!globalId2OperationLogs.containsKey(globalId)) {
 							if (enoughFlag) {
 								if (bufferTime-- < 0) {
@@ -210,9 +212,9 @@ public class RunningLogReader {
 									continue;
 								}
 							}
-							globalId2OperationLogs.put(globalId, new ArrayList<String>());
+							globalId2OperationLogs.put(globalId, new ArrayList<CharSequence>());
 						}
-						globalId2OperationLogs.get(globalId).add(arr[2].trim());
+						globalId2OperationLogs.get(globalId).add(tokenizer.view(2));
 						if (globalId2OperationLogs.size() >= globalIdMaxNum) {
 							enoughFlag = true;
 						}
@@ -224,21 +226,24 @@ public class RunningLogReader {
 		}
 
 		// 当前log格式为: '事务名称; 操作id; para1, para2, ...; res1, res2, ...# ...'
-		Iterator<Entry<Integer, List<String>>> iter = globalId2OperationLogs.entrySet().iterator();
+		Iterator<Entry<Integer, List<CharSequence>>> iter = globalId2OperationLogs.entrySet().iterator();
 		// 处理每一个事务实例
 		while (iter.hasNext()) {
-			List<String> operationLogs = iter.next().getValue();
+			List<CharSequence> operationLogs = iter.next().getValue();
 			List<OperationData> operationDataList = new ArrayList<>();
 			Set<Integer> operationIdSet = new HashSet<>();
 			String txName = null;
-			for (String operationLog : operationLogs) {
-				String[] arr = operationLog.split(";", 3);
-				txName = arr[0].trim(); // for循环内txName都是一样的
-				int operationId = Integer.parseInt(arr[1].trim());
+			for (CharSequence operationLog : operationLogs) {
+				tokenizer.reset(operationLog).split(';', 3);
+				// for循环内txName都是一样的，只在第一次时创建字符串
+				if (txName == null || !tokenizer.fieldEquals(0, txName)) {
+					txName = tokenizer.string(0);
+				}
+				int operationId = tokenizer.parseInt(1);
 
 //				System.out.println("txName2Operation2Template: "+txName2OperationId2Template.get(txName).get(operationId));
 				operationDataList
-						.add(txName2OperationId2Template.get(txName).get(operationId).newInstance(arr[2].trim()));
+						.add(txName2OperationId2Template.get(txName).get(operationId).newInstance(tokenizer, 2));
 				operationIdSet.add(operationId);
 			}
 			// This sort is guaranteed to be stable!
@@ -0,0 +1,88 @@
+package util;
+
+/**
+ * 离散分布的别名表（Walker/Vose别名方法），构建的时间复杂度为O(n)，每次抽样的时间复杂度为O(1)，与候选项的个数无关
+ * 别名表构建后不再修改，故可被多线程共享；抽样使用调用线程自己的随机数流。
+ */
+public class AliasTable {
+
+	// 第i列保留自身的概率，其余概率属于alias[i]
+	private final double[] probabilities;
+	private final int[] aliases;
+
+	// weights为各候选项的权重（非负），无需归一化；权重之和为0时各候选项等概率
+	public AliasTable(double[] weights) {
+		super();
+		int n = weights.length;
+		probabilities = new double[n];
+		aliases = new int[n];
+
+		double sum = 0;
+		for (double weight : weights) {
+			sum += weight > 0 ? weight : 0;
+		}
+
+		// 将每个权重放大到平均值为1，小于1的列需要由大于等于1的列补齐
+		double[] scaled = new double[n];
+		int[] small = new int[n];
+		int[] large = new int[n];
+		int smallNum = 0, largeNum = 0;
+		for (int i = 0; i < n; i++) {
+			scaled[i] = sum == 0 ? 1 : (weights[i] > 0 ? weights[i] : 0) * n / sum;
+			if (scaled[i] < 1) {
+				small[smallNum++] = i;
+			} else {
+				large[largeNum++] = i;
+			}
+		}
+		while (smallNum > 0 && largeNum > 0) {
+			int less = small[--smallNum];
+			int more = large[--largeNum];
+			probabilities[less] = scaled[less];
+			aliases[less] = more;
+			scaled[more] = (scaled[more] + scaled[less]) - 1;
+			if (scaled[more] < 1) {
+				small[smallNum++] = more;
+			} else {
+				large[largeNum++] = more;
+			}
+		}
+		// 剩下的列（包括因浮点误差残留在small中的列）概率都视为1
+		while (largeNum > 0) {
+			probabilities[large[--largeNum]] = 1;
+		}
+		while (smallNum > 0) {
+			probabilities[small[--smallNum]] = 1;
+		}
+	}
+
+	// 按权重随机返回一个候选项的下标
+	public int sample() {
+		double u = RandomStreams.nextDouble() * probabilities.length;
+		int column = (int) u;
+		if (column == probabilities.length) { // 浮点舍入可能使u恰好等于列数
+			column--;
+		}
+		return u - column < probabilities[column] ? column : aliases[column];
+	}
+
+	public int size() {
+		return probabilities.length;
+	}
+
+	// 由累积概率（最后一项之后的概率视为落空）计算各候选项的权重，超过1的部分被截断，与二分查找累积概率的抽样结果一致
+	public static double[] weightsOfCumulative(double[] cumulativeProbabilities, boolean withMissItem) {
+		int n = cumulativeProbabilities.length;
+		double[] weights = new double[withMissItem ? n + 1 : n];
+		double previous = 0;
+		for (int i = 0; i < n; i++) {
+			double current = Math.min(Math.max(cumulativeProbabilities[i], previous), 1);
+			weights[i] = current - previous;
+			previous = current;
+		}
+		if (withMissItem) {
+			weights[n] = 1 - previous;
+		}
+		return weights;
+	}
+}
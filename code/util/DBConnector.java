@@ -3,6 +3,8 @@ package util;
 import java.sql.Connection;
 import java.sql.DriverManager;
 
+import config.Configurations;
+
 public class DBConnector {
 
 	private String ip = null;
@@ -50,6 +52,12 @@ public class DBConnector {
 		return conn;
 	}
 
+	// 负载生成器自测时使用的进程内数据库替身
+	public Connection getStandInConnection() {
+		return StandInDatabase.newConnection(Configurations.getSelfBenchmarkLatency(),
+				Configurations.getSelfBenchmarkResultRows());
+	}
+
 	public Connection getPostgreSQLConnection() {
 		String driver = "org.postgresql.Driver";
 		// rewriteBatchedStatements应该是MySQL特有的
@@ -0,0 +1,320 @@
+package util;
+
+import java.math.BigDecimal;
+
+/**
+ * 日志行的切分器：在原字符序列上按分隔符切分出各字段的起止位置，不创建子串和数组，可重复使用
+ * 数值（long、double、decimal）、时间（日志中为毫秒数）以及布尔值直接从字段所在位置解析；varchar字段可以取其视图（不复制字符），
+ * 需要保存为String时再调用string方法。
+ * 切分的语义与String.split（单个字符的分隔符）一致，包括limit的含义以及limit为0时去掉末尾的空字段；各取值方法与原先先trim再解析的结果一致。
+ * 不是线程安全的，每个线程使用自己的实例
+ */
+public class LogTokenizer {
+
+	// 可以用于快速路径的10的幂（double的精确表示范围内）
+	private static final double[] POWERS_OF_TEN = new double[23];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	private CharSequence text = null;
+	// 当前切分的范围
+	private int rangeStart, rangeEnd;
+	// 各字段的起止位置（未trim）
+	private int[] starts = new int[16];
+	private int[] ends = new int[16];
+	private int fieldNum = 0;
+
+	// 以整个字符序列为切分范围（字符序列为某个字段的视图时直接使用其底层的字符序列）
+	public LogTokenizer reset(CharSequence text) {
+		if (text instanceof FieldView) {
+			FieldView view = (FieldView) text;
+			return reset(view.text, view.start, view.end);
+		}
+		return reset(text, 0, text.length());
+	}
+
+	public LogTokenizer reset(CharSequence text, int start, int end) {
+		this.text = text;
+		this.rangeStart = start;
+		this.rangeEnd = end;
+		starts[0] = start;
+		ends[0] = end;
+		fieldNum = 1;
+		return this;
+	}
+
+	// 以另一个切分器的第index个字段（trim后）为切分范围
+	public LogTokenizer reset(LogTokenizer tokenizer, int index) {
+		return reset(tokenizer.text, tokenizer.trimmedStart(index), tokenizer.trimmedEnd(index));
+	}
+
+	// 按delimiter切分当前范围，返回字段数。语义同String.split：limit大于0时最多切分成limit个字段，
+	// limit为0时不限字段数，但去掉末尾的空字段（没有分隔符时整个范围为唯一的字段，即使为空）
+	public int split(char delimiter, int limit) {
+		fieldNum = 0;
+		int fieldStart = rangeStart;
+		boolean matched = false;
+		for (int i = rangeStart; i < rangeEnd; i++) {
+			if (text.charAt(i) == delimiter && (limit <= 0 || fieldNum < limit - 1)) {
+				addField(fieldStart, i);
+				fieldStart = i + 1;
+				matched = true;
+			}
+		}
+		addField(fieldStart, rangeEnd);
+		if (limit == 0 && matched) {
+			while (fieldNum > 0 && starts[fieldNum - 1] == ends[fieldNum - 1]) {
+				fieldNum--;
+			}
+		}
+		return fieldNum;
+	}
+
+	private void addField(int start, int end) {
+		if (fieldNum == starts.length) {
+			int[] newStarts = new int[fieldNum * 2];
+			int[] newEnds = new int[fieldNum * 2];
+			System.arraycopy(starts, 0, newStarts, 0, fieldNum);
+			System.arraycopy(ends, 0, newEnds, 0, fieldNum);
+			starts = newStarts;
+			ends = newEnds;
+		}
+		starts[fieldNum] = start;
+		ends[fieldNum] = end;
+		fieldNum++;
+	}
+
+	public int getFieldNum() {
+		return fieldNum;
+	}
+
+	public CharSequence getText() {
+		return text;
+	}
+
+	// 字段未trim的起止位置
+	public int start(int index) {
+		return starts[index];
+	}
+
+	public int end(int index) {
+		return ends[index];
+	}
+
+	// 字段trim后（与String.trim一致，去掉两端小于等于空格的字符）的起止位置
+	public int trimmedStart(int index) {
+		int start = starts[index], end = ends[index];
+		while (start < end && text.charAt(start) <= ' ') {
+			start++;
+		}
+		return start;
+	}
+
+	public int trimmedEnd(int index) {
+		int start = starts[index], end = ends[index];
+		while (end > start && text.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		return end;
+	}
+
+	// trim后的字段视图以及未trim的字段视图，均不复制字符
+	public CharSequence view(int index) {
+		int start = trimmedStart(index);
+		return new FieldView(text, start, Math.max(start, trimmedEnd(index)));
+	}
+
+	public CharSequence rawView(int index) {
+		return new FieldView(text, starts[index], ends[index]);
+	}
+
+	// trim后的字段，需要保存字段值时使用
+	public String string(int index) {
+		int start = trimmedStart(index);
+		return text.subSequence(start, Math.max(start, trimmedEnd(index))).toString();
+	}
+
+	// trim后的字段是否与str相同
+	public boolean fieldEquals(int index, String str) {
+		int start = trimmedStart(index), end = trimmedEnd(index);
+		if (end - start != str.length()) {
+			return false;
+		}
+		for (int i = 0; i < str.length(); i++) {
+			if (text.charAt(start + i) != str.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public long parseLong(int index) {
+		int start = trimmedStart(index), end = trimmedEnd(index);
+		int i = start;
+		boolean negative = false;
+		if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+			negative = text.charAt(i) == '-';
+			i++;
+		}
+		// 不超过18位的十进制整数不会溢出，其他情况（包括格式错误）交给Long.parseLong处理
+		if (i == end || end - i > 18) {
+			return Long.parseLong(string(index));
+		}
+		long value = 0;
+		for (; i < end; i++) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9') {
+				return Long.parseLong(string(index));
+			}
+			value = value * 10 + (c - '0');
+		}
+		return negative ? -value : value;
+	}
+
+	public int parseInt(int index) {
+		long value = parseLong(index);
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			return Integer.parseInt(string(index));
+		}
+		return (int) value;
+	}
+
+	// 整数部分和小数部分合计不超过15位、没有指数时，尾数和10的幂都可以被double精确表示，一次除法的结果即为正确舍入的结果，
+	// 与Double.parseDouble一致；其他情况交给Double.parseDouble处理
+	public double parseDouble(int index) {
+		int start = trimmedStart(index), end = trimmedEnd(index);
+		int i = start;
+		boolean negative = false;
+		if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+			negative = text.charAt(i) == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digitNum = 0, scale = -1;
+		for (; i < end; i++) {
+			char c = text.charAt(i);
+			if (c >= '0' && c <= '9') {
+				mantissa = mantissa * 10 + (c - '0');
+				digitNum++;
+				if (scale >= 0) {
+					scale++;
+				}
+			} else if (c == '.' && scale < 0) {
+				scale = 0;
+			} else {
+				digitNum = -1;
+				break;
+			}
+		}
+		if (digitNum <= 0 || digitNum > 15) {
+			return Double.parseDouble(string(index));
+		}
+		double value = scale <= 0 ? mantissa : mantissa / POWERS_OF_TEN[scale];
+		return negative ? -value : value;
+	}
+
+	// 没有指数且不超过18位有效数字时直接由非标度值和标度构造，与new BigDecimal(String)的结果（包括标度）一致
+	public BigDecimal parseDecimal(int index) {
+		int start = trimmedStart(index), end = trimmedEnd(index);
+		int i = start;
+		boolean negative = false;
+		if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+			negative = text.charAt(i) == '-';
+			i++;
+		}
+		long unscaledValue = 0;
+		int digitNum = 0, scale = -1;
+		for (; i < end; i++) {
+			char c = text.charAt(i);
+			if (c >= '0' && c <= '9') {
+				unscaledValue = unscaledValue * 10 + (c - '0');
+				digitNum++;
+				if (scale >= 0) {
+					scale++;
+				}
+			} else if (c == '.' && scale < 0) {
+				scale = 0;
+			} else {
+				digitNum = -1;
+				break;
+			}
+		}
+		if (digitNum <= 0 || digitNum > 18) {
+			return new BigDecimal(string(index));
+		}
+		return BigDecimal.valueOf(negative ? -unscaledValue : unscaledValue, Math.max(0, scale));
+	}
+
+	// 同Boolean.parseBoolean：忽略大小写等于"true"时为真
+	public boolean parseBoolean(int index) {
+		int start = trimmedStart(index), end = trimmedEnd(index);
+		if (end - start != 4) {
+			return false;
+		}
+		String trueStr = "true";
+		for (int i = 0; i < 4; i++) {
+			if (Character.toLowerCase(text.charAt(start + i)) != trueStr.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// 按数据类型解析字段。0：整型；1：浮点型；2：decimal；3：日期时间（毫秒数）；4：字符串；5：布尔型
+	public Object parse(int index, int dataType) {
+		switch (dataType) {
+		case 0:
+		case 3:
+			return parseLong(index);
+		case 1:
+			return parseDouble(index);
+		case 2:
+			return parseDecimal(index);
+		case 4:
+			return string(index);
+		case 5:
+			return parseBoolean(index);
+		default:
+			return null;
+		}
+	}
+
+	// 字段的视图，持有底层字符序列的引用
+	private static class FieldView implements CharSequence {
+
+		private final CharSequence text;
+		private final int start;
+		private final int end;
+
+		FieldView(CharSequence text, int start, int end) {
+			super();
+			this.text = text;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public int length() {
+			return end - start;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return text.charAt(start + index);
+		}
+
+		@Override
+		public CharSequence subSequence(int from, int to) {
+			return new FieldView(text, start + from, start + to);
+		}
+
+		@Override
+		public String toString() {
+			return text.subSequence(start, end).toString();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package util;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import config.Configurations;
+
+/**
+ * 负载生成和数据生成使用的随机数流，每个线程独享一个流，避免多线程争用Math.random()背后的全局随机数生成器
+ * 每个流的种子由全局种子（randomSeed）、流的类别以及流编号共同确定，线程开始工作前通过bind绑定自己的流编号，
+ * 因此给定种子和线程数时，每个线程产生的随机数序列是确定的，测试可以复现。未绑定的线程按首次使用的顺序依次编号。
+ * randomSeed为-1时全局种子取自系统时间，每次运行的随机数序列都不同。
+ */
+public class RandomStreams {
+
+	// 流的类别：负载生成线程、请求调度线程、参数预生成线程、数据生成线程、参数预生成带以及其他未绑定的线程
+	public static final int WORKLOAD_STREAM = 1;
+	public static final int SCHEDULER_STREAM = 2;
+	public static final int PRODUCER_STREAM = 3;
+	public static final int DATA_GENERATION_STREAM = 4;
+	public static final int TAPE_STREAM = 5;
+	private static final int UNBOUND_STREAM = 0;
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private static final long timeSeed = System.nanoTime();
+
+	private static final AtomicLong unboundStreamNum = new AtomicLong();
+
+	private static final ThreadLocal<SplittableRandom> streams = ThreadLocal
+			.withInitial(() -> newStream(UNBOUND_STREAM, unboundStreamNum.getAndIncrement()));
+
+	// 将当前线程绑定到指定类别、编号的随机数流上（会重置该流）
+	public static void bind(int category, long streamId) {
+		streams.set(newStream(category, streamId));
+	}
+
+	// 将当前线程切换到给定的随机数流上，用于随机数流归属于对象而不是线程的场景（如参数预生成带）
+	public static void use(SplittableRandom stream) {
+		streams.set(stream);
+	}
+
+	// 当前线程的随机数流，不可传递给其他线程使用
+	public static SplittableRandom current() {
+		return streams.get();
+	}
+
+	// 替代Math.random()，返回[0, 1)之间的随机数
+	public static double nextDouble() {
+		return streams.get().nextDouble();
+	}
+
+	// 返回[0, bound)之间的随机整数
+	public static int nextInt(int bound) {
+		return streams.get().nextInt(bound);
+	}
+
+	// 创建指定类别、编号的随机数流，但不绑定到当前线程
+	public static SplittableRandom newStream(int category, long streamId) {
+		long seed = Configurations.getRandomSeed() == -1 ? timeSeed : Configurations.getRandomSeed();
+		return new SplittableRandom(mix64(seed + mix64(category * GOLDEN_GAMMA + streamId)));
+	}
+
+	// SplitMix64的混淆函数，保证相邻的流编号也能得到互不相关的种子
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
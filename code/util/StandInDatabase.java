@@ -0,0 +1,378 @@
+package util;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 进程内的数据库替身，用于负载生成器的自测（selfBenchmark）：不连接任何数据库，测得的吞吐、CPU和内存开销都来自负载生成器自身
+ * 替身连接接受所有SQL语句（预编译、非预编译以及多语句请求），写操作返回影响1行，读操作返回resultRows行合成数据；
+ * 结果集中每列的值按调用的取值方法生成，ReadOperation按returnDataTypes选择取值方法，因此返回的数据与读操作的返回项类型一致。
+ * 每次与“数据库”的交互（执行SQL、批处理、提交、回滚）都附加latency微秒的人工时延，时延期间线程让出CPU，与等待网络返回一致。
+ * 这里继承JDBC接口的基础实现（ConnectionAdapter等，未实现的方法抛出SQLFeatureNotSupportedException），只实现负载生成器用到的方法：
+ * 参数绑定为空方法，结果集、时间戳以及批处理的返回数组都在语句上重复使用，
+ * 因此执行SQL时替身自身不分配内存，GeneratorCostMeter统计的内存分配量全部来自负载生成器。不支持存储过程（prepareCall）
+ */
+public class StandInDatabase {
+
+	private static final BigDecimal DECIMAL_VALUE = new BigDecimal("1.00");
+	private static final String STRING_VALUE = "standin";
+
+	private StandInDatabase() {
+	}
+
+	// latency：每次交互的人工时延，单位为us；resultRows：每个读操作返回的行数
+	public static Connection newConnection(int latency, int resultRows) {
+		return new StandInConnection(latency * 1000L, resultRows);
+	}
+
+	private static void delay(long latencyNanos) {
+		if (latencyNanos <= 0) {
+			return;
+		}
+		long deadline = System.nanoTime() + latencyNanos;
+		long waitTime;
+		while ((waitTime = deadline - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(waitTime);
+		}
+	}
+
+	// sql中[start, end)范围内的语句是否为查询
+	private static boolean isQuery(String sql, int start, int end) {
+		while (start < end && sql.charAt(start) <= ' ') {
+			start++;
+		}
+		return (end - start >= 6 && sql.regionMatches(true, start, "select", 0, 6))
+				|| (end - start >= 4 && sql.regionMatches(true, start, "with", 0, 4));
+	}
+
+	private static boolean isBlank(String sql, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (sql.charAt(i) > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static class StandInConnection extends ConnectionAdapter {
+
+		private final long latencyNanos;
+		private final int resultRows;
+		private boolean autoCommit = true;
+		private int transactionIsolation = Connection.TRANSACTION_READ_COMMITTED;
+		private boolean closed = false;
+
+		StandInConnection(long latencyNanos, int resultRows) {
+			super();
+			this.latencyNanos = latencyNanos;
+			this.resultRows = resultRows;
+		}
+
+		@Override
+		public Statement createStatement() {
+			return new StandInStatement(this, null);
+		}
+
+		@Override
+		public PreparedStatement prepareStatement(String sql) {
+			return new StandInStatement(this, sql);
+		}
+
+		@Override
+		public void commit() {
+			delay(latencyNanos);
+		}
+
+		@Override
+		public void rollback() {
+			delay(latencyNanos);
+		}
+
+		@Override
+		public void setAutoCommit(boolean autoCommit) {
+			this.autoCommit = autoCommit;
+		}
+
+		@Override
+		public boolean getAutoCommit() {
+			return autoCommit;
+		}
+
+		@Override
+		public void setTransactionIsolation(int level) {
+			transactionIsolation = level;
+		}
+
+		@Override
+		public int getTransactionIsolation() {
+			return transactionIsolation;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+
+		@Override
+		public boolean isClosed() {
+			return closed;
+		}
+
+		@Override
+		public boolean isValid(int timeout) {
+			return !closed;
+		}
+	}
+
+	// Statement与PreparedStatement共用，sql为null时即非预编译执行的Statement
+	private static class StandInStatement extends PreparedStatementAdapter {
+
+		private final StandInConnection connection;
+		private final String sql;
+		// 当前批次中的语句数，以及上一次批处理返回的数组（批次大小相同时重复使用）
+		private int batchSize = 0;
+		private int[] updateCounts = new int[0];
+		// 最近一次执行的各个返回结果是否为结果集，以及当前处理到的返回结果
+		private boolean[] results = new boolean[4];
+		private int resultNum = 0;
+		private int resultIndex = 0;
+		// 语句上同一时刻只有一个打开的结果集，每次执行查询时重置后返回
+		private final StandInResultSet resultSet;
+
+		StandInStatement(StandInConnection connection, String sql) {
+			super();
+			this.connection = connection;
+			this.sql = sql;
+			this.resultSet = new StandInResultSet(this, connection.resultRows);
+		}
+
+		// 参数绑定：替身不使用参数值，绑定方法均为空方法
+		@Override
+		public void setLong(int parameterIndex, long x) {
+		}
+
+		@Override
+		public void setDouble(int parameterIndex, double x) {
+		}
+
+		@Override
+		public void setBigDecimal(int parameterIndex, BigDecimal x) {
+		}
+
+		@Override
+		public void setTimestamp(int parameterIndex, Timestamp x) {
+		}
+
+		@Override
+		public void setString(int parameterIndex, String x) {
+		}
+
+		@Override
+		public void setBoolean(int parameterIndex, boolean x) {
+		}
+
+		@Override
+		public ResultSet executeQuery() {
+			delay(connection.latencyNanos);
+			return resultSet.reset();
+		}
+
+		@Override
+		public ResultSet executeQuery(String sql) {
+			return executeQuery();
+		}
+
+		@Override
+		public int executeUpdate() {
+			delay(connection.latencyNanos);
+			return 1;
+		}
+
+		@Override
+		public int executeUpdate(String sql) {
+			return executeUpdate();
+		}
+
+		@Override
+		public long executeLargeUpdate() {
+			return executeUpdate();
+		}
+
+		@Override
+		public long executeLargeUpdate(String sql) {
+			return executeUpdate();
+		}
+
+		@Override
+		public boolean execute() {
+			return execute(sql);
+		}
+
+		@Override
+		public boolean execute(String sql) {
+			delay(connection.latencyNanos);
+			splitQueries(sql);
+			return isCurrentQuery();
+		}
+
+		// 按分号切分多语句请求（忽略字符串常量中的分号），记录各个返回结果是否为结果集
+		private void splitQueries(String sql) {
+			resultNum = 0;
+			resultIndex = 0;
+			boolean inString = false;
+			int start = 0;
+			for (int i = 0; i < sql.length(); i++) {
+				char c = sql.charAt(i);
+				if (c == '\'') {
+					inString = !inString;
+				} else if (c == ';' && !inString) {
+					addResult(isQuery(sql, start, i));
+					start = i + 1;
+				}
+			}
+			if (!isBlank(sql, start, sql.length())) {
+				addResult(isQuery(sql, start, sql.length()));
+			}
+		}
+
+		private void addResult(boolean isQuery) {
+			if (resultNum == results.length) {
+				results = Arrays.copyOf(results, resultNum * 2);
+			}
+			results[resultNum++] = isQuery;
+		}
+
+		private boolean isCurrentQuery() {
+			return resultIndex < resultNum && results[resultIndex];
+		}
+
+		@Override
+		public ResultSet getResultSet() {
+			return isCurrentQuery() ? resultSet.reset() : null;
+		}
+
+		@Override
+		public int getUpdateCount() {
+			return resultIndex >= resultNum || results[resultIndex] ? -1 : 1;
+		}
+
+		@Override
+		public boolean getMoreResults() {
+			resultIndex++;
+			return isCurrentQuery();
+		}
+
+		@Override
+		public void addBatch() {
+			batchSize++;
+		}
+
+		@Override
+		public void clearBatch() {
+			batchSize = 0;
+		}
+
+		@Override
+		public int[] executeBatch() {
+			delay(connection.latencyNanos);
+			if (updateCounts.length != batchSize) {
+				updateCounts = new int[batchSize];
+				Arrays.fill(updateCounts, 1);
+			}
+			batchSize = 0;
+			return updateCounts;
+		}
+
+		@Override
+		public Connection getConnection() {
+			return connection;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	// 合成数据的结果集：第row行（从1开始）各列的值都由行号确定
+	private static class StandInResultSet extends ResultSetAdapter {
+
+		private final Statement statement;
+		private final int rowNum;
+		private int row = 0;
+		// getTimestamp返回的对象，调用方在读取下一列之前即取出其中的时间
+		private final Timestamp timestamp = new Timestamp(0);
+
+		StandInResultSet(Statement statement, int rowNum) {
+			super();
+			this.statement = statement;
+			this.rowNum = rowNum;
+		}
+
+		StandInResultSet reset() {
+			row = 0;
+			return this;
+		}
+
+		@Override
+		public boolean next() {
+			return ++row <= rowNum;
+		}
+
+		@Override
+		public long getLong(int columnIndex) {
+			return row;
+		}
+
+		@Override
+		public int getInt(int columnIndex) {
+			return row;
+		}
+
+		@Override
+		public double getDouble(int columnIndex) {
+			return row;
+		}
+
+		@Override
+		public BigDecimal getBigDecimal(int columnIndex) {
+			return DECIMAL_VALUE;
+		}
+
+		@Override
+		public Timestamp getTimestamp(int columnIndex) {
+			timestamp.setTime(row * 1000L);
+			return timestamp;
+		}
+
+		@Override
+		public String getString(int columnIndex) {
+			return STRING_VALUE;
+		}
+
+		@Override
+		public boolean getBoolean(int columnIndex) {
+			return (row & 1) == 1;
+		}
+
+		@Override
+		public Object getObject(int columnIndex) {
+			return (long) row;
+		}
+
+		@Override
+		public Statement getStatement() {
+			return statement;
+		}
+
+		// 结果集在语句上重复使用，关闭时不做任何事情
+		@Override
+		public void close() {
+		}
+	}
+}
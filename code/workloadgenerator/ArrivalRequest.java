@@ -0,0 +1,14 @@
+package workloadgenerator;
+
+// 一个事务请求：预定到达时间（System.nanoTime()）及其所属的时间窗口
+class ArrivalRequest {
+
+	long intendedStartTime;
+	int windowIndex;
+
+	public ArrivalRequest(long intendedStartTime, int windowIndex) {
+		super();
+		this.intendedStartTime = intendedStartTime;
+		this.windowIndex = windowIndex;
+	}
+}
@@ -0,0 +1,278 @@
+package workloadgenerator;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+import config.Configurations;
+import util.RandomStreams;
+
+/**
+ * 开环的事务请求调度器（loadingType为1或2时使用），当前节点上仅有一个调度线程
+ * 调度线程根据每个时间窗口的吞吐计算出所有事务请求的预定到达时间，到达时将请求放入队列，由负载生成线程（工作线程）取出执行。
+ * 事务执行的快慢不会影响后续请求的到达时间，请求在队列中的等待时间即为排队时延。
+ * 按SLO搜索最大吞吐（loadingType为2）时循环回放所有时间窗口（保持记录下来的事务比例和参数分布），吞吐乘以一个可在运行中调整的系数，直到搜索结束。
+ * 到达速率可以在时间窗口之间插值（rateShaping），并按时间窗口内记录的到达分布调整（reproduceBurstiness），此时速率按时段分段恒定，
+ * 到达时刻通过累积期望到达量确定：均匀到达时每累积1个到达量产生一个请求，泊松到达时累积量服从指数分布（即非齐次泊松过程）。
+ * 到达过程在时间窗口之间是连续的：未累积满的到达量带入下一个时间窗口，因此每个时间窗口不会从头开始计算到达时刻，
+ * 吞吐与时间窗口大小之积小于1的时间窗口也不会多发请求。到达时刻以double型的ns累积，只在放入队列时取整，不会累积截断误差。
+ */
+class ArrivalScheduler implements Runnable {
+
+	private int allThreadNum;
+	private int localThreadNum;
+	private List<WindowThroughput> windowThroughputList = null;
+	// 调度的时间窗口数，不超过事务吞吐与参数数据分布两者的时间窗口数
+	private int windowNum;
+
+	// 0：均匀到达；1：泊松到达
+	private int arrivalDistribution;
+
+	// 0：阶梯；1：线性插值；2：单调三次样条插值
+	private int rateShaping;
+	private boolean reproduceBurstiness;
+	// 速率分段恒定的时段长度，单位为ns，不整形时即为时间窗口大小
+	private long sliceNanos;
+	// 当前节点在各时间窗口内每秒的事务请求量，以及样条插值时各时间窗口中心点的斜率
+	private double[] nodeThroughputs = null;
+	private double[] slopes = null;
+
+	private BlockingQueue<ArrivalRequest> requestQueue = null;
+
+	// 下一个请求的预定到达时刻（相对调度起始时刻，单位为ns），以及距离下一个请求还需累积的期望到达量，跨时间窗口延续
+	private double arrivalTime = 0;
+	private double pendingAmount = 0;
+
+	// 所有时间窗口的请求都已调度完毕
+	private volatile boolean finished = false;
+
+	// 循环回放所有时间窗口，直到stop被调用（loadingType为2时）
+	private boolean cyclic = false;
+	private volatile boolean stopped = false;
+	// 吞吐的调整系数，由ThroughputSearch在运行中调整，下一个请求到达时即生效
+	private volatile double loadScale = 1;
+
+	// 因为队列已满而被丢弃的请求数
+	private static final AtomicLong droppedRequestNum = new AtomicLong();
+	// 已到达的请求数（包括被丢弃的）
+	private static final AtomicLong issuedRequestNum = new AtomicLong();
+
+	//cdl作用为了等monitor线程和起数据库链接的线程都等建好数据库链接之后，开启事务的测试
+	private CountDownLatch cdl = null;
+	// 预热阶段的控制器，预热结束后才开始调度请求；未启用预热时为null
+	private WarmUp warmUp = null;
+
+	private Logger logger = Logger.getLogger(ArrivalScheduler.class);
+
+	public ArrivalScheduler(int allThreadNum, int localThreadNum, List<WindowThroughput> windowThroughputList,
+			int windowNum, CountDownLatch countDownLatch, WarmUp warmUp) {
+		super();
+		this.allThreadNum = allThreadNum;
+		this.localThreadNum = localThreadNum;
+		this.windowThroughputList = windowThroughputList;
+		this.windowNum = windowNum;
+		this.arrivalDistribution = Configurations.getArrivalDistribution();
+		this.rateShaping = Configurations.getRateShaping();
+		this.reproduceBurstiness = Configurations.isReproduceBurstiness();
+		this.requestQueue = new ArrayBlockingQueue<>(Configurations.getArrivalQueueCapacity());
+		this.cyclic = Configurations.getLoadingType() == 2;
+		this.cdl = countDownLatch;
+		this.warmUp = warmUp;
+	}
+
+	@Override
+	public void run() {
+		RandomStreams.bind(RandomStreams.SCHEDULER_STREAM, Configurations.getMachineId());
+
+		// 调度线程不参与计数，仅等待所有负载生成线程准备就绪
+		try {
+			cdl.await();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+		if (warmUp != null) {
+			warmUp.await();
+		}
+
+		long windowNanos = Configurations.getTimeWindowSize() * 1000000000L;
+		if (rateShaping == 0 && !reproduceBurstiness) {
+			sliceNanos = windowNanos;
+		} else {
+			sliceNanos = Math.min(windowNanos, Math.max(1, Configurations.getRateShapingResolution()) * 1000000L);
+		}
+		initNodeThroughputs(windowNum);
+
+		// 将（可能由协调者指定的）起始时刻换算为System.nanoTime()的时间基准
+		long loadStartTime = LoadClock.awaitStartTime();
+		long schedulerStartTime = System.nanoTime() - (System.currentTimeMillis() - loadStartTime) * 1000000L;
+
+		// 均匀到达时第一个请求在负载的起始时刻（或速率不为0的第一个时段）到达
+		arrivalTime = 0;
+		pendingAmount = arrivalDistribution == 1 ? nextExponentialAmount() : 0;
+		for (long i = 0; !stopped && (cyclic || i < windowNum); i++) {
+			int windowIndex = (int) (i % windowNum);
+			double windowStartTime = i * (double) windowNanos;
+			double windowEndTime = (i + 1) * (double) windowNanos;
+
+			boolean loaded = false;
+			while (!stopped && advanceToNextArrival(windowIndex, windowStartTime, windowEndTime, windowNanos)) {
+				long intendedStartTime = schedulerStartTime + (long) arrivalTime;
+				parkUntil(intendedStartTime);
+				// 唤醒时可能已经错过了若干个到达时刻（高吞吐时很常见），这些请求依然保留各自的预定到达时间
+				issuedRequestNum.incrementAndGet();
+				if (!requestQueue.offer(new ArrivalRequest(intendedStartTime, windowIndex))) {
+					droppedRequestNum.incrementAndGet();
+				}
+				pendingAmount = arrivalDistribution == 1 ? nextExponentialAmount() : 1;
+				loaded = true;
+			}
+			if (!loaded) {
+				parkUntil(schedulerStartTime + (long) windowEndTime); // 当前时间窗口不加载负载
+			}
+		}
+
+		finished = true;
+		logger.info("所有时间窗口的事务请求调度完毕！ droppedRequestNum = " + droppedRequestNum.get());
+	}
+
+	// 当前节点在该时间窗口内每秒的事务请求量
+	private double getNodeThroughput(WindowThroughput windowThroughput) {
+		double allThroughput;
+		if (Configurations.getFixedThroughput() != -1) {
+			allThroughput = Configurations.getFixedThroughput();
+		} else {
+			// 事务吞吐扩展因子
+			allThroughput = windowThroughput.throughput * Configurations.getThroughputScaleFactor();
+		}
+		return allThroughput * localThreadNum / allThreadNum;
+	}
+
+	private void initNodeThroughputs(int windowNum) {
+		nodeThroughputs = new double[windowNum];
+		for (int i = 0; i < windowNum; i++) {
+			nodeThroughputs[i] = getNodeThroughput(windowThroughputList.get(i));
+		}
+		// 单调三次样条（Fritsch-Butland斜率）：相邻两段的变化方向不同时斜率为0，保证插值结果不越过相邻两个时间窗口的吞吐，也就不会为负
+		slopes = new double[windowNum];
+		for (int i = 0; i < windowNum; i++) {
+			double left = nodeThroughputs[i] - nodeThroughputs[neighbor(i - 1)];
+			double right = nodeThroughputs[neighbor(i + 1)] - nodeThroughputs[i];
+			slopes[i] = left * right <= 0 ? 0 : 2 * left * right / (left + right);
+		}
+	}
+
+	// 插值时相邻时间窗口的下标：循环回放时首尾相接，否则在两端沿用首尾时间窗口的吞吐
+	private int neighbor(int windowIndex) {
+		int windowNum = nodeThroughputs.length;
+		if (cyclic) {
+			return (windowIndex % windowNum + windowNum) % windowNum;
+		}
+		return Math.min(windowNum - 1, Math.max(0, windowIndex));
+	}
+
+	// 当前节点在某个时间窗口第sliceIndex个时段内每秒的事务请求量，取该时段中点的插值结果
+	private double getSliceThroughput(int windowIndex, int sliceIndex, long windowNanos) {
+		double offset = (sliceIndex + 0.5) * sliceNanos / windowNanos;
+		double throughput;
+		if (rateShaping == 0) {
+			throughput = nodeThroughputs[windowIndex];
+		} else {
+			// 各时间窗口的吞吐视为其中心时刻的取值，t为当前时刻在前后两个中心时刻之间的位置
+			int left = offset < 0.5 ? windowIndex - 1 : windowIndex;
+			double t = offset < 0.5 ? offset + 0.5 : offset - 0.5;
+			double y0 = nodeThroughputs[neighbor(left)], y1 = nodeThroughputs[neighbor(left + 1)];
+			if (rateShaping == 1) {
+				throughput = y0 + (y1 - y0) * t;
+			} else {
+				double m0 = slopes[neighbor(left)], m1 = slopes[neighbor(left + 1)];
+				double t2 = t * t, t3 = t2 * t;
+				throughput = (2 * t3 - 3 * t2 + 1) * y0 + (t3 - 2 * t2 + t) * m0 + (-2 * t3 + 3 * t2) * y1 + (t3 - t2) * m1;
+			}
+		}
+		double[] arrivalProfile = windowThroughputList.get(windowIndex).arrivalProfile;
+		if (reproduceBurstiness && arrivalProfile != null) {
+			throughput *= arrivalProfile[Math.min(arrivalProfile.length - 1, (int) (offset * arrivalProfile.length))];
+		}
+		return Math.max(0, throughput);
+	}
+
+	// 从arrivalTime开始在时间窗口内累积期望到达量：累积满pendingAmount时将arrivalTime置为下一个请求的到达时刻并返回true；
+	// 直到时间窗口结束都未累积满时，arrivalTime移到时间窗口的结束时刻，pendingAmount减去已累积的量（带入下一个时间窗口）并返回false
+	private boolean advanceToNextArrival(int windowIndex, double windowStartTime, double windowEndTime, long windowNanos) {
+		double scale = loadScale;
+		int sliceIndex = (int) ((arrivalTime - windowStartTime) / sliceNanos);
+		while (arrivalTime < windowEndTime) {
+			double sliceEndTime = Math.min(windowEndTime, windowStartTime + (sliceIndex + 1) * (double) sliceNanos);
+			// 每ns的期望到达量
+			double rate = getSliceThroughput(windowIndex, sliceIndex, windowNanos) * scale / 1000000000d;
+			if (rate > 0) {
+				double interval = pendingAmount / rate;
+				if (arrivalTime + interval < sliceEndTime) {
+					arrivalTime += interval;
+					return true;
+				}
+				pendingAmount -= (sliceEndTime - arrivalTime) * rate;
+			}
+			arrivalTime = Math.max(arrivalTime, sliceEndTime);
+			sliceIndex++;
+		}
+		arrivalTime = windowEndTime;
+		return false;
+	}
+
+	private double nextExponentialAmount() {
+		return -Math.log(1 - RandomStreams.nextDouble());
+	}
+
+	private void parkUntil(long deadline) {
+		long waitTime;
+		while ((waitTime = deadline - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(waitTime);
+		}
+	}
+
+	// 工作线程获取下一个事务请求，调度结束且队列为空时返回null
+	public ArrivalRequest nextRequest() {
+		try {
+			while (true) {
+				ArrivalRequest request = requestQueue.poll(100, TimeUnit.MILLISECONDS);
+				if (request != null) {
+					return request;
+				}
+				if (finished && requestQueue.isEmpty()) {
+					return null;
+				}
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	public static long getDroppedRequestNum() {
+		return droppedRequestNum.get();
+	}
+
+	public static long getIssuedRequestNum() {
+		return issuedRequestNum.get();
+	}
+
+	public double getLoadScale() {
+		return loadScale;
+	}
+
+	public void setLoadScale(double loadScale) {
+		this.loadScale = loadScale;
+	}
+
+	// 停止调度新的请求，队列中已有的请求仍会被执行
+	public void stop() {
+		stopped = true;
+	}
+}
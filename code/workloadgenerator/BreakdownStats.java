@@ -0,0 +1,65 @@
+package workloadgenerator;
+
+// 单个事务模板或单个SQL操作在一个统计窗口内的时延（仅成功执行的，单位为us）及执行结果
+class BreakdownStats {
+
+	LatencyHistogram successHistogram = null;
+	long failureNum = 0;
+	long deadlockNum = 0;
+	// 仅事务模板的统计有以下几项（启用事务重试时记录）：最终成功的事务首次执行的时延、重试的总次数以及发生过重试的事务数
+	LatencyHistogram firstAttemptHistogram = null;
+	long retryNum = 0;
+	long retriedNum = 0;
+
+	public BreakdownStats(int significantDigits, boolean transaction) {
+		super();
+		successHistogram = new LatencyHistogram(significantDigits);
+		if (transaction) {
+			firstAttemptHistogram = new LatencyHistogram(significantDigits);
+		}
+	}
+
+	// flag -- 1：成功；0：非Deadlock失败；-1：Deadlock失败
+	public void record(int flag, long micros) {
+		if (flag == 1) {
+			successHistogram.record(micros);
+		} else if (flag == -1) {
+			deadlockNum++;
+		} else {
+			failureNum++;
+		}
+	}
+
+	// firstAttemptMicros大于0时表示事务最终成功
+	public void recordRetry(long firstAttemptMicros, int retryNum) {
+		if (firstAttemptMicros > 0) {
+			firstAttemptHistogram.record(firstAttemptMicros);
+		}
+		this.retryNum += retryNum;
+		if (retryNum > 0) {
+			retriedNum++;
+		}
+	}
+
+	public void add(BreakdownStats other) {
+		successHistogram.add(other.successHistogram);
+		failureNum += other.failureNum;
+		deadlockNum += other.deadlockNum;
+		if (firstAttemptHistogram != null) {
+			firstAttemptHistogram.add(other.firstAttemptHistogram);
+		}
+		retryNum += other.retryNum;
+		retriedNum += other.retriedNum;
+	}
+
+	public void reset() {
+		successHistogram.reset();
+		failureNum = 0;
+		deadlockNum = 0;
+		if (firstAttemptHistogram != null) {
+			firstAttemptHistogram.reset();
+		}
+		retryNum = 0;
+		retriedNum = 0;
+	}
+}
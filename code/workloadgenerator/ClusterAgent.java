@@ -0,0 +1,174 @@
+package workloadgenerator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.apache.log4j.Logger;
+
+import config.Configurations;
+
+/**
+ * 多节点协同加载中代理节点（配置了coordinatorAddress的负载生成节点）与协调者之间的连接
+ * 代理加入时从协调者获取运行计划（节点编号、所有节点的测试客户端总数、吞吐以及时间窗口大小等）并据此覆盖本地配置；
+ * 建好所有测试会话后通知协调者已就绪，由协调者统一指定起始时刻；加载过程中每个统计窗口的统计数据都汇报给协调者合并。
+ * 加入时按一次往返估计与协调者的时钟偏差（假设往返是对称的），协调者指定的起始时刻会换算为当前节点的时钟。
+ */
+class ClusterAgent {
+
+	// 连接协调者的超时时间，代理可以先于协调者启动
+	private static final long CONNECT_TIMEOUT_MILLIS = 60 * 1000L;
+
+	private Socket socket = null;
+	private DataInputStream in = null;
+	private DataOutputStream out = null;
+
+	// 协调者的时钟减去当前节点的时钟，单位为ms
+	private long clockOffset = 0;
+	// 运行计划：所有节点的测试客户端总数，以及当前节点第一个测试客户端的全局编号
+	private int allThreadNum;
+	private int clientIdOffset;
+
+	// 已汇报的最大统计窗口下标
+	private int lastReportedWindow = 0;
+	private boolean closed = false;
+
+	private Logger logger = Logger.getLogger(ClusterAgent.class);
+
+	public ClusterAgent(String coordinatorAddress, int coordinatorPort) throws IOException {
+		super();
+		long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+		while (true) {
+			try {
+				socket = new Socket();
+				socket.connect(new InetSocketAddress(coordinatorAddress, coordinatorPort), 1000);
+				break;
+			} catch (IOException e) {
+				socket.close();
+				if (System.currentTimeMillis() >= deadline) {
+					throw e;
+				}
+				try {
+					Thread.sleep(1000);
+				} catch (InterruptedException ie) {
+					throw new IOException(ie);
+				}
+			}
+		}
+		socket.setTcpNoDelay(true);
+		in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		logger.info("成功连接协调者： " + coordinatorAddress + ":" + coordinatorPort);
+	}
+
+	// 加入协调者并获取运行计划，需在构建负载生成器之前调用。协调者在所有代理加入后才下发运行计划
+	public void join(int localThreadNum) throws IOException {
+		long sendTime = System.currentTimeMillis();
+		out.writeByte(ClusterCoordinator.HELLO);
+		out.writeInt(localThreadNum);
+		out.flush();
+		long coordinatorTime = in.readLong();
+		long receiveTime = System.currentTimeMillis();
+		clockOffset = coordinatorTime - (sendTime + receiveTime) / 2;
+
+		int machineId = in.readInt();
+		allThreadNum = in.readInt();
+		clientIdOffset = in.readInt();
+		Configurations.setMachineId(machineId);
+		Configurations.setTimeWindowSize(in.readInt());
+		Configurations.setStatWindowSize(in.readInt());
+		Configurations.setTestTimeLength(in.readInt());
+		Configurations.setLatencyHistogramPrecision(in.readInt());
+		Configurations.setLoadingType(in.readInt());
+		Configurations.setArrivalDistribution(in.readInt());
+		Configurations.setRateShaping(in.readInt());
+		Configurations.setRateShapingResolution(in.readInt());
+		Configurations.setReproduceBurstiness(in.readBoolean());
+		Configurations.setFixedThroughput(in.readInt());
+		Configurations.setThroughputScaleFactor(in.readDouble());
+		Configurations.setTimeScaleFactor(in.readDouble());
+		Configurations.setRandomSeed(in.readLong());
+		LoadClock.enableCoordinatedStart();
+		logger.info("获取运行计划成功！ machineId = " + machineId + ", allThreadNum = " + allThreadNum
+				+ ", clientIdOffset = " + clientIdOffset + ", clockOffset = " + clockOffset + "ms");
+	}
+
+	// 通知协调者当前节点已就绪，并等待协调者指定起始时刻，返回换算为当前节点时钟的起始时刻
+	public long awaitStart() throws IOException {
+		out.writeByte(ClusterCoordinator.READY);
+		out.flush();
+		byte type = in.readByte();
+		if (type != ClusterCoordinator.START) {
+			throw new IOException("无法识别的消息类型： " + type);
+		}
+		long startTimeMillis = in.readLong() - clockOffset;
+		LoadClock.setStartTime(startTimeMillis);
+		logger.info("协调者指定的起始时刻： " + startTimeMillis + "，距现在 "
+				+ (startTimeMillis - System.currentTimeMillis()) + "ms");
+		return startTimeMillis;
+	}
+
+	// 汇报一个统计窗口的统计数据，由Monitor在统计窗口边界调用。汇报失败后不再汇报，当前节点的负载生成不受影响
+	public synchronized void reportWindow(int windowIndex, RecordedStats windowStats) {
+		if (closed) {
+			return;
+		}
+		try {
+			out.writeByte(ClusterCoordinator.WINDOW);
+			out.writeInt(windowIndex);
+			windowStats.writeTo(out);
+			out.flush();
+		} catch (IOException e) {
+			logger.error("向协调者汇报统计数据失败！ windowIndex = " + windowIndex, e);
+			close();
+			return;
+		}
+		lastReportedWindow = windowIndex;
+		notifyAll();
+	}
+
+	// 等待最后一个统计窗口汇报完毕（最多等待两个统计窗口的时间），然后通知协调者当前节点已结束
+	public synchronized void finish() {
+		int lastWindow = Configurations.getTestTimeLength() / Configurations.getStatWindowSize();
+		long deadline = System.currentTimeMillis() + 2000L * Configurations.getStatWindowSize();
+		long waitTime;
+		while (!closed && lastReportedWindow < lastWindow && (waitTime = deadline - System.currentTimeMillis()) > 0) {
+			try {
+				wait(waitTime);
+			} catch (InterruptedException e) {
+				break;
+			}
+		}
+		if (closed) {
+			return;
+		}
+		try {
+			out.writeByte(ClusterCoordinator.BYE);
+			out.flush();
+		} catch (IOException e) {
+			logger.error("通知协调者结束失败！", e);
+		}
+		close();
+	}
+
+	private void close() {
+		closed = true;
+		try {
+			socket.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	public int getAllThreadNum() {
+		return allThreadNum;
+	}
+
+	public int getClientIdOffset() {
+		return clientIdOffset;
+	}
+}
@@ -0,0 +1,254 @@
+package workloadgenerator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+
+import config.Configurations;
+
+/**
+ * 多节点协同加载的协调者，本身不生成负载
+ * 等待agentNum个代理节点加入后，依次为代理分配节点编号和测试客户端的全局编号区间，并下发运行计划（吞吐、时间窗口大小、测试时长等以协调者的配置为准）；
+ * 所有代理建好测试会话后，指定一个统一的起始时刻（对齐到整秒），各代理在该时刻同时开始第一个时间窗口，因此各代理的统计窗口下标是一致的。
+ * 加载过程中代理在每个统计窗口边界汇报自己的时延直方图和计数，协调者按统计窗口下标合并后输出全局的吞吐和时延分位数，
+ * 格式与Monitor一致，最后一列为该统计窗口实际汇报了的代理数。
+ * 代理与协调者之间使用TCP长连接，消息格式为：消息类型（1个字节） + 消息内容（DataOutputStream编码）
+ */
+class ClusterCoordinator {
+
+	// 代理 -> 协调者：加入，内容为代理的测试客户端数；协调者立即回复自己的当前时刻，所有代理加入后再回复运行计划
+	static final byte HELLO = 1;
+	// 代理 -> 协调者：所有测试会话已建好
+	static final byte READY = 2;
+	// 协调者 -> 代理：统一的起始时刻（协调者的时钟）
+	static final byte START = 3;
+	// 代理 -> 协调者：一个统计窗口的统计数据
+	static final byte WINDOW = 4;
+	// 代理 -> 协调者：负载生成结束
+	static final byte BYE = 5;
+
+	private int port;
+	private int agentNum;
+	private int statWindowSize;
+
+	private List<AgentConnection> agents = new ArrayList<>();
+
+	// 尚未输出的统计窗口：统计窗口下标 -> 合并后的统计数据，以及已汇报的代理数
+	private TreeMap<Integer, RecordedStats> pendingWindows = new TreeMap<>();
+	private Map<Integer, Integer> reportedAgentNums = new HashMap<>();
+	// 仍在运行的代理数
+	private int liveAgentNum = 0;
+	private int maxReportedWindow = 0;
+	private int lastPrintedWindow = 0;
+
+	// 仅用于按Monitor的格式输出合并后的统计结果
+	private Monitor monitor = null;
+
+	private Logger logger = Logger.getLogger(ClusterCoordinator.class);
+
+	public ClusterCoordinator(int port, int agentNum) {
+		super();
+		this.port = port;
+		this.agentNum = agentNum;
+		this.statWindowSize = Configurations.getStatWindowSize();
+	}
+
+	// 协调一次完整的负载生成，直到所有代理结束（或断开连接）后返回
+	public void run() throws IOException {
+		try (ServerSocket serverSocket = new ServerSocket(port)) {
+			logger.info("协调者开始监听端口 " + port + "，等待 " + agentNum + " 个代理节点加入...");
+			for (int i = 0; i < agentNum; i++) {
+				Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+				AgentConnection agent = new AgentConnection(i, socket);
+				byte type = agent.in.readByte();
+				if (type != HELLO) {
+					throw new IOException("无法识别的消息类型： " + type);
+				}
+				agent.localThreadNum = agent.in.readInt();
+				// 立即回复，代理据此估计两者的时钟偏差
+				agent.out.writeLong(System.currentTimeMillis());
+				agent.out.flush();
+				agents.add(agent);
+				logger.info("代理节点加入： machineId = " + i + ", address = " + socket.getRemoteSocketAddress()
+						+ ", localThreadNum = " + agent.localThreadNum);
+			}
+		}
+
+		int allThreadNum = 0;
+		for (AgentConnection agent : agents) {
+			agent.clientIdOffset = allThreadNum;
+			allThreadNum += agent.localThreadNum;
+		}
+		for (AgentConnection agent : agents) {
+			sendRunPlan(agent, allThreadNum);
+		}
+
+		// 等待所有代理建好测试会话（建立数据库连接耗时较长），然后统一指定起始时刻
+		for (AgentConnection agent : agents) {
+			byte type = agent.in.readByte();
+			if (type != READY) {
+				throw new IOException("无法识别的消息类型： " + type);
+			}
+		}
+		long startTimeMillis = (System.currentTimeMillis() + Configurations.getClusterStartDelay() + 999) / 1000 * 1000;
+		for (AgentConnection agent : agents) {
+			agent.out.writeByte(START);
+			agent.out.writeLong(startTimeMillis);
+			agent.out.flush();
+		}
+		logger.info("所有代理节点已就绪！ allThreadNum = " + allThreadNum + ", startTime = " + startTimeMillis);
+
+		monitor = new Monitor(statWindowSize, null);
+		monitor.printHeader(", reportedAgentNum");
+		liveAgentNum = agents.size();
+		Thread[] receivers = new Thread[agents.size()];
+		for (int i = 0; i < agents.size(); i++) {
+			AgentConnection agent = agents.get(i);
+			receivers[i] = new Thread(() -> receiveReports(agent), "ClusterReceiver-" + agent.machineId);
+			receivers[i].start();
+		}
+		for (Thread receiver : receivers) {
+			try {
+				receiver.join();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		logger.info("所有代理节点的负载生成已结束！");
+	}
+
+	private void sendRunPlan(AgentConnection agent, int allThreadNum) throws IOException {
+		DataOutputStream out = agent.out;
+		out.writeInt(agent.machineId);
+		out.writeInt(allThreadNum);
+		out.writeInt(agent.clientIdOffset);
+		out.writeInt(Configurations.getTimeWindowSize());
+		out.writeInt(statWindowSize);
+		out.writeInt(Configurations.getTestTimeLength());
+		out.writeInt(Configurations.getLatencyHistogramPrecision());
+		out.writeInt(Configurations.getLoadingType());
+		out.writeInt(Configurations.getArrivalDistribution());
+		out.writeInt(Configurations.getRateShaping());
+		out.writeInt(Configurations.getRateShapingResolution());
+		out.writeBoolean(Configurations.isReproduceBurstiness());
+		out.writeInt(Configurations.getFixedThroughput());
+		out.writeDouble(Configurations.getThroughputScaleFactor());
+		out.writeDouble(Configurations.getTimeScaleFactor());
+		out.writeLong(Configurations.getRandomSeed());
+		out.flush();
+	}
+
+	// 接收一个代理汇报的统计数据，每个代理一个接收线程
+	private void receiveReports(AgentConnection agent) {
+		// 解码用的统计数据，在每次汇报中复用，合并时才需要加锁
+		RecordedStats received = new RecordedStats(Configurations.getLatencyHistogramPrecision());
+		try {
+			while (true) {
+				byte type = agent.in.readByte();
+				if (type == BYE) {
+					break;
+				}
+				if (type != WINDOW) {
+					throw new IOException("无法识别的消息类型： " + type);
+				}
+				int windowIndex = agent.in.readInt();
+				received.reset();
+				received.addFrom(agent.in);
+				mergeWindow(agent, windowIndex, received);
+			}
+		} catch (IOException e) {
+			logger.error("代理节点的连接异常断开！ machineId = " + agent.machineId, e);
+		} finally {
+			try {
+				agent.socket.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			agentFinished(agent);
+		}
+	}
+
+	private synchronized void mergeWindow(AgentConnection agent, int windowIndex, RecordedStats received) {
+		if (windowIndex <= lastPrintedWindow) {
+			logger.warn("统计窗口已输出，忽略迟到的汇报： windowIndex = " + windowIndex);
+			return;
+		}
+		RecordedStats windowStats = pendingWindows.get(windowIndex);
+		if (windowStats == null) {
+			windowStats = new RecordedStats(Configurations.getLatencyHistogramPrecision());
+			pendingWindows.put(windowIndex, windowStats);
+		}
+		windowStats.add(received);
+		reportedAgentNums.merge(windowIndex, 1, Integer::sum);
+		agent.lastReportedWindow = windowIndex;
+		maxReportedWindow = Math.max(maxReportedWindow, windowIndex);
+		printCompletedWindows(false);
+	}
+
+	private synchronized void agentFinished(AgentConnection agent) {
+		agent.finished = true;
+		liveAgentNum--;
+		printCompletedWindows(liveAgentNum == 0);
+	}
+
+	// 按统计窗口的顺序输出：所有仍在运行的代理都已汇报的统计窗口，以及比最新汇报的统计窗口落后两个以上的统计窗口（有代理汇报迟缓）
+	// all为真时输出所有尚未输出的统计窗口
+	private void printCompletedWindows(boolean all) {
+		while (!pendingWindows.isEmpty()) {
+			int windowIndex = pendingWindows.firstKey();
+			int reportedAgentNum = reportedAgentNums.get(windowIndex);
+			if (!all && !isReportedByAllLiveAgents(windowIndex) && windowIndex > maxReportedWindow - 2) {
+				break;
+			}
+			monitor.printWindow(pendingWindows.remove(windowIndex), ", " + reportedAgentNum);
+			reportedAgentNums.remove(windowIndex);
+			lastPrintedWindow = windowIndex;
+		}
+	}
+
+	private boolean isReportedByAllLiveAgents(int windowIndex) {
+		for (AgentConnection agent : agents) {
+			if (!agent.finished && agent.lastReportedWindow < windowIndex) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
+
+// 协调者与一个代理节点之间的连接
+class AgentConnection {
+
+	int machineId;
+	Socket socket = null;
+	DataInputStream in = null;
+	DataOutputStream out = null;
+
+	int localThreadNum;
+	// 该代理第一个测试客户端的全局编号
+	int clientIdOffset;
+
+	// 以下由协调者加锁访问：已汇报的最大统计窗口下标，以及该代理是否已结束（或断开连接）
+	int lastReportedWindow = 0;
+	boolean finished = false;
+
+	public AgentConnection(int machineId, Socket socket) throws IOException {
+		super();
+		this.machineId = machineId;
+		this.socket = socket;
+		this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+	}
+}
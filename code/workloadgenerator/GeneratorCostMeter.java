@@ -0,0 +1,84 @@
+package workloadgenerator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 负载生成器自身开销的统计（selfBenchmark为true时启用），Monitor在每个统计窗口输出：每个事务的CPU时间（us）、
+ * 每个事务的内存分配量（KB）以及内存分配速率（MB/s）
+ * 自测时测试会话连接的是进程内的数据库替身，替身执行SQL时不分配内存、CPU开销很小，因此进程的CPU时间和内存分配量可近似看作负载生成器的开销。
+ * 内存分配量为所有存活线程分配量的增量之和（统计窗口内结束的线程最后一段的分配量无法计入）；JVM不支持时相应的列输出-1
+ */
+class GeneratorCostMeter {
+
+	static final String HEADER = ", cpuTimePerTx, allocatedKBPerTx, allocationRate";
+
+	private com.sun.management.OperatingSystemMXBean osBean = null;
+	private com.sun.management.ThreadMXBean threadBean = null;
+
+	private long lastCpuTime;
+	private long lastTime;
+	// 线程编号 -> 上一个统计窗口结束时该线程的内存分配量
+	private Map<Long, Long> threadId2AllocatedBytes = new HashMap<>();
+
+	GeneratorCostMeter() {
+		super();
+		OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+		if (os instanceof com.sun.management.OperatingSystemMXBean) {
+			osBean = (com.sun.management.OperatingSystemMXBean) os;
+		}
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+			threadBean = (com.sun.management.ThreadMXBean) threads;
+			threadBean.setThreadAllocatedMemoryEnabled(true);
+		}
+		lastCpuTime = getProcessCpuTime();
+		lastTime = System.nanoTime();
+		getAllocatedBytes();
+	}
+
+	// 结束当前统计窗口，txNum为窗口内执行的事务数（含失败和死锁的事务），返回附加列的值
+	String nextWindow(long txNum) {
+		long cpuTime = getProcessCpuTime();
+		long time = System.nanoTime();
+		long allocatedBytes = getAllocatedBytes();
+		double seconds = (time - lastTime) / 1000000000d;
+
+		float cpuTimePerTx = cpuTime < 0 || txNum == 0 ? -1 : (float) ((cpuTime - lastCpuTime) / 1000d / txNum);
+		float allocatedKBPerTx = allocatedBytes < 0 || txNum == 0 ? -1 : (float) (allocatedBytes / 1024d / txNum);
+		float allocationRate = allocatedBytes < 0 ? -1 : (float) (allocatedBytes / 1048576d / seconds);
+
+		lastCpuTime = cpuTime;
+		lastTime = time;
+		return ", " + cpuTimePerTx + ", " + allocatedKBPerTx + ", " + allocationRate;
+	}
+
+	private long getProcessCpuTime() {
+		return osBean == null ? -1 : osBean.getProcessCpuTime();
+	}
+
+	// 自上次调用以来所有存活线程新分配的内存，单位为字节
+	private long getAllocatedBytes() {
+		if (threadBean == null) {
+			return -1;
+		}
+		long[] threadIds = threadBean.getAllThreadIds();
+		long[] allocatedBytes = threadBean.getThreadAllocatedBytes(threadIds);
+		Map<Long, Long> current = new HashMap<>();
+		long increment = 0;
+		for (int i = 0; i < threadIds.length; i++) {
+			if (allocatedBytes[i] < 0) { // 线程已结束
+				continue;
+			}
+			Long last = threadId2AllocatedBytes.get(threadIds[i]);
+			increment += allocatedBytes[i] - (last == null ? 0 : last);
+			current.put(threadIds[i], allocatedBytes[i]);
+		}
+		threadId2AllocatedBytes = current;
+		return increment;
+	}
+}
@@ -0,0 +1,171 @@
+package workloadgenerator;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 固定内存的对数分桶时延直方图（单位为us），非线程安全
+ * 小于subBucketCount的值精确记录；更大的值按2的幂分段，每段内再线性均分为subBucketCount/2个桶，
+ * 因此相对误差不超过 1 / (subBucketCount / 2)，由有效数字位数significantDigits决定（2位有效数字即误差不超过1%）。
+ * 超过最大可记录值的时延记入最后一个桶，桶的数量与记录的数据量无关。
+ */
+public class LatencyHistogram {
+
+	// 最大可记录的时延：1小时
+	private static final long HIGHEST_TRACKABLE_VALUE = 3600L * 1000 * 1000;
+
+	private int subBucketBits;
+	private int subBucketCount;
+	private int subBucketHalfCount;
+
+	private long[] counts = null;
+	private long totalCount = 0;
+	private long sum = 0;
+	private long max = 0;
+
+	public LatencyHistogram(int significantDigits) {
+		super();
+		// 3位有效数字时每个直方图约占用190KB内存，再提高精度的内存开销对于每线程直方图来说过大
+		if (significantDigits < 1 || significantDigits > 3) {
+			throw new IllegalArgumentException("significantDigits必须在1到3之间： " + significantDigits);
+		}
+		long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+		subBucketBits = 64 - Long.numberOfLeadingZeros(largestValueWithSingleUnitResolution - 1);
+		subBucketCount = 1 << subBucketBits;
+		subBucketHalfCount = subBucketCount / 2;
+		counts = new long[countsIndex(HIGHEST_TRACKABLE_VALUE) + 1];
+	}
+
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		} else if (value > HIGHEST_TRACKABLE_VALUE) {
+			value = HIGHEST_TRACKABLE_VALUE;
+		}
+		counts[countsIndex(value)]++;
+		totalCount++;
+		sum += value;
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	// 将另一个直方图（精度必须一致）合并到当前直方图中
+	public void add(LatencyHistogram other) {
+		if (other.subBucketBits != subBucketBits) {
+			throw new IllegalArgumentException("合并的直方图精度不一致！");
+		}
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		totalCount += other.totalCount;
+		sum += other.sum;
+		if (other.max > max) {
+			max = other.max;
+		}
+	}
+
+	// 将直方图写入输出流（仅写入非零的桶），多节点协同加载时代理以此向协调者汇报统计数据
+	public void writeTo(DataOutputStream out) throws IOException {
+		out.writeInt(subBucketBits);
+		out.writeLong(totalCount);
+		out.writeLong(sum);
+		out.writeLong(max);
+		int nonZeroNum = 0;
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] != 0) {
+				nonZeroNum++;
+			}
+		}
+		out.writeInt(nonZeroNum);
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] != 0) {
+				out.writeInt(i);
+				out.writeLong(counts[i]);
+			}
+		}
+	}
+
+	// 从输入流中读取一个由writeTo写入的直方图（精度必须一致），并合并到当前直方图中
+	public void addFrom(DataInputStream in) throws IOException {
+		if (in.readInt() != subBucketBits) {
+			throw new IOException("合并的直方图精度不一致！");
+		}
+		totalCount += in.readLong();
+		sum += in.readLong();
+		long otherMax = in.readLong();
+		if (otherMax > max) {
+			max = otherMax;
+		}
+		int nonZeroNum = in.readInt();
+		for (int i = 0; i < nonZeroNum; i++) {
+			int index = in.readInt();
+			if (index < 0 || index >= counts.length) {
+				throw new IOException("直方图的桶下标越界： " + index);
+			}
+			counts[index] += in.readLong();
+		}
+	}
+
+	public void reset() {
+		if (totalCount == 0) {
+			return;
+		}
+		Arrays.fill(counts, 0);
+		totalCount = 0;
+		sum = 0;
+		max = 0;
+	}
+
+	// percentile的取值范围为(0, 100]，返回的是对应桶内的最大值（不超过记录过的最大值）
+	public long getValueAtPercentile(double percentile) {
+		if (totalCount == 0) {
+			return 0;
+		}
+		long countAtPercentile = (long) Math.ceil(percentile / 100 * totalCount);
+		if (countAtPercentile < 1) {
+			countAtPercentile = 1;
+		}
+		long cumulativeCount = 0;
+		for (int i = 0; i < counts.length; i++) {
+			cumulativeCount += counts[i];
+			if (cumulativeCount >= countAtPercentile) {
+				return Math.min(highestEquivalentValue(i), max);
+			}
+		}
+		return max;
+	}
+
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	public double getMean() {
+		return totalCount == 0 ? 0 : (double) sum / totalCount;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	private int countsIndex(long value) {
+		if (value < subBucketCount) {
+			return (int) value;
+		}
+		// value >= subBucketCount，将value右移exponent位后落在[subBucketHalfCount, subBucketCount)内
+		int exponent = 64 - Long.numberOfLeadingZeros(value) - subBucketBits;
+		int subBucketIndex = (int) (value >>> exponent);
+		return subBucketCount + (exponent - 1) * subBucketHalfCount + (subBucketIndex - subBucketHalfCount);
+	}
+
+	private long highestEquivalentValue(int index) {
+		if (index < subBucketCount) {
+			return index;
+		}
+		int exponent = (index - subBucketCount) / subBucketHalfCount + 1;
+		long subBucketIndex = (index - subBucketCount) % subBucketHalfCount + subBucketHalfCount;
+		return ((subBucketIndex + 1) << exponent) - 1;
+	}
+}
@@ -0,0 +1,146 @@
+package workloadgenerator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个负载生成线程（或单个会话）独享的时延记录器，记录时不加锁、不分配对象
+ * 记录器内有两份统计数据（active/inactive），记录线程只写active；Monitor在统计窗口边界交换两者，
+ * 并借助一个轻量的写者-读者相位器（参考HdrHistogram的WriterReaderPhaser）等待仍在写旧数据的记录操作完成，
+ * 之后即可安全地读取并合并旧数据。
+ */
+public class LatencyRecorder {
+
+	private volatile RecordedStats activeStats = null;
+	private RecordedStats inactiveStats = null;
+
+	// 写者进入临界区时递增startEpoch，离开时根据所处相位递增evenEndEpoch或oddEndEpoch；startEpoch的符号位表示当前相位
+	private final AtomicLong startEpoch = new AtomicLong(0);
+	private final AtomicLong evenEndEpoch = new AtomicLong(0);
+	private final AtomicLong oddEndEpoch = new AtomicLong(Long.MIN_VALUE);
+
+	public LatencyRecorder(int significantDigits) {
+		super();
+		activeStats = new RecordedStats(significantDigits);
+		inactiveStats = new RecordedStats(significantDigits);
+	}
+
+	// 启用按事务模板、按SQL操作的时延细分统计。operationNums[txIndex]为该事务模板中最大的operationId加1
+	public LatencyRecorder(int significantDigits, int breakdownSignificantDigits, int[] operationNums) {
+		super();
+		activeStats = new RecordedStats(significantDigits, breakdownSignificantDigits, operationNums);
+		inactiveStats = new RecordedStats(significantDigits, breakdownSignificantDigits, operationNums);
+	}
+
+	// 若responceTime为-1，表示事务因为死锁执行失败；为0表示事务因为一个非死锁的错误而执行失败。单位均为ms
+	// queueingDelay小于0表示没有排队时延（以最大吞吐加载）
+	public void record(float responceTime, float queueingDelay) {
+		long criticalValueAtEnter = startEpoch.getAndIncrement();
+		try {
+			RecordedStats stats = activeStats;
+			if (responceTime > 0) {
+				stats.successHistogram.record((long) (responceTime * 1000));
+			} else if (responceTime == 0) {
+				stats.failureTxNum++;
+			} else if (responceTime == -1) {
+				stats.deadlockTxNum++;
+			} else {
+				stats.errorNum++;
+			}
+			if (queueingDelay >= 0) {
+				stats.queueingDelayHistogram.record((long) (queueingDelay * 1000));
+			}
+		} finally {
+			exitCriticalSection(criticalValueAtEnter);
+		}
+	}
+
+	// 按事务模板记录事务的响应时间（单位为ms），未启用细分统计时忽略
+	public void recordTransaction(int txIndex, float responceTime) {
+		long criticalValueAtEnter = startEpoch.getAndIncrement();
+		try {
+			RecordedStats stats = activeStats;
+			if (stats.txBreakdown != null) {
+				stats.txBreakdown[txIndex].record(responceTime > 0 ? 1 : (int) responceTime,
+						(long) (responceTime * 1000));
+			}
+		} finally {
+			exitCriticalSection(criticalValueAtEnter);
+		}
+	}
+
+	// 记录一个启用了重试的事务的重试情况：firstAttemptTime为首次执行的时延（单位为ms，事务最终成功时才大于0），retryNum为重试次数
+	public void recordRetry(int txIndex, float firstAttemptTime, int retryNum) {
+		long criticalValueAtEnter = startEpoch.getAndIncrement();
+		try {
+			RecordedStats stats = activeStats;
+			if (firstAttemptTime > 0) {
+				stats.firstAttemptHistogram.record((long) (firstAttemptTime * 1000));
+			}
+			stats.retryNum += retryNum;
+			if (retryNum > 0) {
+				stats.retriedTxNum++;
+			}
+			if (stats.txBreakdown != null) {
+				stats.txBreakdown[txIndex].recordRetry((long) (firstAttemptTime * 1000), retryNum);
+			}
+		} finally {
+			exitCriticalSection(criticalValueAtEnter);
+		}
+	}
+
+	// 按SQL操作记录操作的执行时延（单位为ns），flag的含义同TransactionBlock.execute的返回值，未启用细分统计时忽略
+	public void recordOperation(int txIndex, int operationId, long elapsedNanos, int flag) {
+		long criticalValueAtEnter = startEpoch.getAndIncrement();
+		try {
+			RecordedStats stats = activeStats;
+			if (stats.operationBreakdown != null) {
+				stats.operationBreakdown[txIndex][operationId].record(flag, elapsedNanos / 1000);
+			}
+		} finally {
+			exitCriticalSection(criticalValueAtEnter);
+		}
+	}
+
+	// 记录一次SQL操作生成参数所耗费的时间（单位为ns），用于将负载生成器自身的开销与数据库时延区分开
+	public void recordGeneration(long elapsedNanos) {
+		long criticalValueAtEnter = startEpoch.getAndIncrement();
+		try {
+			activeStats.generationHistogram.record(elapsedNanos / 1000);
+		} finally {
+			exitCriticalSection(criticalValueAtEnter);
+		}
+	}
+
+	private void exitCriticalSection(long criticalValueAtEnter) {
+		if (criticalValueAtEnter < 0) {
+			oddEndEpoch.getAndIncrement();
+		} else {
+			evenEndEpoch.getAndIncrement();
+		}
+	}
+
+	// 交换active与inactive，返回上一统计窗口的数据。调用方读取完毕后需调用RecordedStats.reset()，以便下一次交换后复用
+	public synchronized RecordedStats swap() {
+		RecordedStats tmp = inactiveStats;
+		inactiveStats = activeStats;
+		activeStats = tmp;
+		flipPhase();
+		return inactiveStats;
+	}
+
+	// 切换相位，并等待所有在切换前进入临界区的写者离开
+	private void flipPhase() {
+		boolean nextPhaseIsEven = startEpoch.get() < 0;
+		long initialStartValue = nextPhaseIsEven ? 0 : Long.MIN_VALUE;
+		if (nextPhaseIsEven) {
+			evenEndEpoch.set(initialStartValue);
+		} else {
+			oddEndEpoch.set(initialStartValue);
+		}
+		long startValueAtFlip = startEpoch.getAndSet(initialStartValue);
+		AtomicLong previousEndEpoch = nextPhaseIsEven ? oddEndEpoch : evenEndEpoch;
+		while (previousEndEpoch.get() != startValueAtFlip) {
+			Thread.yield();
+		}
+	}
+}
@@ -27,6 +27,7 @@ import serializable.TransactionBlockAdapter;
 import transactionlogic.OperationData;
 import transactionlogic.Preprocessor;
 import transactionlogic.RunningLogReader;
+import util.RandomStreams;
 
 public class LaucaProductionEnv {
 
@@ -138,7 +139,7 @@ public class LaucaProductionEnv {
 //						System.out.println(transaction.getOperationId2AvgRunTimes().get(operationId));
 							double decimalPart = transaction.getOperationId2AvgRunTimes().get(operationId)% 1;
 							int runTimes = transaction.getOperationId2AvgRunTimes().get(operationId).intValue();
-							if (Math.random() < decimalPart) {
+							if (RandomStreams.nextDouble() < decimalPart) {
 								runTimes += 1;
 							}
 //						System.out.println(runTimes);
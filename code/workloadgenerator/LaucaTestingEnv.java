@@ -57,6 +57,7 @@ public class LaucaTestingEnv {
 
 		// 读取配置文件
 		ConfigurationsReader.read(new File(args[0]));
+		WorkloadGenerator.initClientMode();
 
 		LaucaTestingEnv lauca = new LaucaTestingEnv();
 		PropertyConfigurator.configure(Configurations.getLog4jConfigFile());
@@ -73,6 +74,9 @@ public class LaucaTestingEnv {
 				case "--geneSyntheticWorkload":
 					lauca.geneSyntheticWorkload();
 					break;
+				case "--coordinateSyntheticWorkload":
+					lauca.coordinateSyntheticWorkload();
+					break;
 				default:
 					System.out.println("无法识别的参数！ " + args[i].trim());
 			}
@@ -239,6 +243,15 @@ public class LaucaTestingEnv {
 			e.printStackTrace();
 		}
 	}
+	// 作为多节点协同加载的协调者：下发运行计划、统一起始时刻并合并所有代理节点的统计数据，本身不生成负载
+	private void coordinateSyntheticWorkload() {
+		try {
+			new ClusterCoordinator(Configurations.getCoordinatorPort(), Configurations.getAgentNum()).run();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
 	//在测试数据库上运行合成负载
 	private void geneSyntheticWorkload() {
 		// 反序列化
@@ -276,6 +289,19 @@ public class LaucaTestingEnv {
 		// 读取配置信息
 		int allThreadNum = Configurations.getAllTestThreadNum();
 		int localThreadNum = Configurations.getLocalTestThreadNum();
+		// 多节点协同加载：从协调者获取运行计划，计划中的吞吐、时间窗口大小等会覆盖本地配置
+		ClusterAgent clusterAgent = null;
+		String coordinatorAddress = Configurations.getCoordinatorAddress();
+		if (coordinatorAddress != null && !coordinatorAddress.isEmpty()) {
+			try {
+				clusterAgent = new ClusterAgent(coordinatorAddress, Configurations.getCoordinatorPort());
+				clusterAgent.join(localThreadNum);
+			} catch (IOException e) {
+				e.printStackTrace();
+				return;
+			}
+			allThreadNum = clusterAgent.getAllThreadNum();
+		}
 		Workload workload = new Workload(transactions);
 		String ip = Configurations.getLaucaDatabaseIp();
 		String port = Configurations.getLaucaDatabasePort();
@@ -287,7 +313,11 @@ public class LaucaTestingEnv {
 		DBConnector dbConnector = new DBConnector(ip, port, dbName, userName, passwd);
 		WorkloadGenerator workloadGenerator = new WorkloadGenerator(allThreadNum, localThreadNum, workload,
 				dbConnector);
+		if (clusterAgent != null) {
+			workloadGenerator.setClientIdOffset(clusterAgent.getClientIdOffset());
+		}
 		workloadGenerator.constructWindowThroughputList(DistributionCounter.getTxName2ThroughputList());
+		workloadGenerator.setWindowArrivalProfileList(DistributionCounter.getWindowArrivalProfileList());
 		List<Map<String, Map<String, DataAccessDistribution>>> windowDistributionList = DistributionCounter.getWindowDistributionList();
 		windowDistributionList = DistributionCounter.windowDistributionAverage(windowDistributionList);
 		workloadGenerator.setWindowDistributionList(windowDistributionList);
@@ -296,15 +326,31 @@ public class LaucaTestingEnv {
 		workloadGenerator
 				.setTxName2ParaId2FullLifeCycleDistribution(DistributionCounter.getTxName2ParaId2GlobalDistribution());
 		// 开始执行
-		CountDownLatch countDownLatch =new CountDownLatch(allThreadNum+1);
-		new Thread(new Monitor(Configurations.getStatWindowSize(),countDownLatch)).start();
+		// 计数的是当前节点上的负载生成线程（多节点加载时allThreadNum大于localThreadNum）以及Monitor线程
+		CountDownLatch countDownLatch =new CountDownLatch(localThreadNum+1);
+		new Thread(new Monitor(Configurations.getStatWindowSize(),countDownLatch, clusterAgent)).start();
 
 		workloadGenerator.startAllThreads(countDownLatch);
+		// 测试时长不包括预热阶段
+		workloadGenerator.awaitWarmUp();
 
 		//使用join 等待所有线程结束
 		try {
-			Thread.sleep(Configurations.getTestTimeLength() * 1000L);
-		} catch (InterruptedException e) {
+			if (clusterAgent == null && Configurations.getLoadingType() == 2) {
+				// 按SLO搜索最大吞吐时，测试时长由搜索过程决定
+				workloadGenerator.awaitThroughputSearch();
+			} else if (clusterAgent == null) {
+				Thread.sleep(Configurations.getTestTimeLength() * 1000L);
+			} else {
+				// 所有会话已建好，由协调者指定统一的起始时刻，测试时长从该时刻开始计算
+				long endTime = clusterAgent.awaitStart() + Configurations.getTestTimeLength() * 1000L;
+				long waitTime;
+				while ((waitTime = endTime - System.currentTimeMillis()) > 0) {
+					Thread.sleep(waitTime);
+				}
+				clusterAgent.finish();
+			}
+		} catch (InterruptedException | IOException e) {
 			e.printStackTrace();
 		}
 
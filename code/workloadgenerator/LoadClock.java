@@ -0,0 +1,46 @@
+package workloadgenerator;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+// 负载的起始时刻（System.currentTimeMillis()）
+// 独立加载时各线程以自己开始执行的时刻为起始时刻；多节点协同加载时由协调者统一指定，所有节点在同一时刻开始第一个时间窗口，
+// 因此各节点的时间窗口下标和统计窗口下标是一致的
+class LoadClock {
+
+	private static volatile boolean coordinated = false;
+	private static volatile long startTimeMillis = 0;
+	private static final CountDownLatch startTimeReady = new CountDownLatch(1);
+
+	// 需在负载生成线程启动前调用，之后awaitStartTime会等待协调者指定的起始时刻
+	static void enableCoordinatedStart() {
+		coordinated = true;
+	}
+
+	static boolean isCoordinated() {
+		return coordinated;
+	}
+
+	// startTimeMillis已换算为当前节点的时钟
+	static void setStartTime(long startTimeMillis) {
+		LoadClock.startTimeMillis = startTimeMillis;
+		startTimeReady.countDown();
+	}
+
+	// 等待至起始时刻并返回起始时刻；独立加载时直接返回当前时刻
+	static long awaitStartTime() {
+		if (!coordinated) {
+			return System.currentTimeMillis();
+		}
+		try {
+			startTimeReady.await();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+		long waitTime;
+		while ((waitTime = startTimeMillis - System.currentTimeMillis()) > 0) {
+			LockSupport.parkNanos(waitTime * 1000000L);
+		}
+		return startTimeMillis;
+	}
+}
@@ -1,44 +1,74 @@
 package workloadgenerator;
 
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 
+import abstraction.Branch;
+import abstraction.Multiple;
+import abstraction.SqlStatement;
+import abstraction.Transaction;
+import abstraction.TransactionBlock;
 import config.Configurations;
 
 /**
- * 实时统计当前的吞吐、时延（平均时延，80%时延，90%时延，95%时延和99时延）以及出错回滚事务的吞吐
+ * 实时统计当前的吞吐、时延（平均时延，80%时延，90%时延，95%时延，99%时延以及99.9%、99.99%尾时延）以及出错回滚事务的吞吐
+ * 各负载生成线程将时延记录到各自的LatencyRecorder中（对数分桶直方图，无锁且内存固定），Monitor在每个统计窗口边界合并所有直方图
+ * 可选地按事务模板以及事务模板内的SQL操作细分统计时延和执行结果，用于定位性能变化来自哪个事务、哪条SQL
  */
 public class Monitor implements Runnable {
 
 	// 统计窗口时间大小，单位为s，默认为1s
 	private int statWindowSize = 1;
 
-	// 多个Vector<Float>是为了降低冲突
-	private static volatile List<Vector<Float>> responceTimeInfo = null;
-	// Vector<Float>的数量
-	private static int vectorNum = Configurations.getLocalTestThreadNum() * 5;
+	// 所有负载生成线程（或会话）的时延记录器
+	private static final List<LatencyRecorder> latencyRecorders = new CopyOnWriteArrayList<>();
+
+	// 按事务模板、按SQL操作细分的时延统计（配置了latencyBreakdownFile时启用），结果按统计窗口写入该文件
+	private static String[] txNames = null;
+	// operationNums[txIndex]：该事务模板中最大的operationId加1
+	private static int[] operationNums = null;
+	private static PrintWriter breakdownWriter = null;
 
 	//cdl作用为了等monitor线程和起数据库链接的线程都等建好数据库链接之后，开启事务的测试，因为建立链接所耗的时间很长
 	private CountDownLatch cdl = null;
+
+	// 多节点协同加载时当前代理节点与协调者的连接，每个统计窗口的统计数据都汇报给协调者；独立加载时为null
+	private ClusterAgent clusterAgent = null;
+	// 协调者指定的统一起始时刻（已换算为当前节点的时钟）
+	private long loadStartTime = 0;
+	// 上一个统计窗口结束时请求调度线程累计丢弃的请求数，用于得到每个统计窗口内丢弃的请求数
+	private long lastDroppedRequestNum = 0;
+
+	// 按SLO搜索最大吞吐（loadingType为2）时的搜索控制器，每个统计窗口的统计数据都交给它；其他加载类型时为null
+	private static volatile ThroughputSearch throughputSearch = null;
+	// 预热阶段的控制器，未启用预热时为null
+	private static volatile WarmUp warmUp = null;
 	public Monitor() {
 		super();
-		responceTimeInfo = newResponceTimeInfo();
 	}
 
 	public Monitor(int statWindowSize, CountDownLatch countDownLatch) {
 		super();
 		this.statWindowSize = statWindowSize;
-		responceTimeInfo = newResponceTimeInfo();
 		this.cdl = countDownLatch;
 	}
+
+	Monitor(int statWindowSize, CountDownLatch countDownLatch, ClusterAgent clusterAgent) {
+		this(statWindowSize, countDownLatch);
+		this.clusterAgent = clusterAgent;
+	}
 	
 	
 	// 支持累积平均失败事务吞吐的计算 -- 实验需求
-	private static int timesCount = 0;
-	private static float cumuFailureThroughput = 0;
+	private int timesCount = 0;
+	private float cumuFailureThroughput = 0;
 	
 	// 支持累积平均死锁事务吞吐的计算 -- 实验需求
-	private static float cumuDeadlockThroughput = 0;
+	private float cumuDeadlockThroughput = 0;
 	
 	
 	@Override
@@ -49,82 +79,253 @@ public class Monitor implements Runnable {
 		} catch (InterruptedException e) {
 			e.printStackTrace();
 		}
-		System.out.println("successThroughput, avgResponceTime, 80%ResponceTime, 90%ResponceTime, " 
-				+ "95%ResponceTime, 99%ResponceTime, failureThroughput, cumuFailureThroughput, "
-				+ "deadlockThroughput, cumuDeadlockThroughput");
+		printHeader(Configurations.isSelfBenchmark() ? GeneratorCostMeter.HEADER : "");
+
+		// 合并用的统计数据，在每个统计窗口中复用
+		RecordedStats windowStats = operationNums == null
+				? new RecordedStats(Configurations.getLatencyHistogramPrecision())
+				: new RecordedStats(Configurations.getLatencyHistogramPrecision(),
+						Configurations.getLatencyBreakdownPrecision(), operationNums);
+
+		long windowMillis = statWindowSize * 1000L;
+		if (warmUp != null) {
+			runWarmUp(windowStats, windowMillis);
+		}
+		// 负载生成器自测时另外输出其自身的CPU和内存开销，从预热结束后开始统计
+		GeneratorCostMeter costMeter = Configurations.isSelfBenchmark() ? new GeneratorCostMeter() : null;
 
 		Timer windowTimer = new Timer();
-		windowTimer.scheduleAtFixedRate(new TimerTask() {
+		TimerTask windowTask = new TimerTask() {
 			@Override
 			public void run() {
 
-				List<Vector<Float>> tmp = responceTimeInfo;
-				responceTimeInfo = newResponceTimeInfo();
+				collectWindow(windowStats);
+				printWindow(windowStats, costMeter == null ? "" : costMeter.nextWindow(
+						windowStats.successHistogram.getTotalCount() + windowStats.failureTxNum + windowStats.deadlockTxNum));
+				if (throughputSearch != null) {
+					throughputSearch.onWindow(windowStats);
+				}
 
-				List<Float> allResponceTimes = new ArrayList<>();
-				for (Vector<Float> floats : tmp) {
-					allResponceTimes.addAll(floats);
+				if (breakdownWriter != null) {
+					writeBreakdown(timesCount, windowStats);
+				}
+				if (clusterAgent != null) {
+					// 统计窗口下标从1开始，由计划执行时刻相对于统一起始时刻的偏移得到，所有代理节点是一致的
+					int windowIndex = (int) ((scheduledExecutionTime() - loadStartTime) / windowMillis);
+					clusterAgent.reportWindow(windowIndex, windowStats);
 				}
+			}
+		};
+		if (clusterAgent == null) {
+			windowTimer.scheduleAtFixedRate(windowTask, 1000, windowMillis);
+		} else {
+			// 多节点协同加载时，统计窗口与统一的起始时刻对齐
+			loadStartTime = LoadClock.awaitStartTime();
+			windowTimer.scheduleAtFixedRate(windowTask, new Date(loadStartTime + windowMillis), windowMillis);
+		}
+	}
 
-				// failureTxNum: 非死锁导致的执行失败事务数；deadlockTxNum：死锁导致的执行失败事务数
-				int successTxNum = 0, failureTxNum = 0, deadlockTxNum = 0, errorNum = 0;
-				float successTxResponceTimeSum = 0;
-
-				for (Float allResponceTime : allResponceTimes) {
-					if (allResponceTime > 0) { //感觉bug在这边，失败吞吐的响应时间真的为0吗？
-						successTxNum++;
-						successTxResponceTimeSum += allResponceTime;
-					} else if (allResponceTime == 0) {
-						failureTxNum++;
-					} else if (allResponceTime == -1) {
-						deadlockTxNum++;
-					} else {
-						errorNum++;
-					}
+	// 预热阶段：每个统计窗口合并一次所有记录器的数据交给WarmUp判断是否已稳定，这些数据不输出、也不计入结果
+	private void runWarmUp(RecordedStats windowStats, long windowMillis) {
+		long nextWindowTime = System.currentTimeMillis() + windowMillis;
+		while (warmUp.isRunning()) {
+			long waitTime;
+			while ((waitTime = nextWindowTime - System.currentTimeMillis()) > 0) {
+				try {
+					Thread.sleep(waitTime);
+				} catch (InterruptedException e) {
+					e.printStackTrace();
 				}
+			}
+			nextWindowTime += windowMillis;
+			collectWindow(windowStats);
+			warmUp.onWindow(windowStats);
+		}
+		// 丢弃预热结束前后记录的数据（负载生成线程在预热结束后不再记录预热阶段的事务）
+		collectWindow(windowStats);
+	}
+
+	// 交换并合并所有记录器在上一个统计窗口中记录的数据
+	private void collectWindow(RecordedStats windowStats) {
+		windowStats.reset();
+		for (LatencyRecorder latencyRecorder : latencyRecorders) {
+			RecordedStats recordedStats = latencyRecorder.swap();
+			windowStats.add(recordedStats);
+			recordedStats.reset();
+		}
+		long droppedRequestNum = ArrivalScheduler.getDroppedRequestNum();
+		windowStats.droppedRequestNum = droppedRequestNum - lastDroppedRequestNum;
+		lastDroppedRequestNum = droppedRequestNum;
+		windowStats.blockedClientNum = SessionPool.getBlockedClientNum();
+	}
+
+	// 输出统计结果的表头，suffix为附加列的名称
+	void printHeader(String suffix) {
+		System.out.println("successThroughput, avgResponceTime, 80%ResponceTime, 90%ResponceTime, " 
+				+ "95%ResponceTime, 99%ResponceTime, failureThroughput, cumuFailureThroughput, "
+				+ "deadlockThroughput, cumuDeadlockThroughput, 99.9%ResponceTime, 99.99%ResponceTime, "
+				+ "avgParaGenerationTime, 99%ParaGenerationTime"
+				+ (Configurations.getTransactionRetryNum() > 0 ? ", avgFirstAttemptResponceTime, 99%FirstAttemptResponceTime, retryNum, retriedTxNum" : "")
+				+ (Configurations.getLoadingType() != 0 ? ", avgQueueingDelay, 99%QueueingDelay, maxQueueingDelay, droppedRequestNum" : "")
+				+ (Configurations.getClientMode() == 1 ? ", blockedClientNum" : "") + suffix);
+	}
+
+	// 输出一个统计窗口的统计结果，suffix为附加列的值。协调者用它输出合并了所有代理节点统计数据的全局结果
+	void printWindow(RecordedStats windowStats, String suffix) {
+		LatencyHistogram successHistogram = windowStats.successHistogram;
+		LatencyHistogram queueingDelayHistogram = windowStats.queueingDelayHistogram;
+		// 参数生成耗时（每次SQL操作），单位为ms，用于区分负载生成器自身的开销与数据库的时延
+		LatencyHistogram generationHistogram = windowStats.generationHistogram;
+		String generationInfo = ", " + (float) (generationHistogram.getMean() / 1000) + ", "
+				+ toMillis(generationHistogram.getValueAtPercentile(99));
+		// 启用事务重试时，响应时间包括所有重试，这里另外输出首次执行的时延以及重试次数
+		if (Configurations.getTransactionRetryNum() > 0) {
+			LatencyHistogram firstAttemptHistogram = windowStats.firstAttemptHistogram;
+			generationInfo += ", " + (float) (firstAttemptHistogram.getMean() / 1000) + ", "
+					+ toMillis(firstAttemptHistogram.getValueAtPercentile(99)) + ", " + windowStats.retryNum + ", "
+					+ windowStats.retriedTxNum;
+		}
+		String extraInfo = Configurations.getLoadingType() == 0 ? "" : ", "
+				+ (float) (queueingDelayHistogram.getMean() / 1000) + ", "
+				+ toMillis(queueingDelayHistogram.getValueAtPercentile(99)) + ", "
+				+ toMillis(queueingDelayHistogram.getMax()) + ", " + windowStats.droppedRequestNum;
+		if (Configurations.getClientMode() == 1) {
+			// 当前阻塞在获取数据库连接上的客户端数
+			extraInfo += ", " + windowStats.blockedClientNum;
+		}
+		extraInfo += suffix;
 
-				// 其实errorNum必然为0
-				if (errorNum != 0) {
-					System.err.println("errorNum不为0， ERROR!!!");
+		// 其实errorNum必然为0
+		if (windowStats.errorNum != 0) {
+			System.err.println("errorNum不为0， ERROR!!!");
+		}
+
+		float failureThroughput = (float)windowStats.failureTxNum / statWindowSize;
+		float deadlockThroughput = (float)windowStats.deadlockTxNum / statWindowSize;
+		float successThroughput = (float)successHistogram.getTotalCount() / statWindowSize;
+		float avgResponceTime = (float) (successHistogram.getMean() / 1000);
+
+		// 支持累积平均失败事务吞吐的计算 -- 实验需求
+		timesCount++;
+		cumuFailureThroughput += failureThroughput;
+		cumuDeadlockThroughput += deadlockThroughput;
+		
+		if (successHistogram.getTotalCount() == 0) {
+			System.out.println("No successful transaction!!!, " + failureThroughput + extraInfo);
+		} else {
+			float _80ResponceTime = toMillis(successHistogram.getValueAtPercentile(80));
+			float _90ResponceTime = toMillis(successHistogram.getValueAtPercentile(90));
+			float _95ResponceTime = toMillis(successHistogram.getValueAtPercentile(95));
+			float _99ResponceTime = toMillis(successHistogram.getValueAtPercentile(99));
+			float _999ResponceTime = toMillis(successHistogram.getValueAtPercentile(99.9));
+			float _9999ResponceTime = toMillis(successHistogram.getValueAtPercentile(99.99));
+
+			System.out.println(successThroughput + ", " + avgResponceTime + ", " + _80ResponceTime + ", " + _90ResponceTime 
+					+ ", " + _95ResponceTime + ", " + _99ResponceTime + ", " + failureThroughput + ", " 
+					+ (cumuFailureThroughput / timesCount) + ", " + deadlockThroughput + ", " + (cumuDeadlockThroughput / timesCount)
+					+ ", " + _999ResponceTime + ", " + _9999ResponceTime + generationInfo + extraInfo);
+		}
+	}
+
+	// 每个事务模板以及每个SQL操作输出一行，SQL操作的名称形式为：事务名称#operationId
+	private void writeBreakdown(int windowIndex, RecordedStats windowStats) {
+		for (int i = 0; i < txNames.length; i++) {
+			writeBreakdownLine(windowIndex, "transaction", txNames[i], windowStats.txBreakdown[i]);
+			for (int j = 1; j < operationNums[i]; j++) {
+				BreakdownStats operationStats = windowStats.operationBreakdown[i][j];
+				if (operationStats.successHistogram.getTotalCount() + operationStats.failureNum
+						+ operationStats.deadlockNum > 0) {
+					writeBreakdownLine(windowIndex, "operation", txNames[i] + "#" + j, operationStats);
 				}
+			}
+		}
+		breakdownWriter.flush();
+	}
+
+	private void writeBreakdownLine(int windowIndex, String type, String name, BreakdownStats stats) {
+		LatencyHistogram histogram = stats.successHistogram;
+		breakdownWriter.println(windowIndex + ", " + type + ", " + name + ", "
+				+ (float) histogram.getTotalCount() / statWindowSize + ", " + (float) (histogram.getMean() / 1000) + ", "
+				+ toMillis(histogram.getValueAtPercentile(50)) + ", " + toMillis(histogram.getValueAtPercentile(95)) + ", "
+				+ toMillis(histogram.getValueAtPercentile(99)) + ", " + toMillis(histogram.getMax()) + ", "
+				+ (float) stats.failureNum / statWindowSize + ", " + (float) stats.deadlockNum / statWindowSize
+				+ (Configurations.getTransactionRetryNum() > 0 ? retryInfo(stats) : ""));
+	}
+
+	// 只有事务模板有首次执行的时延以及重试次数，SQL操作的这几列为空
+	private static String retryInfo(BreakdownStats stats) {
+		LatencyHistogram histogram = stats.firstAttemptHistogram;
+		if (histogram == null) {
+			return ", , , , ";
+		}
+		return ", " + (float) (histogram.getMean() / 1000) + ", " + toMillis(histogram.getValueAtPercentile(99)) + ", "
+				+ stats.retryNum + ", " + stats.retriedNum;
+	}
 
-				float failureThroughput = (float)failureTxNum / statWindowSize;
-				float deadlockThroughput = (float)deadlockTxNum / statWindowSize;
-				float successThroughput = (float)successTxNum / statWindowSize;
-				float avgResponceTime = successTxResponceTimeSum / successTxNum;
-
-				// 支持累积平均失败事务吞吐的计算 -- 实验需求
-				timesCount++;
-				cumuFailureThroughput += failureThroughput;
-				cumuDeadlockThroughput += deadlockThroughput;
-				
-				if (allResponceTimes.size() == failureTxNum + deadlockTxNum + errorNum) {
-					System.out.println("No successful transaction!!!, " + failureThroughput);
+	// 启用时延细分统计，需在创建任何时延记录器之前调用。transactions的顺序需与各Workload对象中事务的顺序一致
+	public static void initLatencyBreakdown(List<Transaction> transactions) {
+		String breakdownFile = Configurations.getLatencyBreakdownFile();
+		if (breakdownFile == null || breakdownFile.isEmpty()) {
+			return;
+		}
+		try {
+			breakdownWriter = new PrintWriter(new FileWriter(breakdownFile));
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		breakdownWriter.println("window, type, name, successThroughput, avgResponceTime, 50%ResponceTime, "
+				+ "95%ResponceTime, 99%ResponceTime, maxResponceTime, failureThroughput, deadlockThroughput"
+				+ (Configurations.getTransactionRetryNum() > 0
+						? ", avgFirstAttemptResponceTime, 99%FirstAttemptResponceTime, retryNum, retriedNum" : ""));
+
+		txNames = new String[transactions.size()];
+		operationNums = new int[transactions.size()];
+		for (int i = 0; i < transactions.size(); i++) {
+			txNames[i] = transactions.get(i).getName();
+			int maxOperationId = 0;
+			for (TransactionBlock txBlock : transactions.get(i).getTransactionBlocks()) {
+				if (txBlock instanceof Multiple) {
+					for (SqlStatement sql : ((Multiple) txBlock).getSqls()) {
+						maxOperationId = Math.max(maxOperationId, sql.getOperationId());
+					}
+				} else if (txBlock instanceof Branch) {
+					for (List<SqlStatement> branch : ((Branch) txBlock).getBranches()) {
+						for (SqlStatement sql : branch) {
+							maxOperationId = Math.max(maxOperationId, sql.getOperationId());
+						}
+					}
 				} else {
-					Collections.sort(allResponceTimes);
-					float _80ResponceTime = allResponceTimes.get((int)(0.8 * successTxNum) + failureTxNum + deadlockTxNum + errorNum);
-					float _90ResponceTime = allResponceTimes.get((int)(0.9 * successTxNum) + failureTxNum + deadlockTxNum + errorNum);
-					float _95ResponceTime = allResponceTimes.get((int)(0.95 * successTxNum) + failureTxNum + deadlockTxNum + errorNum);
-					float _99ResponceTime = allResponceTimes.get((int)(0.99 * successTxNum) + failureTxNum + deadlockTxNum + errorNum);
-
-					System.out.println(successThroughput + ", " + avgResponceTime + ", " + _80ResponceTime + ", " + _90ResponceTime 
-							+ ", " + _95ResponceTime + ", " + _99ResponceTime + ", " + failureThroughput + ", " 
-							+ (cumuFailureThroughput / timesCount) + ", " + deadlockThroughput + ", " + (cumuDeadlockThroughput / timesCount));
+					maxOperationId = Math.max(maxOperationId, ((SqlStatement) txBlock).getOperationId());
 				}
 			}
-		}, 1000, statWindowSize * 1000L);
+			operationNums[i] = maxOperationId + 1;
+		}
 	}
 
-	private List<Vector<Float>> newResponceTimeInfo() {
-		List<Vector<Float>> responceTimeInfoTmp = new ArrayList<>();
-		for (int i = 0; i < vectorNum; i++) {
-			responceTimeInfoTmp.add(new Vector<>());
-		}
-		return responceTimeInfoTmp;
+	// 直方图中记录的时延单位为us，输出时转换为ms
+	private static float toMillis(long micros) {
+		return micros / 1000f;
+	}
+
+	static void setThroughputSearch(ThroughputSearch throughputSearch) {
+		Monitor.throughputSearch = throughputSearch;
 	}
 
-	public static void addResponceTime(float responceTime) {
-		int randomIndex = (int)(Math.random() * vectorNum);
-		responceTimeInfo.get(randomIndex).add(responceTime);
+	static void setWarmUp(WarmUp warmUp) {
+		Monitor.warmUp = warmUp;
+	}
+
+	// 每个负载生成线程（或会话）创建一个独享的时延记录器
+	public static LatencyRecorder newLatencyRecorder() {
+		LatencyRecorder latencyRecorder = null;
+		if (operationNums == null) {
+			latencyRecorder = new LatencyRecorder(Configurations.getLatencyHistogramPrecision());
+		} else {
+			latencyRecorder = new LatencyRecorder(Configurations.getLatencyHistogramPrecision(),
+					Configurations.getLatencyBreakdownPrecision(), operationNums);
+		}
+		latencyRecorders.add(latencyRecorder);
+		return latencyRecorder;
 	}
 }
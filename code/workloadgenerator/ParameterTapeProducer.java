@@ -0,0 +1,59 @@
+package workloadgenerator;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+import abstraction.ParameterTape;
+import config.Configurations;
+import util.RandomStreams;
+
+/**
+ * 参数预生成线程（parameterTapeSize大于0时启用），当前节点上仅有一个
+ * 循环填充所有负载对象中SQL参数的预生成带，使负载生成线程在事务执行过程中只需取出参数值而不必对数据访问分布采样。
+ * 所有参数带都已填满时阻塞，直到有负载生成线程取出参数值或切换数据访问分布后将其唤醒，避免空转占用CPU。
+ * 参数值由各参数带自己的随机数流生成，与所属会话绑定，与本线程服务各参数带的先后次序无关。
+ */
+class ParameterTapeProducer implements Runnable {
+
+	private List<ParameterTape> tapes = new CopyOnWriteArrayList<>();
+
+	private volatile Thread producerThread = null;
+	// 生产者是否即将阻塞或正在阻塞，为true时消费者才需要唤醒生产者
+	private volatile boolean idle = false;
+
+	public void addTapes(List<ParameterTape> tapes) {
+		this.tapes.addAll(tapes);
+		wakeUp();
+	}
+
+	// 消费者调用：生产者空闲时将其唤醒。先置idle再复查一遍参数带，因此不会丢失唤醒
+	void wakeUp() {
+		if (idle) {
+			LockSupport.unpark(producerThread);
+		}
+	}
+
+	@Override
+	public void run() {
+		producerThread = Thread.currentThread();
+		RandomStreams.bind(RandomStreams.PRODUCER_STREAM, Configurations.getMachineId());
+		while (true) {
+			if (fillAll() == 0) {
+				idle = true;
+				if (fillAll() == 0) {
+					LockSupport.park(this);
+				}
+				idle = false;
+			}
+		}
+	}
+
+	private int fillAll() {
+		int count = 0;
+		for (ParameterTape tape : tapes) {
+			count += tape.fill();
+		}
+		return count;
+	}
+}
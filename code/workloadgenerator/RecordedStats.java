@@ -0,0 +1,128 @@
+package workloadgenerator;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// 一个统计窗口内记录的数据
+class RecordedStats {
+
+	// 成功事务的响应时间，单位为us
+	LatencyHistogram successHistogram = null;
+	// 事务请求的排队时延，单位为us
+	LatencyHistogram queueingDelayHistogram = null;
+	// 每次SQL操作生成参数的耗时，单位为us
+	LatencyHistogram generationHistogram = null;
+	// 启用事务重试时，最终成功的事务首次执行的时延（successHistogram中为包括所有重试的时延），单位为us
+	LatencyHistogram firstAttemptHistogram = null;
+	// failureTxNum: 非死锁导致的执行失败事务数；deadlockTxNum：死锁导致的执行失败事务数
+	long failureTxNum = 0;
+	long deadlockTxNum = 0;
+	long errorNum = 0;
+	// 重试的总次数以及发生过重试的事务数（事务最终是否成功都计入）
+	long retryNum = 0;
+	long retriedTxNum = 0;
+	// 统计窗口内丢弃的请求数和当前阻塞在获取数据库连接上的客户端数，由Monitor在统计窗口边界填入（记录器中始终为0）
+	long droppedRequestNum = 0;
+	long blockedClientNum = 0;
+
+	// 按事务模板（下标与Workload中的事务顺序一致）以及按SQL操作（事务模板下标 -> operationId）细分的统计，未启用时为null
+	BreakdownStats[] txBreakdown = null;
+	BreakdownStats[][] operationBreakdown = null;
+
+	public RecordedStats(int significantDigits) {
+		super();
+		successHistogram = new LatencyHistogram(significantDigits);
+		queueingDelayHistogram = new LatencyHistogram(significantDigits);
+		generationHistogram = new LatencyHistogram(significantDigits);
+		firstAttemptHistogram = new LatencyHistogram(significantDigits);
+	}
+
+	public RecordedStats(int significantDigits, int breakdownSignificantDigits, int[] operationNums) {
+		this(significantDigits);
+		txBreakdown = new BreakdownStats[operationNums.length];
+		operationBreakdown = new BreakdownStats[operationNums.length][];
+		for (int i = 0; i < operationNums.length; i++) {
+			txBreakdown[i] = new BreakdownStats(breakdownSignificantDigits, true);
+			operationBreakdown[i] = new BreakdownStats[operationNums[i]];
+			// operationId从1开始计数，下标0的位置空置
+			for (int j = 1; j < operationNums[i]; j++) {
+				operationBreakdown[i][j] = new BreakdownStats(breakdownSignificantDigits, false);
+			}
+		}
+	}
+
+	public void add(RecordedStats other) {
+		successHistogram.add(other.successHistogram);
+		queueingDelayHistogram.add(other.queueingDelayHistogram);
+		generationHistogram.add(other.generationHistogram);
+		firstAttemptHistogram.add(other.firstAttemptHistogram);
+		failureTxNum += other.failureTxNum;
+		deadlockTxNum += other.deadlockTxNum;
+		errorNum += other.errorNum;
+		retryNum += other.retryNum;
+		retriedTxNum += other.retriedTxNum;
+		droppedRequestNum += other.droppedRequestNum;
+		blockedClientNum += other.blockedClientNum;
+		if (txBreakdown != null && other.txBreakdown != null) {
+			for (int i = 0; i < txBreakdown.length; i++) {
+				txBreakdown[i].add(other.txBreakdown[i]);
+				for (int j = 1; j < operationBreakdown[i].length; j++) {
+					operationBreakdown[i][j].add(other.operationBreakdown[i][j]);
+				}
+			}
+		}
+	}
+
+	// 写入汇总的统计数据（不包括按事务模板、按SQL操作的细分统计），多节点协同加载时代理以此向协调者汇报
+	public void writeTo(DataOutputStream out) throws IOException {
+		successHistogram.writeTo(out);
+		queueingDelayHistogram.writeTo(out);
+		generationHistogram.writeTo(out);
+		firstAttemptHistogram.writeTo(out);
+		out.writeLong(failureTxNum);
+		out.writeLong(deadlockTxNum);
+		out.writeLong(errorNum);
+		out.writeLong(retryNum);
+		out.writeLong(retriedTxNum);
+		out.writeLong(droppedRequestNum);
+		out.writeLong(blockedClientNum);
+	}
+
+	// 读取由writeTo写入的统计数据，并合并到当前统计数据中
+	public void addFrom(DataInputStream in) throws IOException {
+		successHistogram.addFrom(in);
+		queueingDelayHistogram.addFrom(in);
+		generationHistogram.addFrom(in);
+		firstAttemptHistogram.addFrom(in);
+		failureTxNum += in.readLong();
+		deadlockTxNum += in.readLong();
+		errorNum += in.readLong();
+		retryNum += in.readLong();
+		retriedTxNum += in.readLong();
+		droppedRequestNum += in.readLong();
+		blockedClientNum += in.readLong();
+	}
+
+	public void reset() {
+		successHistogram.reset();
+		queueingDelayHistogram.reset();
+		generationHistogram.reset();
+		firstAttemptHistogram.reset();
+		failureTxNum = 0;
+		deadlockTxNum = 0;
+		errorNum = 0;
+		retryNum = 0;
+		retriedTxNum = 0;
+		droppedRequestNum = 0;
+		blockedClientNum = 0;
+		if (txBreakdown != null) {
+			for (int i = 0; i < txBreakdown.length; i++) {
+				txBreakdown[i].reset();
+				for (int j = 1; j < operationBreakdown[i].length; j++) {
+					operationBreakdown[i][j].reset();
+				}
+			}
+		}
+	}
+}
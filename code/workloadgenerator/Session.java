@@ -0,0 +1,19 @@
+package workloadgenerator;
+
+import abstraction.SessionContext;
+
+// 一个数据库会话：会话上下文（持有预编译语句）、当前所处的时间窗口以及会话独享的时延记录器
+class Session {
+
+	SessionContext context = null;
+	int windowIndex = -1;
+	// 同一时刻只有持有该会话的客户端会写入，因此上万个虚拟线程客户端只需要与会话数相同的直方图
+	LatencyRecorder latencyRecorder = null;
+
+	public Session(SessionContext context) {
+		super();
+		this.context = context;
+		this.latencyRecorder = Monitor.newLatencyRecorder();
+		context.setLatencyRecorder(latencyRecorder);
+	}
+}
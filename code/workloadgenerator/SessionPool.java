@@ -0,0 +1,50 @@
+package workloadgenerator;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import abstraction.SessionContext;
+
+/**
+ * 虚拟线程客户端模式（clientMode为1）下的数据库会话池
+ * 每个会话独占一个数据库连接以及在该连接上创建的预编译语句（事务模板由所有会话共享），大量模拟客户端（虚拟线程）共享有限的会话。
+ * 客户端每次执行事务前获取一个会话，执行完毕后归还；获取不到会话的客户端会阻塞，阻塞的客户端数由Monitor实时输出。
+ */
+class SessionPool {
+
+	private BlockingQueue<Session> idleSessions = null;
+
+	// 当前因等待数据库连接而阻塞的客户端数
+	private static final AtomicInteger blockedClientNum = new AtomicInteger();
+
+	public SessionPool(int sessionNum) {
+		super();
+		idleSessions = new ArrayBlockingQueue<>(sessionNum);
+	}
+
+	public void addSession(SessionContext context) {
+		idleSessions.add(new Session(context));
+	}
+
+	public Session acquire() throws InterruptedException {
+		Session session = idleSessions.poll();
+		if (session != null) {
+			return session;
+		}
+		blockedClientNum.incrementAndGet();
+		try {
+			return idleSessions.take();
+		} finally {
+			blockedClientNum.decrementAndGet();
+		}
+	}
+
+	public void release(Session session) {
+		idleSessions.add(session);
+	}
+
+	public static int getBlockedClientNum() {
+		return blockedClientNum.get();
+	}
+}
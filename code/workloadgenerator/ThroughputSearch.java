@@ -0,0 +1,182 @@
+package workloadgenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.log4j.Logger;
+
+import config.Configurations;
+
+/**
+ * 按SLO搜索当前节点最大可持续吞吐的控制器（loadingType为2时使用）
+ * 吞吐以搜索步骤为单位调整：每个步骤持续sloStepWindowNum个统计窗口（调整后的第一个统计窗口用于过渡，不计入），
+ * 由Monitor在每个统计窗口边界将合并后的统计数据交给控制器。步骤结束时，若成功事务响应时间和请求排队时延的指定分位数都不超过阈值、
+ * 且没有请求被丢弃，则该吞吐是可持续的。吞吐调整系数先从sloInitialScale开始倍增（或减半）直至可持续与不可持续的系数都已找到，
+ * 再二分查找，直至两者的相对差距不超过sloSearchPrecision。
+ * 搜索结束时输出最大可持续吞吐以及拐点：所有步骤中吞吐与时延之比（即power）最大的步骤，超过拐点后时延的增长快于吞吐的增长。
+ */
+class ThroughputSearch {
+
+	private ArrivalScheduler arrivalScheduler = null;
+
+	private double percentile;
+	private double latencyThreshold;
+	private int stepWindowNum;
+	private double precision;
+	private int maxStepNum;
+	private int statWindowSize;
+
+	// 当前步骤的吞吐调整系数，以及已知的最大可持续系数、最小不可持续系数（未知时为-1）
+	private double scale;
+	private double passScale = -1;
+	private double failScale = -1;
+
+	// 当前步骤已经过的统计窗口数，以及当前步骤合并后的统计数据
+	private int stepWindowCount = 0;
+	private RecordedStats stepStats = null;
+	// 当前步骤开始计入统计时，累计到达的请求数
+	private long stepStartIssuedNum = 0;
+
+	private List<SearchStep> steps = new ArrayList<>();
+	private boolean done = false;
+	private final CountDownLatch finished = new CountDownLatch(1);
+
+	private Logger logger = Logger.getLogger(ThroughputSearch.class);
+
+	public ThroughputSearch(ArrivalScheduler arrivalScheduler) {
+		super();
+		this.arrivalScheduler = arrivalScheduler;
+		this.percentile = Configurations.getSloLatencyPercentile();
+		this.latencyThreshold = Configurations.getSloLatencyThreshold();
+		this.stepWindowNum = Math.max(1, Configurations.getSloStepWindowNum());
+		this.precision = Configurations.getSloSearchPrecision();
+		this.maxStepNum = Configurations.getSloMaxStepNum();
+		this.statWindowSize = Configurations.getStatWindowSize();
+		this.scale = Configurations.getSloInitialScale();
+		this.stepStats = new RecordedStats(Configurations.getLatencyHistogramPrecision());
+		arrivalScheduler.setLoadScale(scale);
+	}
+
+	// 由Monitor在每个统计窗口边界调用（Monitor的定时线程），windowStats中的droppedRequestNum为该统计窗口内丢弃的请求数
+	public synchronized void onWindow(RecordedStats windowStats) {
+		if (done) {
+			return;
+		}
+		stepWindowCount++;
+		if (stepWindowCount == 1) {
+			stepStats.reset();
+			stepStartIssuedNum = ArrivalScheduler.getIssuedRequestNum();
+			return;
+		}
+		stepStats.add(windowStats);
+		if (stepWindowCount <= stepWindowNum) {
+			return;
+		}
+		finishStep();
+	}
+
+	private void finishStep() {
+		float seconds = (float) stepWindowNum * statWindowSize;
+		SearchStep step = new SearchStep();
+		step.scale = scale;
+		step.offeredThroughput = (ArrivalScheduler.getIssuedRequestNum() - stepStartIssuedNum) / seconds;
+		step.successThroughput = stepStats.successHistogram.getTotalCount() / seconds;
+		step.responceTime = stepStats.successHistogram.getValueAtPercentile(percentile) / 1000f;
+		step.queueingDelay = stepStats.queueingDelayHistogram.getValueAtPercentile(percentile) / 1000f;
+		step.droppedRequestNum = stepStats.droppedRequestNum;
+		step.sustainable = stepStats.successHistogram.getTotalCount() > 0 && step.responceTime <= latencyThreshold
+				&& step.queueingDelay <= latencyThreshold && step.droppedRequestNum == 0;
+		steps.add(step);
+		System.out.println("sloSearchStep, " + steps.size() + ", " + step);
+
+		if (step.sustainable) {
+			passScale = Math.max(passScale, scale);
+		} else {
+			failScale = failScale < 0 ? scale : Math.min(failScale, scale);
+		}
+
+		if (steps.size() >= maxStepNum) {
+			finish();
+			return;
+		}
+		if (failScale < 0) {
+			scale *= 2;
+		} else if (passScale < 0) {
+			// 初始吞吐就已违反SLO，向下搜索；吞吐过低时说明无论如何都无法满足SLO
+			if (scale < Configurations.getSloInitialScale() / 1024) {
+				finish();
+				return;
+			}
+			scale /= 2;
+		} else if ((failScale - passScale) / passScale <= precision) {
+			finish();
+			return;
+		} else {
+			scale = (passScale + failScale) / 2;
+		}
+		arrivalScheduler.setLoadScale(scale);
+		stepWindowCount = 0;
+	}
+
+	private void finish() {
+		done = true;
+		arrivalScheduler.stop();
+
+		SearchStep sustainableStep = null;
+		SearchStep kneeStep = null;
+		for (SearchStep step : steps) {
+			if (step.sustainable && (sustainableStep == null || step.scale > sustainableStep.scale)) {
+				sustainableStep = step;
+			}
+			if (step.responceTime > 0 && (kneeStep == null || step.getPower() > kneeStep.getPower())) {
+				kneeStep = step;
+			}
+		}
+		System.out.println("sloSearch finished, p" + percentile + " threshold = " + latencyThreshold + "ms, stepNum = "
+				+ steps.size());
+		if (sustainableStep == null) {
+			System.out.println("No sustainable throughput under the SLO!!!");
+		} else {
+			System.out.println("sustainableThroughput, " + sustainableStep);
+		}
+		if (kneeStep != null) {
+			System.out.println("kneePoint, " + kneeStep);
+		}
+		logger.info("SLO吞吐搜索结束！ passScale = " + passScale + ", failScale = " + failScale);
+		finished.countDown();
+	}
+
+	// 等待搜索结束
+	public void await() {
+		try {
+			finished.await();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+}
+
+// 一个搜索步骤的结果，时延的单位为ms
+class SearchStep {
+
+	double scale;
+	float offeredThroughput;
+	float successThroughput;
+	float responceTime;
+	float queueingDelay;
+	long droppedRequestNum;
+	boolean sustainable;
+
+	// 吞吐与时延之比，最大处即为拐点
+	double getPower() {
+		return successThroughput / responceTime;
+	}
+
+	@Override
+	public String toString() {
+		return "scale = " + (float) scale + ", offeredThroughput = " + offeredThroughput + ", successThroughput = "
+				+ successThroughput + ", responceTime = " + responceTime + ", queueingDelay = " + queueingDelay
+				+ ", droppedRequestNum = " + droppedRequestNum + ", sustainable = " + sustainable;
+	}
+}
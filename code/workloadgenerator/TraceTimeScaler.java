@@ -0,0 +1,128 @@
+package workloadgenerator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import accessdistribution.DataAccessDistribution;
+import accessdistribution.WindowMixtureDistribution;
+
+/**
+ * 按时间缩放系数（timeScaleFactor）回放负载轨迹：回放时每个时间窗口的时长仍为timeWindowSize，但对应原负载中timeScaleFactor个时间窗口，
+ * 系数大于1时压缩（如24即用1小时回放1天的负载），小于1时拉伸。
+ * 回放时间窗口的吞吐（每秒事务数）为其覆盖的原时间窗口吞吐按重叠时长的加权平均，即负载强度不变、只改变时间尺度；
+ * 事务比例按各事务在覆盖的原时间窗口中的事务量合并；参数的数据访问分布为覆盖的原时间窗口分布的混合，按该事务在各原时间窗口中的事务量加权
+ */
+class TraceTimeScaler {
+
+	private final double timeScaleFactor;
+	// 原负载的时间窗口数以及回放的时间窗口数
+	private final int windowNum;
+	private final int scaledWindowNum;
+
+	TraceTimeScaler(double timeScaleFactor, int windowNum) {
+		super();
+		this.timeScaleFactor = timeScaleFactor;
+		this.windowNum = windowNum;
+		this.scaledWindowNum = Math.max(1, (int) Math.ceil(windowNum / timeScaleFactor - 1e-9));
+	}
+
+	// 第scaledIndex个回放时间窗口与原负载第windowIndex个时间窗口的重叠时长（以原时间窗口为单位）
+	private double overlap(int scaledIndex, int windowIndex) {
+		double start = scaledIndex * timeScaleFactor;
+		double end = Math.min((scaledIndex + 1) * timeScaleFactor, windowNum);
+		return Math.max(0, Math.min(windowIndex + 1, end) - Math.max(windowIndex, start));
+	}
+
+	private int firstWindow(int scaledIndex) {
+		return (int) Math.floor(scaledIndex * timeScaleFactor);
+	}
+
+	private int lastWindow(int scaledIndex) {
+		return Math.min(windowNum - 1, (int) Math.ceil((scaledIndex + 1) * timeScaleFactor) - 1);
+	}
+
+	List<WindowThroughput> scaleThroughputList(List<WindowThroughput> windowThroughputList) {
+		List<WindowThroughput> scaledList = new ArrayList<>();
+		for (int j = 0; j < scaledWindowNum; j++) {
+			double duration = 0, txNum = 0;
+			Map<String, Double> txName2TxNum = new HashMap<>();
+			Map<String, Double> txName2RatioSum = new HashMap<>();
+			for (int i = firstWindow(j); i <= lastWindow(j); i++) {
+				double overlap = overlap(j, i);
+				WindowThroughput windowThroughput = windowThroughputList.get(i);
+				duration += overlap;
+				txNum += overlap * windowThroughput.throughput;
+				for (Map.Entry<String, Double> entry : windowThroughput.txName2Ratio.entrySet()) {
+					txName2TxNum.merge(entry.getKey(), overlap * windowThroughput.throughput * entry.getValue(), Double::sum);
+					txName2RatioSum.merge(entry.getKey(), overlap * entry.getValue(), Double::sum);
+				}
+			}
+			// 覆盖的原时间窗口吞吐都为0时，事务比例按重叠时长加权平均
+			Map<String, Double> txName2Ratio = new HashMap<>();
+			for (Map.Entry<String, Double> entry : (txNum > 0 ? txName2TxNum : txName2RatioSum).entrySet()) {
+				txName2Ratio.put(entry.getKey(), entry.getValue() / (txNum > 0 ? txNum : duration));
+			}
+			scaledList.add(new WindowThroughput((int) Math.round(txNum / duration), txName2Ratio));
+		}
+		return scaledList;
+	}
+
+	// windowThroughputList为原负载的吞吐信息，用于计算各原时间窗口分布的权重
+	List<Map<String, Map<String, DataAccessDistribution>>> scaleDistributionList(
+			List<WindowThroughput> windowThroughputList,
+			List<Map<String, Map<String, DataAccessDistribution>>> windowDistributionList) {
+		List<Map<String, Map<String, DataAccessDistribution>>> scaledList = new ArrayList<>();
+		for (int j = 0; j < scaledWindowNum; j++) {
+			// 事务名称 -> 参数标识符 -> 各原时间窗口的分布及其权重
+			Map<String, Map<String, Map<DataAccessDistribution, Double>>> components = new HashMap<>();
+			for (int i = firstWindow(j); i <= lastWindow(j) && i < windowDistributionList.size(); i++) {
+				double overlap = overlap(j, i);
+				if (overlap <= 0) {
+					continue;
+				}
+				WindowThroughput windowThroughput = windowThroughputList.get(i);
+				for (Map.Entry<String, Map<String, DataAccessDistribution>> txEntry : windowDistributionList.get(i).entrySet()) {
+					Double ratio = windowThroughput.txName2Ratio.get(txEntry.getKey());
+					// 事务量为0的时间窗口仍保留一个很小的权重，以免所有分布的权重都为0
+					double weight = overlap * (windowThroughput.throughput * (ratio == null ? 0 : ratio) + 1e-6);
+					Map<String, Map<DataAccessDistribution, Double>> paraId2Components = components
+							.computeIfAbsent(txEntry.getKey(), k -> new HashMap<>());
+					for (Map.Entry<String, DataAccessDistribution> paraEntry : txEntry.getValue().entrySet()) {
+						paraId2Components.computeIfAbsent(paraEntry.getKey(), k -> new LinkedHashMap<>())
+								.merge(paraEntry.getValue(), weight, Double::sum);
+					}
+				}
+			}
+
+			Map<String, Map<String, DataAccessDistribution>> txName2ParaId2Distribution = new HashMap<>();
+			for (Map.Entry<String, Map<String, Map<DataAccessDistribution, Double>>> txEntry : components.entrySet()) {
+				Map<String, DataAccessDistribution> paraId2Distribution = new HashMap<>();
+				for (Map.Entry<String, Map<DataAccessDistribution, Double>> paraEntry : txEntry.getValue().entrySet()) {
+					paraId2Distribution.put(paraEntry.getKey(), mix(paraEntry.getValue()));
+				}
+				txName2ParaId2Distribution.put(txEntry.getKey(), paraId2Distribution);
+			}
+			scaledList.add(txName2ParaId2Distribution);
+		}
+		return scaledList;
+	}
+
+	private static DataAccessDistribution mix(Map<DataAccessDistribution, Double> distribution2Weight) {
+		if (distribution2Weight.size() == 1) {
+			return distribution2Weight.keySet().iterator().next();
+		}
+		List<DataAccessDistribution> distributions = new ArrayList<>(distribution2Weight.keySet());
+		double[] weights = new double[distributions.size()];
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] = distribution2Weight.get(distributions.get(i));
+		}
+		return new WindowMixtureDistribution(weights, distributions);
+	}
+
+	int getScaledWindowNum() {
+		return scaledWindowNum;
+	}
+}
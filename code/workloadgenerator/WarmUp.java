@@ -0,0 +1,104 @@
+package workloadgenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.log4j.Logger;
+
+import config.Configurations;
+
+/**
+ * 预热阶段的控制器（warmUpTime大于0时启用）
+ * 预热阶段负载生成线程以最大吞吐反复执行第一个时间窗口的负载（与正式测试相同的事务比例和参数分布），使数据库的缓冲池、预编译语句缓存
+ * 以及负载生成器自身的JIT编译都进入稳定状态。Monitor在每个统计窗口边界将合并后的统计数据交给控制器，这些数据不输出、也不计入结果。
+ * 稳定的判断：最近warmUpStableWindowNum个统计窗口中，吞吐和平均时延各自的变异系数（标准差/均值）不超过warmUpTolerance，
+ * 且按最小二乘拟合的线性趋势在这些窗口上的相对漂移（斜率 * (窗口数 - 1) / 均值）也不超过warmUpTolerance。
+ * 达到稳定或者预热时间达到warmUpTime时预热结束，之后才开始正式测试（时间窗口、统计窗口均从预热结束时开始计算）。
+ */
+class WarmUp {
+
+	private int maxWindowNum;
+	private int stableWindowNum;
+	private double tolerance;
+
+	// 每个统计窗口的吞吐和平均时延（单位为us）
+	private List<Double> throughputs = new ArrayList<>();
+	private List<Double> latencies = new ArrayList<>();
+
+	private volatile boolean running = true;
+	private final CountDownLatch finished = new CountDownLatch(1);
+
+	private Logger logger = Logger.getLogger(WarmUp.class);
+
+	public WarmUp() {
+		super();
+		int statWindowSize = Configurations.getStatWindowSize();
+		this.maxWindowNum = Math.max(1, (Configurations.getWarmUpTime() + statWindowSize - 1) / statWindowSize);
+		this.stableWindowNum = Math.max(2, Configurations.getWarmUpStableWindowNum());
+		this.tolerance = Configurations.getWarmUpTolerance();
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	// 由Monitor在预热阶段的每个统计窗口边界调用
+	public void onWindow(RecordedStats windowStats) {
+		if (!running) {
+			return;
+		}
+		throughputs.add((double) windowStats.successHistogram.getTotalCount());
+		latencies.add(windowStats.successHistogram.getMean());
+		int windowNum = throughputs.size();
+		logger.info("预热中： windowNum = " + windowNum + ", successTxNum = " + windowStats.successHistogram.getTotalCount()
+				+ ", avgResponceTime = " + (float) (windowStats.successHistogram.getMean() / 1000) + "ms");
+
+		boolean stable = windowNum >= stableWindowNum && isStable(throughputs) && isStable(latencies);
+		if (stable || windowNum >= maxWindowNum) {
+			running = false;
+			finished.countDown();
+			String info = "Warm-up finished after " + windowNum + " statistics windows, "
+					+ (stable ? "steady state reached" : "steady state NOT reached within warmUpTime");
+			System.out.println(info);
+			logger.info(info);
+		}
+	}
+
+	// 最近stableWindowNum个值的变异系数和线性趋势的相对漂移都不超过tolerance
+	private boolean isStable(List<Double> values) {
+		int n = stableWindowNum;
+		int from = values.size() - n;
+		double mean = 0;
+		for (int i = from; i < values.size(); i++) {
+			mean += values.get(i);
+		}
+		mean /= n;
+		if (mean <= 0) {
+			return false;
+		}
+
+		double variance = 0;
+		// 以窗口序号0..n-1为自变量的最小二乘斜率
+		double xMean = (n - 1) / 2.0;
+		double sxy = 0, sxx = 0;
+		for (int i = 0; i < n; i++) {
+			double deviation = values.get(from + i) - mean;
+			variance += deviation * deviation;
+			sxy += (i - xMean) * deviation;
+			sxx += (i - xMean) * (i - xMean);
+		}
+		double cv = Math.sqrt(variance / n) / mean;
+		double drift = Math.abs(sxy / sxx) * (n - 1) / mean;
+		return cv <= tolerance && drift <= tolerance;
+	}
+
+	// 等待预热结束
+	public void await() {
+		try {
+			finished.await();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package workloadgenerator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+
+import abstraction.Transaction;
+import abstraction.WindowSnapshot;
+import accessdistribution.DataAccessDistribution;
+
+/**
+ * 时间窗口快照的协调者，当前节点上的所有测试客户端共享一个
+ * 每个时间窗口的快照只构建一次，并通过一个原子引用发布：客户端每次执行事务前读取该引用，
+ * 时间窗口未变化时与自己持有的快照相同，变化时直接替换引用即可，切换代价与事务、SQL操作的数量无关。
+ * 第一个进入新时间窗口的客户端负责构建快照，其余客户端直接使用。
+ */
+class WindowCoordinator {
+
+	// 负载中的事务（仅读取其结构），顺序需与各负载对象中的事务顺序一致
+	private List<Transaction> transactions = null;
+	private List<WindowThroughput> windowThroughputList = null;
+	private List<Map<String, Map<String, DataAccessDistribution>>> windowDistributionList = null;
+
+	// 已构建的快照，按时间窗口下标存放
+	private WindowSnapshot[] snapshots = null;
+	// 最近发布的快照
+	private final AtomicReference<WindowSnapshot> latestSnapshot = new AtomicReference<>();
+
+	private Logger logger = Logger.getLogger(WindowCoordinator.class);
+
+	public WindowCoordinator(List<Transaction> transactions, List<WindowThroughput> windowThroughputList,
+			List<Map<String, Map<String, DataAccessDistribution>>> windowDistributionList) {
+		super();
+		this.transactions = transactions;
+		this.windowThroughputList = windowThroughputList;
+		this.windowDistributionList = windowDistributionList;
+		// 事务吞吐与参数数据分布的时间窗口数可能不一致（如统计分析时最后一个时间窗口不完整），取两者的较小值
+		this.snapshots = new WindowSnapshot[Math.min(windowThroughputList.size(), windowDistributionList.size())];
+		if (snapshots.length > 0) {
+			latestSnapshot.set(buildSnapshot(0));
+		}
+	}
+
+	public int getWindowNum() {
+		return snapshots.length;
+	}
+
+	// 获取指定时间窗口的快照
+	public WindowSnapshot getSnapshot(int windowIndex) {
+		WindowSnapshot snapshot = latestSnapshot.get();
+		if (snapshot.getWindowIndex() == windowIndex) {
+			return snapshot;
+		}
+		return publishSnapshot(windowIndex);
+	}
+
+	private synchronized WindowSnapshot publishSnapshot(int windowIndex) {
+		WindowSnapshot snapshot = snapshots[windowIndex];
+		if (snapshot == null) {
+			snapshot = buildSnapshot(windowIndex);
+		}
+		// 按指定吞吐加载时，队列中可能还有上一个时间窗口的请求，此时不回退已发布的快照
+		// 循环回放所有时间窗口（loadingType为2）时，从最后一个时间窗口回到第一个时间窗口不算回退
+		int latestWindowIndex = latestSnapshot.get().getWindowIndex();
+		if (windowIndex > latestWindowIndex || (windowIndex == 0 && latestWindowIndex == snapshots.length - 1)) {
+			latestSnapshot.set(snapshot);
+		}
+		return snapshot;
+	}
+
+	// 依次构建快照，某个时间窗口吞吐为0时需沿用上一个时间窗口的事务比例
+	private WindowSnapshot buildSnapshot(int windowIndex) {
+		int start = windowIndex;
+		while (start > 0 && snapshots[start - 1] == null) {
+			start--;
+		}
+		for (int i = start; i <= windowIndex; i++) {
+			snapshots[i] = new WindowSnapshot(i, transactions, windowThroughputList.get(i).txName2Ratio,
+					windowDistributionList.get(i), i == 0 ? null : snapshots[i - 1]);
+			double ratioSum = 0;
+			for (double ratio : snapshots[i].getTransactionRatios()) {
+				ratioSum += ratio;
+			}
+			if (ratioSum <= 0.99999999) {
+				logger.error("所有事务的概率之和小于1！ windowIndex = " + i + ", "
+						+ Arrays.toString(snapshots[i].getTransactionRatios()));
+			}
+		}
+		return snapshots[windowIndex];
+	}
+}
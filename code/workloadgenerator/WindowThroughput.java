@@ -0,0 +1,24 @@
+package workloadgenerator;
+
+import java.util.Map;
+
+// 一个时间窗口的总事务吞吐量和各个事务的比例
+// 当前我们只考虑了事务吞吐、事务比例的动态变化，未考虑事务中分支、循环等事务逻辑的变化（事务逻辑我们默认是不变的）TODO
+class WindowThroughput {
+
+	int throughput;
+	Map<String, Double> txName2Ratio = null;
+	// 时间窗口内各时段到达量与平均到达量的比值（均值为1），为null时时间窗口内的到达速率恒定
+	double[] arrivalProfile = null;
+
+	public WindowThroughput(int throughput, Map<String, Double> txName2Ratio) {
+		super();
+		this.throughput = throughput;
+		this.txName2Ratio = txName2Ratio;
+	}
+
+	@Override
+	public String toString() {
+		return "WindowThroughput [throughput=" + throughput + ", txName2Ratio=" + txName2Ratio + "]";
+	}
+}
@@ -2,120 +2,98 @@ package workloadgenerator;
 
 import java.sql.Connection;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import org.apache.log4j.Logger;
 
+import abstraction.ParameterTape;
+import abstraction.SessionContext;
+import abstraction.SqlStatement;
 import abstraction.Transaction;
 import accessdistribution.DataAccessDistribution;
+import config.Configurations;
 
 // 测试负载的抽象类
+// 负载中的事务、SQL操作对象是只读的模板，由当前节点上的所有测试会话共享；每个会话独有的状态保存在各自的SessionContext中
 public class Workload {
 
 	private List<Transaction> transactions = null;
-	private double[] cumulativeProbabilities = null;
+	// 负载中SqlStatement对象的个数，即会话中预编译语句数组的长度
+	private int statementNum = 0;
+	private boolean templateInitialized = false;
 
 	private Logger logger = Logger.getLogger(Workload.class);
-	
+
 	public Workload(List<Transaction> transactions) {
 		super();
 		this.transactions = transactions;
 	}
 
-	// 深拷贝Workload对象，以支持多线程的负载生成
-	public Workload(Workload workload) {
-		this.transactions = new ArrayList<>();
-		for (Transaction transaction : workload.transactions) {
-			this.transactions.add(new Transaction(transaction));
-		}
-		logger.info("负载对象深拷贝成功！");
+	public List<Transaction> getTransactions() {
+		return transactions;
 	}
 
-	public void initTransactions(Connection conn) {
-//		System.out.println("initTransaction***********");
+	// 初始化事务模板（分配SqlStatement编号、传递事务逻辑信息等），需在创建任何会话之前调用，重复调用无副作用
+	public synchronized void initTemplate() {
+		if (templateInitialized) {
+			return;
+		}
+		int statementId = 0;
 		for (int i = 0; i < transactions.size(); i++) {
-			transactions.get(i).init(conn);
+			statementId = transactions.get(i).initTemplate(i, statementId);
 		}
-		logger.info("对负载中所有事务对象初始化成功！");
+		statementNum = statementId;
+		templateInitialized = true;
+		logger.info("对负载中所有事务模板初始化成功！ statementNum = " + statementNum);
 	}
 
-	// 设置当前时间窗口的事务比例，不同时间窗口各事务所占的比例可能是动态变化的
-	public void adjustTransactionRatio(Map<String, Double> txName2Ratio) {
-		
-		// bug fix，某个时间窗口可能出现吞吐为0的情况
-		Iterator<Entry<String, Double>> iter = txName2Ratio.entrySet().iterator();
-		double sum = 0;
-		while (iter.hasNext()) {
-			sum += iter.next().getValue();
-		}
-		if (sum == 0) { // 暂用上一个时间窗口的事务比例
-			return;
+	// 在一个数据库连接上创建测试会话：预编译负载中所有的SQL操作
+	public SessionContext newSession(Connection conn) {
+		initTemplate();
+		SessionContext context = new SessionContext(conn, statementNum);
+		for (Transaction transaction : transactions) {
+			transaction.prepare(context);
 		}
-		// ------ bug fix
-		
-		for (int i = 0; i < transactions.size(); i++) {
-			String txName = transactions.get(i).getName();
-			if (txName2Ratio.containsKey(txName)) {
-				transactions.get(i).setRatio(txName2Ratio.get(txName));
-			} else {
-				transactions.get(i).setRatio(0);
-			}
-		}
-		initCumulativeProbabilities();
+		return context;
 	}
-	
-	// 将当前时间窗口的参数数据分布设置到各个事务的SQL操作中，负载生成时会依据事务逻辑和参数数据分布生成具体SQL参数
-	public void adjustParameterDistribution(
-			Map<String, Map<String, DataAccessDistribution>> txName2ParaId2Distribution) {
-		for (int i = 0; i < transactions.size(); i++) {
-			String txName = transactions.get(i).getName();
-			Map<String, DataAccessDistribution> paraId2Distribution = txName2ParaId2Distribution.get(txName);
-			transactions.get(i).setSqlParaDistribution(paraId2Distribution, 1);
+
+	// 为会话中所有SQL参数创建预生成带，并交给生产者线程填充，sessionId决定各参数带的随机数流
+	public void enableParameterTapes(SessionContext context, ParameterTapeProducer parameterTapeProducer,
+			int sessionId) {
+		ParameterTape[][] parameterTapes = new ParameterTape[statementNum][];
+		List<ParameterTape> tapes = new ArrayList<>();
+		for (Transaction transaction : transactions) {
+			for (SqlStatement sql : transaction.getSqlStatements()) {
+				ParameterTape[] sqlTapes = sql.newParameterTapes(Configurations.getParameterTapeSize(), sessionId,
+						parameterTapeProducer::wakeUp);
+				parameterTapes[sql.getStatementId()] = sqlTapes;
+				for (ParameterTape tape : sqlTapes) {
+					tapes.add(tape);
+				}
+			}
 		}
+		context.setParameterTapes(parameterTapes);
+		parameterTapeProducer.addTapes(tapes);
 	}
-	
+
 	// 设置全负载周期 SQL参数的 数据分布
 	public void setFullLifeCycleParameterDistribution(
 			Map<String, Map<String, DataAccessDistribution>> txName2ParaId2FullLifeCycleDistribution) {
 		for (int i = 0; i < transactions.size(); i++) {
 			String txName = transactions.get(i).getName();
-			Map<String, DataAccessDistribution> paraId2Distribution = 
+			Map<String, DataAccessDistribution> paraId2Distribution =
 					txName2ParaId2FullLifeCycleDistribution.get(txName);
-			transactions.get(i).setSqlParaDistribution(paraId2Distribution, 0);
-		}
-	}
-
-	// 避免使用定时器时并行地发起负载请求~
-	public synchronized float execute() {
-		double randomValue = Math.random();
-		if (randomValue > 0.99999999) {
-			randomValue = randomValue - 0.000000001;
+			transactions.get(i).setSqlParaDistribution(paraId2Distribution);
 		}
-		
-		float responceTime = -Float.MAX_VALUE;
-		for (int i = 0; i < cumulativeProbabilities.length; i++) {
-			if (randomValue < cumulativeProbabilities[i]) {
-				responceTime = transactions.get(i).execute();
-				break;
-			}
-		}
-		
-		return responceTime;
 	}
 
-	private void initCumulativeProbabilities() {
-		cumulativeProbabilities = new double[transactions.size()];
-		cumulativeProbabilities[0] = transactions.get(0).getRatio();
-		for (int i = 1; i < transactions.size(); i++) {
-			cumulativeProbabilities[i] = cumulativeProbabilities[i - 1] + transactions.get(i).getRatio();
-		}
-		
-		if (cumulativeProbabilities[cumulativeProbabilities.length - 1] <= 0.99999999) {
-			logger.error("所有事务的概率之和小于1！ " + Arrays.toString(cumulativeProbabilities));
+	// 在指定会话上执行一个事务，事务按会话当前时间窗口快照中的比例选择。同一会话同一时刻只会被一个线程使用
+	public float execute(SessionContext context) {
+		int txIndex = context.getWindowSnapshot().getTransactionAliasTable().sample();
+		if (txIndex == transactions.size()) { // 所有事务的概率之和小于1
+			return -Float.MAX_VALUE;
 		}
+		return transactions.get(txIndex).execute(context);
 	}
 }
@@ -8,15 +8,17 @@ import java.util.Map.Entry;
 import accessdistribution.SequentialCtnsParaDistribution;
 import org.apache.log4j.Logger;
 
+import abstraction.SessionContext;
 import accessdistribution.DataAccessDistribution;
 
 import java.util.concurrent.CountDownLatch;
 
 import config.Configurations;
 import util.DBConnector;
+import util.RandomStreams;
 
 /**
- * 负载生成器，可部署在多个节点上，每个节点上独立启动即可
+ * 负载生成器，可部署在多个节点上：每个节点上独立启动即可，也可由一个协调者（ClusterCoordinator）统一下发运行计划并汇总统计数据
  */
 public class WorkloadGenerator {
 
@@ -24,6 +26,8 @@ public class WorkloadGenerator {
 	private int allThreadNum;
 	// 当前节点上的测试客户端数量
 	private int localThreadNum;
+	// 当前节点第一个测试客户端的全局编号，小于0时为machineId * localThreadNum（各节点的测试客户端数量相同时）
+	private int clientIdOffset = -1;
 
 	private Workload workload = null;
 	private DBConnector dbConnector = null;
@@ -40,6 +44,14 @@ public class WorkloadGenerator {
 	// 所有SQL参数的全生命周期 数据访问分布（利用采样的数据统计得到的）
 	private Map<String, Map<String, DataAccessDistribution>> txName2ParaId2FullLifeCycleDistribution = null;
 
+	// SQL参数预生成线程，未启用参数预生成时为null
+	private ParameterTapeProducer parameterTapeProducer = null;
+
+	// 按SLO搜索最大吞吐的控制器，loadingType不为2时为null
+	private ThroughputSearch throughputSearch = null;
+	// 预热阶段的控制器，未启用预热时为null
+	private WarmUp warmUp = null;
+
 	private Logger logger = Logger.getLogger(WorkloadGenerator.class);
 
 	public WorkloadGenerator(Workload workload) {
@@ -106,6 +118,13 @@ public class WorkloadGenerator {
 				+ windowThroughputList.size());
 	}
 
+	// 设置各时间窗口内的到达分布（按时段的相对到达量），用于重现时间窗口内的突发性
+	public void setWindowArrivalProfileList(List<double[]> windowArrivalProfileList) {
+		for (int i = 0; i < windowThroughputList.size() && i < windowArrivalProfileList.size(); i++) {
+			windowThroughputList.get(i).arrivalProfile = windowArrivalProfileList.get(i);
+		}
+	}
+
 	public void setWindowDistributionList(
 			List<Map<String, Map<String, DataAccessDistribution>>> windowDistributionList) {
 		this.windowDistributionList = windowDistributionList;
@@ -124,49 +143,64 @@ public class WorkloadGenerator {
 
 	// 启动当前节点上的所有测试客户端
 	public void startAllThreads(CountDownLatch countDownLatch) {
-		Thread[] threads = new Thread[localThreadNum];
+		Monitor.initLatencyBreakdown(workload.getTransactions());
+
+		// 事务模板由所有测试会话共享，只初始化一次
+		// 数据访问分布信息类必须可以由多线程共享（可以被共享的前提是生成随机数据时不可更新对象属性值）
+		// 因此我们在生成随机数据时弃用了'intervalInnerIndexes'属性
+		workload.initTemplate();
+		workload.setFullLifeCycleParameterDistribution(txName2ParaId2FullLifeCycleDistribution);
+
+		// 按时间缩放系数重新划分回放的时间窗口
+		if (Configurations.getTimeScaleFactor() != 1) {
+			TraceTimeScaler traceTimeScaler = new TraceTimeScaler(Configurations.getTimeScaleFactor(),
+					windowThroughputList.size());
+			windowDistributionList = traceTimeScaler.scaleDistributionList(windowThroughputList, windowDistributionList);
+			windowThroughputList = traceTimeScaler.scaleThroughputList(windowThroughputList);
+			logger.info("按时间缩放系数重新划分时间窗口！ timeScaleFactor = " + Configurations.getTimeScaleFactor()
+					+ ", windowNum = " + windowThroughputList.size());
+		}
 
+		// 每个时间窗口的事务比例和参数数据分布只构建一次，由所有测试客户端共享
+		WindowCoordinator windowCoordinator = new WindowCoordinator(workload.getTransactions(), windowThroughputList,
+				windowDistributionList);
 
+		// 预热阶段的统计数据由Monitor交给WarmUp，不计入结果
+		if (Configurations.getWarmUpTime() > 0) {
+			warmUp = new WarmUp();
+			Monitor.setWarmUp(warmUp);
+		}
 
-		for (int i = 0; i < localThreadNum; i++) {
-			// 这里的Workload一定要深拷贝，以避免多测试线程共享Workload对象而发生错误
-			Workload workloadCopy = new Workload(workload);
-
-			Connection conn = null;
-			String databaseType = Configurations.getDatabaseType().toLowerCase();
-			if (databaseType.equals("mysql")||databaseType.equals("tidb")) {
-				conn = dbConnector.getMySQLConnection();
-			} else if (databaseType.equals("postgresql")) {
-				conn = dbConnector.getPostgreSQLConnection();
-			} else if (databaseType.equals("oracle")) {
-				conn = dbConnector.getOracleConnection();
+		// 按指定吞吐加载时，由一个调度线程统一计算事务请求的到达时间，负载生成线程只负责执行
+		ArrivalScheduler arrivalScheduler = null;
+		if (Configurations.getLoadingType() != 0) {
+			arrivalScheduler = new ArrivalScheduler(allThreadNum, localThreadNum, windowThroughputList,
+					windowCoordinator.getWindowNum(), countDownLatch, warmUp);
+			if (Configurations.getLoadingType() == 2) {
+				throughputSearch = new ThroughputSearch(arrivalScheduler);
+				Monitor.setThroughputSearch(throughputSearch);
 			}
+			new Thread(arrivalScheduler, "ArrivalScheduler").start();
+		}
 
-			try {
-				conn.setAutoCommit(false);
-				int txIsolation = Configurations.getTransactionIsolation();
-				if (txIsolation == 0) {
-					conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
-				} else if (txIsolation == 1) {
-					conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
-				} else if (txIsolation == 2) {
-					conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
-				} else if (txIsolation == 3) {
-					conn.setTransactionIsolation(Connection.TRANSACTION_READ_UNCOMMITTED);
-				}
-			} catch (SQLException e) {
-				e.printStackTrace();
-			}
-			workloadCopy.initTransactions(conn);
+		// 参数预生成线程需在会话创建前就绪，各会话创建时将自己的参数带注册进来
+		if (Configurations.getParameterTapeSize() > 0) {
+			parameterTapeProducer = new ParameterTapeProducer();
+		}
 
-			// 数据访问分布信息类必须可以由多线程共享（可以被共享的前提是生成随机数据时不可更新对象属性值）
-			// 因此我们在生成随机数据时弃用了'intervalInnerIndexes'属性（其实也可以为每个负载生成线程深拷贝一个数据分布信息对象，但是比较麻烦，就放弃了）
-			workloadCopy.setFullLifeCycleParameterDistribution(txName2ParaId2FullLifeCycleDistribution);
+		if (Configurations.getClientMode() == 1) {
+			startVirtualClients(countDownLatch, windowCoordinator, arrivalScheduler);
+			startParameterTapeProducer();
+			return;
+		}
 
-			threads[i] = new Thread(new WorkloadGeneratorThread(workloadCopy, allThreadNum, windowThroughputList,
-					windowDistributionList,countDownLatch));
+		Thread[] threads = new Thread[localThreadNum];
+		for (int i = 0; i < localThreadNum; i++) {
+			threads[i] = new Thread(new WorkloadGeneratorThread(workload, newSession(getClientId(i)), getClientId(i),
+					windowCoordinator, arrivalScheduler, warmUp, countDownLatch));
 			threads[i].start();
 		}
+		startParameterTapeProducer();
 		logger.info("所有负载生成线程启动成功！ localThreadNum = " + localThreadNum);
 //		for(int i = 0;i < localThreadNum;i++){
 //			try {
@@ -177,6 +211,138 @@ public class WorkloadGenerator {
 //		}
 	}
 
+	// 虚拟线程客户端模式：localThreadNum个模拟客户端各自运行在一个虚拟线程上，共享virtualConnectionNum个数据库会话
+	// 这样单个节点即可模拟上万个并发会话，而预编译语句和数据库连接的数量只与会话数有关
+	private void startVirtualClients(CountDownLatch countDownLatch, WindowCoordinator windowCoordinator,
+			ArrivalScheduler arrivalScheduler) {
+		int carrierThreadNum = Configurations.getVirtualCarrierThreadNum();
+		int sessionNum = Math.min(Configurations.getVirtualConnectionNum(), localThreadNum);
+		SessionPool sessionPool = new SessionPool(sessionNum);
+		for (int i = 0; i < sessionNum; i++) {
+			sessionPool.addSession(newSession(getClientId(i)));
+		}
+
+		for (int i = 0; i < localThreadNum; i++) {
+			Runnable client = new WorkloadGeneratorThread(workload, sessionPool, getClientId(i), windowCoordinator,
+					arrivalScheduler, warmUp, countDownLatch);
+			Thread thread = newVirtualThread(client);
+			if (thread == null) {
+				// initClientMode已检查过JDK版本，这里只可能是JVM禁用了虚拟线程
+				throw new IllegalStateException("无法创建虚拟线程，clientMode = 1 需要JDK 21及以上！");
+			}
+			thread.start();
+		}
+		logger.info("所有模拟客户端启动成功！ localThreadNum = " + localThreadNum + ", sessionNum = " + sessionNum
+				+ ", carrierThreadNum = " + carrierThreadNum);
+	}
+
+	// 测试客户端在所有节点中的全局编号，作为其随机数流的编号
+	private int getClientId(int localIndex) {
+		if (clientIdOffset >= 0) {
+			return clientIdOffset + localIndex;
+		}
+		return Configurations.getMachineId() * localThreadNum + localIndex;
+	}
+
+	private void startParameterTapeProducer() {
+		if (parameterTapeProducer == null) {
+			return;
+		}
+		Thread producerThread = new Thread(parameterTapeProducer, "ParameterTapeProducer");
+		// 负载生成结束后无需等待该线程
+		producerThread.setDaemon(true);
+		producerThread.start();
+		logger.info("参数预生成线程启动成功！ parameterTapeSize = " + Configurations.getParameterTapeSize());
+	}
+
+	// 检查并准备测试客户端的运行方式，需在读取配置文件之后、创建任何线程之前调用（虚拟线程的调度器在创建第一个虚拟线程时初始化，
+	// 之后再设置载体线程数是无效的）。配置要求虚拟线程而当前JDK不支持，或者命令行上指定的载体线程数与配置不一致时直接报错，
+	// 而不是退化为平台线程或者使用JVM默认的载体线程数
+	public static void initClientMode() {
+		if (Configurations.getClientMode() != 1) {
+			return;
+		}
+		int jdkVersion = Runtime.version().feature();
+		if (jdkVersion < 21) {
+			throw new IllegalStateException("clientMode = 1 需要JDK 21及以上的虚拟线程，当前JDK版本为" + jdkVersion + "！");
+		}
+		int carrierThreadNum = Configurations.getVirtualCarrierThreadNum();
+		if (carrierThreadNum <= 0) {
+			return;
+		}
+		String parallelism = System.getProperty("jdk.virtualThreadScheduler.parallelism");
+		if (parallelism != null && !parallelism.trim().equals(String.valueOf(carrierThreadNum))) {
+			throw new IllegalStateException("命令行上指定的jdk.virtualThreadScheduler.parallelism = " + parallelism
+					+ " 与配置的virtualCarrierThreadNum = " + carrierThreadNum + " 不一致！");
+		}
+		System.setProperty("jdk.virtualThreadScheduler.parallelism", String.valueOf(carrierThreadNum));
+		if (System.getProperty("jdk.virtualThreadScheduler.maxPoolSize") == null) {
+			System.setProperty("jdk.virtualThreadScheduler.maxPoolSize", String.valueOf(Math.max(256, carrierThreadNum)));
+		}
+	}
+
+	// 通过反射创建虚拟线程（未启动），以便在低版本JDK上也能编译运行；不支持时返回null
+	private static Thread newVirtualThread(Runnable runnable) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			return (Thread) Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class)
+					.invoke(builder, runnable);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	// 创建一个新的数据库连接，并在其上创建一个测试会话（事务模板共享，会话只持有预编译语句和执行状态）
+	// sessionId为会话编号（取所属客户端的编号），决定会话中参数预生成带的随机数流
+	private SessionContext newSession(int sessionId) {
+		Connection conn = null;
+		String databaseType = Configurations.getDatabaseType().toLowerCase();
+		if (Configurations.isSelfBenchmark()) {
+			conn = dbConnector.getStandInConnection();
+		} else if (databaseType.equals("mysql")||databaseType.equals("tidb")) {
+			conn = dbConnector.getMySQLConnection();
+		} else if (databaseType.equals("postgresql")) {
+			conn = dbConnector.getPostgreSQLConnection();
+		} else if (databaseType.equals("oracle")) {
+			conn = dbConnector.getOracleConnection();
+		}
+
+		try {
+			conn.setAutoCommit(false);
+			int txIsolation = Configurations.getTransactionIsolation();
+			if (txIsolation == 0) {
+				conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+			} else if (txIsolation == 1) {
+				conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+			} else if (txIsolation == 2) {
+				conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+			} else if (txIsolation == 3) {
+				conn.setTransactionIsolation(Connection.TRANSACTION_READ_UNCOMMITTED);
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		SessionContext context = workload.newSession(conn);
+		if (parameterTapeProducer != null) {
+			workload.enableParameterTapes(context, parameterTapeProducer, sessionId);
+		}
+		return context;
+	}
+
+	// 等待预热结束，未启用预热时直接返回
+	public void awaitWarmUp() {
+		if (warmUp != null) {
+			warmUp.await();
+		}
+	}
+
+	// 等待SLO吞吐搜索结束（loadingType为2时），其他加载类型时直接返回
+	public void awaitThroughputSearch() {
+		if (throughputSearch != null) {
+			throughputSearch.await();
+		}
+	}
+
 	public void setAllThreadNum(int allThreadNum) {
 		this.allThreadNum = allThreadNum;
 	}
@@ -185,6 +351,10 @@ public class WorkloadGenerator {
 		this.localThreadNum = localThreadNum;
 	}
 
+	public void setClientIdOffset(int clientIdOffset) {
+		this.clientIdOffset = clientIdOffset;
+	}
+
 	public void setDbConnector(DBConnector dbConnector) {
 		this.dbConnector = dbConnector;
 	}
@@ -195,22 +365,42 @@ public class WorkloadGenerator {
 // 具体的负载生成线程，这里假设所有传入的引用对象是线程安全的
 class WorkloadGeneratorThread implements Runnable {
 
-	private Workload workload = null; // 必须深拷贝
-	private int allThreadNum;
-	// 下面两个引用可被多线程共享
-	private List<WindowThroughput> windowThroughputList = null;
-	private List<Map<String, Map<String, DataAccessDistribution>>> windowDistributionList = null;
+	// 所有线程共享的负载（只读的事务模板）
+	private Workload workload = null;
+	// 当前线程独享的测试会话（数据库连接、预编译语句以及事务执行状态）
+	private SessionContext sessionContext = null;
+	// 虚拟线程客户端模式下，客户端不持有会话，每次执行事务时从会话池中获取
+	private SessionPool sessionPool = null;
+	// 测试客户端的全局编号，决定当前线程使用的随机数流
+	private int clientId;
+	// workload当前所处的时间窗口
+	private int windowIndex = -1;
+	// 当前线程独享的时延记录器（虚拟线程客户端模式下使用会话的时延记录器）
+	private LatencyRecorder latencyRecorder = null;
+	// 时间窗口快照的协调者（多线程共享）
+	private WindowCoordinator windowCoordinator = null;
+	// 按指定吞吐加载时的请求调度器（多线程共享），以最大吞吐加载时为null
+	private ArrivalScheduler arrivalScheduler = null;
+	// 预热阶段的控制器（多线程共享），未启用预热时为null
+	private WarmUp warmUp = null;
+	// 当前线程正在执行预热阶段的事务
+	private boolean warmingUp = false;
 
 	//cdl作用为了等monitor线程和起数据库链接的线程都等建好数据库链接之后，开启事务的测试，因为建立链接所耗的时间很长
 	private CountDownLatch cdl = null;
 
-	public WorkloadGeneratorThread(Workload workload, int allThreadNum, List<WindowThroughput> windowThroughputList,
-			List<Map<String, Map<String, DataAccessDistribution>>> windowDistributionList,CountDownLatch countDownLatch) {
+	public WorkloadGeneratorThread(Workload workload, SessionContext sessionContext, int clientId,
+			WindowCoordinator windowCoordinator, ArrivalScheduler arrivalScheduler, WarmUp warmUp,
+			CountDownLatch countDownLatch) {
 		super();
 		this.workload = workload;
-		this.allThreadNum = allThreadNum;
-		this.windowThroughputList = windowThroughputList;
-		this.windowDistributionList = windowDistributionList;
+		this.sessionContext = sessionContext;
+		this.clientId = clientId;
+		this.windowCoordinator = windowCoordinator;
+		this.arrivalScheduler = arrivalScheduler;
+		this.warmUp = warmUp;
+		this.latencyRecorder = Monitor.newLatencyRecorder();
+		sessionContext.setLatencyRecorder(latencyRecorder);
 
 //		int k = Configurations.getMergeWeight().intValue();
 //		for (int i = k;i < windowDistributionList.size();++i){
@@ -249,8 +439,22 @@ class WorkloadGeneratorThread implements Runnable {
 		this.cdl = countDownLatch;
 	}
 
+	public WorkloadGeneratorThread(Workload workload, SessionPool sessionPool, int clientId,
+			WindowCoordinator windowCoordinator, ArrivalScheduler arrivalScheduler, WarmUp warmUp,
+			CountDownLatch countDownLatch) {
+		super();
+		this.workload = workload;
+		this.sessionPool = sessionPool;
+		this.clientId = clientId;
+		this.windowCoordinator = windowCoordinator;
+		this.arrivalScheduler = arrivalScheduler;
+		this.warmUp = warmUp;
+		this.cdl = countDownLatch;
+	}
+
 	@Override
 	public void run() {
+		RandomStreams.bind(RandomStreams.WORKLOAD_STREAM, clientId);
 
 		cdl.countDown();
 		try {
@@ -258,120 +462,87 @@ class WorkloadGeneratorThread implements Runnable {
 		} catch (InterruptedException e) {
 			e.printStackTrace();
 		}
+		// 预热阶段：以最大吞吐反复执行第一个时间窗口的负载，直到吞吐和时延稳定
+		if (warmUp != null) {
+			warmingUp = true;
+			while (warmUp.isRunning()) {
+				executeAndRecord(0, -1);
+			}
+			warmingUp = false;
+		}
+
 		// timeWindowMillis：一个时间窗口的毫秒数
 		int timeWindowMillis = Configurations.getTimeWindowSize() * 1000;
-		// 负载加载类型：0，以最大吞吐压；1：按指定吞吐压
+		// 负载加载类型：0，以最大吞吐压；1：按指定吞吐压；2：按SLO搜索最大吞吐
 		int loadingType = Configurations.getLoadingType();
 
 //		long testTimeLength = Configurations.getTestTimeLength();
-		long threadStartTime = System.currentTimeMillis();
+		// 多节点协同加载时所有节点的线程在同一时刻开始第一个时间窗口
+		long threadStartTime = LoadClock.awaitStartTime();
 //		long threadEndTime = threadStartTime + testTimeLength * 1000;
 		if (loadingType == 0) {
 			//
-			long threadEndTime = threadStartTime + windowThroughputList.size() * timeWindowMillis;
+			long threadEndTime = threadStartTime + windowCoordinator.getWindowNum() * timeWindowMillis;
 			//---modified by lyqu
-			int windowIndex = 0;
-			workload.adjustTransactionRatio(windowThroughputList.get(windowIndex).txName2Ratio);
-			workload.adjustParameterDistribution(windowDistributionList.get(windowIndex));
-
 			while (true) {
 				long currentTime = System.currentTimeMillis();
 				if (currentTime >= threadEndTime) {
 					System.out.println("thread time end");
 					break;
 				}
-				int tmpIndex = (int) (currentTime - threadStartTime) / timeWindowMillis;
-				if (tmpIndex > windowIndex) {
-					windowIndex = tmpIndex;
-//					System.out.println("testing1");
-					workload.adjustTransactionRatio(windowThroughputList.get(windowIndex).txName2Ratio);
-					workload.adjustParameterDistribution(windowDistributionList.get(windowIndex));
-//					System.out.println("testing2");
-				}
-				float responceTime = 0;
-				responceTime = workload.execute();
-
-//				System.out.println(responceTime);//qly输出: 先看一下responceTime
-				Monitor.addResponceTime(responceTime);
+				int windowIndex = (int) (currentTime - threadStartTime) / timeWindowMillis;
+				executeAndRecord(windowIndex, -1);
 			}
-		} else if (loadingType == 1) {
-			// windowTimer是用来不断切换时间窗口的（事务吞吐 -- 总吞吐量和各事务比例；参数数据分布）
-			Timer windowTimer = new Timer();
-//			System.out.println("WG1");
-			windowTimer.scheduleAtFixedRate(new TimerTask() {
-				@Override
-				public void run() {
-					int windowIndex = (int) ((System.currentTimeMillis() - threadStartTime) / timeWindowMillis);
-					if (windowIndex >= windowThroughputList.size() || windowIndex >= windowDistributionList.size()) {
-						windowTimer.cancel();
-					}
-//					System.out.println("WG2");
-					workload.adjustParameterDistribution(windowDistributionList.get(windowIndex));  //这里出现问题
-//					System.out.println("WG3");
-					WindowThroughput windowThroughput = windowThroughputList.get(windowIndex);
-//					System.out.println("WG4");
-					workload.adjustTransactionRatio(windowThroughput.txName2Ratio);
-//					System.out.println("WG5");
-					// 单个测试线程每秒的事务请求量
-					double singleThreadThroughput = 0;
-					if (Configurations.getFixedThroughput() != -1) {
-						singleThreadThroughput = (double) Configurations.getFixedThroughput() / allThreadNum;
-					} else {
-						// 事务吞吐扩展因子
-//						System.out.println("WG6");
-						double throughputScaleFactor = Configurations.getThroughputScaleFactor();
-						singleThreadThroughput = windowThroughput.throughput * throughputScaleFactor / allThreadNum;
-					}
-
-					// TODO （简单地调整了一下，对于超低吞吐的负载可能有点误差）
-					if (singleThreadThroughput > 0 && singleThreadThroughput < 1) {
-						singleThreadThroughput = 1;
-					}
-					if (singleThreadThroughput == 0) {
-						return; // 当前时间窗口不加载负载
-					}
-
-					// 一秒钟（1000ms）平摊给每个事务请求的时间段
-					long period = Math.round(1000 / singleThreadThroughput);
-
-					long currentWindowStartTime = System.currentTimeMillis();
-//					System.out.println("WG7");
-					Timer transactionRequestTimer = new Timer();
-					transactionRequestTimer.scheduleAtFixedRate(new TimerTask() {
-						@Override
-						public void run() {
-							if (System.currentTimeMillis() - currentWindowStartTime >= timeWindowMillis) {
-								transactionRequestTimer.cancel();
-							}
-							float responceTime = 0;
-							responceTime = workload.execute();
-
-							Monitor.addResponceTime(responceTime);
-						}
-					}, 0, period); // 不断发起事务请求
-
-				}
-			}, 0, timeWindowMillis); // 不断切换时间窗口
-
-		} // else if (loadingType == 1)
+		} else {
+			// 事务请求的到达时间由ArrivalScheduler统一确定，这里仅按序取出请求并执行（开环加载）
+			ArrivalRequest request;
+			while ((request = arrivalScheduler.nextRequest()) != null) {
+				// 排队时延：从预定到达时间到实际开始执行的时间，单位为ms
+				float queueingDelay = (System.nanoTime() - request.intendedStartTime) / 1000000f;
+				executeAndRecord(request.windowIndex, queueingDelay);
+			}
+		}
 	}
-}
-
-// 一个时间窗口的总事务吞吐量和各个事务的比例
-// 当前我们只考虑了事务吞吐、事务比例的动态变化，未考虑事务中分支、循环等事务逻辑的变化（事务逻辑我们默认是不变的）TODO
-class WindowThroughput {
 
-	int throughput;
-	Map<String, Double> txName2Ratio = null;
+	// 按指定时间窗口执行一个事务并记录其响应时间，时间窗口变化时切换到该时间窗口的快照（事务比例和参数数据分布）
+	// queueingDelay小于0表示没有排队时延（以最大吞吐加载）
+	private void executeAndRecord(int windowIndex, float queueingDelay) {
+		if (sessionPool == null) {
+			if (this.windowIndex != windowIndex) {
+				this.windowIndex = windowIndex;
+				sessionContext.setWindowSnapshot(windowCoordinator.getSnapshot(windowIndex));
+			}
+			float responceTime = workload.execute(sessionContext);
+//			System.out.println(responceTime);//qly输出: 先看一下responceTime
+			if (isRecordable()) {
+				latencyRecorder.record(responceTime, queueingDelay);
+			}
+			return;
+		}
 
-	public WindowThroughput(int throughput, Map<String, Double> txName2Ratio) {
-		super();
-		this.throughput = throughput;
-		this.txName2Ratio = txName2Ratio;
+		Session session = null;
+		try {
+			session = sessionPool.acquire();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			return;
+		}
+		try {
+			if (session.windowIndex != windowIndex) {
+				session.windowIndex = windowIndex;
+				session.context.setWindowSnapshot(windowCoordinator.getSnapshot(windowIndex));
+			}
+			float responceTime = workload.execute(session.context);
+			if (isRecordable()) {
+				session.latencyRecorder.record(responceTime, queueingDelay);
+			}
+		} finally {
+			sessionPool.release(session);
+		}
 	}
 
-	@Override
-	public String toString() {
-		return "WindowThroughput [throughput=" + throughput + ", txName2Ratio=" + txName2Ratio + "]";
+	// 预热阶段开始、预热结束后才完成的事务不记录（Monitor已丢弃预热阶段的数据）
+	private boolean isRecordable() {
+		return !warmingUp || warmUp.isRunning();
 	}
 }